@@ -4,20 +4,27 @@ import chunklocked.advancement.AdvancementCompletedCallback;
 import chunklocked.advancement.AdvancementCreditManager;
 import chunklocked.advancement.NotificationManager;
 import chunklocked.block.BarrierBlockV2;
+import chunklocked.border.BarrierWorkQueue;
 import chunklocked.border.ChunkBarrierManager;
 import chunklocked.command.ChunklockedCommand;
 import chunklocked.config.AdvancementRewardConfig;
 import chunklocked.config.ConfigManager;
 import chunklocked.core.ChunkAccessManager;
 import chunklocked.core.ChunkManager;
+import chunklocked.core.ChunkUnlockStateChangedCallback;
 import chunklocked.core.ChunkUnlockData;
+import chunklocked.core.DataLoadGate;
+import chunklocked.core.DistanceField;
 import chunklocked.core.ChunklockedMode;
 import chunklocked.core.ChunklockedWorldPresets;
+import chunklocked.core.SaveScheduler;
 import chunklocked.core.StarterItemsManager;
+import chunklocked.core.StorageBackend;
 import chunklocked.network.CreditUpdatePacket;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import net.fabricmc.fabric.api.networking.v1.PayloadTypeRegistry;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
 import net.fabricmc.loader.api.FabricLoader;
@@ -26,6 +33,7 @@ import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.network.chat.Component;
 import net.minecraft.resources.Identifier;
 import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.Blocks;
@@ -63,6 +71,9 @@ public class Chunklocked implements ModInitializer {
 	private static ChunkManager chunkManager;
 	private static ChunkAccessManager chunkAccessManager;
 	private static ChunkBarrierManager barrierManager;
+	private static BarrierWorkQueue barrierQueue;
+	private static SaveScheduler saveScheduler;
+	private static DataLoadGate loadGate;
 
 	@Override
 	public void onInitialize() {
@@ -96,6 +107,9 @@ public class Chunklocked implements ModInitializer {
 		// Register block break protection
 		chunklocked.border.BlockBreakProtection.register();
 
+		// Walls for chunks that were not loaded are placed when they load
+		chunklocked.border.LazyBarrierLoader.register();
+
 		// NonPlayerBlockChangeProtection removed - we now replace leaves during initial
 		// barrier placement
 		// This eliminates the need for scanning since leaves are the only naturally
@@ -122,36 +136,87 @@ public class Chunklocked implements ModInitializer {
 		creditManager.loadConfig(config);
 
 		// Register server lifecycle events
+		// The world directory is known before any level loads, so the data is
+		// read on a background thread while the server prepares the worlds
+		ServerLifecycleEvents.SERVER_STARTING.register(server -> {
+			LOGGER.info("Server starting, loading chunk unlock data in the background...");
+			persistentData = null;
+			chunkManager = null;
+			chunkAccessManager = null;
+			barrierManager = null;
+			barrierQueue = null;
+
+			Path worldDir = ChunkUnlockData.worldDirectory(server);
+			AdvancementRewardConfig storageConfig = configManager.getOrLoadConfig();
+			String backend = storageConfig.getStorageBackend();
+			boolean mappedChunks = storageConfig.isMappedChunkStore();
+			int distanceFieldRadius = storageConfig.getDistanceFieldRadius();
+			loadGate = new DataLoadGate(() -> {
+				ChunkUnlockData data = new ChunkUnlockData(creditManager,
+						StorageBackend.create(backend, worldDir, mappedChunks));
+				data.setDistanceFieldRadius(distanceFieldRadius);
+				data.load();
+				return data;
+			}, data -> onDataLoaded(server, data));
+			loadGate.start();
+		});
+
 		ServerLifecycleEvents.SERVER_STARTED.register(server -> {
-			LOGGER.info("Server started, loading chunk unlock data...");
-			persistentData = ChunkUnlockData.getOrCreate(server, creditManager);
-
-			// Auto-detect mode from world settings on first load (brand new world)
-			if (persistentData.getMode() == ChunklockedMode.DISABLED &&
-					persistentData.getGlobalUnlockedChunks().isEmpty()) {
-				ChunklockedMode detectedMode = detectModeFromWorldSettings(server);
-				if (detectedMode != ChunklockedMode.DISABLED) {
-					LOGGER.info("Auto-detected Chunklocked mode from world settings: {}", detectedMode);
-					persistentData.setMode(detectedMode);
-					persistentData.markDirtyAndSave();
-				}
+			if (loadGate != null && !loadGate.poll()) {
+				LOGGER.info("Server started, chunk unlock data is still loading");
 			}
-
-			LOGGER.info("Chunklocked mode: {}", persistentData.getMode());
-
-			chunkManager = new ChunkManager(persistentData, creditManager);
-			chunkAccessManager = new ChunkAccessManager(chunkManager);
-			barrierManager = new ChunkBarrierManager();
-			LOGGER.info("Chunk unlock data loaded successfully");
 		});
 
 		ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
 			LOGGER.info("Server stopping, ensuring chunk unlock data is saved...");
+			if (loadGate != null) {
+				// Nothing can be saved until the data (and anything queued on it) is in
+				loadGate.awaitReady();
+			}
 			if (persistentData != null) {
-				persistentData.markDirtyAndSave();
+				persistentData.setSaveScheduler(null);
+				persistentData.markDirty();
+			}
+			if (saveScheduler != null) {
+				// Waits for any background write, then saves synchronously
+				saveScheduler.shutdown();
+				saveScheduler = null;
+			} else if (persistentData != null) {
+				persistentData.save();
+			}
+			if (persistentData != null) {
+				persistentData.close();
+			}
+			if (barrierQueue != null) {
+				// Unfinished barrier work resumes on the next start
+				barrierQueue.save();
+			}
+			if (barrierManager != null) {
+				// The next start removes barriers without scanning for them
+				barrierManager.saveTracking(ChunkUnlockData.worldDirectory(server));
 			}
 		});
 
+		// The tick's chunk changes go out as one batch, queued barrier work runs
+		// within its tick budget, then coalesced saves are written at most once
+		// per save interval
+		ServerTickEvents.END_SERVER_TICK.register(server -> {
+			if (loadGate != null && !loadGate.poll()) {
+				return;
+			}
+			if (chunkManager != null) {
+				chunkManager.dispatchChanges(server);
+			}
+			if (barrierQueue != null) {
+				barrierQueue.tick(server);
+			}
+			if (saveScheduler != null) {
+				saveScheduler.tick(server.getTickCount());
+			}
+		});
+
+		registerChunkChangeListeners();
+
 		// Register advancement completion listener
 		AdvancementCompletedCallback.EVENT.register((player, advancement, criterionName) -> {
 			LOGGER.info("Player {} completed advancement: {} (criterion: {})",
@@ -159,23 +224,20 @@ public class Chunklocked implements ModInitializer {
 					advancement.id(),
 					criterionName);
 
-			// Get the current mode from persistent data
-			ChunklockedMode mode = (persistentData != null)
-					? persistentData.getMode()
-					: ChunklockedMode.DISABLED;
-
-			creditManager.onAdvancementCompleted(player, advancement, criterionName, mode);
-
-			var playerData = creditManager.getPlayerData(player.getUUID());
-			if (playerData != null) {
-				NotificationManager.syncCreditsToClient(player,
-						playerData.getAvailableCredits(),
-						playerData.getTotalAdvancementsCompleted());
-			}
+			// Credits are granted once the player's progression is loaded
+			runWhenDataReady(() -> onAdvancementCompleted(player, advancement, criterionName));
+		});
 
-			if (persistentData != null) {
-				persistentData.markDirtyAndSave();
-			}
+		// Player progression lives in per-player files: write and release it when
+		// the player leaves
+		ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> {
+			UUID playerId = handler.getPlayer().getUUID();
+			runWhenDataReady(() -> {
+				if (persistentData != null) {
+					persistentData.onPlayerLeave(playerId);
+					persistentData.markDirtyAndSave();
+				}
+			});
 		});
 
 		// Register player join event
@@ -183,49 +245,15 @@ public class Chunklocked implements ModInitializer {
 			var player = handler.getPlayer();
 			LOGGER.info("=== Player {} joined ===", player.getName().getString());
 
-			// Initialize managers if needed
-			if (chunkManager == null || chunkAccessManager == null || barrierManager == null) {
-				if (persistentData == null) {
-					persistentData = ChunkUnlockData.getOrCreate(server, creditManager);
-				}
-				if (chunkManager == null) {
-					chunkManager = new ChunkManager(persistentData, creditManager);
-				}
-				if (chunkAccessManager == null) {
-					chunkAccessManager = new ChunkAccessManager(chunkManager);
-				}
-				if (barrierManager == null) {
-					barrierManager = new ChunkBarrierManager();
-				}
+			if (!isDataReady()) {
+				player.sendSystemMessage(Component.literal("§eChunk Locked is still loading world data..."));
 			}
-
-			// Give starter items if applicable
-			if (persistentData != null) {
-				ChunklockedMode mode = persistentData.getMode();
-				UUID playerId = player.getUUID();
-
-				if (StarterItemsManager.shouldGiveStarterItems(mode,
-						persistentData.hasReceivedStarterItems(playerId))) {
-					StarterItemsManager.giveStarterItems(player);
-					persistentData.markStarterItemsGiven(playerId);
-					persistentData.markDirtyAndSave();
-					LOGGER.info("Gave starter items to first-time player: {}",
-							player.getName().getString());
+			runWhenDataReady(() -> {
+				// Skip players who left while the data was loading
+				if (!player.hasDisconnected()) {
+					onPlayerJoined(player, server);
 				}
-			}
-
-			// Sync credit data to client
-			var playerData = creditManager.getPlayerData(player.getUUID());
-			if (playerData != null) {
-				NotificationManager.syncCreditsToClient(player,
-						playerData.getAvailableCredits(),
-						playerData.getTotalAdvancementsCompleted());
-			} else {
-				NotificationManager.syncCreditsToClient(player, 0, 0);
-			}
-
-			// Initialize spawn area for first player
-			handleInitialPlayerSpawn(player, server.overworld());
+			});
 		});
 
 		// Register player respawn event - this fires AFTER the new player entity is
@@ -243,6 +271,132 @@ public class Chunklocked implements ModInitializer {
 		LOGGER.info("Chunk Locked mod initialized successfully");
 	}
 
+	/**
+	 * Registers the subsystems that follow the unlocked chunk set. They run once
+	 * per tick with everything that changed, so callers that unlock or lock
+	 * chunks only change the data.
+	 */
+	private static void registerChunkChangeListeners() {
+		// Barriers: queue a rebuild around every changed chunk in one pass
+		ChunkUnlockStateChangedCallback.EVENT.register((server, changes) -> {
+			if (persistentData != null && persistentData.areBarriersEnabled()) {
+				Set<ChunkPos> changed = changes.changedChunks();
+				if (!changed.isEmpty()) {
+					chunkManager.queueBarrierRebuild(changed);
+				}
+			}
+		});
+
+		// Network: send the new balance to online players whose credits changed
+		ChunkUnlockStateChangedCallback.EVENT.register((server, changes) -> {
+			for (UUID playerId : changes.players()) {
+				ServerPlayer player = server.getPlayerList().getPlayer(playerId);
+				if (player != null) {
+					NotificationManager.syncCreditsToClient(player,
+							chunkManager.getAvailableCredits(playerId),
+							chunkManager.getTotalAdvancements(playerId));
+				}
+			}
+		});
+
+		// Persistence: one save request per batch
+		ChunkUnlockStateChangedCallback.EVENT.register((server, changes) -> {
+			if (persistentData != null) {
+				persistentData.markDirtyAndSave();
+			}
+		});
+	}
+
+	/**
+	 * Finishes startup once the chunk unlock data has loaded. Runs on the server
+	 * thread, before any join or advancement that was waiting for the data.
+	 * 
+	 * @param server The server instance
+	 * @param data   The loaded data
+	 */
+	private static void onDataLoaded(net.minecraft.server.MinecraftServer server, ChunkUnlockData data) {
+		attachPersistentData(data);
+
+		// Auto-detect mode from world settings on first load (brand new world)
+		if (persistentData.getMode() == ChunklockedMode.DISABLED &&
+				persistentData.getGlobalUnlockedChunkCount() == 0) {
+			ChunklockedMode detectedMode = detectModeFromWorldSettings(server);
+			if (detectedMode != ChunklockedMode.DISABLED) {
+				LOGGER.info("Auto-detected Chunklocked mode from world settings: {}", detectedMode);
+				persistentData.setMode(detectedMode);
+				persistentData.markDirtyAndSave();
+			}
+		}
+
+		LOGGER.info("Chunklocked mode: {}", persistentData.getMode());
+
+		chunkManager = new ChunkManager(persistentData, creditManager);
+		chunkAccessManager = new ChunkAccessManager(chunkManager);
+		barrierManager = new ChunkBarrierManager();
+		barrierManager.loadTracking(ChunkUnlockData.worldDirectory(server));
+		barrierQueue = new BarrierWorkQueue(barrierManager, chunkManager, ChunkUnlockData.worldDirectory(server),
+				configManager.getOrLoadConfig().getBarrierTickBudgetMillis());
+		barrierQueue.load();
+		LOGGER.info("Chunk unlock data loaded successfully");
+	}
+
+	private static void onAdvancementCompleted(net.minecraft.server.level.ServerPlayer player,
+			net.minecraft.advancements.AdvancementHolder advancement, String criterionName) {
+		// Get the current mode from persistent data
+		ChunklockedMode mode = (persistentData != null)
+				? persistentData.getMode()
+				: ChunklockedMode.DISABLED;
+
+		creditManager.onAdvancementCompleted(player, advancement, criterionName, mode);
+
+		var playerData = creditManager.getPlayerData(player.getUUID());
+		if (playerData != null) {
+			NotificationManager.syncCreditsToClient(player,
+					playerData.getAvailableCredits(),
+					playerData.getTotalAdvancementsCompleted());
+		}
+
+		if (persistentData != null) {
+			persistentData.markDirtyAndSave();
+		}
+	}
+
+	private static void onPlayerJoined(net.minecraft.server.level.ServerPlayer player,
+			net.minecraft.server.MinecraftServer server) {
+		// Load the player's progression from their own file
+		if (persistentData != null) {
+			persistentData.onPlayerJoin(player.getUUID());
+		}
+
+		// Give starter items if applicable
+		if (persistentData != null) {
+			ChunklockedMode mode = persistentData.getMode();
+			UUID playerId = player.getUUID();
+
+			if (StarterItemsManager.shouldGiveStarterItems(mode,
+					persistentData.hasReceivedStarterItems(playerId))) {
+				StarterItemsManager.giveStarterItems(player);
+				persistentData.markStarterItemsGiven(playerId);
+				persistentData.markDirtyAndSave();
+				LOGGER.info("Gave starter items to first-time player: {}",
+						player.getName().getString());
+			}
+		}
+
+		// Sync credit data to client
+		var playerData = creditManager.getPlayerData(player.getUUID());
+		if (playerData != null) {
+			NotificationManager.syncCreditsToClient(player,
+					playerData.getAvailableCredits(),
+					playerData.getTotalAdvancementsCompleted());
+		} else {
+			NotificationManager.syncCreditsToClient(player, 0, 0);
+		}
+
+		// Initialize spawn area for first player
+		handleInitialPlayerSpawn(player, server.overworld());
+	}
+
 	/**
 	 * Checks if a player is spawning in a locked chunk during first join.
 	 * Only handles initial world setup, NOT respawns.
@@ -262,10 +416,8 @@ public class Chunklocked implements ModInitializer {
 			return;
 		}
 
-		Set<ChunkPos> globalUnlockedChunks = chunkManager.getGlobalUnlockedChunks();
-
 		// If first player ever, unlock initial spawn area
-		if (globalUnlockedChunks.isEmpty()) {
+		if (chunkManager.getGlobalChunkCount() == 0) {
 			int chunkX = ((int) Math.floor(player.getX())) >> 4;
 			int chunkZ = ((int) Math.floor(player.getZ())) >> 4;
 
@@ -277,11 +429,11 @@ public class Chunklocked implements ModInitializer {
 					new ChunkPos(chunkX + 1, chunkZ + 1)
 			};
 			for (ChunkPos chunk : spawnChunks) {
-				chunkManager.forceUnlockChunk(player.getUUID(), chunk, world);
+				chunkManager.forceUnlockChunk(player.getUUID(), chunk);
 			}
 			player.sendSystemMessage(Component.literal(
 					"§aWelcome! Your 2x2 spawn area has been unlocked. Complete advancements to unlock more chunks!"));
-			chunkManager.initializeBarriersForPlayer(world, player.getUUID());
+			chunkManager.initializeBarriersForPlayer(player.getUUID());
 		}
 	}
 
@@ -311,29 +463,32 @@ public class Chunklocked implements ModInitializer {
 		}
 
 		// Check if player respawned in a locked chunk
-		Set<ChunkPos> globalUnlockedChunks = chunkManager.getGlobalUnlockedChunks();
 		int chunkX = ((int) Math.floor(player.getX())) >> 4;
 		int chunkZ = ((int) Math.floor(player.getZ())) >> 4;
 		ChunkPos respawnChunk = new ChunkPos(chunkX, chunkZ);
+		boolean respawnUnlocked = chunkManager.isChunkUnlockedGlobally(chunkX, chunkZ);
 
 		LOGGER.info("Player respawned at chunk {} (pos: {}, {})", respawnChunk, player.getX(), player.getZ());
-		LOGGER.info("Is chunk unlocked? {}", globalUnlockedChunks.contains(respawnChunk));
+		LOGGER.info("Is chunk unlocked? {}", respawnUnlocked);
 
 		// If respawn location (bed/world spawn) is in an unlocked chunk, do nothing
 		// This preserves normal bed respawn behavior
-		if (globalUnlockedChunks.contains(respawnChunk)) {
+		if (respawnUnlocked) {
 			LOGGER.debug("Player {} respawned in unlocked chunk {} - no relocation needed",
 					player.getName().getString(), respawnChunk);
 			return;
 		}
 
 		// Respawn location is in a locked chunk - need to relocate player
-		if (!globalUnlockedChunks.contains(respawnChunk)) {
+		if (!respawnUnlocked) {
 			LOGGER.info("Player {} respawned in LOCKED chunk {}! Finding safe location...",
 					player.getName().getString(), respawnChunk);
 
-			// Find the nearest unlocked chunk
-			ChunkPos nearestUnlocked = findNearestUnlockedChunk(respawnChunk, globalUnlockedChunks);
+			// Find the nearest unlocked chunk, however far away
+			ChunkPos nearestUnlocked = chunkManager.findNearestUnlockedChunk(respawnChunk).orElse(null);
+			int distance = chunkManager.distanceToUnlocked(respawnChunk);
+			LOGGER.info("Respawn chunk {} is {} chunks from the unlocked area", respawnChunk,
+					distance == DistanceField.BEYOND ? "more than " + chunkManager.getDistanceFieldRadius() : distance);
 
 			if (nearestUnlocked != null) {
 				// Teleport to center of the safe chunk at a safe Y level
@@ -358,63 +513,18 @@ public class Chunklocked implements ModInitializer {
 	}
 
 	/**
-	 * Finds the nearest unlocked chunk to a given position.
-	 * Uses a spiral search pattern to find the closest unlocked chunk.
+	 * Publishes the loaded chunk unlock data and attaches a save scheduler so
+	 * that gameplay events queue coalesced background saves.
 	 * 
-	 * @param origin         The starting chunk position
-	 * @param unlockedChunks Set of all unlocked chunks
-	 * @return The nearest unlocked chunk, or null if none found within search
-	 *         radius
+	 * @param data The loaded data
 	 */
-	private static ChunkPos findNearestUnlockedChunk(ChunkPos origin, Set<ChunkPos> unlockedChunks) {
-		if (unlockedChunks.isEmpty()) {
-			return null;
-		}
-
-		// First check if any adjacent chunks are unlocked (most common case)
-		ChunkPos[] adjacent = {
-				new ChunkPos(origin.x - 1, origin.z),
-				new ChunkPos(origin.x + 1, origin.z),
-				new ChunkPos(origin.x, origin.z - 1),
-				new ChunkPos(origin.x, origin.z + 1)
-		};
-		for (ChunkPos adj : adjacent) {
-			if (unlockedChunks.contains(adj)) {
-				return adj;
-			}
+	private static void attachPersistentData(ChunkUnlockData data) {
+		persistentData = data;
+		if (saveScheduler != null) {
+			saveScheduler.shutdown();
 		}
-
-		// Search in expanding square spiral up to 16 chunks away
-		int maxRadius = 16;
-		ChunkPos nearest = null;
-		double nearestDistSq = Double.MAX_VALUE;
-
-		for (int radius = 1; radius <= maxRadius; radius++) {
-			for (int dx = -radius; dx <= radius; dx++) {
-				for (int dz = -radius; dz <= radius; dz++) {
-					// Only check chunks on the current radius perimeter
-					if (Math.abs(dx) != radius && Math.abs(dz) != radius) {
-						continue;
-					}
-
-					ChunkPos candidate = new ChunkPos(origin.x + dx, origin.z + dz);
-					if (unlockedChunks.contains(candidate)) {
-						double distSq = dx * dx + dz * dz;
-						if (distSq < nearestDistSq) {
-							nearestDistSq = distSq;
-							nearest = candidate;
-						}
-					}
-				}
-			}
-			// If we found something at this radius, return it (closest possible)
-			if (nearest != null) {
-				return nearest;
-			}
-		}
-
-		// If nothing found in search radius, just return any unlocked chunk
-		return unlockedChunks.iterator().next();
+		saveScheduler = new SaveScheduler(persistentData);
+		persistentData.setSaveScheduler(saveScheduler);
 	}
 
 	private void registerPackets() {
@@ -482,6 +592,30 @@ public class Chunklocked implements ModInitializer {
 		}
 	}
 
+	/**
+	 * Checks whether the chunk unlock data has finished loading. Until it has,
+	 * the managers are null and gameplay features should stand down.
+	 * 
+	 * @return true once the data is loaded and the managers exist
+	 */
+	public static boolean isDataReady() {
+		return loadGate == null ? persistentData != null : loadGate.isReady();
+	}
+
+	/**
+	 * Runs a task on the server thread once the chunk unlock data has loaded,
+	 * or right away if it already has.
+	 * 
+	 * @param task The task to run
+	 */
+	public static void runWhenDataReady(Runnable task) {
+		if (loadGate == null) {
+			task.run();
+		} else {
+			loadGate.runWhenReady(task);
+		}
+	}
+
 	public static AdvancementCreditManager getCreditManager() {
 		return creditManager;
 	}
@@ -505,4 +639,8 @@ public class Chunklocked implements ModInitializer {
 	public static ChunkBarrierManager getBarrierManager() {
 		return barrierManager;
 	}
+
+	public static BarrierWorkQueue getBarrierQueue() {
+		return barrierQueue;
+	}
 }
\ No newline at end of file
@@ -9,6 +9,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * Manages credit awards for advancement completions.
@@ -28,10 +29,19 @@ public class AdvancementCreditManager {
 
   /**
    * Player progression data indexed by player UUID.
-   * Persists across sessions via world data.
+   * Only holds players that are loaded (online or recently active); the rest
+   * live in per-player files and are loaded on demand through
+   * {@link #playerDataLoader}.
    */
   private final Map<UUID, PlayerProgressionData> playerData;
 
+  /**
+   * Produces progression data for a player that is not loaded yet.
+   * Defaults to fresh data; the persistence layer replaces this with a loader
+   * that reads the player's file.
+   */
+  private Function<UUID, PlayerProgressionData> playerDataLoader = id -> new PlayerProgressionData();
+
   /**
    * Custom credit rewards for specific advancements.
    * Maps advancement ID to credit amount.
@@ -140,13 +150,14 @@ public class AdvancementCreditManager {
   /**
    * Gets the progression data for a player by UUID.
    * <p>
-   * Creates new progression data if none exists for this player.
+   * Loads the player's saved data if they are not in memory, or creates new
+   * progression data if none exists for this player.
    *
    * @param playerId The player's UUID
    * @return The player's progression data (never null)
    */
   public PlayerProgressionData getPlayerData(UUID playerId) {
-    return playerData.computeIfAbsent(playerId, id -> new PlayerProgressionData());
+    return playerData.computeIfAbsent(playerId, playerDataLoader);
   }
 
   /**
@@ -392,6 +403,38 @@ public class AdvancementCreditManager {
     playerData.put(playerId, data);
   }
 
+  /**
+   * Removes a player's data from memory.
+   * <p>
+   * The caller is responsible for persisting it first; the next
+   * {@link #getPlayerData(UUID)} reloads it through the player data loader.
+   *
+   * @param playerId The player's UUID
+   * @return The removed data, or null if the player was not loaded
+   */
+  public PlayerProgressionData unloadPlayerData(UUID playerId) {
+    return playerData.remove(playerId);
+  }
+
+  /**
+   * Checks whether a player's data is currently in memory.
+   *
+   * @param playerId The player's UUID
+   * @return true if the player is loaded
+   */
+  public boolean isPlayerLoaded(UUID playerId) {
+    return playerData.containsKey(playerId);
+  }
+
+  /**
+   * Sets how data is produced for players that are not loaded yet.
+   *
+   * @param loader Returns the saved data for a player, or fresh data if none
+   */
+  public void setPlayerDataLoader(Function<UUID, PlayerProgressionData> loader) {
+    this.playerDataLoader = loader;
+  }
+
   /**
    * Gets the number of players being tracked.
    *
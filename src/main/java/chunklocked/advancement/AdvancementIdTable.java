@@ -0,0 +1,85 @@
+package chunklocked.advancement;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Server-wide dictionary mapping advancement identifiers to dense integer
+ * indexes.
+ * <p>
+ * Every player's rewarded advancements are stored as a bitset over these
+ * indexes, so each identifier string exists once on the heap no matter how
+ * many players have earned it. Indexes are assigned in first-seen order and
+ * never reused or removed.
+ * <p>
+ * Indexes are only stable for the lifetime of the JVM. Anything written to
+ * disk must translate them through its own persisted dictionary (see
+ * {@code PlayerDataStore}).
+ * <p>
+ * This class is thread-safe.
+ */
+public final class AdvancementIdTable {
+
+  private static final AdvancementIdTable SHARED = new AdvancementIdTable();
+
+  private final Map<String, Integer> indexes = new HashMap<>();
+  private final List<String> names = new ArrayList<>();
+
+  /**
+   * Gets the table shared by all players on the server.
+   *
+   * @return The shared table
+   */
+  public static AdvancementIdTable shared() {
+    return SHARED;
+  }
+
+  /**
+   * Gets the index of an advancement, assigning a new one if needed.
+   *
+   * @param advancementId The advancement identifier
+   * @return The dense index (>= 0)
+   */
+  public synchronized int intern(String advancementId) {
+    Integer index = indexes.get(advancementId);
+    if (index == null) {
+      index = names.size();
+      names.add(advancementId);
+      indexes.put(advancementId, index);
+    }
+    return index;
+  }
+
+  /**
+   * Gets the index of an advancement without assigning one.
+   *
+   * @param advancementId The advancement identifier
+   * @return The dense index, or -1 if the advancement has never been seen
+   */
+  public synchronized int indexOf(String advancementId) {
+    Integer index = indexes.get(advancementId);
+    return index == null ? -1 : index;
+  }
+
+  /**
+   * Gets the advancement identifier for an index.
+   *
+   * @param index The dense index
+   * @return The advancement identifier
+   * @throws IndexOutOfBoundsException if the index was never assigned
+   */
+  public synchronized String nameOf(int index) {
+    return names.get(index);
+  }
+
+  /**
+   * Gets the number of advancements in the table.
+   *
+   * @return The table size
+   */
+  public synchronized int size() {
+    return names.size();
+  }
+}
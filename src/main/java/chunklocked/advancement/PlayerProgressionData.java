@@ -1,7 +1,12 @@
 package chunklocked.advancement;
 
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
@@ -18,10 +23,15 @@ import java.util.Set;
  */
 public class PlayerProgressionData {
   /**
-   * Set of advancement IDs that have already granted credits to this player.
-   * Prevents duplicate credit awards.
+   * Advancements that have already granted credits to this player, as a bitset
+   * over {@link #idTable} indexes. Prevents duplicate credit awards.
    */
-  private final Set<String> rewardedAdvancements;
+  private final BitSet rewardedAdvancements;
+
+  /**
+   * Dictionary the bitset indexes refer to.
+   */
+  private final AdvancementIdTable idTable;
 
   /**
    * Number of chunk unlock credits available to spend.
@@ -35,12 +45,40 @@ public class PlayerProgressionData {
    */
   private int totalAdvancementsCompleted;
 
+  /**
+   * Whether any field changed since the last {@link #markSaved()}.
+   * Lets the save journal write only the players that actually changed.
+   */
+  private boolean unsavedChanges;
+
+  /**
+   * Advancements rewarded since the last {@link #markSaved()}, in order.
+   */
+  private final List<String> unsavedRewards = new ArrayList<>();
+
+  /**
+   * Available credits as of the last {@link #markCreditsRecorded()}, the
+   * balance the unlock history knows about.
+   */
+  private int recordedCredits;
+
   /**
    * Creates a new player progression data with zero credits and no completed
    * advancements.
    */
   public PlayerProgressionData() {
-    this.rewardedAdvancements = new HashSet<>();
+    this(AdvancementIdTable.shared());
+  }
+
+  /**
+   * Creates a new player progression data that indexes advancements through
+   * the given table.
+   *
+   * @param idTable The advancement dictionary to use
+   */
+  public PlayerProgressionData(AdvancementIdTable idTable) {
+    this.idTable = idTable;
+    this.rewardedAdvancements = new BitSet();
     this.availableCredits = 0;
     this.totalAdvancementsCompleted = 0;
   }
@@ -53,7 +91,8 @@ public class PlayerProgressionData {
    * @return true if this advancement has already been rewarded, false otherwise
    */
   public boolean hasReceivedReward(String advancementId) {
-    return rewardedAdvancements.contains(advancementId);
+    int index = idTable.indexOf(advancementId);
+    return index >= 0 && rewardedAdvancements.get(index);
   }
 
   /**
@@ -65,8 +104,13 @@ public class PlayerProgressionData {
    * @param advancementId The advancement identifier to mark as rewarded
    */
   public void markAdvancementRewarded(String advancementId) {
-    rewardedAdvancements.add(advancementId);
+    int index = idTable.intern(advancementId);
+    if (!rewardedAdvancements.get(index)) {
+      rewardedAdvancements.set(index);
+      unsavedRewards.add(advancementId);
+    }
     totalAdvancementsCompleted++;
+    unsavedChanges = true;
   }
 
   /**
@@ -82,6 +126,7 @@ public class PlayerProgressionData {
       throw new IllegalArgumentException("Cannot add negative credits: " + amount);
     }
     this.availableCredits += amount;
+    unsavedChanges = true;
   }
 
   /**
@@ -103,6 +148,7 @@ public class PlayerProgressionData {
           "Insufficient credits: tried to spend " + amount + " but only have " + availableCredits);
     }
     this.availableCredits -= amount;
+    unsavedChanges = true;
   }
 
   /**
@@ -129,12 +175,80 @@ public class PlayerProgressionData {
   /**
    * Gets an unmodifiable view of the advancements that have been rewarded.
    * <p>
-   * This is primarily for serialization and debugging purposes.
+   * This is primarily for debugging purposes. The view reads through to the
+   * bitset, so it reflects later changes and allocates nothing up front.
    *
    * @return An unmodifiable set of rewarded advancement identifiers
    */
   public Set<String> getRewardedAdvancements() {
-    return Collections.unmodifiableSet(rewardedAdvancements);
+    return new AbstractSet<>() {
+      @Override
+      public boolean contains(Object o) {
+        return o instanceof String advancementId && hasReceivedReward(advancementId);
+      }
+
+      @Override
+      public int size() {
+        return rewardedAdvancements.cardinality();
+      }
+
+      @Override
+      public Iterator<String> iterator() {
+        return new Iterator<>() {
+          private int next = rewardedAdvancements.nextSetBit(0);
+
+          @Override
+          public boolean hasNext() {
+            return next >= 0;
+          }
+
+          @Override
+          public String next() {
+            if (next < 0) {
+              throw new NoSuchElementException();
+            }
+            String advancementId = idTable.nameOf(next);
+            next = rewardedAdvancements.nextSetBit(next + 1);
+            return advancementId;
+          }
+        };
+      }
+    };
+  }
+
+  /**
+   * Gets a copy of the rewarded advancements as a bitset over
+   * {@link #getIdTable()} indexes.
+   * <p>
+   * Intended for serialization.
+   *
+   * @return A copy of the rewarded bitset
+   */
+  public BitSet getRewardedAdvancementBits() {
+    return (BitSet) rewardedAdvancements.clone();
+  }
+
+  /**
+   * Marks advancements as rewarded by {@link #getIdTable()} index without
+   * changing the total.
+   * <p>
+   * This is intended for deserialization and should not be used during normal
+   * gameplay. Use {@link #markAdvancementRewarded(String)} instead.
+   *
+   * @param bits Bitset of advancement indexes to mark
+   */
+  public void addRewardedAdvancementBits(BitSet bits) {
+    rewardedAdvancements.or(bits);
+    unsavedChanges = true;
+  }
+
+  /**
+   * Gets the advancement dictionary the rewarded bitset refers to.
+   *
+   * @return The advancement ID table
+   */
+  public AdvancementIdTable getIdTable() {
+    return idTable;
   }
 
   /**
@@ -152,6 +266,7 @@ public class PlayerProgressionData {
       throw new IllegalArgumentException("Credits cannot be negative: " + credits);
     }
     this.availableCredits = credits;
+    unsavedChanges = true;
   }
 
   /**
@@ -168,6 +283,52 @@ public class PlayerProgressionData {
       throw new IllegalArgumentException("Total advancements cannot be negative: " + total);
     }
     this.totalAdvancementsCompleted = total;
+    unsavedChanges = true;
+  }
+
+  /**
+   * Checks whether this data changed since the last {@link #markSaved()}.
+   *
+   * @return true if there are changes that have not been persisted
+   */
+  public boolean hasUnsavedChanges() {
+    return unsavedChanges;
+  }
+
+  /**
+   * Gets the advancements rewarded since the last {@link #markSaved()}.
+   *
+   * @return An unmodifiable view of the newly rewarded advancement IDs
+   */
+  public List<String> getUnsavedRewards() {
+    return Collections.unmodifiableList(unsavedRewards);
+  }
+
+  /**
+   * Gets the available credits as of the last {@link #markCreditsRecorded()}.
+   *
+   * @return The last credit balance recorded in the unlock history
+   */
+  public int getRecordedCredits() {
+    return recordedCredits;
+  }
+
+  /**
+   * Marks the current credit balance as recorded in the unlock history.
+   * Implied by {@link #markSaved()}.
+   */
+  public void markCreditsRecorded() {
+    recordedCredits = availableCredits;
+  }
+
+  /**
+   * Clears the unsaved-changes tracking once the current state has been
+   * persisted (journaled or written to a snapshot).
+   */
+  public void markSaved() {
+    unsavedChanges = false;
+    unsavedRewards.clear();
+    markCreditsRecorded();
   }
 
   @Override
@@ -175,7 +336,7 @@ public class PlayerProgressionData {
     return "PlayerProgressionData{" +
         "availableCredits=" + availableCredits +
         ", totalAdvancementsCompleted=" + totalAdvancementsCompleted +
-        ", rewardedAdvancementsCount=" + rewardedAdvancements.size() +
+        ", rewardedAdvancementsCount=" + rewardedAdvancements.cardinality() +
         '}';
   }
 }
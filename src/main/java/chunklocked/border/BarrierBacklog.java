@@ -0,0 +1,265 @@
+package chunklocked.border;
+
+import chunklocked.core.LongChunkSet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+
+/**
+ * The pending work of a {@link BarrierWorkQueue}, kept free of world access.
+ * <p>
+ * Two kinds of work are held:
+ * <ul>
+ * <li>Removals: barrier block positions (packed with {@code BlockPos.asLong})
+ * to clear, in the order they were queued.</li>
+ * <li>Rebuilds: chunks (packed with {@code ChunkPos.asLong}) whose walls are
+ * rebuilt from the unlock state at the time they run. Queuing a chunk twice
+ * rebuilds it once.</li>
+ * </ul>
+ * Rebuilds are handed out nearest-player-first, by the squared chunk distance
+ * to the closest of the positions last passed to {@link #prioritize}.
+ * <p>
+ * Not thread-safe; server thread only.
+ */
+final class BarrierBacklog {
+
+  /**
+   * File header magic ("CLBQ") followed by the format version.
+   */
+  private static final int MAGIC = 0x434C4251;
+  private static final int FORMAT_VERSION = 1;
+
+  private long[] removals = new long[0];
+  private int removalHead;
+  private int removalTail;
+
+  private final LongChunkSet rebuilds = new LongChunkSet();
+
+  /**
+   * Rebuilds in priority order, as of the last {@link #prioritize} call.
+   * Entries that were polled or cancelled since are skipped.
+   */
+  private long[] order = new long[0];
+  private int orderIndex;
+  private long[] lastPlayers = new long[0];
+  private boolean orderStale;
+
+  // ========== REMOVALS ==========
+
+  /**
+   * Queues a barrier block for removal.
+   *
+   * @param packedBlockPos The position, packed with {@code BlockPos.asLong}
+   */
+  void addRemoval(long packedBlockPos) {
+    if (removalTail == removals.length) {
+      if (removalHead > 0) {
+        // Compact before growing
+        System.arraycopy(removals, removalHead, removals, 0, removalTail - removalHead);
+        removalTail -= removalHead;
+        removalHead = 0;
+      }
+      if (removalTail == removals.length) {
+        removals = Arrays.copyOf(removals, Math.max(256, removals.length * 2));
+      }
+    }
+    removals[removalTail++] = packedBlockPos;
+  }
+
+  /**
+   * @return The oldest queued removal
+   * @throws IllegalStateException if no removal is queued
+   */
+  long pollRemoval() {
+    if (removalHead == removalTail) {
+      throw new IllegalStateException("No barrier removal queued");
+    }
+    long pos = removals[removalHead++];
+    if (removalHead == removalTail) {
+      removalHead = 0;
+      removalTail = 0;
+    }
+    return pos;
+  }
+
+  int getRemovalCount() {
+    return removalTail - removalHead;
+  }
+
+  // ========== REBUILDS ==========
+
+  /**
+   * Queues a chunk for a wall rebuild.
+   *
+   * @param packedChunkPos The chunk, packed with {@code ChunkPos.asLong}
+   * @return true if the chunk was not queued already
+   */
+  boolean addRebuild(long packedChunkPos) {
+    if (rebuilds.add(packedChunkPos)) {
+      orderStale = true;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Cancels every queued rebuild.
+   */
+  void clearRebuilds() {
+    rebuilds.clear();
+    order = new long[0];
+    orderIndex = 0;
+    orderStale = false;
+  }
+
+  int getRebuildCount() {
+    return rebuilds.size();
+  }
+
+  /**
+   * @return true if rebuilds were queued since the last {@link #prioritize}
+   */
+  boolean isOrderStale() {
+    return orderStale;
+  }
+
+  /**
+   * Sorts the queued rebuilds by distance to the nearest of the given
+   * positions. With no positions, rebuilds run in no particular order.
+   *
+   * @param playerChunks Chunks of the players, packed with
+   *                     {@code ChunkPos.asLong}
+   */
+  void prioritize(long[] playerChunks) {
+    lastPlayers = playerChunks.clone();
+    long[] chunks = new long[rebuilds.size()];
+    int[] count = {0};
+    rebuilds.forEach(chunk -> chunks[count[0]++] = chunk);
+
+    // Sort keys: distance in the high 32 bits, index into chunks in the low
+    long[] keys = new long[chunks.length];
+    for (int i = 0; i < chunks.length; i++) {
+      keys[i] = (nearestDistanceSquared(chunks[i], playerChunks) << 32) | i;
+    }
+    Arrays.sort(keys);
+
+    order = new long[chunks.length];
+    for (int i = 0; i < keys.length; i++) {
+      order[i] = chunks[(int) keys[i]];
+    }
+    orderIndex = 0;
+    orderStale = false;
+  }
+
+  /**
+   * @return The queued rebuild nearest to a player, removed from the queue
+   * @throws IllegalStateException if no rebuild is queued
+   */
+  long pollRebuild() {
+    if (rebuilds.size() == 0) {
+      throw new IllegalStateException("No barrier rebuild queued");
+    }
+    while (true) {
+      while (orderIndex < order.length) {
+        long chunk = order[orderIndex++];
+        if (rebuilds.remove(chunk)) {
+          return chunk;
+        }
+      }
+      // Only rebuilds queued since the last sort are left
+      prioritize(lastPlayers);
+    }
+  }
+
+  /**
+   * @return Squared distance in chunks to the nearest player, capped to fit a
+   *         sort key; 0 if there are no players
+   */
+  private static long nearestDistanceSquared(long chunk, long[] playerChunks) {
+    if (playerChunks.length == 0) {
+      return 0;
+    }
+    int x = unpackX(chunk);
+    int z = unpackZ(chunk);
+    long nearest = Long.MAX_VALUE;
+    for (long player : playerChunks) {
+      long dx = (long) x - unpackX(player);
+      long dz = (long) z - unpackZ(player);
+      nearest = Math.min(nearest, dx * dx + dz * dz);
+    }
+    return Math.min(nearest, Integer.MAX_VALUE);
+  }
+
+  // Same layout as ChunkPos.asLong
+  private static int unpackX(long packed) {
+    return (int) packed;
+  }
+
+  private static int unpackZ(long packed) {
+    return (int) (packed >>> 32);
+  }
+
+  // ========== PERSISTENCE ==========
+
+  boolean isEmpty() {
+    return getRemovalCount() == 0 && rebuilds.size() == 0;
+  }
+
+  /**
+   * Writes the queued removals and rebuilds to a file, replacing it.
+   *
+   * @param file The file to write
+   * @throws IOException if the file cannot be written
+   */
+  void save(Path file) throws IOException {
+    Files.createDirectories(file.getParent());
+    Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      out.writeInt(getRemovalCount());
+      for (int i = removalHead; i < removalTail; i++) {
+        out.writeLong(removals[i]);
+      }
+      out.writeInt(rebuilds.size());
+      PrimitiveIterator.OfLong chunks = rebuilds.longIterator();
+      while (chunks.hasNext()) {
+        out.writeLong(chunks.nextLong());
+      }
+    }
+    Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /**
+   * Reads a backlog written by {@link #save}.
+   *
+   * @param file The file to read
+   * @return The backlog; its rebuilds still need {@link #prioritize}
+   * @throws IOException if the file cannot be read or is not a backlog
+   */
+  static BarrierBacklog load(Path file) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+        throw new IOException("Unrecognized barrier backlog header in " + file);
+      }
+      BarrierBacklog backlog = new BarrierBacklog();
+      int removalCount = in.readInt();
+      for (int i = 0; i < removalCount; i++) {
+        backlog.addRemoval(in.readLong());
+      }
+      int rebuildCount = in.readInt();
+      for (int i = 0; i < rebuildCount; i++) {
+        backlog.addRebuild(in.readLong());
+      }
+      return backlog;
+    }
+  }
+}
@@ -0,0 +1,380 @@
+package chunklocked.border;
+
+import chunklocked.core.LongIntMap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Tracks placed barrier blocks as one bitmask per wall.
+ * <p>
+ * A wall is one side of a locked chunk: 16 blocks wide and the world height
+ * tall, so its barriers fit in a fixed {@code 16 * height} bit mask (96
+ * longs, 768 bytes, for 384 blocks of height) however many are set. Masks are
+ * keyed by a packed (chunk, side) long and kept in one shared pool, so
+ * tracking costs the same for a full wall as for a single block, and no
+ * {@code BlockPos} is allocated to store or look one up.
+ * <p>
+ * A block on a chunk corner belongs to two walls; it is recorded in the first
+ * one it was added with, and found through either.
+ * <p>
+ * The masks are saved as they are, so a saved layout costs the same fixed
+ * size per wall on disk.
+ * <p>
+ * Not thread-safe.
+ */
+final class BarrierWallTracker {
+
+  /**
+   * Side indexes, as {@link ChunkBarrierManager.Direction#ordinal()}.
+   */
+  static final int NORTH = 0;
+  static final int SOUTH = 1;
+  static final int EAST = 2;
+  static final int WEST = 3;
+
+  private static final int WALL_WIDTH = 16;
+  private static final int NO_SLOT = -1;
+  private static final long FREE = Long.MIN_VALUE;
+  private static final int MAGIC = 0x434C4257; // "CLBW"
+  private static final int FORMAT_VERSION = 1;
+
+  /**
+   * Receives tracked block positions.
+   */
+  @FunctionalInterface
+  interface BlockAction {
+    void accept(int x, int y, int z);
+  }
+
+  private final int minY;
+  private final int height;
+  private final int wordsPerWall;
+
+  /**
+   * Wall key to slot in the pool.
+   */
+  private final LongIntMap slots = new LongIntMap();
+
+  /**
+   * Mask words, {@code wordsPerWall} per slot.
+   */
+  private long[] words = new long[0];
+
+  /**
+   * Wall key per slot, or {@link #FREE}.
+   */
+  private long[] slotKeys = new long[0];
+  private int[] freeSlots = new int[0];
+  private int freeCount;
+  private int slotCount;
+  private int size;
+
+  /**
+   * @param minY The lowest Y of the walls
+   * @param maxY The highest Y of the walls (inclusive)
+   */
+  BarrierWallTracker(int minY, int maxY) {
+    this.minY = minY;
+    this.height = maxY - minY + 1;
+    this.wordsPerWall = (WALL_WIDTH * height + 63) / 64;
+  }
+
+  /**
+   * Records a barrier in a wall.
+   *
+   * @param x    Block X
+   * @param y    Block Y
+   * @param z    Block Z
+   * @param side The wall the block belongs to ({@link #NORTH}, ...)
+   * @return true if the block was not tracked already; false as well if it
+   *         is outside the walls' height or not on that side of its chunk
+   */
+  boolean add(int x, int y, int z, int side) {
+    if (y < minY || y >= minY + height || !isOnSide(x, z, side) || contains(x, y, z)) {
+      return false;
+    }
+    int slot = slots.get(wallKey(x >> 4, z >> 4, side), NO_SLOT);
+    if (slot == NO_SLOT) {
+      slot = allocate(wallKey(x >> 4, z >> 4, side));
+    }
+    int bit = bit(x, y, z, side);
+    words[slot * wordsPerWall + (bit >>> 6)] |= 1L << bit;
+    size++;
+    return true;
+  }
+
+  /**
+   * @return true if a barrier is tracked at the position
+   */
+  boolean contains(int x, int y, int z) {
+    return find(x, y, z, false);
+  }
+
+  /**
+   * Stops tracking a barrier.
+   *
+   * @return true if a barrier was tracked at the position
+   */
+  boolean remove(int x, int y, int z) {
+    return find(x, y, z, true);
+  }
+
+  /**
+   * Stops tracking every barrier of a chunk's walls.
+   *
+   * @param chunkX The chunk X
+   * @param chunkZ The chunk Z
+   * @param action Receives each barrier that was tracked
+   * @return The number of barriers that were tracked
+   */
+  int removeChunk(int chunkX, int chunkZ, BlockAction action) {
+    int removed = 0;
+    for (int side = NORTH; side <= WEST; side++) {
+      long key = wallKey(chunkX, chunkZ, side);
+      int slot = slots.get(key, NO_SLOT);
+      if (slot != NO_SLOT) {
+        removed += forEachInWall(slot, action);
+        release(key, slot);
+      }
+    }
+    size -= removed;
+    return removed;
+  }
+
+  /**
+   * Visits every tracked barrier, without allocating per block.
+   *
+   * @param action Receives each barrier
+   */
+  void forEach(BlockAction action) {
+    for (int slot = 0; slot < slotCount; slot++) {
+      if (slotKeys[slot] != FREE) {
+        forEachInWall(slot, action);
+      }
+    }
+  }
+
+  /**
+   * @return The number of tracked barriers
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * @return The number of walls holding at least one tracked barrier
+   */
+  int wallCount() {
+    return slots.size();
+  }
+
+  void clear() {
+    slots.clear();
+    words = new long[0];
+    slotKeys = new long[0];
+    freeSlots = new int[0];
+    freeCount = 0;
+    slotCount = 0;
+    size = 0;
+  }
+
+  // ========== PERSISTENCE ==========
+
+  /**
+   * Writes every wall to a file, replacing it atomically.
+   *
+   * @param file The file to write
+   * @throws IOException if the file cannot be written
+   */
+  void save(Path file) throws IOException {
+    Files.createDirectories(file.getParent());
+    Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      out.writeInt(minY);
+      out.writeInt(height);
+      out.writeInt(wallCount());
+      for (int slot = 0; slot < slotCount; slot++) {
+        if (slotKeys[slot] == FREE) {
+          continue;
+        }
+        out.writeLong(slotKeys[slot]);
+        int base = slot * wordsPerWall;
+        for (int w = 0; w < wordsPerWall; w++) {
+          out.writeLong(words[base + w]);
+        }
+      }
+    }
+    Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /**
+   * Replaces the tracked barriers with the walls written by {@link #save}.
+   * If reading fails, the tracker is left empty.
+   *
+   * @param file The file to read
+   * @throws IOException if the file cannot be read, is not a wall layout, or
+   *                     was written for a different world height
+   */
+  void load(Path file) throws IOException {
+    clear();
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+        throw new IOException("Unrecognized barrier layout header in " + file);
+      }
+      if (in.readInt() != minY || in.readInt() != height) {
+        throw new IOException("Barrier layout in " + file + " was saved for a different world height");
+      }
+      int walls = in.readInt();
+      for (int i = 0; i < walls; i++) {
+        long key = in.readLong();
+        if (slots.get(key, NO_SLOT) != NO_SLOT) {
+          throw new IOException("Duplicate wall in barrier layout " + file);
+        }
+        int base = allocate(key) * wordsPerWall;
+        for (int w = 0; w < wordsPerWall; w++) {
+          words[base + w] = in.readLong();
+          size += Long.bitCount(words[base + w]);
+        }
+      }
+    } catch (IOException e) {
+      clear();
+      throw e;
+    }
+  }
+
+  // ========== LAYOUT ==========
+
+  /**
+   * Packs a wall: the side in the low 2 bits, chunk X in the next 32 and
+   * chunk Z in the top 30 (chunk coordinates stay far below 2^29).
+   */
+  static long wallKey(int chunkX, int chunkZ, int side) {
+    return ((long) chunkZ << 34) | ((chunkX & 0xFFFFFFFFL) << 2) | side;
+  }
+
+  /**
+   * Bit of a block in its wall: row by Y, column along the wall.
+   */
+  private int bit(int x, int y, int z, int side) {
+    int along = side == NORTH || side == SOUTH ? x & 15 : z & 15;
+    return (y - minY) * WALL_WIDTH + along;
+  }
+
+  private static boolean isOnSide(int x, int z, int side) {
+    return switch (side) {
+      case NORTH -> (z & 15) == 0;
+      case SOUTH -> (z & 15) == 15;
+      case EAST -> (x & 15) == 15;
+      case WEST -> (x & 15) == 0;
+      default -> false;
+    };
+  }
+
+  private boolean find(int x, int y, int z, boolean clear) {
+    if (y < minY || y >= minY + height) {
+      return false;
+    }
+    int localX = x & 15;
+    int localZ = z & 15;
+    return (localZ == 0 && test(x, y, z, NORTH, clear))
+        || (localZ == 15 && test(x, y, z, SOUTH, clear))
+        || (localX == 15 && test(x, y, z, EAST, clear))
+        || (localX == 0 && test(x, y, z, WEST, clear));
+  }
+
+  private boolean test(int x, int y, int z, int side, boolean clear) {
+    long key = wallKey(x >> 4, z >> 4, side);
+    int slot = slots.get(key, NO_SLOT);
+    if (slot == NO_SLOT) {
+      return false;
+    }
+    int bit = bit(x, y, z, side);
+    int word = slot * wordsPerWall + (bit >>> 6);
+    if ((words[word] & (1L << bit)) == 0) {
+      return false;
+    }
+    if (clear) {
+      words[word] &= ~(1L << bit);
+      size--;
+      if (isEmpty(slot)) {
+        release(key, slot);
+      }
+    }
+    return true;
+  }
+
+  private int forEachInWall(int slot, BlockAction action) {
+    long key = slotKeys[slot];
+    int side = (int) (key & 3);
+    int chunkX = (int) (key >>> 2);
+    int chunkZ = (int) (key >> 34);
+    boolean alongX = side == NORTH || side == SOUTH;
+    int edge = side == NORTH || side == WEST ? 0 : WALL_WIDTH - 1;
+    int baseX = chunkX << 4;
+    int baseZ = chunkZ << 4;
+
+    int count = 0;
+    int base = slot * wordsPerWall;
+    for (int w = 0; w < wordsPerWall; w++) {
+      long bits = words[base + w];
+      while (bits != 0) {
+        int bit = (w << 6) + Long.numberOfTrailingZeros(bits);
+        bits &= bits - 1;
+        int along = bit % WALL_WIDTH;
+        int y = minY + bit / WALL_WIDTH;
+        action.accept(baseX + (alongX ? along : edge), y, baseZ + (alongX ? edge : along));
+        count++;
+      }
+    }
+    return count;
+  }
+
+  // ========== POOL ==========
+
+  private int allocate(long key) {
+    int slot;
+    if (freeCount > 0) {
+      slot = freeSlots[--freeCount];
+    } else {
+      if (slotCount == slotKeys.length) {
+        int capacity = Math.max(16, slotKeys.length * 2);
+        slotKeys = Arrays.copyOf(slotKeys, capacity);
+        words = Arrays.copyOf(words, capacity * wordsPerWall);
+      }
+      slot = slotCount++;
+    }
+    slotKeys[slot] = key;
+    slots.put(key, slot);
+    return slot;
+  }
+
+  private void release(long key, int slot) {
+    Arrays.fill(words, slot * wordsPerWall, (slot + 1) * wordsPerWall, 0L);
+    slotKeys[slot] = FREE;
+    slots.remove(key);
+    if (freeCount == freeSlots.length) {
+      freeSlots = Arrays.copyOf(freeSlots, Math.max(16, freeSlots.length * 2));
+    }
+    freeSlots[freeCount++] = slot;
+  }
+
+  private boolean isEmpty(int slot) {
+    int base = slot * wordsPerWall;
+    for (int w = 0; w < wordsPerWall; w++) {
+      if (words[base + w] != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,166 @@
+package chunklocked.border;
+
+import chunklocked.Chunklocked;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.LiquidBlock;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.levelgen.Heightmap;
+import net.minecraft.world.level.lighting.LevelLightEngine;
+import net.minecraft.world.level.lighting.LightEngine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes barrier walls straight into chunk section storage.
+ * <p>
+ * {@code setBlock} looks up the chunk, updates the heightmaps, lighting and
+ * client tracking, and notifies the neighbours once per block: about 6k times
+ * for a full-height wall. This writer visits each 16x16x16 section a wall
+ * crosses once instead. The section's palette tells whether every block in it
+ * can be overwritten without further checks; if so, the wall's blocks in it
+ * are written without being read first. Air and fluid blocks are written
+ * into the section directly, then the heightmaps, lighting and client updates
+ * are applied in one pass (client changes reach players as one section update
+ * packet per section). Other replaceable blocks, such as plants, leaves or
+ * waterlogged blocks, still go through {@code setBlock} so their block
+ * entities, shapes and neighbours are handled normally.
+ */
+final class BarrierWallWriter {
+
+  private static final int CHUNK_SIZE = 16;
+
+  private BarrierWallWriter() {
+  }
+
+  /**
+   * Places a barrier wall on one side of a chunk.
+   *
+   * @param world     The server world
+   * @param chunkPos  The chunk to place the wall in
+   * @param direction The side of the chunk
+   * @param minY      The lowest Y of the wall
+   * @param maxY      The highest Y of the wall (inclusive)
+   * @return The positions where barriers were placed
+   */
+  static Set<BlockPos> placeWall(ServerLevel world, ChunkPos chunkPos, ChunkBarrierManager.Direction direction,
+      int minY, int maxY) {
+    BlockState barrier = Chunklocked.BARRIER_BLOCK_V2.defaultBlockState();
+    LevelChunk chunk = world.getChunk(chunkPos.x, chunkPos.z);
+    LevelChunkSection[] sections = chunk.getSections();
+    LevelLightEngine lightEngine = world.getChunkSource().getLightEngine();
+
+    boolean alongX = direction == ChunkBarrierManager.Direction.NORTH
+        || direction == ChunkBarrierManager.Direction.SOUTH;
+    int edge = direction == ChunkBarrierManager.Direction.NORTH
+        || direction == ChunkBarrierManager.Direction.WEST ? 0 : CHUNK_SIZE - 1;
+    int baseX = chunkPos.getMinBlockX();
+    int baseZ = chunkPos.getMinBlockZ();
+
+    Set<BlockPos> placed = new HashSet<>();
+    List<BlockPos> viaSetBlock = new ArrayList<>();
+    List<BlockPos> lightChanges = new ArrayList<>();
+    List<BlockPos> fluidsReplaced = new ArrayList<>();
+    int[] topY = new int[CHUNK_SIZE];
+    Arrays.fill(topY, Integer.MIN_VALUE);
+
+    for (int sectionY = SectionPos.blockToSectionCoord(minY); sectionY <= SectionPos.blockToSectionCoord(maxY);
+        sectionY++) {
+      int index = chunk.getSectionIndexFromSectionY(sectionY);
+      if (index < 0 || index >= sections.length) {
+        continue;
+      }
+      LevelChunkSection section = sections[index];
+      boolean wasEmpty = section.hasOnlyAir();
+
+      // One palette check: if the section holds nothing but air and fluids,
+      // every block of the wall is written without reading it first; the
+      // write returns what was there
+      boolean writeAll = wasEmpty || !section.getStates().maybeHas(
+          state -> !state.isAir() && !(state.getBlock() instanceof LiquidBlock));
+
+      int sectionMinY = SectionPos.sectionToBlockCoord(sectionY);
+      int fromY = Math.max(minY, sectionMinY);
+      int toY = Math.min(maxY, sectionMinY + CHUNK_SIZE - 1);
+      boolean written = false;
+      for (int y = fromY; y <= toY; y++) {
+        for (int i = 0; i < CHUNK_SIZE; i++) {
+          int localX = alongX ? i : edge;
+          int localZ = alongX ? edge : i;
+          BlockState existing;
+          if (writeAll) {
+            existing = section.setBlockState(localX, y & 15, localZ, barrier);
+          } else {
+            existing = section.getBlockState(localX, y & 15, localZ);
+            if (!existing.isAir() && !(existing.getBlock() instanceof LiquidBlock)) {
+              if (ChunkBarrierManager.isReplaceable(existing)) {
+                viaSetBlock.add(new BlockPos(baseX + localX, y, baseZ + localZ));
+              }
+              // Solid terrain acts as a natural barrier - skip it
+              continue;
+            }
+            section.setBlockState(localX, y & 15, localZ, barrier);
+          }
+
+          BlockPos pos = new BlockPos(baseX + localX, y, baseZ + localZ);
+          world.getChunkSource().blockChanged(pos);
+          placed.add(pos);
+          written = true;
+          topY[i] = Math.max(topY[i], y);
+          if (LightEngine.hasDifferentLightProperties(existing, barrier)) {
+            lightChanges.add(pos);
+          }
+          if (!existing.getFluidState().isEmpty()) {
+            fluidsReplaced.add(pos);
+          }
+        }
+      }
+
+      if (wasEmpty && written) {
+        lightEngine.updateSectionStatus(SectionPos.of(chunkPos, sectionY), false);
+      }
+    }
+
+    // Barriers block motion, so each column's heightmaps only need its
+    // highest new barrier
+    for (int i = 0; i < CHUNK_SIZE; i++) {
+      if (topY[i] != Integer.MIN_VALUE) {
+        int localX = alongX ? i : edge;
+        int localZ = alongX ? edge : i;
+        for (Map.Entry<Heightmap.Types, Heightmap> heightmap : chunk.getHeightmaps()) {
+          heightmap.getValue().update(localX, topY[i], localZ, barrier);
+        }
+      }
+    }
+
+    for (BlockPos pos : lightChanges) {
+      chunk.getSkyLightSources().update(chunk, pos.getX() & 15, pos.getY(), pos.getZ() & 15);
+      lightEngine.checkBlock(pos);
+    }
+
+    // Adjacent fluids need to know the fluid next to them is gone
+    for (BlockPos pos : fluidsReplaced) {
+      world.updateNeighborsAt(pos, barrier.getBlock());
+    }
+
+    if (!placed.isEmpty()) {
+      chunk.markUnsaved();
+    }
+
+    for (BlockPos pos : viaSetBlock) {
+      // Flag 2 | 1 (UPDATE_CLIENTS | NOTIFY_NEIGHBORS), as on the per-block path
+      world.setBlock(pos, barrier, 2 | 1);
+      placed.add(pos);
+    }
+    return placed;
+  }
+}
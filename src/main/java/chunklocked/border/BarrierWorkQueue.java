@@ -0,0 +1,384 @@
+package chunklocked.border;
+
+import chunklocked.core.ChunkManager;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.ChunkPos;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Spreads barrier work over server ticks.
+ * <p>
+ * Rebuilding the walls of a large frontier, or clearing every barrier, takes
+ * far longer than one tick. Instead of running it inside the command or event
+ * that asked for it, the work is queued here and {@link #tick} runs as much of
+ * it as fits in a per-tick time budget at the end of each server tick.
+ * <ul>
+ * <li>Removals of untracked barriers (from {@link #queueClearAll}) run first,
+ * in {@link BatchBarrierOperations.BarrierBatch batches}, so they can never
+ * remove a wall placed by a rebuild.</li>
+ * <li>Rebuilds then run chunk by chunk, nearest to an online player first.
+ * Each one removes the chunk's walls and places them again from the unlock
+ * state at that moment, so a chunk that changed several times while queued is
+ * only rebuilt once, and correctly.</li>
+ * </ul>
+ * Work is only done in loaded chunks. Work for a chunk that is not loaded is
+ * handed to the {@link LazyBarrierLoader} as an intent and comes back as a
+ * rebuild when the chunk loads, so the queue never loads or generates
+ * chunks itself. A removal waiting for its chunk is tracked by the
+ * {@link ChunkBarrierManager} again, so that rebuild removes it.
+ * <p>
+ * The backlog, pending intents included, is written to {@value #FILE_NAME} in
+ * the world directory when the server stops, and picked up again on the next
+ * start.
+ * <p>
+ * Barriers exist only in the overworld: unlock state is kept per chunk
+ * position with no dimension, and {@link LazyBarrierLoader} ignores chunk
+ * loads elsewhere. Queued work therefore carries no level, and {@link #tick}
+ * always runs it in {@link MinecraftServer#overworld()}.
+ * <p>
+ * Server thread only.
+ */
+public class BarrierWorkQueue {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BarrierWorkQueue.class);
+
+  /**
+   * File the backlog is kept in between server runs, in the world directory.
+   */
+  public static final String FILE_NAME = "chunklocked_barrier_queue.bin";
+
+  /**
+   * Default milliseconds of barrier work per tick.
+   */
+  public static final int DEFAULT_BUDGET_MILLIS = 5;
+
+  /**
+   * Upper bound for the budget: a whole 50 ms tick.
+   */
+  public static final int MAX_BUDGET_MILLIS = 50;
+
+  /**
+   * Players move, so rebuilds are re-sorted at least this often (1 second).
+   */
+  private static final int REPRIORITIZE_INTERVAL_TICKS = 20;
+
+  /**
+   * Removals looked at per batch, so a backlog of removals in unloaded chunks
+   * is worked through in budgeted steps too.
+   */
+  private static final int MAX_REMOVALS_POLLED = 1024;
+
+  private final ChunkBarrierManager barrierManager;
+  private final ChunkManager chunkManager;
+  private final Path file;
+  private final long budgetNanos;
+  private final LazyBarrierLoader lazyLoader = new LazyBarrierLoader(this);
+
+  private BarrierBacklog backlog = new BarrierBacklog();
+  private int lastPrioritizedTick = -REPRIORITIZE_INTERVAL_TICKS;
+
+  // Progress, for /chunklocked barrier_queue
+  private long chunksRebuilt;
+  private long barriersRemoved;
+  private long chunksDeferred;
+  private long lastTickNanos;
+  private long busyTicks;
+
+  /**
+   * @param barrierManager The barrier manager doing the block work
+   * @param chunkManager   The source of the unlock state walls are built from
+   * @param worldDir       The world directory, where the backlog is saved
+   * @param budgetMillis   Milliseconds of work per tick, 1 to
+   *                       {@value #MAX_BUDGET_MILLIS}
+   * @throws IllegalArgumentException if the budget is out of range
+   */
+  public BarrierWorkQueue(ChunkBarrierManager barrierManager, ChunkManager chunkManager, Path worldDir,
+      int budgetMillis) {
+    if (budgetMillis < 1 || budgetMillis > MAX_BUDGET_MILLIS) {
+      throw new IllegalArgumentException("Barrier tick budget must be 1-" + MAX_BUDGET_MILLIS + " ms: "
+          + budgetMillis);
+    }
+    this.barrierManager = barrierManager;
+    this.chunkManager = chunkManager;
+    this.file = worldDir.resolve(FILE_NAME);
+    this.budgetNanos = budgetMillis * 1_000_000L;
+  }
+
+  // ========== QUEUEING ==========
+
+  /**
+   * Queues the walls of chunks to be rebuilt from the current unlock state.
+   *
+   * @param chunks The chunks; unlocked chunks just lose their walls
+   * @return The number of chunks that were not queued already
+   */
+  public int queueRebuild(Collection<ChunkPos> chunks) {
+    int added = 0;
+    for (ChunkPos chunk : chunks) {
+      if (backlog.addRebuild(ChunkPos.asLong(chunk.x, chunk.z))) {
+        added++;
+      }
+    }
+    return added;
+  }
+
+  /**
+   * Queues the removal of every tracked barrier and cancels queued rebuilds.
+   * The barriers stop being tracked at once; the blocks disappear over the
+   * next ticks.
+   *
+   * @return The number of barrier blocks queued for removal
+   */
+  public int queueClearAll() {
+    int count = barrierManager.getBarrierCount();
+    backlog.clearRebuilds();
+    barrierManager.forEachBarrierPosition(backlog::addRemoval);
+    barrierManager.clearBarrierTracking();
+    LOGGER.info("Queued {} barrier blocks for removal", count);
+    return count;
+  }
+
+  // ========== TICK ==========
+
+  /**
+   * Runs queued work until the tick budget is used up. At least one batch or
+   * rebuild runs per tick, so the queue always makes progress.
+   *
+   * @param server The server; barriers live in its overworld
+   */
+  public void tick(MinecraftServer server) {
+    if (backlog.isEmpty()) {
+      lastTickNanos = 0;
+      return;
+    }
+
+    ServerLevel world = server.overworld();
+    long start = System.nanoTime();
+    long deadline = start + budgetNanos;
+    do {
+      if (backlog.getRemovalCount() > 0) {
+        removeNextBatch(world);
+      } else {
+        if (backlog.isOrderStale() || server.getTickCount() - lastPrioritizedTick >= REPRIORITIZE_INTERVAL_TICKS) {
+          backlog.prioritize(playerChunks(server, world));
+          lastPrioritizedTick = server.getTickCount();
+        }
+        rebuildNextChunk(world);
+      }
+    } while (!backlog.isEmpty() && System.nanoTime() < deadline);
+
+    lastTickNanos = System.nanoTime() - start;
+    busyTicks++;
+    if (backlog.isEmpty()) {
+      LOGGER.info("Barrier queue drained: {} chunks rebuilt, {} barriers removed so far", chunksRebuilt,
+          barriersRemoved);
+    }
+  }
+
+  private void removeNextBatch(ServerLevel world) {
+    BatchBarrierOperations.BarrierBatch batch = BatchBarrierOperations.createBatch(world);
+    int polled = 0;
+    while (!batch.isFull() && backlog.getRemovalCount() > 0 && polled++ < MAX_REMOVALS_POLLED) {
+      BlockPos pos = BlockPos.of(backlog.pollRemoval());
+      int chunkX = SectionPos.blockToSectionCoord(pos.getX());
+      int chunkZ = SectionPos.blockToSectionCoord(pos.getZ());
+      if (isLoaded(world, chunkX, chunkZ)) {
+        batch.addPosition(pos);
+      } else {
+        deferRemoval(pos);
+      }
+    }
+    BatchBarrierOperations.removeBatch(batch.positions, world);
+    barriersRemoved += batch.size();
+  }
+
+  /**
+   * Hands a removal in a chunk that is not loaded to the chunk's rebuild on
+   * load. The barrier is tracked again, so the rebuild removes it without a
+   * stray scan, and it is saved with the barrier layout until then.
+   *
+   * @param pos The barrier to remove
+   */
+  void deferRemoval(BlockPos pos) {
+    barrierManager.trackBarrier(pos);
+    defer(new ChunkPos(SectionPos.blockToSectionCoord(pos.getX()), SectionPos.blockToSectionCoord(pos.getZ())));
+  }
+
+  private void rebuildNextChunk(ServerLevel world) {
+    ChunkPos chunk = new ChunkPos(backlog.pollRebuild());
+    if (!isLoaded(world, chunk.x, chunk.z)) {
+      defer(chunk);
+      return;
+    }
+    barrierManager.removeBarriers(world, chunk);
+    if (chunkManager.areBarriersEnabled() && !chunkManager.isChunkUnlockedGlobally(chunk.x, chunk.z)) {
+      int unlockedSides = chunkManager.getUnlockedNeighborMask(chunk.x, chunk.z);
+      if (unlockedSides != 0) {
+        barrierManager.placeBarriers(world, chunk, unlockedSides);
+      }
+    }
+    chunksRebuilt++;
+  }
+
+  /**
+   * @return true if the chunk is loaded; never loads it
+   */
+  private static boolean isLoaded(ServerLevel world, int chunkX, int chunkZ) {
+    return world.getChunkSource().getChunkNow(chunkX, chunkZ) != null;
+  }
+
+  private void defer(ChunkPos chunk) {
+    if (lazyLoader.markChunkAwaitingLoad(chunk)) {
+      chunksDeferred++;
+    }
+  }
+
+  private static long[] playerChunks(MinecraftServer server, ServerLevel world) {
+    List<ServerPlayer> players = server.getPlayerList().getPlayers();
+    long[] chunks = new long[players.size()];
+    int count = 0;
+    for (ServerPlayer player : players) {
+      if (player.level() == world && !player.isSpectator()) {
+        ChunkPos chunk = player.chunkPosition();
+        chunks[count++] = ChunkPos.asLong(chunk.x, chunk.z);
+      }
+    }
+    return Arrays.copyOf(chunks, count);
+  }
+
+  // ========== PROGRESS ==========
+
+  /**
+   * @return Chunks waiting for a wall rebuild
+   */
+  public int getPendingRebuilds() {
+    return backlog.getRebuildCount();
+  }
+
+  /**
+   * @return Barrier blocks waiting to be removed
+   */
+  public int getPendingRemovals() {
+    return backlog.getRemovalCount();
+  }
+
+  /**
+   * @return Chunks whose walls wait for the chunk to load
+   */
+  public int getChunksAwaitingLoad() {
+    return lazyLoader.getPendingBarrierCount();
+  }
+
+  /**
+   * @return The loader holding work for chunks that are not loaded
+   */
+  public LazyBarrierLoader getLazyLoader() {
+    return lazyLoader;
+  }
+
+  /**
+   * @return true if no work is queued; work awaiting chunk loads does not
+   *         count
+   */
+  public boolean isIdle() {
+    return backlog.isEmpty();
+  }
+
+  /**
+   * @return Chunks rebuilt since the server started
+   */
+  public long getChunksRebuilt() {
+    return chunksRebuilt;
+  }
+
+  /**
+   * @return Barrier blocks removed by the queue since the server started
+   */
+  public long getBarriersRemoved() {
+    return barriersRemoved;
+  }
+
+  /**
+   * @return Chunks whose work was deferred to a chunk load since the server
+   *         started
+   */
+  public long getChunksDeferred() {
+    return chunksDeferred;
+  }
+
+  /**
+   * @return Ticks in which the queue did work since the server started
+   */
+  public long getBusyTicks() {
+    return busyTicks;
+  }
+
+  /**
+   * @return Milliseconds of work in the last tick that had work
+   */
+  public double getLastTickMillis() {
+    return lastTickNanos / 1_000_000.0;
+  }
+
+  /**
+   * @return The per-tick budget in milliseconds
+   */
+  public int getBudgetMillis() {
+    return (int) (budgetNanos / 1_000_000L);
+  }
+
+  // ========== PERSISTENCE ==========
+
+  /**
+   * Takes over the backlog left by the last server run, if any. The file is
+   * deleted once read: after a crash, stale removals must not be replayed
+   * over walls placed since.
+   */
+  public void load() {
+    if (!Files.exists(file)) {
+      return;
+    }
+    try {
+      backlog = BarrierBacklog.load(file);
+      LOGGER.info("Resuming barrier queue: {} chunk rebuilds, {} barrier removals", backlog.getRebuildCount(),
+          backlog.getRemovalCount());
+    } catch (IOException e) {
+      LOGGER.error("Failed to read barrier queue from {}, starting empty", file, e);
+    }
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      LOGGER.error("Failed to delete barrier queue file {}", file, e);
+    }
+  }
+
+  /**
+   * Writes the backlog for the next server run. Called when the server stops.
+   * Intents waiting for chunk loads are saved as rebuilds; on the next run
+   * they are deferred again until their chunk loads.
+   */
+  public void save() {
+    lazyLoader.forEachPending(backlog::addRebuild);
+    if (backlog.isEmpty()) {
+      return;
+    }
+    try {
+      backlog.save(file);
+      LOGGER.info("Saved barrier queue: {} chunk rebuilds, {} barrier removals", backlog.getRebuildCount(),
+          backlog.getRemovalCount());
+    } catch (IOException e) {
+      LOGGER.error("Failed to save barrier queue to {}", file, e);
+    }
+  }
+}
@@ -13,20 +13,14 @@ import org.slf4j.LoggerFactory;
 import java.util.*;
 
 /**
- * Optimizes barrier block placement by batching operations.
+ * Batches barrier block removals.
  * 
  * <p>
- * Instead of placing barriers one-by-one (which triggers lighting updates
- * and block update notifications for each block), this system batches
- * placements and applies them together.
- * </p>
- * 
- * <p>
- * Benefits:
- * - Fewer lighting recalculations
- * - Fewer block update notifications
- * - Better performance on large unlocks
- * - Can defer placement to off-tick for even better perf
+ * {@link BarrierWorkQueue} collects the positions of untracked barriers into
+ * {@link BarrierBatch batches} and removes each batch in one pass, so a clear
+ * of every barrier is spread over ticks batch by batch. Placement does not go
+ * through here: {@link BarrierWallWriter} writes whole walls section by
+ * section.
  * </p>
  */
 public class BatchBarrierOperations {
@@ -97,42 +91,6 @@ public class BatchBarrierOperations {
     }
   }
 
-  /**
-   * Places all barrier blocks in a batch with optimized block updates.
-   * 
-   * @param batch The batch of barriers to place
-   */
-  public static void placeBatch(BarrierBatch batch) {
-    if (batch == null || batch.positions.isEmpty()) {
-      return;
-    }
-
-    ServerLevel world = batch.world;
-    long startTime = System.currentTimeMillis();
-
-    // Place all blocks in the batch
-    for (BlockPos pos : batch.positions) {
-      BlockState existingState = world.getBlockState(pos);
-      // Replace air, fluids (water/lava), and other replaceable blocks
-      boolean isReplaceable = existingState.isAir()
-          || !existingState.getFluidState().isEmpty()
-          || existingState.canBeReplaced();
-
-      if (isReplaceable) {
-        // Use flags that prevent neighbor updates and fluid flow-back
-        // Flag 2 = update clients, Flag 16 = skip neighbor reactions
-        world.setBlock(pos, Chunklocked.BARRIER_BLOCK_V2.defaultBlockState(), 2 | 1);
-      }
-    }
-
-    // setBlockState handles chunk marking automatically
-    Set<ChunkPos> affectedChunks = batch.getAffectedChunks();
-
-    long duration = System.currentTimeMillis() - startTime;
-    LOGGER.debug("Placed batch of {} barriers in {} chunks ({} ms)",
-        batch.positions.size(), affectedChunks.size(), duration);
-  }
-
   /**
    * Removes all barrier blocks in a batch.
    * 
@@ -173,38 +131,6 @@ public class BatchBarrierOperations {
     return new BarrierBatch(world);
   }
 
-  /**
-   * Splits a large list of positions into multiple batches.
-   * Useful for very large unlock operations.
-   * 
-   * @param world     The server world
-   * @param positions All positions to place
-   * @return List of batches
-   */
-  public static List<BarrierBatch> splitIntoBatches(ServerLevel world, List<BlockPos> positions) {
-    List<BarrierBatch> batches = new ArrayList<>();
-    BarrierBatch currentBatch = createBatch(world);
-
-    for (BlockPos pos : positions) {
-      if (!currentBatch.addPosition(pos)) {
-        // Current batch is full, start a new one
-        batches.add(currentBatch);
-        currentBatch = createBatch(world);
-        currentBatch.addPosition(pos);
-      }
-    }
-
-    // Add final batch if it has positions
-    if (!currentBatch.positions.isEmpty()) {
-      batches.add(currentBatch);
-    }
-
-    LOGGER.debug("Split {} positions into {} batches",
-        positions.size(), batches.size());
-
-    return batches;
-  }
-
   /**
    * Calculates the number of blocks that will be affected by a chunk unlock.
    * Useful for predicting performance impact.
@@ -83,6 +83,8 @@ public class BlockBreakProtection {
       // Use flags that prevent neighbor updates and fluid flow-back
       // Flag 2 = update clients, Flag 16 = skip neighbor reactions
       serverWorld.setBlock(pos, Chunklocked.BARRIER_BLOCK_V2.defaultBlockState(), 2 | 1);
+      // Tracked like a wall barrier, so unlocking the chunk removes it
+      barrierManager.trackBarrier(pos);
     } else {
       LOGGER.info("Position {} is not a barrier boundary", pos);
     }
@@ -1,6 +1,7 @@
 package chunklocked.border;
 
 import chunklocked.Chunklocked;
+import chunklocked.core.ChunkStore;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.block.Blocks;
 import net.minecraft.server.level.ServerLevel;
@@ -9,8 +10,11 @@ import net.minecraft.world.level.ChunkPos;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
 
 /**
  * Manages barrier block placement and removal at chunk boundaries.
@@ -25,12 +29,27 @@ import java.util.concurrent.ConcurrentHashMap;
  * </p>
  * 
  * <p>
- * Thread-safe: Uses ConcurrentHashMap for multi-player environments.
+ * The tracked layout is saved to {@value #FILE_NAME} in the world directory
+ * when the server stops and restored on the next start, so unlocking a chunk
+ * only touches barriers known to be there. Scanning chunk edges for untracked
+ * ("stray") barriers is a repair tool: it is only on when enabled, or for a
+ * run that started without a saved layout.
+ * </p>
+ * 
+ * <p>
+ * Thread-safe: barrier tracking is guarded by its own monitor, so lookups
+ * such as {@link #isTrackedBarrier} may come from any thread.
  * </p>
  */
 public class ChunkBarrierManager {
   private static final Logger LOGGER = LoggerFactory.getLogger(ChunkBarrierManager.class);
 
+  /**
+   * File the barrier layout is kept in between server runs, in the world
+   * directory.
+   */
+  public static final String FILE_NAME = "chunklocked_barriers.bin";
+
   // Level height constants for 1.21
   private static final int MIN_WORLD_Y = -64;
   private static final int MAX_WORLD_Y = 319;
@@ -39,17 +58,22 @@ public class ChunkBarrierManager {
   private static final int CHUNK_SIZE = 16;
 
   /**
-   * Tracks all barrier blocks managed by ChunkLocked.
-   * Key: ChunkPos of the locked chunk
-   * Value: Set of BlockPos where barriers are placed
+   * Tracks all barrier blocks managed by ChunkLocked, one bitmask per wall of
+   * a locked chunk. Guarded by its own monitor.
    */
-  private final Map<ChunkPos, Set<BlockPos>> chunkBarriers = new ConcurrentHashMap<>();
+  private final BarrierWallTracker trackedBarriers = new BarrierWallTracker(MIN_WORLD_Y, MAX_WORLD_Y);
 
   /**
-   * Global set of all barrier block positions for fast lookup.
-   * Used by BarrierBlockCollisionMixin to identify ChunkLocked barriers.
+   * Whether walls are written per chunk section by {@link BarrierWallWriter}
+   * (the default) or block by block with {@code setBlock}.
    */
-  private final Set<BlockPos> allBarrierPositions = ConcurrentHashMap.newKeySet();
+  private volatile boolean bulkWallWrites = true;
+
+  /**
+   * Whether removing a chunk's barriers also scans its edges for untracked
+   * ones. On until a saved layout is restored by {@link #loadTracking}.
+   */
+  private volatile boolean strayScan = true;
 
   /**
    * Places barrier blocks around a locked chunk at boundaries with unlocked
@@ -61,40 +85,84 @@ public class ChunkBarrierManager {
    * @param unlockedChunks Set of all unlocked chunk positions for adjacency check
    */
   public void placeBarriers(ServerLevel world, ChunkPos lockedChunk, Set<ChunkPos> unlockedChunks) {
-    LOGGER.info("placeBarriers called for chunk [{}, {}]", lockedChunk.x, lockedChunk.z);
     if (world == null || lockedChunk == null || unlockedChunks == null) {
       LOGGER.warn("Cannot place barriers: null parameter provided");
       return;
     }
 
-    Set<BlockPos> barriers = new HashSet<>();
-
     // Check all 4 cardinal directions
-    ChunkPos north = new ChunkPos(lockedChunk.x, lockedChunk.z - 1);
-    ChunkPos south = new ChunkPos(lockedChunk.x, lockedChunk.z + 1);
-    ChunkPos east = new ChunkPos(lockedChunk.x + 1, lockedChunk.z);
-    ChunkPos west = new ChunkPos(lockedChunk.x - 1, lockedChunk.z);
+    int unlockedSides = 0;
+    if (unlockedChunks.contains(new ChunkPos(lockedChunk.x, lockedChunk.z - 1))) {
+      unlockedSides |= ChunkStore.NORTH;
+    }
+    if (unlockedChunks.contains(new ChunkPos(lockedChunk.x, lockedChunk.z + 1))) {
+      unlockedSides |= ChunkStore.SOUTH;
+    }
+    if (unlockedChunks.contains(new ChunkPos(lockedChunk.x + 1, lockedChunk.z))) {
+      unlockedSides |= ChunkStore.EAST;
+    }
+    if (unlockedChunks.contains(new ChunkPos(lockedChunk.x - 1, lockedChunk.z))) {
+      unlockedSides |= ChunkStore.WEST;
+    }
+    placeBarriers(world, lockedChunk, unlockedSides);
+  }
+
+  /**
+   * Places barrier blocks on the given sides of a locked chunk.
+   * Callers holding the unlock state get the sides from
+   * {@link chunklocked.core.ChunkManager#getUnlockedNeighborMask(int, int)}
+   * without building a chunk set.
+   *
+   * @param world         The server world
+   * @param lockedChunk   The chunk position to surround with barriers
+   * @param unlockedSides Sides bordering unlocked chunks, as a combination of
+   *                      {@link ChunkStore#NORTH}, {@link ChunkStore#SOUTH},
+   *                      {@link ChunkStore#EAST} and {@link ChunkStore#WEST}
+   */
+  public void placeBarriers(ServerLevel world, ChunkPos lockedChunk, int unlockedSides) {
+    LOGGER.info("placeBarriers called for chunk [{}, {}]", lockedChunk.x, lockedChunk.z);
+    if (world == null) {
+      LOGGER.warn("Cannot place barriers: null parameter provided");
+      return;
+    }
+
+    int placed = 0;
 
     // Only place barriers on sides that border unlocked chunks
-    if (unlockedChunks.contains(north)) {
-      barriers.addAll(createBarrierWall(world, lockedChunk, Direction.NORTH));
+    if ((unlockedSides & ChunkStore.NORTH) != 0) {
+      placed += track(placeWall(world, lockedChunk, Direction.NORTH), Direction.NORTH);
     }
-    if (unlockedChunks.contains(south)) {
-      barriers.addAll(createBarrierWall(world, lockedChunk, Direction.SOUTH));
+    if ((unlockedSides & ChunkStore.SOUTH) != 0) {
+      placed += track(placeWall(world, lockedChunk, Direction.SOUTH), Direction.SOUTH);
     }
-    if (unlockedChunks.contains(east)) {
-      barriers.addAll(createBarrierWall(world, lockedChunk, Direction.EAST));
+    if ((unlockedSides & ChunkStore.EAST) != 0) {
+      placed += track(placeWall(world, lockedChunk, Direction.EAST), Direction.EAST);
     }
-    if (unlockedChunks.contains(west)) {
-      barriers.addAll(createBarrierWall(world, lockedChunk, Direction.WEST));
+    if ((unlockedSides & ChunkStore.WEST) != 0) {
+      placed += track(placeWall(world, lockedChunk, Direction.WEST), Direction.WEST);
     }
 
-    if (!barriers.isEmpty()) {
-      chunkBarriers.put(lockedChunk, barriers);
-      allBarrierPositions.addAll(barriers);
+    if (placed > 0) {
       LOGGER.debug("Placed {} barriers around chunk [{}, {}]",
-          barriers.size(), lockedChunk.x, lockedChunk.z);
+          placed, lockedChunk.x, lockedChunk.z);
+    }
+  }
+
+  /**
+   * Records the barriers of a wall that was just placed.
+   *
+   * @return The number of barriers not tracked before
+   */
+  private int track(Set<BlockPos> wall, Direction direction) {
+    int added = 0;
+    synchronized (trackedBarriers) {
+      for (BlockPos pos : wall) {
+        if (trackedBarriers.add(pos.getX(), pos.getY(), pos.getZ(), direction.ordinal())) {
+          added++;
+        }
+      }
     }
+    return added;
   }
 
   /**
@@ -110,19 +178,17 @@ public class ChunkBarrierManager {
       return 0;
     }
 
-    int totalRemoved = 0;
+    int totalRemoved;
+    BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+    synchronized (trackedBarriers) {
+      totalRemoved = trackedBarriers.size();
 
-    // Remove all tracked barriers from the world
-    for (Map.Entry<ChunkPos, Set<BlockPos>> entry : chunkBarriers.entrySet()) {
-      for (BlockPos pos : entry.getValue()) {
-        world.setBlock(pos, Blocks.AIR.defaultBlockState(), 3);
-        totalRemoved++;
-      }
-    }
+      // Remove all tracked barriers from the world
+      trackedBarriers.forEach((x, y, z) -> world.setBlock(pos.set(x, y, z), Blocks.AIR.defaultBlockState(), 3));
 
-    // Clear internal tracking
-    chunkBarriers.clear();
-    allBarrierPositions.clear();
+      // Clear internal tracking
+      trackedBarriers.clear();
+    }
 
     LOGGER.info("Cleared {} barrier blocks from world", totalRemoved);
     return totalRemoved;
@@ -132,8 +198,9 @@ public class ChunkBarrierManager {
    * Removes all barrier blocks for a specific chunk.
    * Called when a chunk is unlocked.
    * 
-   * Scans all barrier positions at chunk boundaries (not just tracked ones)
-   * to remove barriers that may have been created via block break replacement.
+   * Only tracked barriers are removed, unless stray scanning is enabled (see
+   * {@link #setStrayScanEnabled}); then all barrier positions at the chunk
+   * boundaries are scanned too.
    * 
    * @param world The server world
    * @param chunk The chunk position to remove barriers from
@@ -145,19 +212,16 @@ public class ChunkBarrierManager {
     }
 
     // First, remove tracked barriers
-    Set<BlockPos> trackedBarriers = chunkBarriers.remove(chunk);
-    int removedFromTracking = 0;
-    if (trackedBarriers != null && !trackedBarriers.isEmpty()) {
-      for (BlockPos pos : trackedBarriers) {
-        world.setBlock(pos, Blocks.AIR.defaultBlockState(), 3);
-        allBarrierPositions.remove(pos);
-        removedFromTracking++;
-      }
+    int removedFromTracking;
+    BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+    synchronized (trackedBarriers) {
+      removedFromTracking = trackedBarriers.removeChunk(chunk.x, chunk.z,
+          (x, y, z) -> world.setBlock(pos.set(x, y, z), Blocks.AIR.defaultBlockState(), 3));
     }
 
-    // Second, scan all 4 edges of the chunk for stray barriers that may have
-    // been placed via block break replacement and not tracked
-    int removedFromScan = removeStrayBarriers(world, chunk);
+    // Second, if enabled, scan all 4 edges of the chunk for stray barriers
+    // that were never tracked or whose tracking was lost
+    int removedFromScan = strayScan ? removeStrayBarriers(world, chunk) : 0;
 
     LOGGER.debug("Removed {} tracked + {} stray barriers from chunk [{}, {}]",
         removedFromTracking, removedFromScan, chunk.x, chunk.z);
@@ -184,7 +248,7 @@ public class ChunkBarrierManager {
         BlockPos pos = new BlockPos(x, y, chunkWorldZ);
         if (world.getBlockState(pos).is(Chunklocked.BARRIER_BLOCK_V2)) {
           world.setBlock(pos, Blocks.AIR.defaultBlockState(), 3);
-          allBarrierPositions.remove(pos);
+          untrack(pos);
           removed++;
         }
       }
@@ -196,7 +260,7 @@ public class ChunkBarrierManager {
         BlockPos pos = new BlockPos(x, y, chunkWorldZ + CHUNK_SIZE - 1);
         if (world.getBlockState(pos).is(Chunklocked.BARRIER_BLOCK_V2)) {
           world.setBlock(pos, Blocks.AIR.defaultBlockState(), 3);
-          allBarrierPositions.remove(pos);
+          untrack(pos);
           removed++;
         }
       }
@@ -208,7 +272,7 @@ public class ChunkBarrierManager {
         BlockPos pos = new BlockPos(chunkWorldX, y, z);
         if (world.getBlockState(pos).is(Chunklocked.BARRIER_BLOCK_V2)) {
           world.setBlock(pos, Blocks.AIR.defaultBlockState(), 3);
-          allBarrierPositions.remove(pos);
+          untrack(pos);
           removed++;
         }
       }
@@ -220,7 +284,7 @@ public class ChunkBarrierManager {
         BlockPos pos = new BlockPos(chunkWorldX + CHUNK_SIZE - 1, y, z);
         if (world.getBlockState(pos).is(Chunklocked.BARRIER_BLOCK_V2)) {
           world.setBlock(pos, Blocks.AIR.defaultBlockState(), 3);
-          allBarrierPositions.remove(pos);
+          untrack(pos);
           removed++;
         }
       }
@@ -260,7 +324,7 @@ public class ChunkBarrierManager {
           BlockPos pos = new BlockPos(x, y, z1World);
           if (world.getBlockState(pos).is(Chunklocked.BARRIER_BLOCK_V2)) {
             world.setBlock(pos, Blocks.AIR.defaultBlockState(), 3);
-            allBarrierPositions.remove(pos);
+            untrack(pos);
             removed++;
           }
         }
@@ -274,7 +338,7 @@ public class ChunkBarrierManager {
           BlockPos pos = new BlockPos(x, y, z1World + CHUNK_SIZE - 1);
           if (world.getBlockState(pos).is(Chunklocked.BARRIER_BLOCK_V2)) {
             world.setBlock(pos, Blocks.AIR.defaultBlockState(), 3);
-            allBarrierPositions.remove(pos);
+            untrack(pos);
             removed++;
           }
         }
@@ -288,7 +352,7 @@ public class ChunkBarrierManager {
           BlockPos pos = new BlockPos(x1World, y, z);
           if (world.getBlockState(pos).is(Chunklocked.BARRIER_BLOCK_V2)) {
             world.setBlock(pos, Blocks.AIR.defaultBlockState(), 3);
-            allBarrierPositions.remove(pos);
+            untrack(pos);
             removed++;
           }
         }
@@ -302,7 +366,7 @@ public class ChunkBarrierManager {
           BlockPos pos = new BlockPos(x1World + CHUNK_SIZE - 1, y, z);
           if (world.getBlockState(pos).is(Chunklocked.BARRIER_BLOCK_V2)) {
             world.setBlock(pos, Blocks.AIR.defaultBlockState(), 3);
-            allBarrierPositions.remove(pos);
+            untrack(pos);
             removed++;
           }
         }
@@ -401,9 +465,9 @@ public class ChunkBarrierManager {
       return false; // Not at a boundary
     }
 
-    // Get GLOBAL unlocked chunks (not per-player)
-    Set<ChunkPos> globalUnlockedChunks = chunkManager.getGlobalUnlockedChunks();
-    boolean currentUnlocked = globalUnlockedChunks.contains(currentChunk);
+    // Check GLOBAL unlock state (not per-player), by coordinates so a block
+    // break does not copy the unlocked chunk set
+    boolean currentUnlocked = chunkManager.isChunkUnlockedGlobally(currentChunk.x, currentChunk.z);
 
     LOGGER.info("Current chunk {} is {} (global state)", currentChunk, currentUnlocked ? "unlocked" : "locked");
 
@@ -432,7 +496,7 @@ public class ChunkBarrierManager {
     // - Terrain was broken in a locked chunk (needs barrier to prevent escape)
     if (atNorthEdge) {
       ChunkPos north = new ChunkPos(currentChunk.x, currentChunk.z - 1);
-      boolean northUnlocked = globalUnlockedChunks.contains(north);
+      boolean northUnlocked = chunkManager.isChunkUnlockedGlobally(north.x, north.z);
       LOGGER.info("North edge: chunk {} is {} (global state)", north, northUnlocked ? "unlocked" : "locked");
 
       if (wasBarrier) {
@@ -451,7 +515,7 @@ public class ChunkBarrierManager {
     }
     if (atSouthEdge) {
       ChunkPos south = new ChunkPos(currentChunk.x, currentChunk.z + 1);
-      boolean southUnlocked = globalUnlockedChunks.contains(south);
+      boolean southUnlocked = chunkManager.isChunkUnlockedGlobally(south.x, south.z);
       LOGGER.info("South edge: chunk {} is {} (global state)", south, southUnlocked ? "unlocked" : "locked");
 
       if (wasBarrier) {
@@ -470,7 +534,7 @@ public class ChunkBarrierManager {
     }
     if (atWestEdge) {
       ChunkPos west = new ChunkPos(currentChunk.x - 1, currentChunk.z);
-      boolean westUnlocked = globalUnlockedChunks.contains(west);
+      boolean westUnlocked = chunkManager.isChunkUnlockedGlobally(west.x, west.z);
       LOGGER.info("West edge: chunk {} is {} (global state)", west, westUnlocked ? "unlocked" : "locked");
 
       if (wasBarrier) {
@@ -489,7 +553,7 @@ public class ChunkBarrierManager {
     }
     if (atEastEdge) {
       ChunkPos east = new ChunkPos(currentChunk.x + 1, currentChunk.z);
-      boolean eastUnlocked = globalUnlockedChunks.contains(east);
+      boolean eastUnlocked = chunkManager.isChunkUnlockedGlobally(east.x, east.z);
       LOGGER.info("East edge: chunk {} is {} (global state)", east, eastUnlocked ? "unlocked" : "locked");
 
       if (wasBarrier) {
@@ -518,16 +582,33 @@ public class ChunkBarrierManager {
    * @return Total count of active barrier blocks
    */
   public int getBarrierCount() {
-    return allBarrierPositions.size();
+    synchronized (trackedBarriers) {
+      return trackedBarriers.size();
+    }
   }
 
   /**
-   * Gets all currently placed barrier block positions.
-   * 
-   * @return Unmodifiable set of all barrier positions
+   * Checks whether a block is a barrier placed and tracked by ChunkLocked.
+   * Constant time: one or two bitmask lookups.
+   *
+   * @param pos The block position
+   * @return true if a tracked barrier is at the position
+   */
+  public boolean isTrackedBarrier(BlockPos pos) {
+    synchronized (trackedBarriers) {
+      return trackedBarriers.contains(pos.getX(), pos.getY(), pos.getZ());
+    }
+  }
+
+  /**
+   * Visits every tracked barrier without copying the tracking data.
+   *
+   * @param action Receives each position, packed with {@code BlockPos.asLong}
    */
-  public Set<BlockPos> getAllBarrierPositions() {
-    return Collections.unmodifiableSet(allBarrierPositions);
+  public void forEachBarrierPosition(LongConsumer action) {
+    synchronized (trackedBarriers) {
+      trackedBarriers.forEach((x, y, z) -> action.accept(BlockPos.asLong(x, y, z)));
+    }
   }
 
   /**
@@ -535,20 +616,170 @@ public class ChunkBarrierManager {
    * Used for cleanup or reinitialization scenarios.
    */
   public void clearBarrierTracking() {
-    chunkBarriers.clear();
-    allBarrierPositions.clear();
+    synchronized (trackedBarriers) {
+      trackedBarriers.clear();
+    }
     LOGGER.debug("Cleared all barrier tracking data");
   }
 
   /**
-   * Creates a barrier wall on one side of a chunk.
+   * Tracks a barrier placed outside of a wall rebuild, such as one replacing a
+   * broken block at a chunk boundary, so removing the chunk's walls finds it
+   * without a stray scan.
+   *
+   * @param pos The barrier position; ignored unless on a chunk edge
+   */
+  public void trackBarrier(BlockPos pos) {
+    int localX = pos.getX() & 15;
+    int localZ = pos.getZ() & 15;
+    Direction side;
+    if (localZ == 0) {
+      side = Direction.NORTH;
+    } else if (localZ == CHUNK_SIZE - 1) {
+      side = Direction.SOUTH;
+    } else if (localX == CHUNK_SIZE - 1) {
+      side = Direction.EAST;
+    } else if (localX == 0) {
+      side = Direction.WEST;
+    } else {
+      return;
+    }
+    synchronized (trackedBarriers) {
+      trackedBarriers.add(pos.getX(), pos.getY(), pos.getZ(), side.ordinal());
+    }
+  }
+
+  /**
+   * @return true if removing barriers also scans chunk edges for untracked ones
+   */
+  public boolean isStrayScanEnabled() {
+    return strayScan;
+  }
+
+  /**
+   * Enables or disables scanning chunk edges for untracked barriers whenever a
+   * chunk's barriers are removed. A scan reads 4 x 16 x 384 block states, so it
+   * is meant for repairing a world, not for normal play.
+   *
+   * @param enabled Whether to scan
+   */
+  public void setStrayScanEnabled(boolean enabled) {
+    this.strayScan = enabled;
+  }
+
+  /**
+   * Restores the barrier layout saved by the previous server run. The file is
+   * deleted once read, so a run that ends without saving (a crash) cannot leave
+   * a stale layout behind; the next start then falls back to stray scanning.
+   *
+   * @param worldDir The world directory
+   * @return true if a layout was restored and stray scanning was turned off
+   */
+  public boolean loadTracking(Path worldDir) {
+    Path file = worldDir.resolve(FILE_NAME);
+    if (!Files.exists(file)) {
+      LOGGER.info("No saved barrier layout, scanning chunk edges for stray barriers this run");
+      return false;
+    }
+    boolean restored = false;
+    synchronized (trackedBarriers) {
+      try {
+        trackedBarriers.load(file);
+        restored = true;
+        LOGGER.info("Restored {} tracked barriers in {} walls", trackedBarriers.size(), trackedBarriers.wallCount());
+      } catch (IOException e) {
+        LOGGER.error("Failed to read barrier layout from {}, scanning chunk edges for stray barriers this run", file,
+            e);
+      }
+    }
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      LOGGER.error("Failed to delete barrier layout file {}", file, e);
+    }
+    if (restored) {
+      strayScan = false;
+    }
+    return restored;
+  }
+
+  /**
+   * Writes the tracked barrier layout for the next server run. Called when
+   * the server stops; an empty layout is written too, so the next run knows
+   * there is nothing untracked to scan for.
+   *
+   * @param worldDir The world directory
+   */
+  public void saveTracking(Path worldDir) {
+    Path file = worldDir.resolve(FILE_NAME);
+    synchronized (trackedBarriers) {
+      try {
+        trackedBarriers.save(file);
+        LOGGER.info("Saved {} tracked barriers in {} walls", trackedBarriers.size(), trackedBarriers.wallCount());
+      } catch (IOException e) {
+        LOGGER.error("Failed to save barrier layout to {}", file, e);
+      }
+    }
+  }
+
+  private void untrack(BlockPos pos) {
+    synchronized (trackedBarriers) {
+      trackedBarriers.remove(pos.getX(), pos.getY(), pos.getZ());
+    }
+  }
+
+  /**
+   * @return true if walls are written per chunk section, false if block by
+   *         block
+   */
+  public boolean isBulkWallWrites() {
+    return bulkWallWrites;
+  }
+
+  /**
+   * Chooses how walls are written. The per-block path is kept as a fallback
+   * and as the baseline for {@code /chunklocked benchmark_barriers}.
+   *
+   * @param bulkWallWrites true to write walls per chunk section, false to
+   *                       write them block by block
+   */
+  public void setBulkWallWrites(boolean bulkWallWrites) {
+    this.bulkWallWrites = bulkWallWrites;
+  }
+
+  /**
+   * Checks whether a wall may overwrite a block: air, fluids, leaves, vines
+   * and any passable block. Solid terrain that blocks player movement is left
+   * in place.
+   *
+   * @param state The block currently at the wall position
+   * @return true if a barrier can replace it
+   */
+  static boolean isReplaceable(BlockState state) {
+    return state.isAir()
+        || !state.getFluidState().isEmpty()
+        || state.is(net.minecraft.tags.BlockTags.LEAVES)
+        || state.is(net.minecraft.tags.BlockTags.CLIMBABLE) // vines, ladders, scaffolding
+        || !state.canOcclude(); // passable blocks (grass, flowers, crops, etc.)
+  }
+
+  private Set<BlockPos> placeWall(ServerLevel world, ChunkPos chunk, Direction direction) {
+    if (bulkWallWrites) {
+      return BarrierWallWriter.placeWall(world, chunk, direction, MIN_WORLD_Y, MAX_WORLD_Y);
+    }
+    return createBarrierWallPerBlock(world, chunk, direction);
+  }
+
+  /**
+   * Creates a barrier wall on one side of a chunk, one {@code setBlock} per
+   * block.
    * 
    * @param world     The server world
    * @param chunk     The chunk to create a wall for
    * @param direction Which side of the chunk to place the wall
    * @return Set of BlockPos where barriers were placed
    */
-  private Set<BlockPos> createBarrierWall(ServerLevel world, ChunkPos chunk, Direction direction) {
+  private Set<BlockPos> createBarrierWallPerBlock(ServerLevel world, ChunkPos chunk, Direction direction) {
     Set<BlockPos> barriers = new HashSet<>();
     int waterBlocksReplaced = 0; // Track water replacement
 
@@ -615,13 +846,7 @@ public class ChunkBarrierManager {
               existingState.getFluidState());
         }
 
-        boolean isReplaceable = existingState.isAir()
-            || !existingState.getFluidState().isEmpty()
-            || existingState.is(net.minecraft.tags.BlockTags.LEAVES)
-            || existingState.is(net.minecraft.tags.BlockTags.CLIMBABLE) // vines, ladders, scaffolding
-            || !existingState.canOcclude(); // passable blocks (grass, flowers, crops, etc.)
-
-        if (isReplaceable) {
+        if (isReplaceable(existingState)) {
           // Track water replacement for logging
           if (!existingState.getFluidState().isEmpty()) {
             waterBlocksReplaced++;
@@ -651,7 +876,7 @@ public class ChunkBarrierManager {
   /**
    * Cardinal directions for barrier wall placement.
    */
-  private enum Direction {
+  enum Direction {
     NORTH, SOUTH, EAST, WEST
   }
 }
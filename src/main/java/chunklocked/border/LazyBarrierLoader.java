@@ -1,5 +1,7 @@
 package chunklocked.border;
 
+import chunklocked.Chunklocked;
+import chunklocked.core.LongChunkSet;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerChunkEvents;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.chunk.LevelChunk;
@@ -7,54 +9,70 @@ import net.minecraft.world.level.ChunkPos;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
+import java.util.function.LongConsumer;
 
 /**
  * Manages lazy loading of barriers when chunks are loaded.
- * 
+ *
  * <p>
- * Instead of placing all barriers immediately (which might cause lag),
- * this system defers barrier placement until the target chunk is loaded.
- * When a chunk loads, we check if any adjacent locked chunks need barriers,
- * and place them then.
+ * Walls are written into the locked chunk itself, and writing into a chunk
+ * that is not loaded would load (or even generate) it synchronously on the
+ * server thread. Instead, the {@link BarrierWorkQueue} records a pending
+ * intent here for every chunk it cannot work on yet. When the chunk loads,
+ * the intent goes back to the queue, which rebuilds the chunk's walls from
+ * the unlock state at that time.
  * </p>
- * 
+ *
  * <p>
- * Reduces server startup time and prevents placement issues with unloaded
- * chunks.
+ * Intents are plain chunk positions: whatever changed while a chunk was
+ * unloaded, its walls are rebuilt once. They survive restarts as part of the
+ * queue's backlog.
  * </p>
  */
 public class LazyBarrierLoader {
   private static final Logger LOGGER = LoggerFactory.getLogger(LazyBarrierLoader.class);
 
-  private final ChunkBarrierManager barrierManager;
-  private final Set<ChunkPos> barriersAwaitingChunks = ConcurrentHashMap.newKeySet();
+  private final BarrierWorkQueue barrierQueue;
 
-  public LazyBarrierLoader(ChunkBarrierManager barrierManager) {
-    this.barrierManager = barrierManager;
+  /**
+   * Locked chunks awaiting their own load, as packed positions. Guarded by its
+   * own monitor; chunk loads probe it without allocating.
+   */
+  private final LongChunkSet barriersAwaitingChunks = new LongChunkSet();
+
+  /**
+   * @param barrierQueue The queue that intents are handed back to on load
+   */
+  public LazyBarrierLoader(BarrierWorkQueue barrierQueue) {
+    this.barrierQueue = barrierQueue;
   }
 
   /**
-   * Registers the chunk load event listener.
-   * Call this once during mod initialization.
+   * Registers the chunk load event listener. The listener forwards to the
+   * loader of the running server's barrier queue, so it is registered once
+   * during mod initialization.
    */
-  public void registerChunkLoadListener() {
+  public static void register() {
     ServerChunkEvents.CHUNK_LOAD.register((world, chunk) -> {
-      onChunkLoad(world, chunk);
+      BarrierWorkQueue barrierQueue = Chunklocked.getBarrierQueue();
+      if (barrierQueue != null) {
+        barrierQueue.getLazyLoader().onChunkLoad(world, chunk);
+      }
     });
 
     LOGGER.info("Registered lazy barrier loader for chunk load events");
   }
 
   /**
-   * Called when a chunk loads. Checks if any adjacent chunks need barriers
-   * now that this chunk is loaded.
-   * 
+   * Called when a chunk loads. Hands its pending intent, if any, back to the
+   * barrier queue. The walls are written on the next tick rather than inside
+   * the load event.
+   *
    * @param world The server world
    * @param chunk The chunk that was loaded
    */
-  private void onChunkLoad(ServerLevel world, LevelChunk chunk) {
+  void onChunkLoad(ServerLevel world, LevelChunk chunk) {
     if (world == null || chunk == null) {
       return;
     }
@@ -65,54 +83,71 @@ public class LazyBarrierLoader {
     }
 
     ChunkPos loadedChunk = chunk.getPos();
-
-    // Check all 4 adjacent chunks
-    ChunkPos[] adjacentPositions = {
-        new ChunkPos(loadedChunk.x, loadedChunk.z - 1), // North
-        new ChunkPos(loadedChunk.x, loadedChunk.z + 1), // South
-        new ChunkPos(loadedChunk.x + 1, loadedChunk.z), // East
-        new ChunkPos(loadedChunk.x - 1, loadedChunk.z) // West
-    };
-
-    for (ChunkPos adjacent : adjacentPositions) {
-      if (barriersAwaitingChunks.contains(adjacent)) {
-        LOGGER.info("Adjacent locked chunk {} is now loaded, placing pending barriers", adjacent);
-        barriersAwaitingChunks.remove(adjacent);
-        // Barriers will be placed on next barrier update from ChunkManager
+    boolean pending;
+    synchronized (barriersAwaitingChunks) {
+      if (barriersAwaitingChunks.isEmpty()) {
+        return;
       }
+      pending = barriersAwaitingChunks.remove(ChunkPos.asLong(loadedChunk.x, loadedChunk.z));
     }
 
-    LOGGER.debug("Processed chunk load for {}", loadedChunk);
+    if (pending) {
+      LOGGER.debug("Chunk [{}, {}] is now loaded, queueing its pending barriers", loadedChunk.x, loadedChunk.z);
+      barrierQueue.queueRebuild(List.of(loadedChunk));
+    }
   }
 
   /**
-   * Records that a chunk is waiting for its adjacent chunks to load.
-   * Used when deferring barrier placement.
-   * 
-   * @param chunkPos The locked chunk awaiting adjacent chunk loads
+   * Records that a chunk's walls must be rebuilt once it loads.
+   *
+   * @param chunkPos The chunk awaiting load
+   * @return true if the chunk was not awaiting load already
    */
-  public void markChunkAwaitingLoad(ChunkPos chunkPos) {
-    barriersAwaitingChunks.add(chunkPos);
-    LOGGER.debug("Marked chunk {} as awaiting adjacent chunk loads", chunkPos);
+  public boolean markChunkAwaitingLoad(ChunkPos chunkPos) {
+    boolean added;
+    synchronized (barriersAwaitingChunks) {
+      added = barriersAwaitingChunks.add(ChunkPos.asLong(chunkPos.x, chunkPos.z));
+    }
+    if (added) {
+      LOGGER.debug("Marked chunk {} as awaiting load", chunkPos);
+    }
+    return added;
   }
 
   /**
    * Gets the count of chunks awaiting chunk load before barriers are placed.
    * Useful for debugging and statistics.
-   * 
+   *
    * @return Count of deferred barrier placements
    */
   public int getPendingBarrierCount() {
-    return barriersAwaitingChunks.size();
+    synchronized (barriersAwaitingChunks) {
+      return barriersAwaitingChunks.size();
+    }
   }
 
   /**
    * Checks if a chunk is awaiting load for barriers.
-   * 
+   *
    * @param chunkPos The chunk position to check
-   * @return true if this chunk is awaiting adjacent chunks to load
+   * @return true if this chunk is awaiting load
    */
   public boolean isAwaitingLoad(ChunkPos chunkPos) {
-    return barriersAwaitingChunks.contains(chunkPos);
+    synchronized (barriersAwaitingChunks) {
+      return barriersAwaitingChunks.contains(chunkPos.x, chunkPos.z);
+    }
+  }
+
+  /**
+   * Passes every pending intent to an action, for saving.
+   *
+   * @param action Receives packed chunk positions
+   */
+  void forEachPending(LongConsumer action) {
+    LongChunkSet pending;
+    synchronized (barriersAwaitingChunks) {
+      pending = new LongChunkSet(barriersAwaitingChunks);
+    }
+    pending.forEach(action);
   }
 }
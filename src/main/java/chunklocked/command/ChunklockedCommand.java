@@ -2,10 +2,13 @@ package chunklocked.command;
 
 import chunklocked.Chunklocked;
 import chunklocked.advancement.AdvancementCreditManager;
+import chunklocked.border.BarrierWorkQueue;
 import chunklocked.core.ChunkAccessManager;
 import chunklocked.core.ChunkUnlockData;
 import chunklocked.core.ChunkManager;
 import chunklocked.core.ChunklockedMode;
+import chunklocked.core.UnlockHistory;
+import com.mojang.brigadier.Command;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
@@ -20,7 +23,10 @@ import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.network.chat.Component;
 import net.minecraft.world.level.ChunkPos;
 
+import java.util.List;
+import java.util.OptionalLong;
 import java.util.Set;
+import java.util.UUID;
 
 /**
  * Main command handler for /chunklocked.
@@ -28,6 +34,18 @@ import java.util.Set;
  */
 public class ChunklockedCommand {
 
+  /**
+   * Operator level needed for commands that change the world or progression,
+   * or that put load on the server thread.
+   */
+  private static final int ADMIN_PERMISSION_LEVEL = 2;
+
+  /**
+   * Most frontier walls a barrier benchmark rebuilds. It runs on the server
+   * thread, three times per path.
+   */
+  private static final int MAX_BENCHMARK_WALLS = 32;
+
   /**
    * Registers all /chunklocked subcommands.
    *
@@ -41,73 +59,123 @@ public class ChunklockedCommand {
     dispatcher.register(Commands.literal("chunklocked")
         // /chunklocked credits [player]
         .then(Commands.literal("credits")
-            .executes(ChunklockedCommand::showOwnCredits)
+            .executes(whenLoaded(ChunklockedCommand::showOwnCredits))
             .then(Commands.argument("player", EntityArgument.player())
-                .executes(ChunklockedCommand::showPlayerCredits))
+                .executes(whenLoaded(ChunklockedCommand::showPlayerCredits)))
             .then(Commands.literal("add")
                 .then(Commands.argument("player", EntityArgument.player())
                     .then(Commands.argument("amount", IntegerArgumentType.integer(1))
-                        .executes(ChunklockedCommand::addCredits))))
+                        .executes(whenLoaded(ChunklockedCommand::addCredits)))))
             .then(Commands.literal("set")
                 .then(Commands.argument("player", EntityArgument.player())
                     .then(Commands.argument("amount", IntegerArgumentType.integer(0))
-                        .executes(ChunklockedCommand::setCredits)))))
+                        .executes(whenLoaded(ChunklockedCommand::setCredits))))))
         .then(Commands.literal("reset")
-            .executes(ChunklockedCommand::resetCreditsSelf)
+            .executes(whenLoaded(ChunklockedCommand::resetCreditsSelf))
             .then(Commands.argument("player", EntityArgument.player())
-                .executes(ChunklockedCommand::resetCreditsForPlayer)))
+                .executes(whenLoaded(ChunklockedCommand::resetCreditsForPlayer))))
 
         // /chunklocked listchunks [player]
         .then(Commands.literal("listchunks")
-            .executes(ChunklockedCommand::listOwnChunks)
+            .executes(whenLoaded(ChunklockedCommand::listOwnChunks))
             .then(Commands.argument("player", EntityArgument.player())
-                .executes(ChunklockedCommand::listPlayerChunks)))
+                .executes(whenLoaded(ChunklockedCommand::listPlayerChunks))))
 
         // /chunklocked forceunlock <player> <chunkX> <chunkZ>
         .then(Commands.literal("forceunlock")
             .then(Commands.argument("player", EntityArgument.player())
                 .then(Commands.argument("chunkX", IntegerArgumentType.integer())
                     .then(Commands.argument("chunkZ", IntegerArgumentType.integer())
-                        .executes(ChunklockedCommand::forceUnlock)))))
+                        .executes(whenLoaded(ChunklockedCommand::forceUnlock))))))
 
         // /chunklocked unlock <chunkX> <chunkZ>
         .then(Commands.literal("unlock")
             .then(Commands.argument("chunkX", IntegerArgumentType.integer())
                 .then(Commands.argument("chunkZ", IntegerArgumentType.integer())
-                    .executes(ChunklockedCommand::unlockChunk))))
+                    .executes(whenLoaded(ChunklockedCommand::unlockChunk)))))
 
         // /chunklocked unlockfacing - Unlock the chunk in the direction you're facing
         .then(Commands.literal("unlockfacing")
-            .executes(ChunklockedCommand::unlockFacing))
+            .executes(whenLoaded(ChunklockedCommand::unlockFacing)))
 
         // /chunklocked debugbarriers - Show all barrier positions
         .then(Commands.literal("debugbarriers")
-            .executes(ChunklockedCommand::debugBarriers))
+            .executes(whenLoaded(ChunklockedCommand::debugBarriers)))
+
+        // /chunklocked benchmark_barriers [walls] - Time bulk against per-block
+        // wall writes on existing frontier chunks (admin)
+        .then(Commands.literal("benchmark_barriers")
+            .requires(source -> source.hasPermission(ADMIN_PERMISSION_LEVEL))
+            .executes(whenLoaded(context -> benchmarkBarriers(context, 8)))
+            .then(Commands.argument("walls", IntegerArgumentType.integer(1, MAX_BENCHMARK_WALLS))
+                .executes(whenLoaded(context -> benchmarkBarriers(context,
+                    IntegerArgumentType.getInteger(context, "walls"))))))
+
+        // /chunklocked barrier_queue - Show queued barrier work (admin)
+        .then(Commands.literal("barrier_queue")
+            .requires(source -> source.hasPermission(ADMIN_PERMISSION_LEVEL))
+            .executes(whenLoaded(ChunklockedCommand::showBarrierQueue)))
+
+        // /chunklocked repair_barriers - Scan frontier chunk edges for untracked
+        // barriers until the server stops (admin)
+        .then(Commands.literal("repair_barriers")
+            .requires(source -> source.hasPermission(ADMIN_PERMISSION_LEVEL))
+            .executes(whenLoaded(ChunklockedCommand::repairBarriers)))
 
         // /chunklocked set_mode <easy|extreme|disabled> - Set the Chunklocked mode
         // (admin only)
         .then(Commands.literal("set_mode")
             .then(Commands.argument("mode", StringArgumentType.word())
-                .executes(ChunklockedCommand::setMode)))
+                .executes(whenLoaded(ChunklockedCommand::setMode))))
 
         // /chunklocked toggle_barriers - Toggle barriers on/off (emergency use)
         .then(Commands.literal("toggle_barriers")
-            .executes(ChunklockedCommand::toggleBarriers))
+            .executes(whenLoaded(ChunklockedCommand::toggleBarriers)))
 
         // /chunklocked givecredits <amount> - Give yourself credits (admin)
         // /chunklocked givecredits <player> <amount> - Give player credits (admin)
         .then(Commands.literal("givecredits")
             .then(Commands.argument("amount", IntegerArgumentType.integer(1))
-                .executes(ChunklockedCommand::giveCreditsToSelf))
+                .executes(whenLoaded(ChunklockedCommand::giveCreditsToSelf)))
             .then(Commands.argument("player", EntityArgument.player())
                 .then(Commands.argument("amount", IntegerArgumentType.integer(1))
-                    .executes(ChunklockedCommand::giveCreditsToPlayer))))
+                    .executes(whenLoaded(ChunklockedCommand::giveCreditsToPlayer)))))
+
+        // /chunklocked history - List recent unlock history versions (admin)
+        .then(Commands.literal("history")
+            .requires(source -> source.hasPermission(ADMIN_PERMISSION_LEVEL))
+            .executes(whenLoaded(ChunklockedCommand::showHistory)))
+
+        // /chunklocked rollback <version|time> - Roll progression back (admin)
+        // e.g. "rollback 42" or "rollback 30m" (s, m, h, d)
+        .then(Commands.literal("rollback")
+            .requires(source -> source.hasPermission(ADMIN_PERMISSION_LEVEL))
+            .then(Commands.argument("target", StringArgumentType.word())
+                .executes(whenLoaded(ChunklockedCommand::rollback))))
 
         // /chunklocked help
         .then(Commands.literal("help")
             .executes(ChunklockedCommand::showHelp)));
   }
 
+  /**
+   * Wraps a command so it fails with a message while the world's chunk unlock
+   * data is still loading, instead of running against missing managers.
+   *
+   * @param command The command to run once the data is ready
+   * @return The wrapped command
+   */
+  private static Command<CommandSourceStack> whenLoaded(Command<CommandSourceStack> command) {
+    return context -> {
+      if (!Chunklocked.isDataReady()) {
+        context.getSource().sendFailure(
+            Component.literal("§eChunk Locked is still loading world data, try again in a moment"));
+        return 0;
+      }
+      return command.run(context);
+    };
+  }
+
   /**
    * Shows the command sender's credit count.
    */
@@ -364,9 +432,9 @@ public class ChunklockedCommand {
       return 0;
     }
 
-    // Force unlock (bypasses adjacency check and credit cost)
-    net.minecraft.server.level.ServerLevel world = context.getSource().getLevel();
-    chunkManager.forceUnlockChunk(player.getUUID(), chunk, world);
+    // Force unlock (bypasses adjacency check and credit cost); barriers and the
+    // save follow at the end of the tick
+    chunkManager.forceUnlockChunk(player.getUUID(), chunk);
 
     context.getSource().sendSuccess(() -> Component.literal(
         "§aForce unlocked chunk [" + chunkX + ", " + chunkZ + "] for " +
@@ -375,15 +443,6 @@ public class ChunklockedCommand {
 
     player.sendSystemMessage(Component.literal("§aChunk [" + chunkX + ", " + chunkZ + "] has been unlocked!"));
 
-    // Mark data as dirty
-    ChunkUnlockData persistentData = Chunklocked.getPersistentData();
-    if (persistentData != null) {
-      persistentData.markDirtyAndSave();
-    } else {
-      Chunklocked.LOGGER.warn("persistentData is null when saving after force unlock for {}",
-          player.getName().getString());
-    }
-
     return 1;
   }
 
@@ -420,7 +479,8 @@ public class ChunklockedCommand {
       return 0;
     }
 
-    // Attempt to unlock chunk (validates and spends credit atomically)
+    // Attempt to unlock chunk (validates and spends credit atomically). Barriers,
+    // the client's credit display and the save follow at the end of the tick
     boolean success = chunkManager.tryUnlockChunk(player.getUUID(), chunk);
 
     if (!success) {
@@ -434,21 +494,6 @@ public class ChunklockedCommand {
         "§aChunk [" + chunkX + ", " + chunkZ + "] unlocked! " +
             "§7(" + remainingCredits + " credits remaining)"));
 
-    // Sync updated credits to client
-    chunklocked.advancement.NotificationManager.syncCreditsToClient(
-        player,
-        remainingCredits,
-        creditManager.getPlayerData(player.getUUID()).getTotalAdvancementsCompleted());
-
-    // Mark data as dirty
-    ChunkUnlockData persistentData2 = Chunklocked.getPersistentData();
-    if (persistentData2 != null) {
-      persistentData2.markDirtyAndSave();
-    } else {
-      Chunklocked.LOGGER.warn("persistentData is null when saving after credit spend for {}",
-          player.getName().getString());
-    }
-
     return 1;
   }
 
@@ -478,6 +523,16 @@ public class ChunklockedCommand {
       source.sendSuccess(() -> Component.literal("§e/chunklocked listchunks <player> §7- List player's chunks"), false);
       source.sendSuccess(() -> Component.literal("§e/chunklocked forceunlock <player> <x> <z> §7- Force unlock chunk"),
           false);
+      source.sendSuccess(() -> Component.literal("§e/chunklocked history §7- List recent unlock history versions"),
+          false);
+      source.sendSuccess(
+          () -> Component.literal("§e/chunklocked rollback <version|30m|2h|1d> §7- Roll progression back"), false);
+      source.sendSuccess(
+          () -> Component.literal("§e/chunklocked benchmark_barriers [walls] §7- Time barrier wall writes"), false);
+      source.sendSuccess(
+          () -> Component.literal("§e/chunklocked barrier_queue §7- Show queued barrier work"), false);
+      source.sendSuccess(
+          () -> Component.literal("§e/chunklocked repair_barriers §7- Remove untracked barriers"), false);
     }
 
     return 1;
@@ -602,7 +657,8 @@ public class ChunklockedCommand {
       return 0;
     }
 
-    // Attempt to unlock chunk
+    // Attempt to unlock chunk. Barriers, the client's credit display and the
+    // save follow at the end of the tick
     boolean success = chunkManager.tryUnlockChunk(player.getUUID(), targetChunk);
 
     if (!success) {
@@ -610,31 +666,12 @@ public class ChunklockedCommand {
       return 0;
     }
 
-    // Update barriers now that chunk is unlocked
-    net.minecraft.server.level.ServerLevel world = context.getSource().getServer().overworld();
-    chunkManager.updateBarriersAfterUnlock(world, player.getUUID(), targetChunk);
-
     // Success feedback
     int remainingCredits = creditManager.getPlayerData(player.getUUID()).getAvailableCredits();
     player.sendSystemMessage(Component.literal(
         "§aUnlocked chunk " + direction + " [" + targetChunkX + ", " + targetChunkZ + "]! " +
             "§7(" + remainingCredits + " credits remaining)"));
 
-    // Sync updated credits to client
-    chunklocked.advancement.NotificationManager.syncCreditsToClient(
-        player,
-        remainingCredits,
-        creditManager.getPlayerData(player.getUUID()).getTotalAdvancementsCompleted());
-
-    // Mark data as dirty
-    ChunkUnlockData persistentData3 = Chunklocked.getPersistentData();
-    if (persistentData3 != null) {
-      persistentData3.markDirtyAndSave();
-    } else {
-      Chunklocked.LOGGER.warn("persistentData is null when saving after unlockfacing for {}",
-          player.getName().getString());
-    }
-
     return 1;
   }
 
@@ -831,6 +868,9 @@ public class ChunklockedCommand {
    * Toggles barriers on/off globally (emergency use for stuck players).
    * Usage: /chunklocked toggle_barriers
    * <p>
+   * The barrier work is queued and done over the following ticks; see
+   * {@code /chunklocked barrier_queue}.
+   * <p>
    * When barriers are disabled:
    * - All existing barriers are removed from the world
    * - Progression still works (credits, chunk unlocking)
@@ -850,11 +890,11 @@ public class ChunklockedCommand {
       return 0;
     }
 
-    // Get barrier manager and chunk manager
-    chunklocked.border.ChunkBarrierManager barrierManager = Chunklocked.getBarrierManager();
+    // Get barrier queue and chunk manager
+    BarrierWorkQueue barrierQueue = Chunklocked.getBarrierQueue();
     ChunkManager chunkManager = Chunklocked.getChunkManager();
 
-    if (barrierManager == null || chunkManager == null) {
+    if (barrierQueue == null || chunkManager == null) {
       source.sendFailure(Component.literal("§cChunk management system not initialized"));
       return 0;
     }
@@ -864,54 +904,32 @@ public class ChunklockedCommand {
     boolean newState = !currentlyEnabled;
     persistentData.setBarriersEnabled(newState);
 
-    // Get server and overworld
-    net.minecraft.server.MinecraftServer server = source.getServer();
-    ServerLevel overworld = server.overworld();
-
     if (newState) {
       // Re-enable barriers: restore them at chunk boundaries
       source.sendSuccess(() -> Component.literal("§aRe-enabling barriers..."), false);
 
-      Set<ChunkPos> unlockedChunks = chunkManager.getGlobalUnlockedChunks();
-      int barrierCount = 0;
-
-      // Place barriers for all locked chunks adjacent to unlocked ones
-      for (ChunkPos unlockedChunk : unlockedChunks) {
-        // Check all 4 adjacent chunks
-        ChunkPos[] adjacents = {
-            new ChunkPos(unlockedChunk.x + 1, unlockedChunk.z),
-            new ChunkPos(unlockedChunk.x - 1, unlockedChunk.z),
-            new ChunkPos(unlockedChunk.x, unlockedChunk.z + 1),
-            new ChunkPos(unlockedChunk.x, unlockedChunk.z - 1)
-        };
-
-        for (ChunkPos adjacent : adjacents) {
-          if (!chunkManager.isChunkUnlockedGlobally(adjacent)) {
-            barrierManager.placeBarriers(overworld, adjacent, unlockedChunks);
-            barrierCount++;
-          }
-        }
-      }
+      // Queue barriers for all locked chunks adjacent to unlocked ones
+      int barrierCount = barrierQueue.queueRebuild(chunkManager.calculateGlobalFrontierChunks());
 
       final int finalBarrierCount = barrierCount;
-      source.sendSuccess(() -> Component.literal("§aBarriers restored! §7(" + finalBarrierCount + " chunks protected)"),
-          true);
-      Chunklocked.LOGGER.info("Barriers re-enabled by {}. Restored barriers for {} locked chunks.",
+      source.sendSuccess(() -> Component.literal("§aBarriers restoring! §7(" + finalBarrierCount
+          + " chunks queued, see §e/chunklocked barrier_queue§7)"), true);
+      Chunklocked.LOGGER.info("Barriers re-enabled by {}. Queued barriers for {} locked chunks.",
           source.getTextName(), barrierCount);
 
     } else {
       // Disable barriers: remove all barriers from the world
       source.sendSuccess(() -> Component.literal("§cDisabling barriers..."), false);
 
-      int removedCount = barrierManager.clearAllBarriers(overworld);
+      int removedCount = barrierQueue.queueClearAll();
 
-      source.sendSuccess(() -> Component.literal("§cBarriers disabled! §7(Removed " + removedCount + " barriers)"),
+      source.sendSuccess(() -> Component.literal("§cBarriers disabled! §7(Removing " + removedCount + " barriers)"),
           true);
       source.sendSuccess(
           () -> Component
               .literal("§eWarning: §7Progression still active. Use §e/chunklocked toggle_barriers §7again to restore."),
           false);
-      Chunklocked.LOGGER.warn("Barriers disabled by {}. Removed {} barriers. Progression still tracked.",
+      Chunklocked.LOGGER.warn("Barriers disabled by {}. Removing {} barriers. Progression still tracked.",
           source.getTextName(), removedCount);
     }
 
@@ -920,4 +938,276 @@ public class ChunklockedCommand {
 
     return 1;
   }
+
+  /**
+   * Shows the barrier work queued by unlocks, toggles and resets, and how it is
+   * progressing (admin only).
+   */
+  private static int showBarrierQueue(CommandContext<CommandSourceStack> context) {
+    CommandSourceStack source = context.getSource();
+    BarrierWorkQueue barrierQueue = Chunklocked.getBarrierQueue();
+    if (barrierQueue == null) {
+      source.sendFailure(Component.literal("§cChunk management system not initialized"));
+      return 0;
+    }
+
+    int rebuilds = barrierQueue.getPendingRebuilds();
+    int removals = barrierQueue.getPendingRemovals();
+    source.sendSuccess(() -> Component.literal("§6§l=== Barrier Queue ==="), false);
+    if (barrierQueue.isIdle()) {
+      source.sendSuccess(() -> Component.literal("§aIdle §7- no barrier work queued"), false);
+    } else {
+      source.sendSuccess(() -> Component.literal("§eBacklog: §f" + rebuilds + " §7chunk rebuilds, §f" + removals
+          + " §7barrier removals"), false);
+      source.sendSuccess(() -> Component.literal(String.format("§eLast tick: §f%.1f ms §7of a %d ms budget",
+          barrierQueue.getLastTickMillis(), barrierQueue.getBudgetMillis())), false);
+    }
+    int awaitingLoad = barrierQueue.getChunksAwaitingLoad();
+    if (awaitingLoad > 0) {
+      source.sendSuccess(() -> Component.literal("§eWaiting for chunk loads: §f" + awaitingLoad + " §7chunks"),
+          false);
+    }
+    source.sendSuccess(() -> Component.literal("§eDone since start: §f" + barrierQueue.getChunksRebuilt()
+        + " §7chunks rebuilt, §f" + barrierQueue.getBarriersRemoved() + " §7barriers removed in §f"
+        + barrierQueue.getBusyTicks() + " §7ticks"), false);
+    chunklocked.border.ChunkBarrierManager barrierManager = Chunklocked.getBarrierManager();
+    if (barrierManager != null && barrierManager.isStrayScanEnabled()) {
+      source.sendSuccess(() -> Component.literal("§eStray barrier scan: §aon §7(rebuilds scan chunk edges)"), false);
+    }
+    return rebuilds + removals;
+  }
+
+  /**
+   * Turns on stray barrier scanning for the rest of this server run and
+   * queues every frontier chunk for a rebuild, so barriers on their edges
+   * that were never tracked are found and removed (admin only).
+   */
+  private static int repairBarriers(CommandContext<CommandSourceStack> context) {
+    CommandSourceStack source = context.getSource();
+    chunklocked.border.ChunkBarrierManager barrierManager = Chunklocked.getBarrierManager();
+    BarrierWorkQueue barrierQueue = Chunklocked.getBarrierQueue();
+    ChunkManager chunkManager = Chunklocked.getChunkManager();
+    if (barrierManager == null || barrierQueue == null || chunkManager == null) {
+      source.sendFailure(Component.literal("§cChunk management system not initialized"));
+      return 0;
+    }
+
+    barrierManager.setStrayScanEnabled(true);
+    int queued = barrierQueue.queueRebuild(chunkManager.calculateGlobalFrontierChunks());
+
+    source.sendSuccess(() -> Component.literal("§aStray barrier scan enabled until the server stops. §7(" + queued
+        + " chunks queued, see §e/chunklocked barrier_queue§7)"), true);
+    Chunklocked.LOGGER.info("Barrier repair started by {}. Queued {} frontier chunks.", source.getTextName(),
+        queued);
+    return queued;
+  }
+
+  /**
+   * Times barrier placement with the section writer against the per-block
+   * path (admin only). Rebuilds the walls of up to the given number of
+   * frontier chunks with each path in turn; only placement is timed, and the
+   * walls end up as they were.
+   */
+  private static int benchmarkBarriers(CommandContext<CommandSourceStack> context, int maxChunks) {
+    CommandSourceStack source = context.getSource();
+    ChunkUnlockData persistentData = Chunklocked.getPersistentData();
+    chunklocked.border.ChunkBarrierManager barrierManager = Chunklocked.getBarrierManager();
+    ChunkManager chunkManager = Chunklocked.getChunkManager();
+    if (persistentData == null || barrierManager == null || chunkManager == null) {
+      source.sendFailure(Component.literal("§cChunk management system not initialized"));
+      return 0;
+    }
+    if (!persistentData.areBarriersEnabled()) {
+      source.sendFailure(Component.literal("§cBarriers are disabled"));
+      return 0;
+    }
+    BarrierWorkQueue barrierQueue = Chunklocked.getBarrierQueue();
+    if (barrierQueue != null && !barrierQueue.isIdle()) {
+      source.sendFailure(Component.literal("§cBarrier work is still queued, try again once it is done"));
+      return 0;
+    }
+
+    // Only loaded chunks: loading them would end up in the timings
+    ServerLevel overworld = source.getServer().overworld();
+    List<ChunkPos> chunks = chunkManager.calculateGlobalFrontierChunks().stream()
+        .filter(chunk -> overworld.getChunkSource().getChunkNow(chunk.x, chunk.z) != null)
+        .limit(maxChunks).toList();
+    if (chunks.isEmpty()) {
+      source.sendFailure(Component.literal("§cNo loaded frontier chunks to benchmark"));
+      return 0;
+    }
+    int walls = 0;
+    for (ChunkPos chunk : chunks) {
+      walls += Integer.bitCount(chunkManager.getUnlockedNeighborMask(chunk.x, chunk.z));
+    }
+
+    boolean bulkBefore = barrierManager.isBulkWallWrites();
+    int rounds = 3;
+    long perBlockNanos = 0;
+    long bulkNanos = 0;
+    try {
+      // Alternate the paths so neither only ever sees warm chunks
+      for (int round = 0; round < rounds; round++) {
+        perBlockNanos += timeWallPlacement(barrierManager, chunkManager, overworld, chunks, false);
+        bulkNanos += timeWallPlacement(barrierManager, chunkManager, overworld, chunks, true);
+      }
+    } finally {
+      barrierManager.setBulkWallWrites(bulkBefore);
+    }
+
+    double perBlockMs = perBlockNanos / 1_000_000.0 / rounds;
+    double bulkMs = bulkNanos / 1_000_000.0 / rounds;
+    int finalWalls = walls;
+    source.sendSuccess(() -> Component.literal(String.format(
+        "§6%d walls in %d chunks: §eper-block §f%.1f ms§7, §esection §f%.1f ms §7(%.1fx)",
+        finalWalls, chunks.size(), perBlockMs, bulkMs, bulkMs > 0 ? perBlockMs / bulkMs : 0)), false);
+    Chunklocked.LOGGER.info("Barrier benchmark: {} walls, per-block {} ms, section {} ms (average of {} rounds)",
+        walls, perBlockMs, bulkMs, rounds);
+    return 1;
+  }
+
+  private static long timeWallPlacement(chunklocked.border.ChunkBarrierManager barrierManager,
+      ChunkManager chunkManager, ServerLevel world, List<ChunkPos> chunks, boolean bulk) {
+    for (ChunkPos chunk : chunks) {
+      barrierManager.removeBarriers(world, chunk);
+    }
+    barrierManager.setBulkWallWrites(bulk);
+    long start = System.nanoTime();
+    for (ChunkPos chunk : chunks) {
+      barrierManager.placeBarriers(world, chunk, chunkManager.getUnlockedNeighborMask(chunk.x, chunk.z));
+    }
+    return System.nanoTime() - start;
+  }
+
+  /**
+   * Lists the most recent versions in the unlock history (admin only).
+   */
+  private static int showHistory(CommandContext<CommandSourceStack> context) {
+    CommandSourceStack source = context.getSource();
+    ChunkUnlockData persistentData = Chunklocked.getPersistentData();
+    if (persistentData == null) {
+      source.sendFailure(Component.literal("§cFailed to access world data"));
+      return 0;
+    }
+
+    UnlockHistory history = persistentData.getHistory();
+    List<UnlockHistory.Version> versions = history.getRecentVersions(10);
+    if (versions.isEmpty()) {
+      source.sendSuccess(() -> Component.literal("§eNo unlock history recorded yet."), false);
+      return 0;
+    }
+
+    long now = System.currentTimeMillis();
+    source.sendSuccess(() -> Component.literal("§6§l=== Unlock History ==="), false);
+    for (UnlockHistory.Version version : versions) {
+      String line = "§e#" + version.version() + " §7" + formatAge(now - version.timestamp()) + " ago: §a+"
+          + version.unlocked().length + " §c-" + version.locked().length + " §7chunks, "
+          + version.credits().size() + " credit change(s)";
+      source.sendSuccess(() -> Component.literal(line), false);
+    }
+    source.sendSuccess(() -> Component.literal("§7Can roll back to version " + history.getOldestReachableVersion()
+        + " or later"), false);
+    return versions.size();
+  }
+
+  /**
+   * Rolls chunk unlocks and credit balances back to a history version or a
+   * point in time (admin only).
+   * The target is either a version number or an age such as 30m, 2h or 1d.
+   */
+  private static int rollback(CommandContext<CommandSourceStack> context) {
+    CommandSourceStack source = context.getSource();
+    ChunkUnlockData persistentData = Chunklocked.getPersistentData();
+    ChunkManager chunkManager = Chunklocked.getChunkManager();
+    if (persistentData == null || chunkManager == null) {
+      source.sendFailure(Component.literal("§cChunk management system not initialized"));
+      return 0;
+    }
+
+    String target = StringArgumentType.getString(context, "target");
+    UnlockHistory history = persistentData.getHistory();
+    long version;
+    if (target.chars().allMatch(Character::isDigit)) {
+      try {
+        version = Long.parseLong(target);
+      } catch (NumberFormatException e) {
+        source.sendFailure(Component.literal("§cInvalid version: " + target));
+        return 0;
+      }
+    } else {
+      long age = parseAge(target);
+      if (age < 0) {
+        source.sendFailure(Component.literal("§cInvalid target: " + target + " §7(use a version or e.g. 30m, 2h, 1d)"));
+        return 0;
+      }
+      OptionalLong found = history.findVersionAt(System.currentTimeMillis() - age);
+      if (found.isEmpty()) {
+        source.sendFailure(Component.literal("§cNo unlock history recorded yet."));
+        return 0;
+      }
+      version = found.getAsLong();
+    }
+
+    // Barriers, restored balances on clients and the save follow at the end of
+    // the tick
+    ChunkUnlockData.RollbackResult result;
+    try {
+      result = chunkManager.rollback(version);
+    } catch (IllegalArgumentException e) {
+      source.sendFailure(Component.literal("§c" + e.getMessage()));
+      return 0;
+    }
+
+    source.sendSuccess(() -> Component.literal("§aRolled back to version §e" + result.version() + "§a: §7"
+        + result.unlocked().size() + " chunks unlocked, " + result.locked().size() + " locked, "
+        + result.players().size() + " players' credits restored"), true);
+    Chunklocked.LOGGER.warn("{} rolled chunk progression back to history version {}", source.getTextName(),
+        result.version());
+    return 1;
+  }
+
+  /**
+   * Parses an age such as 90s, 30m, 2h or 1d.
+   *
+   * @param age The age text
+   * @return The age in milliseconds, or -1 if it is not valid
+   */
+  private static long parseAge(String age) {
+    if (age.length() < 2) {
+      return -1;
+    }
+    long unit = switch (Character.toLowerCase(age.charAt(age.length() - 1))) {
+      case 's' -> 1000L;
+      case 'm' -> 60_000L;
+      case 'h' -> 3_600_000L;
+      case 'd' -> 86_400_000L;
+      default -> -1;
+    };
+    String amount = age.substring(0, age.length() - 1);
+    if (unit < 0 || !amount.chars().allMatch(Character::isDigit)) {
+      return -1;
+    }
+    try {
+      return Math.multiplyExact(Long.parseLong(amount), unit);
+    } catch (NumberFormatException | ArithmeticException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Formats a duration as a short age such as 5m or 3h.
+   */
+  private static String formatAge(long millis) {
+    long seconds = Math.max(0, millis / 1000);
+    if (seconds < 60) {
+      return seconds + "s";
+    }
+    if (seconds < 3600) {
+      return seconds / 60 + "m";
+    }
+    if (seconds < 86400) {
+      return seconds / 3600 + "h";
+    }
+    return seconds / 86400 + "d";
+  }
 }
@@ -1,5 +1,9 @@
 package chunklocked.config;
 
+import chunklocked.border.BarrierWorkQueue;
+import chunklocked.core.DistanceField;
+import chunklocked.core.StorageBackend;
+
 import java.util.*;
 
 /**
@@ -74,6 +78,52 @@ public class AdvancementRewardConfig {
    */
   private boolean enableNotifications;
 
+  /**
+   * Where chunk unlock data is stored: {@code "nbt"} (NBT files) or
+   * {@code "h2"} (embedded database with per-change updates, for very large
+   * worlds or player counts).
+   * <p>
+   * Default: "nbt"
+   * <p>
+   * Read when the server starts; switching to "h2" imports the existing NBT
+   * save on the next start.
+   */
+  private String storageBackend;
+
+  /**
+   * Whether unlocked chunks are kept in a memory-mapped bitmap file
+   * ({@code chunklocked_chunks.bin}) instead of an in-memory set.
+   * <p>
+   * Default: false
+   * <p>
+   * Meant for worlds with millions of unlocked chunks: memory use drops to a
+   * few bytes per chunk and saves no longer rewrite the chunk list. Only used
+   * with the "nbt" storage backend. Read when the server starts.
+   */
+  private boolean mappedChunkStore;
+
+  /**
+   * How far from the unlocked area, in chunks, the distance of locked chunks
+   * is tracked (used for respawn relocation and penalty warnings).
+   * <p>
+   * Default: 16. Must be between 1 and 256.
+   * <p>
+   * Larger values cost memory and make each unlock and lock update more
+   * chunks (proportional to the radius squared). Read when the server starts.
+   */
+  private int distanceFieldRadius;
+
+  /**
+   * How many milliseconds per server tick queued barrier work may use
+   * (placing and removing walls after unlocks, toggles and resets).
+   * <p>
+   * Default: 5. Must be between 1 and 50.
+   * <p>
+   * Larger values finish big rebuilds sooner but leave less of the 50 ms tick
+   * for the rest of the server. Read when the server starts.
+   */
+  private int barrierTickBudgetMillis;
+
   /**
    * Creates a configuration with balanced default values.
    * <p>
@@ -83,6 +133,10 @@ public class AdvancementRewardConfig {
    * - blacklist: Common early-game advancements
    * - allowRevoke: false
    * - enableNotifications: true
+   * - storageBackend: "nbt"
+   * - mappedChunkStore: false
+   * - distanceFieldRadius: 16
+   * - barrierTickBudgetMillis: 5
    */
   public AdvancementRewardConfig() {
     this.defaultCredits = 1;
@@ -90,6 +144,10 @@ public class AdvancementRewardConfig {
     this.blacklist = createDefaultBlacklist();
     this.allowRevoke = false;
     this.enableNotifications = true;
+    this.storageBackend = StorageBackend.NBT;
+    this.mappedChunkStore = false;
+    this.distanceFieldRadius = DistanceField.DEFAULT_RADIUS;
+    this.barrierTickBudgetMillis = BarrierWorkQueue.DEFAULT_BUDGET_MILLIS;
   }
 
   /**
@@ -151,6 +209,9 @@ public class AdvancementRewardConfig {
    * - All custom reward values >= 0
    * - No null collections
    * - Advancement IDs are non-empty strings
+   * - storageBackend names a known backend
+   * - distanceFieldRadius is between 1 and 256
+   * - barrierTickBudgetMillis is between 1 and 50
    *
    * @return true if configuration is valid
    * @throws IllegalStateException if validation fails
@@ -184,6 +245,20 @@ public class AdvancementRewardConfig {
       }
     }
 
+    if (!isKnownStorageBackend(storageBackend)) {
+      throw new IllegalStateException("Unknown storageBackend: " + storageBackend);
+    }
+
+    if (!isValidDistanceFieldRadius(distanceFieldRadius)) {
+      throw new IllegalStateException("distanceFieldRadius must be 1-" + DistanceField.MAX_RADIUS + ": "
+          + distanceFieldRadius);
+    }
+
+    if (!isValidBarrierTickBudget(barrierTickBudgetMillis)) {
+      throw new IllegalStateException("barrierTickBudgetMillis must be 1-" + BarrierWorkQueue.MAX_BUDGET_MILLIS
+          + ": " + barrierTickBudgetMillis);
+    }
+
     return true;
   }
 
@@ -209,6 +284,22 @@ public class AdvancementRewardConfig {
     return enableNotifications;
   }
 
+  public String getStorageBackend() {
+    return storageBackend;
+  }
+
+  public boolean isMappedChunkStore() {
+    return mappedChunkStore;
+  }
+
+  public int getDistanceFieldRadius() {
+    return distanceFieldRadius;
+  }
+
+  public int getBarrierTickBudgetMillis() {
+    return barrierTickBudgetMillis;
+  }
+
   // Setters (for deserialization and testing)
 
   public void setDefaultCredits(int defaultCredits) {
@@ -240,6 +331,45 @@ public class AdvancementRewardConfig {
     this.enableNotifications = enableNotifications;
   }
 
+  public void setStorageBackend(String storageBackend) {
+    if (!isKnownStorageBackend(storageBackend)) {
+      throw new IllegalArgumentException("Unknown storageBackend: " + storageBackend);
+    }
+    this.storageBackend = storageBackend;
+  }
+
+  public void setMappedChunkStore(boolean mappedChunkStore) {
+    this.mappedChunkStore = mappedChunkStore;
+  }
+
+  public void setDistanceFieldRadius(int distanceFieldRadius) {
+    if (!isValidDistanceFieldRadius(distanceFieldRadius)) {
+      throw new IllegalArgumentException("distanceFieldRadius must be 1-" + DistanceField.MAX_RADIUS + ": "
+          + distanceFieldRadius);
+    }
+    this.distanceFieldRadius = distanceFieldRadius;
+  }
+
+  private static boolean isValidDistanceFieldRadius(int radius) {
+    return radius >= 1 && radius <= DistanceField.MAX_RADIUS;
+  }
+
+  public void setBarrierTickBudgetMillis(int barrierTickBudgetMillis) {
+    if (!isValidBarrierTickBudget(barrierTickBudgetMillis)) {
+      throw new IllegalArgumentException("barrierTickBudgetMillis must be 1-" + BarrierWorkQueue.MAX_BUDGET_MILLIS
+          + ": " + barrierTickBudgetMillis);
+    }
+    this.barrierTickBudgetMillis = barrierTickBudgetMillis;
+  }
+
+  private static boolean isValidBarrierTickBudget(int millis) {
+    return millis >= 1 && millis <= BarrierWorkQueue.MAX_BUDGET_MILLIS;
+  }
+
+  private static boolean isKnownStorageBackend(String name) {
+    return StorageBackend.NBT.equals(name) || StorageBackend.H2.equals(name);
+  }
+
   @Override
   public String toString() {
     return "AdvancementRewardConfig{" +
@@ -248,6 +378,10 @@ public class AdvancementRewardConfig {
         ", blacklist=" + blacklist.size() + " entries" +
         ", allowRevoke=" + allowRevoke +
         ", enableNotifications=" + enableNotifications +
+        ", storageBackend=" + storageBackend +
+        ", mappedChunkStore=" + mappedChunkStore +
+        ", distanceFieldRadius=" + distanceFieldRadius +
+        ", barrierTickBudgetMillis=" + barrierTickBudgetMillis +
         '}';
   }
 }
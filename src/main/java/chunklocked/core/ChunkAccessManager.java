@@ -4,7 +4,6 @@ import net.minecraft.world.level.ChunkPos;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
 
@@ -16,17 +15,21 @@ import java.util.UUID;
  * enforcement layer for the chunk-based progression system.
  * 
  * <p>
- * Thread-safe for concurrent read operations. Write operations should be
- * synchronized by callers (typically the server thread).
+ * {@link #canAccessChunk}, {@link #isAdjacentToUnlockedChunk},
+ * {@link #canUnlockChunk}, {@link #getUnlockedChunks} and
+ * {@link #getUnlockedChunkCount} read the immutable snapshot of the unlocked
+ * chunks that is republished after every change, so they are lock-free and
+ * safe to call from chunk generation workers, network threads and async
+ * tasks. {@link #getAdjacentLockedChunks} belongs on the server thread.
  * </p>
  * 
  * <p>
  * <strong>Performance Characteristics:</strong>
  * </p>
  * <ul>
- * <li>canAccessChunk: O(1) - uses HashMap + HashSet lookup</li>
- * <li>isAdjacentToUnlockedChunk: O(1) - checks 4 neighbors with
- * HashSet.contains()</li>
+ * <li>canAccessChunk: O(1) - one probe of the primitive chunk set</li>
+ * <li>isAdjacentToUnlockedChunk: O(1) - probes 4 neighbors by coordinates,
+ * without allocating</li>
  * <li>getUnlockedChunks: O(1) - returns reference to immutable view</li>
  * </ul>
  * 
@@ -57,7 +60,8 @@ public class ChunkAccessManager {
    * </p>
    * 
    * <p>
-   * <strong>Performance:</strong> O(1) lookup time using HashSet
+   * <strong>Performance:</strong> O(1) lookup in the published snapshot,
+   * lock-free and safe from any thread
    * </p>
    *
    * @param playerId The player's UUID (unused, all players share the same
@@ -71,7 +75,7 @@ public class ChunkAccessManager {
       throw new NullPointerException("Chunk position cannot be null");
     }
 
-    return chunkManager.isChunkUnlockedGlobally(pos);
+    return chunkManager.isChunkUnlockedGlobally(pos.x, pos.z);
   }
 
   /**
@@ -88,7 +92,8 @@ public class ChunkAccessManager {
    * </p>
    * 
    * <p>
-   * <strong>Performance:</strong> O(1) - checks 4 neighbors with HashSet lookups
+   * <strong>Performance:</strong> O(1) - probes 4 neighbors by coordinates
+   * without allocating
    * </p>
    *
    * @param playerId The player's UUID (unused, all players share the same
@@ -102,18 +107,8 @@ public class ChunkAccessManager {
       throw new NullPointerException("Chunk position cannot be null");
     }
 
-    Set<ChunkPos> globalUnlockedChunks = chunkManager.getGlobalUnlockedChunks();
-
     // Check all 4 cardinal directions (north, south, east, west)
-    ChunkPos north = new ChunkPos(pos.x, pos.z - 1);
-    ChunkPos south = new ChunkPos(pos.x, pos.z + 1);
-    ChunkPos east = new ChunkPos(pos.x + 1, pos.z);
-    ChunkPos west = new ChunkPos(pos.x - 1, pos.z);
-
-    return globalUnlockedChunks.contains(north) ||
-        globalUnlockedChunks.contains(south) ||
-        globalUnlockedChunks.contains(east) ||
-        globalUnlockedChunks.contains(west);
+    return chunkManager.hasUnlockedNeighbor(pos.x, pos.z);
   }
 
   /**
@@ -146,8 +141,8 @@ public class ChunkAccessManager {
    * </p>
    * 
    * <p>
-   * <strong>Performance:</strong> O(n) where n is the number of globally
-   * unlocked chunks, typically acceptable for UI rendering.
+   * <strong>Performance:</strong> O(1) while the unlock state is unchanged;
+   * the frontier is maintained incrementally and copied once per change.
    * </p>
    *
    * @param playerId The player's UUID (unused, all players share the same
@@ -157,28 +152,7 @@ public class ChunkAccessManager {
    */
   @NotNull
   public Set<ChunkPos> getAdjacentLockedChunks(@NotNull UUID playerId) {
-    Set<ChunkPos> globalUnlockedChunks = chunkManager.getGlobalUnlockedChunks();
-    Set<ChunkPos> adjacentLocked = new HashSet<>();
-
-    // For each globally unlocked chunk, check all 4 neighbors
-    for (ChunkPos unlocked : globalUnlockedChunks) {
-      ChunkPos north = new ChunkPos(unlocked.x, unlocked.z - 1);
-      ChunkPos south = new ChunkPos(unlocked.x, unlocked.z + 1);
-      ChunkPos east = new ChunkPos(unlocked.x + 1, unlocked.z);
-      ChunkPos west = new ChunkPos(unlocked.x - 1, unlocked.z);
-
-      // Add neighbors that are NOT already unlocked
-      if (!globalUnlockedChunks.contains(north))
-        adjacentLocked.add(north);
-      if (!globalUnlockedChunks.contains(south))
-        adjacentLocked.add(south);
-      if (!globalUnlockedChunks.contains(east))
-        adjacentLocked.add(east);
-      if (!globalUnlockedChunks.contains(west))
-        adjacentLocked.add(west);
-    }
-
-    return adjacentLocked;
+    return chunkManager.calculateGlobalFrontierChunks();
   }
 
   /**
@@ -218,8 +192,7 @@ public class ChunkAccessManager {
     // requirement)
     // Exception: If NO chunks are unlocked globally, allow any chunk (initial
     // unlock)
-    Set<ChunkPos> globalUnlockedChunks = chunkManager.getGlobalUnlockedChunks();
-    if (globalUnlockedChunks.isEmpty()) {
+    if (chunkManager.getGlobalChunkCount() == 0) {
       return true; // Initial unlock - any chunk is valid
     }
 
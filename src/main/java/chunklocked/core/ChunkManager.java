@@ -2,10 +2,9 @@ package chunklocked.core;
 
 import chunklocked.Chunklocked;
 import chunklocked.advancement.AdvancementCreditManager;
-import chunklocked.border.ChunkBarrierManager;
-import chunklocked.core.area.AreaDetector;
+import chunklocked.border.BarrierWorkQueue;
 import chunklocked.core.area.PlayableArea;
-import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.world.level.ChunkPos;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,8 +18,11 @@ import java.util.*;
  * spending credits, and managing playable areas. All credit-based operations
  * are atomic and validate preconditions before modifying state.
  * 
- * Thread-safe for concurrent read operations. Write operations should be
- * synchronized by callers (typically the server thread).
+ * Unlock queries ({@link #isChunkUnlockedGlobally}, {@link #hasUnlockedNeighbor},
+ * {@link #getUnlockedNeighborMask}, {@link #getGlobalUnlockedChunks},
+ * {@link #getGlobalChunkCount}) read an immutable snapshot published after
+ * every change: they are lock-free and safe from any thread. Everything else,
+ * including all writes, belongs on the server thread.
  */
 public class ChunkManager {
 
@@ -28,7 +30,6 @@ public class ChunkManager {
 
   private final ChunkUnlockData chunkData;
   private final AdvancementCreditManager creditManager;
-  private final AreaDetector areaDetector;
 
   /**
    * Creates a new ChunkManager with the specified data stores.
@@ -39,7 +40,6 @@ public class ChunkManager {
   public ChunkManager(ChunkUnlockData chunkData, AdvancementCreditManager creditManager) {
     this.chunkData = chunkData;
     this.creditManager = creditManager;
-    this.areaDetector = new AreaDetector();
   }
 
   /**
@@ -47,9 +47,11 @@ public class ChunkManager {
    * In multiplayer, chunks are shared - when unlocked by any player, all can
    * access it.
    *
+   * Returns a shared immutable snapshot, rebuilt only when the set changes.
+   *
    * @return A set of all globally unlocked chunk positions
    */
-  public Set<ChunkPos> getGlobalUnlockedChunks() {
+  public ChunkSetSnapshot getGlobalUnlockedChunks() {
     return chunkData.getGlobalUnlockedChunks();
   }
 
@@ -57,31 +59,25 @@ public class ChunkManager {
    * Calculates frontier chunks (locked but adjacent to ANY unlocked chunk
    * globally).
    * This ensures barriers are placed correctly in multi-player scenarios.
+   * The frontier is maintained incrementally on unlock and lock, so this does
+   * not walk the unlocked chunks.
    *
    * @return Set of frontier chunk positions across all players
    */
-  public Set<ChunkPos> calculateGlobalFrontierChunks() {
-    Set<ChunkPos> allUnlockedChunks = getGlobalUnlockedChunks();
-    Set<ChunkPos> frontier = new HashSet<>();
-
-    // For each unlocked chunk (any player), check all 4 cardinal neighbors
-    for (ChunkPos unlocked : allUnlockedChunks) {
-      ChunkPos[] neighbors = {
-          new ChunkPos(unlocked.x, unlocked.z - 1), // North
-          new ChunkPos(unlocked.x, unlocked.z + 1), // South
-          new ChunkPos(unlocked.x + 1, unlocked.z), // East
-          new ChunkPos(unlocked.x - 1, unlocked.z) // West
-      };
-
-      for (ChunkPos neighbor : neighbors) {
-        // Add to frontier if not already unlocked (by any player)
-        if (!allUnlockedChunks.contains(neighbor)) {
-          frontier.add(neighbor);
-        }
-      }
-    }
+  public ChunkSetSnapshot calculateGlobalFrontierChunks() {
+    return chunkData.getFrontierChunks();
+  }
 
-    return frontier;
+  /**
+   * Checks if a chunk is on the global frontier (locked, adjacent to an
+   * unlocked chunk), in O(1).
+   *
+   * @param x The chunk X coordinate
+   * @param z The chunk Z coordinate
+   * @return true if the chunk is a frontier chunk
+   */
+  public boolean isFrontierChunk(int x, int z) {
+    return chunkData.isFrontierChunk(x, z);
   }
 
   // ========== CHUNK QUERY OPERATIONS ==========
@@ -101,7 +97,7 @@ public class ChunkManager {
   }
 
   /**
-   * Checks if a chunk is unlocked globally.
+   * Checks if a chunk is unlocked globally. Lock-free; safe from any thread.
    *
    * @param pos The chunk position
    * @return true if the chunk is unlocked, false otherwise
@@ -110,6 +106,41 @@ public class ChunkManager {
     return chunkData.isChunkUnlocked(pos);
   }
 
+  /**
+   * Checks if a chunk is unlocked globally, without allocating a
+   * {@code ChunkPos}. Lock-free; safe from any thread.
+   *
+   * @param x The chunk X coordinate
+   * @param z The chunk Z coordinate
+   * @return true if the chunk is unlocked, false otherwise
+   */
+  public boolean isChunkUnlockedGlobally(int x, int z) {
+    return chunkData.isChunkUnlocked(x, z);
+  }
+
+  /**
+   * Checks if any cardinal neighbor of a chunk is unlocked globally.
+   *
+   * @param x The chunk X coordinate
+   * @param z The chunk Z coordinate
+   * @return true if the chunk borders an unlocked chunk
+   */
+  public boolean hasUnlockedNeighbor(int x, int z) {
+    return chunkData.hasUnlockedNeighbor(x, z);
+  }
+
+  /**
+   * Gets which cardinal neighbors of a chunk are unlocked globally.
+   *
+   * @param x The chunk X coordinate
+   * @param z The chunk Z coordinate
+   * @return A combination of {@link ChunkStore#NORTH}, {@link ChunkStore#SOUTH},
+   *         {@link ChunkStore#EAST} and {@link ChunkStore#WEST}
+   */
+  public int getUnlockedNeighborMask(int x, int z) {
+    return chunkData.getUnlockedNeighborMask(x, z);
+  }
+
   /**
    * Gets all globally unlocked chunks.
    * In multiplayer, all players share the same unlocked chunks.
@@ -132,7 +163,7 @@ public class ChunkManager {
    */
   @Deprecated
   public int getPlayerChunkCount(UUID player) {
-    return chunkData.getGlobalUnlockedChunks().size();
+    return chunkData.getGlobalUnlockedChunkCount();
   }
 
   /**
@@ -141,14 +172,23 @@ public class ChunkManager {
    * @return The number of globally unlocked chunks
    */
   public int getGlobalChunkCount() {
-    return chunkData.getGlobalUnlockedChunks().size();
+    return chunkData.getGlobalUnlockedChunkCount();
+  }
+
+  /**
+   * Checks whether barrier walls are enabled (see
+   * {@code /chunklocked toggle_barriers}).
+   *
+   * @return true if walls should exist around the unlocked area
+   */
+  public boolean areBarriersEnabled() {
+    return chunkData.areBarriersEnabled();
   }
 
   // ========== AREA QUERY OPERATIONS ==========
 
   /**
    * Gets all contiguous playable areas (connected components) globally.
-   * Triggers area detection if not cached.
    * In multiplayer, all players share the same unlocked areas.
    *
    * @param player The player UUID (unused, kept for API compatibility)
@@ -157,18 +197,17 @@ public class ChunkManager {
    */
   @Deprecated
   public List<PlayableArea> getPlayerAreas(UUID player) {
-    Set<ChunkPos> unlockedChunks = chunkData.getGlobalUnlockedChunks();
-    return areaDetector.detectAreas(unlockedChunks);
+    return chunkData.getAreas();
   }
 
   /**
    * Gets all contiguous playable areas (connected components) globally.
+   * Areas are maintained incrementally as chunks are unlocked and locked.
    *
    * @return A list of detected playable areas
    */
   public List<PlayableArea> getGlobalAreas() {
-    Set<ChunkPos> unlockedChunks = chunkData.getGlobalUnlockedChunks();
-    return areaDetector.detectAreas(unlockedChunks);
+    return chunkData.getAreas();
   }
 
   /**
@@ -182,11 +221,7 @@ public class ChunkManager {
    */
   @Deprecated
   public Optional<PlayableArea> getAreaContainingChunk(UUID player, ChunkPos chunk) {
-    Set<ChunkPos> unlockedChunks = chunkData.getGlobalUnlockedChunks();
-    List<PlayableArea> areas = areaDetector.detectAreas(unlockedChunks);
-    return areas.stream()
-        .filter(area -> area.contains(chunk))
-        .findFirst();
+    return chunkData.getAreaContaining(chunk);
   }
 
   /**
@@ -196,11 +231,56 @@ public class ChunkManager {
    * @return An Optional containing the area if found
    */
   public Optional<PlayableArea> getGlobalAreaContainingChunk(ChunkPos chunk) {
-    Set<ChunkPos> unlockedChunks = chunkData.getGlobalUnlockedChunks();
-    List<PlayableArea> areas = areaDetector.detectAreas(unlockedChunks);
-    return areas.stream()
-        .filter(area -> area.contains(chunk))
-        .findFirst();
+    return chunkData.getAreaContaining(chunk);
+  }
+
+  /**
+   * Finds the globally unlocked chunk nearest to a position, at any distance.
+   * Uses a spatial index kept in sync with every unlock and lock.
+   *
+   * @param origin The chunk to search from; returned itself if unlocked
+   * @return The nearest unlocked chunk, or empty if no chunk is unlocked
+   */
+  public Optional<ChunkPos> findNearestUnlockedChunk(ChunkPos origin) {
+    OptionalLong nearest = chunkData.findNearestUnlockedChunk(origin.x, origin.z);
+    if (nearest.isEmpty()) {
+      return Optional.empty();
+    }
+    long packed = nearest.getAsLong();
+    return Optional.of(new ChunkPos(ChunkPos.getX(packed), ChunkPos.getZ(packed)));
+  }
+
+  /**
+   * Gets how far a chunk is from the unlocked area: the number of steps
+   * between cardinal neighbours to the nearest globally unlocked chunk. Kept
+   * up to date incrementally, so this is O(1).
+   *
+   * @param chunk The chunk position
+   * @return 0 if the chunk is unlocked, 1 to {@link #getDistanceFieldRadius()}
+   *         for locked chunks near the unlocked area, otherwise
+   *         {@link DistanceField#BEYOND}
+   */
+  public int distanceToUnlocked(ChunkPos chunk) {
+    return chunkData.getDistanceToUnlocked(chunk.x, chunk.z);
+  }
+
+  /**
+   * @return How far from the unlocked area {@link #distanceToUnlocked} is
+   *         tracked
+   */
+  public int getDistanceFieldRadius() {
+    return chunkData.getDistanceFieldRadius();
+  }
+
+  /**
+   * Gets the ID of the globally playable area containing a chunk. The ID is
+   * kept while the area grows, so it can be used as a key by other systems.
+   *
+   * @param chunk The chunk position
+   * @return The area ID, or -1 if the chunk is locked
+   */
+  public int getGlobalAreaId(ChunkPos chunk) {
+    return chunkData.getAreaId(chunk);
   }
 
   // ========== CREDIT QUERY OPERATIONS ==========
@@ -260,14 +340,12 @@ public class ChunkManager {
 
     // Spend credit
     creditManager.getPlayerData(player).spendCredits(1);
+    chunkData.markCreditsChanged(player);
 
     // Unlock chunk globally
     chunkData.unlockChunk(pos);
     chunkData.markDirty();
 
-    // Invalidate area cache
-    areaDetector.invalidateCache();
-
     LOGGER.info("Player {} unlocked chunk {} globally (credits remaining: {})", player, pos,
         getAvailableCredits(player));
     return true;
@@ -275,57 +353,63 @@ public class ChunkManager {
 
   /**
    * Attempts to unlock multiple adjacent chunks for a player.
-   * Unlocks as many chunks as possible with available credits.
+   * Unlocks as many chunks as possible with available credits, in iteration
+   * order, stopping at the first chunk that fails the checks of
+   * {@link #tryUnlockChunk} (already unlocked, or out of credits). The chunks
+   * before it are unlocked, as if by one {@code tryUnlockChunk} call each.
+   * 
+   * Those chunks are committed as one {@link ChunkTransaction}, so they are
+   * applied together with one save. Like {@code tryUnlockChunk}, no
+   * adjacency rule applies.
    *
    * @param player    The player UUID
    * @param positions The chunk positions to unlock
    * @return The count of successfully unlocked chunks
    */
   public int tryUnlockChunks(UUID player, Set<ChunkPos> positions) {
-    int unlockedCount = 0;
+    int credits = getAvailableCredits(player);
+    ChunkTransaction transaction = beginTransaction();
     for (ChunkPos pos : positions) {
-      if (tryUnlockChunk(player, pos)) {
-        unlockedCount++;
-      } else {
-        // Stop if unlock fails (likely due to insufficient credits)
+      if (transaction.getStagedChunkCount() >= credits || isChunkUnlockedGlobally(pos)) {
         break;
       }
+      // Charged below rather than staged as paid unlocks, which would add
+      // the transaction's adjacency rule
+      transaction.forceUnlock(pos);
     }
-    return unlockedCount;
+    int count = transaction.getStagedChunkCount();
+    if (count == 0) {
+      transaction.abort();
+      return 0;
+    }
+    transaction.addCredits(player, -count);
+    return transaction.commit().unlocked().size();
   }
 
-  // ========== ADMIN OPERATIONS (No credit cost) ==========
-
   /**
-   * Admin operation: Unlocks a chunk without spending credits.
-   * Useful for initial setup or moderation.
+   * Starts a transaction: unlocks, locks and credit changes staged on it are
+   * validated together and applied all at once, and reach the
+   * {@link ChunkUnlockStateChangedCallback} listeners as part of one batch.
    *
-   * @param player The player UUID
-   * @param pos    The chunk position to unlock
+   * @return A new, empty transaction
    */
-  public void forceUnlockChunk(UUID player, ChunkPos pos) {
-    forceUnlockChunk(player, pos, null);
+  public ChunkTransaction beginTransaction() {
+    return new ChunkTransaction(chunkData, creditManager);
   }
 
+  // ========== ADMIN OPERATIONS (No credit cost) ==========
+
   /**
    * Admin operation: Unlocks a chunk without spending credits.
-   * Optionally updates barriers in the specified world.
+   * Useful for initial setup or moderation.
    *
-   * @param player The player UUID (for logging purposes)
+   * @param player The player UUID
    * @param pos    The chunk position to unlock
-   * @param world  The server world (null to skip barrier updates)
    */
-  public void forceUnlockChunk(UUID player, ChunkPos pos, ServerLevel world) {
+  public void forceUnlockChunk(UUID player, ChunkPos pos) {
     if (!isChunkUnlockedGlobally(pos)) {
       chunkData.unlockChunk(pos);
       chunkData.markDirty();
-      areaDetector.invalidateCache();
-
-      // Update barriers if world is provided
-      if (world != null) {
-        updateBarriersForUnlock(world, player, pos);
-      }
-
       LOGGER.info("Admin force-unlocked chunk {} globally (requested by player {})", pos, player);
     }
   }
@@ -347,7 +431,6 @@ public class ChunkManager {
     }
     if (unlockedCount > 0) {
       chunkData.markDirty();
-      areaDetector.invalidateCache();
     }
     return unlockedCount;
   }
@@ -362,7 +445,6 @@ public class ChunkManager {
     if (isChunkUnlockedGlobally(pos)) {
       chunkData.lockChunk(pos);
       chunkData.markDirty();
-      areaDetector.invalidateCache();
       LOGGER.info("Locked chunk {} globally (requested by player {})", pos, player);
     }
   }
@@ -384,11 +466,23 @@ public class ChunkManager {
     }
     if (lockedCount > 0) {
       chunkData.markDirty();
-      areaDetector.invalidateCache();
     }
     return lockedCount;
   }
 
+  /**
+   * Admin operation: Rolls chunk unlocks and credit balances back to an earlier
+   * history version. The barriers around the changed chunks are rebuilt in one
+   * pass by the {@link ChunkUnlockStateChangedCallback} listeners.
+   *
+   * @param version The history version to restore
+   * @return What changed
+   * @throws IllegalArgumentException if the version is not in the history
+   */
+  public ChunkUnlockData.RollbackResult rollback(long version) {
+    return chunkData.rollbackTo(version);
+  }
+
   // ========== CREDIT OPERATIONS ==========
 
   /**
@@ -404,6 +498,7 @@ public class ChunkManager {
     }
     if (amount > 0) {
       creditManager.getPlayerData(player).addCredits(amount);
+      chunkData.markCreditsChanged(player);
       LOGGER.info("Added {} credits to player {} (total: {})", amount, player, getAvailableCredits(player));
     }
   }
@@ -427,6 +522,9 @@ public class ChunkManager {
     } else if (difference < 0) {
       creditManager.getPlayerData(player).spendCredits(-difference);
     }
+    if (difference != 0) {
+      chunkData.markCreditsChanged(player);
+    }
 
     LOGGER.info("Set credits for player {} to {}", player, amount);
   }
@@ -441,7 +539,6 @@ public class ChunkManager {
     int beforeCount = getGlobalChunkCount();
     chunkData.clearAllChunks();
     chunkData.markDirty();
-    areaDetector.invalidateCache();
     LOGGER.info("Cleared {} global chunks (requested by player {})", beforeCount, player);
   }
 
@@ -472,85 +569,88 @@ public class ChunkManager {
     return chunkData.isDirty();
   }
 
-  // ========== BARRIER MANAGEMENT ==========
+  // ========== CHANGE EVENTS ==========
 
   /**
-   * Updates barriers after a chunk unlock.
-   * Removes barriers from the unlocked chunk and updates adjacent chunks.
-   * 
-   * @param world         The server world
-   * @param player        The player UUID
-   * @param unlockedChunk The chunk that was just unlocked
-   */
-  /**
-   * Public method to update barriers after a chunk unlock.
-   * Called when a chunk is unlocked to remove barriers and update frontier
-   * barriers.
+   * Fires {@link ChunkUnlockStateChangedCallback} with everything that changed
+   * since the last dispatch. Called at the end of every server tick.
    *
-   * @param world         The server world
-   * @param player        The player UUID
-   * @param unlockedChunk The newly unlocked chunk position
+   * @param server The server
+   * @return The changes dispatched, or null if nothing changed
    */
-  public void updateBarriersAfterUnlock(ServerLevel world, UUID player, ChunkPos unlockedChunk) {
-    updateBarriersForUnlock(world, player, unlockedChunk);
+  public ChunkUnlockData.ChunkChanges dispatchChanges(MinecraftServer server) {
+    ChunkUnlockData.ChunkChanges changes = chunkData.drainChanges();
+    if (changes != null) {
+      LOGGER.debug("Dispatching chunk changes at version {}: {} unlocked, {} locked, {} players",
+          changes.version(), changes.unlocked().size(), changes.locked().size(), changes.players().size());
+      ChunkUnlockStateChangedCallback.EVENT.invoker().onChunkUnlockStateChanged(server, changes);
+    }
+    return changes;
   }
 
-  private void updateBarriersForUnlock(ServerLevel world, UUID player, ChunkPos unlockedChunk) {
-    ChunkBarrierManager barrierManager = Chunklocked.getBarrierManager();
-    if (barrierManager == null) {
-      LOGGER.warn("Barrier manager not initialized, skipping barrier updates");
+  // ========== BARRIER MANAGEMENT ==========
+
+  /**
+   * Queues the barriers of a set of changed chunks and their neighbours for
+   * rebuilding, instead of one frontier recalculation per chunk. Registered as
+   * a {@link ChunkUnlockStateChangedCallback} listener, so it runs once per
+   * tick for everything that changed; the blocks are placed over the next
+   * ticks by the {@link BarrierWorkQueue}, nearest players first.
+   *
+   * @param changed Chunks whose unlock state changed
+   */
+  public void queueBarrierRebuild(Set<ChunkPos> changed) {
+    BarrierWorkQueue barrierQueue = Chunklocked.getBarrierQueue();
+    if (barrierQueue == null) {
+      LOGGER.warn("Barrier queue not initialized, skipping barrier updates");
       return;
     }
 
-    // CRITICAL: Use GLOBAL unlocked chunks, not per-player!
-    // When any player unlocks a chunk, we need to consider ALL unlocked chunks
-    // from ALL players to correctly place/remove barriers
-    Set<ChunkPos> allUnlocked = getGlobalUnlockedChunks();
-    LOGGER.info("Updating barriers after unlock: {} global unlocked chunks", allUnlocked.size());
-
-    // Calculate frontier using global state (locked chunks adjacent to ANY unlocked
-    // chunk)
-    Set<ChunkPos> allLocked = calculateGlobalFrontierChunks();
-    LOGGER.info("Frontier has {} locked chunks adjacent to unlocked areas", allLocked.size());
+    Set<ChunkPos> affected = new HashSet<>();
+    for (ChunkPos chunk : changed) {
+      affected.add(chunk);
+      affected.add(new ChunkPos(chunk.x, chunk.z - 1)); // North
+      affected.add(new ChunkPos(chunk.x, chunk.z + 1)); // South
+      affected.add(new ChunkPos(chunk.x + 1, chunk.z)); // East
+      affected.add(new ChunkPos(chunk.x - 1, chunk.z)); // West
+    }
 
-    // Update barriers (removes barriers from unlocked chunk, updates adjacent)
-    barrierManager.updateBarriers(world, unlockedChunk, allUnlocked, allLocked);
+    int queued = barrierQueue.queueRebuild(affected);
+    LOGGER.info("Queued barrier rebuild for {} chunks around {} changed chunks", queued, changed.size());
   }
 
   /**
-   * Places initial barriers for all locked chunks adjacent to unlocked chunks.
+   * Replaces all barriers with walls around the global frontier.
    * Should be called when a player joins or when barriers need to be regenerated.
+   * <p>
+   * The work is queued: existing barriers are removed first, then the new
+   * walls are placed over the next ticks.
    * 
-   * @param world  The server world
    * @param player The player UUID
    */
-  public void initializeBarriersForPlayer(ServerLevel world, UUID player) {
+  public void initializeBarriersForPlayer(UUID player) {
     LOGGER.info("=== initializeBarriersForPlayer START for player {} ===", player);
-    ChunkBarrierManager barrierManager = Chunklocked.getBarrierManager();
-    if (barrierManager == null) {
-      LOGGER.warn("Barrier manager not initialized, skipping barrier initialization");
+    BarrierWorkQueue barrierQueue = Chunklocked.getBarrierQueue();
+    if (barrierQueue == null) {
+      LOGGER.warn("Barrier queue not initialized, skipping barrier initialization");
       return;
     }
 
     // CRITICAL: Clear all existing barriers before reinitializing with global state
     // This prevents duplicate/stale barriers from previous partial initializations
-    LOGGER.info("Clearing all existing barriers before global reinitialization...");
-    barrierManager.clearAllBarriers(world);
+    LOGGER.info("Queueing removal of all existing barriers before global reinitialization...");
+    barrierQueue.queueClearAll();
 
-    // Get GLOBAL unlocked chunks (all players) and frontier (locked but adjacent)
-    Set<ChunkPos> globalUnlockedChunks = getGlobalUnlockedChunks();
-    LOGGER.info("Global state: {} total unlocked chunks across all players", globalUnlockedChunks.size());
+    // Get GLOBAL frontier (locked but adjacent to chunks unlocked by any player)
+    LOGGER.info("Global state: {} total unlocked chunks across all players", getGlobalChunkCount());
 
     Set<ChunkPos> globalFrontierChunks = calculateGlobalFrontierChunks();
     LOGGER.info("Global frontier: {} frontier chunks for barrier placement", globalFrontierChunks.size());
 
-    // Place barriers using GLOBAL state (not just this player's state)
-    for (ChunkPos lockedChunk : globalFrontierChunks) {
-      LOGGER.debug("Placing barriers around frontier chunk [{}, {}]", lockedChunk.x, lockedChunk.z);
-      barrierManager.placeBarriers(world, lockedChunk, globalUnlockedChunks);
-    }
+    // Walls follow the GLOBAL state (not just this player's state)
+    barrierQueue.queueRebuild(globalFrontierChunks);
 
-    LOGGER.info("=== initializeBarriersForPlayer DONE - Initialized barriers using global frontier ===");
+    LOGGER.info("=== initializeBarriersForPlayer DONE - Queued barriers for the global frontier ===");
   }
 
   /**
@@ -562,26 +662,7 @@ public class ChunkManager {
    * @return Set of frontier chunk positions
    */
   public Set<ChunkPos> calculateFrontierChunks(UUID player) {
-    Set<ChunkPos> unlockedChunks = getPlayerChunks(player);
-    Set<ChunkPos> frontier = new HashSet<>();
-
-    // For each unlocked chunk, check all 4 cardinal neighbors
-    for (ChunkPos unlocked : unlockedChunks) {
-      ChunkPos[] neighbors = {
-          new ChunkPos(unlocked.x, unlocked.z - 1), // North
-          new ChunkPos(unlocked.x, unlocked.z + 1), // South
-          new ChunkPos(unlocked.x + 1, unlocked.z), // East
-          new ChunkPos(unlocked.x - 1, unlocked.z) // West
-      };
-
-      for (ChunkPos neighbor : neighbors) {
-        // Add to frontier if not already unlocked
-        if (!unlockedChunks.contains(neighbor)) {
-          frontier.add(neighbor);
-        }
-      }
-    }
-
-    return frontier;
+    // Unlocks are shared, so a player's frontier is the global one
+    return calculateGlobalFrontierChunks();
   }
 }
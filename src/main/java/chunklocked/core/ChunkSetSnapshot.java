@@ -0,0 +1,274 @@
+package chunklocked.core;
+
+import net.minecraft.world.level.ChunkPos;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * An immutable snapshot of a chunk set at one version, shared by every reader
+ * until the set changes.
+ * <p>
+ * The chunks are spread over {@value #SHARDS} frozen {@link LongChunkSet}
+ * shards by hash. {@link #contains(int, int)} probes one shard by coordinates
+ * and {@link #size()} is O(1); {@code ChunkPos} objects are only created while
+ * iterating. The next version is derived with {@link #withChunk},
+ * {@link #withoutChunk} or {@link #withChanges}, which copy only the affected
+ * shards and share the rest, so a snapshot can be published after every
+ * change.
+ * <p>
+ * Nothing in a snapshot is modified after construction, so it may be read
+ * from any thread once published through a volatile field.
+ */
+public final class ChunkSetSnapshot extends AbstractSet<ChunkPos> {
+
+  private static final int SHARD_BITS = 8;
+  private static final int SHARDS = 1 << SHARD_BITS;
+
+  /**
+   * Shared by every empty shard; never modified.
+   */
+  private static final LongChunkSet EMPTY_SHARD = new LongChunkSet();
+
+  /**
+   * The snapshot of an empty set.
+   */
+  public static final ChunkSetSnapshot EMPTY = new ChunkSetSnapshot(emptyShards(), 0, 0);
+
+  private final LongChunkSet[] shards;
+  private final int size;
+  private final long version;
+
+  private ChunkSetSnapshot(LongChunkSet[] shards, int size, long version) {
+    this.shards = shards;
+    this.size = size;
+    this.version = version;
+  }
+
+  /**
+   * Takes a snapshot of a set of chunks.
+   *
+   * @param source  Visits every packed chunk position of the set (such as
+   *                {@code store::forEach})
+   * @param version The version of the chunk set the snapshot is taken at
+   * @return A snapshot holding a copy of the chunks
+   */
+  static ChunkSetSnapshot copyOf(Consumer<LongConsumer> source, long version) {
+    LongChunkSet[] shards = emptyShards();
+    int[] size = { 0 };
+    source.accept(packedPos -> {
+      int shard = shardOf(packedPos);
+      if (shards[shard] == EMPTY_SHARD) {
+        shards[shard] = new LongChunkSet();
+      }
+      if (shards[shard].add(packedPos)) {
+        size[0]++;
+      }
+    });
+    return new ChunkSetSnapshot(shards, size[0], version);
+  }
+
+  /**
+   * Derives the snapshot of the set after a chunk was added. Copies one shard.
+   *
+   * @param packedPos The packed chunk position
+   * @param version   The version of the chunk set after the change
+   * @return The new snapshot; this one is unchanged
+   */
+  ChunkSetSnapshot withChunk(long packedPos, long version) {
+    int shard = shardOf(packedPos);
+    if (shards[shard].contains(packedPos)) {
+      return new ChunkSetSnapshot(shards, size, version);
+    }
+    LongChunkSet[] copy = shards.clone();
+    copy[shard] = new LongChunkSet(shards[shard]);
+    copy[shard].add(packedPos);
+    return new ChunkSetSnapshot(copy, size + 1, version);
+  }
+
+  /**
+   * Derives the snapshot of the set after a chunk was removed. Copies one
+   * shard.
+   *
+   * @param packedPos The packed chunk position
+   * @param version   The version of the chunk set after the change
+   * @return The new snapshot; this one is unchanged
+   */
+  ChunkSetSnapshot withoutChunk(long packedPos, long version) {
+    int shard = shardOf(packedPos);
+    if (!shards[shard].contains(packedPos)) {
+      return new ChunkSetSnapshot(shards, size, version);
+    }
+    LongChunkSet[] copy = shards.clone();
+    if (shards[shard].size() == 1) {
+      copy[shard] = EMPTY_SHARD;
+    } else {
+      copy[shard] = new LongChunkSet(shards[shard]);
+      copy[shard].remove(packedPos);
+    }
+    return new ChunkSetSnapshot(copy, size - 1, version);
+  }
+
+  /**
+   * Derives the snapshot of the set after a batch of changes, copying each
+   * affected shard once.
+   *
+   * @param added   Chunks added to the set
+   * @param removed Chunks removed from the set
+   * @param version The version of the chunk set after the changes
+   * @return The new snapshot; this one is unchanged
+   */
+  ChunkSetSnapshot withChanges(LongChunkSet added, LongChunkSet removed, long version) {
+    LongChunkSet[] copy = shards.clone();
+    boolean[] copied = new boolean[SHARDS];
+    int[] newSize = { size };
+    removed.forEach(packedPos -> {
+      if (shardForWrite(copy, copied, packedPos).remove(packedPos)) {
+        newSize[0]--;
+      }
+    });
+    added.forEach(packedPos -> {
+      if (shardForWrite(copy, copied, packedPos).add(packedPos)) {
+        newSize[0]++;
+      }
+    });
+    return new ChunkSetSnapshot(copy, newSize[0], version);
+  }
+
+  private static LongChunkSet shardForWrite(LongChunkSet[] shards, boolean[] copied, long packedPos) {
+    int shard = shardOf(packedPos);
+    if (!copied[shard]) {
+      shards[shard] = new LongChunkSet(shards[shard]);
+      copied[shard] = true;
+    }
+    return shards[shard];
+  }
+
+  /**
+   * @return The version of the chunk set this snapshot was taken at
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Checks a chunk by its coordinates, without allocating a {@code ChunkPos}.
+   *
+   * @param x The chunk X coordinate
+   * @param z The chunk Z coordinate
+   * @return true if the chunk was in the set at this version
+   */
+  public boolean contains(int x, int z) {
+    long packedPos = ChunkPos.asLong(x, z);
+    return shards[shardOf(packedPos)].contains(packedPos);
+  }
+
+  /**
+   * Gets which cardinal neighbours of a chunk were in the set at this version.
+   *
+   * @param x The chunk X coordinate
+   * @param z The chunk Z coordinate
+   * @return A combination of {@link ChunkStore#NORTH}, {@link ChunkStore#SOUTH},
+   *         {@link ChunkStore#EAST} and {@link ChunkStore#WEST}
+   */
+  public int neighborMask(int x, int z) {
+    int mask = 0;
+    if (contains(x, z - 1)) {
+      mask |= ChunkStore.NORTH;
+    }
+    if (contains(x, z + 1)) {
+      mask |= ChunkStore.SOUTH;
+    }
+    if (contains(x + 1, z)) {
+      mask |= ChunkStore.EAST;
+    }
+    if (contains(x - 1, z)) {
+      mask |= ChunkStore.WEST;
+    }
+    return mask;
+  }
+
+  /**
+   * @param x The chunk X coordinate
+   * @param z The chunk Z coordinate
+   * @return true if any cardinal neighbour of the chunk was in the set at this
+   *         version
+   */
+  public boolean hasNeighbor(int x, int z) {
+    return contains(x, z - 1) || contains(x, z + 1) || contains(x + 1, z) || contains(x - 1, z);
+  }
+
+  /**
+   * Copies the snapshot into a new, unsorted array.
+   *
+   * @return One packed position per chunk
+   */
+  public long[] toLongArray() {
+    long[] packed = new long[size];
+    int i = 0;
+    for (LongChunkSet shard : shards) {
+      PrimitiveIterator.OfLong it = shard.longIterator();
+      while (it.hasNext()) {
+        packed[i++] = it.nextLong();
+      }
+    }
+    return packed;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return o instanceof ChunkPos pos && contains(pos.x, pos.z);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public Iterator<ChunkPos> iterator() {
+    return new Iterator<>() {
+      private int shard = 0;
+      private PrimitiveIterator.OfLong packed = shards[0].longIterator();
+
+      @Override
+      public boolean hasNext() {
+        while (!packed.hasNext()) {
+          if (shard + 1 == SHARDS) {
+            return false;
+          }
+          packed = shards[++shard].longIterator();
+        }
+        return true;
+      }
+
+      @Override
+      public ChunkPos next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        long pos = packed.nextLong();
+        return new ChunkPos(ChunkPos.getX(pos), ChunkPos.getZ(pos));
+      }
+    };
+  }
+
+  private static LongChunkSet[] emptyShards() {
+    LongChunkSet[] shards = new LongChunkSet[SHARDS];
+    Arrays.fill(shards, EMPTY_SHARD);
+    return shards;
+  }
+
+  /**
+   * Picks a shard from the top bits of the hash; the shards' own tables
+   * index by the low bits, so the two stay independent.
+   */
+  private static int shardOf(long packedPos) {
+    return (int) ((packedPos * 0x9E3779B97F4A7C15L) >>> (Long.SIZE - SHARD_BITS));
+  }
+}
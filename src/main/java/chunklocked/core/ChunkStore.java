@@ -0,0 +1,174 @@
+package chunklocked.core;
+
+import net.minecraft.world.level.ChunkPos;
+
+import java.util.function.LongConsumer;
+
+/**
+ * The set of globally unlocked chunks held by {@link ChunkUnlockData}.
+ * <p>
+ * Chunks are keyed by {@code ChunkPos.asLong(x, z)}. Two implementations:
+ * <ul>
+ * <li>{@link LongChunkSet} (default): an open-addressing table of packed
+ * positions in memory, written to the snapshot on every compaction.</li>
+ * <li>{@link MappedChunkStore}: tiled bitmaps in a memory-mapped file, for
+ * worlds with millions of unlocked chunks. The file is the chunk set's own
+ * snapshot, so compaction only flushes dirty pages.</li>
+ * </ul>
+ * <p>
+ * Mutated on the server thread only. {@link #flush()} may be called from the
+ * save thread.
+ */
+public interface ChunkStore {
+
+  /**
+   * Bits of {@link #neighborMask(int, int)}.
+   */
+  int NORTH = 1;
+  int SOUTH = 2;
+  int EAST = 4;
+  int WEST = 8;
+
+  /**
+   * Adds a chunk.
+   *
+   * @param packedPos The packed chunk position
+   * @return true if the chunk was not already in the set
+   */
+  boolean add(long packedPos);
+
+  /**
+   * Removes a chunk.
+   *
+   * @param packedPos The packed chunk position
+   * @return true if the chunk was in the set
+   */
+  boolean remove(long packedPos);
+
+  /**
+   * @param packedPos The packed chunk position
+   * @return true if the chunk is in the set
+   */
+  boolean contains(long packedPos);
+
+  /**
+   * Checks a chunk by its coordinates, without allocating a {@code ChunkPos}.
+   *
+   * @param x The chunk X coordinate
+   * @param z The chunk Z coordinate
+   * @return true if the chunk is in the set
+   */
+  default boolean contains(int x, int z) {
+    return contains(ChunkPos.asLong(x, z));
+  }
+
+  /**
+   * Gets which of a chunk's four cardinal neighbours are in the set.
+   *
+   * @param x The chunk X coordinate
+   * @param z The chunk Z coordinate
+   * @return A combination of {@link #NORTH}, {@link #SOUTH}, {@link #EAST} and
+   *         {@link #WEST}
+   */
+  default int neighborMask(int x, int z) {
+    int mask = 0;
+    if (contains(x, z - 1)) {
+      mask |= NORTH;
+    }
+    if (contains(x, z + 1)) {
+      mask |= SOUTH;
+    }
+    if (contains(x + 1, z)) {
+      mask |= EAST;
+    }
+    if (contains(x - 1, z)) {
+      mask |= WEST;
+    }
+    return mask;
+  }
+
+  /**
+   * @param x The chunk X coordinate
+   * @param z The chunk Z coordinate
+   * @return true if any cardinal neighbour of the chunk is in the set
+   */
+  default boolean hasNeighbor(int x, int z) {
+    return contains(x, z - 1) || contains(x, z + 1) || contains(x + 1, z) || contains(x - 1, z);
+  }
+
+  /**
+   * Visits the four cardinal neighbours of a chunk (north, south, east, west).
+   *
+   * @param packedPos The packed chunk position
+   * @param action    Receives each neighbour's packed position
+   */
+  static void forEachNeighbor(long packedPos, LongConsumer action) {
+    int x = ChunkPos.getX(packedPos);
+    int z = ChunkPos.getZ(packedPos);
+    action.accept(ChunkPos.asLong(x, z - 1));
+    action.accept(ChunkPos.asLong(x, z + 1));
+    action.accept(ChunkPos.asLong(x + 1, z));
+    action.accept(ChunkPos.asLong(x - 1, z));
+  }
+
+  /**
+   * @return The number of chunks in the set
+   */
+  int size();
+
+  /**
+   * @return true if the set is empty
+   */
+  default boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * Removes every chunk.
+   */
+  void clear();
+
+  /**
+   * Visits every chunk, in no particular order.
+   *
+   * @param action Receives each packed chunk position
+   */
+  void forEach(LongConsumer action);
+
+  /**
+   * Copies the set into a new, unsorted array.
+   *
+   * @return One packed position per chunk
+   */
+  default long[] toArray() {
+    long[] packed = new long[size()];
+    int[] i = { 0 };
+    forEach(pos -> packed[i[0]++] = pos);
+    return packed;
+  }
+
+  /**
+   * Whether the set persists itself. If so, snapshots leave the chunks out
+   * and call {@link #flush()} instead.
+   *
+   * @return true if the set is backed by its own file
+   */
+  default boolean isPersistent() {
+    return false;
+  }
+
+  /**
+   * Makes every change so far durable. Only meaningful for persistent stores.
+   *
+   * @return true if the flush succeeded
+   */
+  default boolean flush() {
+    return true;
+  }
+
+  /**
+   * Releases any file backing the set.
+   */
+  default void close() {
+  }
+}
@@ -0,0 +1,306 @@
+package chunklocked.core;
+
+import chunklocked.advancement.AdvancementCreditManager;
+import chunklocked.advancement.PlayerProgressionData;
+import net.minecraft.world.level.ChunkPos;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * A batch of unlocks, locks and credit changes applied as one.
+ * <p>
+ * Changes are staged first and validated together on {@link #commit}: every
+ * chunk must be in the expected state, every player must be able to pay for
+ * their unlocks, and every paid unlock must connect to the unlocked area,
+ * directly or through other chunks of the batch. If anything fails, nothing
+ * is applied. Otherwise the chunk changes become visible to readers in one
+ * step, and reach the {@link ChunkUnlockStateChangedCallback} listeners
+ * (barriers, client sync, saving) in one batch at the end of the tick.
+ * <p>
+ * Obtained from {@link ChunkManager#beginTransaction()}. Single use; server
+ * thread only.
+ *
+ * <pre>{@code
+ * CommitResult result = chunkManager.beginTransaction()
+ *     .unlock(player, new ChunkPos(4, 0))
+ *     .unlock(player, new ChunkPos(5, 0))
+ *     .commit();
+ * }</pre>
+ */
+public final class ChunkTransaction {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger("chunk-locked");
+
+  private final ChunkUnlockData chunkData;
+  private final AdvancementCreditManager creditManager;
+
+  /**
+   * Staged unlocks, mapped to the paying player ({@code null} for free ones).
+   */
+  private final Map<ChunkPos, UUID> unlocks = new LinkedHashMap<>();
+  private final Set<ChunkPos> locks = new LinkedHashSet<>();
+  private final Map<UUID, Integer> creditChanges = new LinkedHashMap<>();
+  private boolean finished;
+
+  ChunkTransaction(ChunkUnlockData chunkData, AdvancementCreditManager creditManager) {
+    this.chunkData = chunkData;
+    this.creditManager = creditManager;
+  }
+
+  // ========== STAGING ==========
+
+  /**
+   * Stages an unlock paid for with 1 of the player's credits.
+   *
+   * @param player The paying player
+   * @param pos    The chunk to unlock
+   * @return This transaction
+   * @throws IllegalStateException if the transaction is finished
+   */
+  public ChunkTransaction unlock(UUID player, ChunkPos pos) {
+    checkOpen();
+    unlocks.put(pos, Objects.requireNonNull(player, "player"));
+    return this;
+  }
+
+  /**
+   * Stages an admin unlock: free, and exempt from the adjacency rule.
+   *
+   * @param pos The chunk to unlock
+   * @return This transaction
+   * @throws IllegalStateException if the transaction is finished
+   */
+  public ChunkTransaction forceUnlock(ChunkPos pos) {
+    checkOpen();
+    unlocks.put(pos, null);
+    return this;
+  }
+
+  /**
+   * Stages a lock.
+   *
+   * @param pos The chunk to lock
+   * @return This transaction
+   * @throws IllegalStateException if the transaction is finished
+   */
+  public ChunkTransaction lock(ChunkPos pos) {
+    checkOpen();
+    locks.add(pos);
+    return this;
+  }
+
+  /**
+   * Stages a credit change, added to any staged before for the player.
+   *
+   * @param player The player
+   * @param delta  Credits to add (negative to deduct)
+   * @return This transaction
+   * @throws IllegalStateException if the transaction is finished
+   */
+  public ChunkTransaction addCredits(UUID player, int delta) {
+    checkOpen();
+    creditChanges.merge(Objects.requireNonNull(player, "player"), delta, Integer::sum);
+    return this;
+  }
+
+  /**
+   * @return The number of staged unlocks and locks
+   */
+  public int getStagedChunkCount() {
+    return unlocks.size() + locks.size();
+  }
+
+  // ========== COMMIT ==========
+
+  /**
+   * Validates the staged changes and applies them all, or none.
+   *
+   * @return What was applied, or why nothing was
+   * @throws IllegalStateException if the transaction is finished
+   */
+  public CommitResult commit() {
+    checkOpen();
+    finished = true;
+
+    String failure = validate();
+    if (failure != null) {
+      LOGGER.info("Chunk transaction rejected: {}", failure);
+      return CommitResult.failed(failure);
+    }
+
+    Set<ChunkPos> unlocked = new LinkedHashSet<>(unlocks.keySet());
+    chunkData.applyChanges(unlocked, locks);
+
+    Set<UUID> players = new LinkedHashSet<>();
+    for (Map.Entry<UUID, Integer> entry : netCreditChanges().entrySet()) {
+      PlayerProgressionData progressionData = creditManager.getPlayerData(entry.getKey());
+      if (entry.getValue() > 0) {
+        progressionData.addCredits(entry.getValue());
+      } else if (entry.getValue() < 0) {
+        progressionData.spendCredits(-entry.getValue());
+      } else {
+        continue;
+      }
+      players.add(entry.getKey());
+      chunkData.markCreditsChanged(entry.getKey());
+    }
+    chunkData.markDirty();
+
+    LOGGER.info("Committed chunk transaction: {} chunks unlocked, {} locked, {} players' credits changed",
+        unlocked.size(), locks.size(), players.size());
+    return new CommitResult(true, null, unlocked, new LinkedHashSet<>(locks), players);
+  }
+
+  /**
+   * Discards the staged changes.
+   */
+  public void abort() {
+    finished = true;
+  }
+
+  /**
+   * @return Why the staged changes cannot be applied, or null if they can
+   */
+  private String validate() {
+    for (ChunkPos pos : unlocks.keySet()) {
+      if (locks.contains(pos)) {
+        return "Chunk " + pos + " is staged for both unlock and lock";
+      }
+      if (chunkData.isChunkUnlocked(pos)) {
+        return "Chunk " + pos + " is already unlocked";
+      }
+    }
+    for (ChunkPos pos : locks) {
+      if (!chunkData.isChunkUnlocked(pos)) {
+        return "Chunk " + pos + " is not unlocked";
+      }
+    }
+
+    for (Map.Entry<UUID, Integer> entry : netCreditChanges().entrySet()) {
+      int available = creditManager.getPlayerData(entry.getKey()).getAvailableCredits();
+      if (available + (long) entry.getValue() < 0) {
+        return "Player " + entry.getKey() + " has " + available + " credits but the transaction takes "
+            + -entry.getValue();
+      }
+    }
+
+    ChunkPos disconnected = findDisconnectedUnlock();
+    if (disconnected != null) {
+      return "Chunk " + disconnected + " is not adjacent to an unlocked chunk";
+    }
+    return null;
+  }
+
+  /**
+   * Credit change per player: staged changes minus 1 per paid unlock.
+   */
+  private Map<UUID, Integer> netCreditChanges() {
+    Map<UUID, Integer> net = new LinkedHashMap<>(creditChanges);
+    for (UUID payer : unlocks.values()) {
+      if (payer != null) {
+        net.merge(payer, -1, Integer::sum);
+      }
+    }
+    return net;
+  }
+
+  /**
+   * Finds a paid unlock that would not connect to the unlocked area. Free
+   * unlocks and chunks that stay unlocked count as the area; paid unlocks
+   * reached from it extend it. With nothing else unlocked, the first paid
+   * unlock starts the area, like the initial unlock of a world.
+   *
+   * @return A disconnected paid unlock, or null if all connect
+   */
+  private ChunkPos findDisconnectedUnlock() {
+    Set<ChunkPos> pending = new LinkedHashSet<>();
+    for (Map.Entry<ChunkPos, UUID> entry : unlocks.entrySet()) {
+      if (entry.getValue() != null) {
+        pending.add(entry.getKey());
+      }
+    }
+    if (pending.isEmpty()) {
+      return null;
+    }
+
+    Deque<ChunkPos> reached = new ArrayDeque<>();
+    for (ChunkPos pos : pending) {
+      if (touchesArea(pos)) {
+        reached.add(pos);
+      }
+    }
+    int remaining = chunkData.getGlobalUnlockedChunkCount() - locks.size() + unlocks.size() - pending.size();
+    if (reached.isEmpty() && remaining == 0) {
+      reached.add(pending.iterator().next());
+    }
+    pending.removeAll(reached);
+
+    while (!reached.isEmpty() && !pending.isEmpty()) {
+      ChunkPos pos = reached.poll();
+      for (ChunkPos neighbor : neighbors(pos)) {
+        if (pending.remove(neighbor)) {
+          reached.add(neighbor);
+        }
+      }
+    }
+    return pending.isEmpty() ? null : pending.iterator().next();
+  }
+
+  /**
+   * @return true if a cardinal neighbour stays unlocked or is a free unlock
+   */
+  private boolean touchesArea(ChunkPos pos) {
+    for (ChunkPos neighbor : neighbors(pos)) {
+      boolean staysUnlocked = chunkData.isChunkUnlocked(neighbor) && !locks.contains(neighbor);
+      boolean freeUnlock = unlocks.containsKey(neighbor) && unlocks.get(neighbor) == null;
+      if (staysUnlocked || freeUnlock) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static ChunkPos[] neighbors(ChunkPos pos) {
+    return new ChunkPos[] {
+        new ChunkPos(pos.x, pos.z - 1), // North
+        new ChunkPos(pos.x, pos.z + 1), // South
+        new ChunkPos(pos.x + 1, pos.z), // East
+        new ChunkPos(pos.x - 1, pos.z) // West
+    };
+  }
+
+  private void checkOpen() {
+    if (finished) {
+      throw new IllegalStateException("Chunk transaction already committed or aborted");
+    }
+  }
+
+  /**
+   * Outcome of {@link #commit}.
+   *
+   * @param committed Whether the changes were applied
+   * @param failure   Why they were not, or null
+   * @param unlocked  Chunks unlocked
+   * @param locked    Chunks locked
+   * @param players   Players whose credit balance changed
+   */
+  public record CommitResult(boolean committed, @Nullable String failure, Set<ChunkPos> unlocked,
+      Set<ChunkPos> locked, Set<UUID> players) {
+
+    static CommitResult failed(String failure) {
+      return new CommitResult(false, failure, Set.of(), Set.of(), Set.of());
+    }
+
+    /**
+     * @return Every chunk whose state changed
+     */
+    public Set<ChunkPos> changedChunks() {
+      Set<ChunkPos> changed = new HashSet<>(unlocked);
+      changed.addAll(locked);
+      return changed;
+    }
+  }
+}
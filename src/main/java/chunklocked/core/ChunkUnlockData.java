@@ -2,40 +2,101 @@ package chunklocked.core;
 
 import chunklocked.advancement.AdvancementCreditManager;
 import chunklocked.advancement.PlayerProgressionData;
-import net.minecraft.nbt.CompoundTag;
-import net.minecraft.nbt.NbtIo;
-import net.minecraft.nbt.ListTag;
-import net.minecraft.nbt.NbtAccounter;
-import net.minecraft.nbt.StringTag;
+import chunklocked.core.area.AreaDetector;
+import chunklocked.core.area.PlayableArea;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.world.level.ChunkPos;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 
 /**
  * Persistent storage for chunk unlock progression data.
  * <p>
- * Saves and loads player credit data and rewarded advancements using NBT files.
- * This data persists across game sessions.
+ * Holds the world's chunk unlock state in memory and records every change as
+ * a journal record. Where and how the state is written is up to the
+ * {@link StorageBackend} (NBT files by default). This data persists across
+ * game sessions.
  * <p>
- * Uses a simplified file-based approach with NbtIo for direct file
- * serialization,
- * avoiding complex PersistentState API issues.
+ * Memory with a persistent chunk store ({@link MappedChunkStore}): the store
+ * keeps the unlocked set off the heap, but the indexes built on it do not.
+ * <ul>
+ * <li>The published {@link ChunkSetSnapshot} is a full heap copy of the set.
+ * It stays, because it is what makes unlock queries lock-free from any
+ * thread, and the mapped store is not thread-safe.</li>
+ * <li>The {@link FrontierIndex} and {@link DistanceField} only hold chunks
+ * around the edge of the unlocked area, so they grow with its perimeter, not
+ * its size.</li>
+ * <li>The {@link AreaDetector} and {@link NearestChunkIndex} hold every
+ * unlocked chunk. With a persistent store they are only built on the first
+ * area or nearest-chunk query and kept up to date from then on, so a server
+ * that never asks does not pay for them.</li>
+ * </ul>
+ * So a mapped store reduces, rather than removes, the heap cost of a
+ * very large unlocked set.
  */
 public class ChunkUnlockData {
 
     private static final Logger LOGGER = LoggerFactory.getLogger("chunk-locked");
-    private static final String FILE_NAME = "chunklocked_data.nbt";
-    private static final int DATA_VERSION = 5; // Updated to v5 for starter items tracking
+
+    /**
+     * Default number of offline players kept in memory after they leave.
+     */
+    public static final int DEFAULT_MAX_CACHED_OFFLINE_PLAYERS = 64;
 
     private final AdvancementCreditManager creditManager;
-    private final Path dataFile;
     private boolean isDirty = false;
 
+    /**
+     * Where the state is persisted.
+     */
+    private final StorageBackend storage;
+
+    /**
+     * Records for changes made since the last {@link #drainJournal()}.
+     */
+    private final SaveJournal.RecordBuffer pendingRecords = new SaveJournal.RecordBuffer();
+
+    /**
+     * Journal generation that new records are appended to. The snapshot on disk
+     * stores the first generation it does not contain.
+     */
+    private long journalGeneration = 0;
+
+    /**
+     * Loaded players whose file is out of date. Written at the next compaction
+     * (or when they leave), and never evicted until then.
+     */
+    private final Set<UUID> playersNeedingWrite = new HashSet<>();
+
+    /**
+     * Players currently connected. Their data is never evicted.
+     */
+    private final Set<UUID> onlinePlayers = new HashSet<>();
+
+    /**
+     * Offline players still in memory, least recently active first.
+     */
+    private final LinkedHashSet<UUID> recentlyActivePlayers = new LinkedHashSet<>();
+
+    private int maxCachedOfflinePlayers = DEFAULT_MAX_CACHED_OFFLINE_PLAYERS;
+
+    /**
+     * Optional scheduler for coalesced background saves (null = save inline).
+     */
+    private SaveScheduler saveScheduler;
+
+    /**
+     * Serializes snapshot writes and tracks the newest snapshot on disk.
+     */
+    private final Object writeLock = new Object();
+    private long snapshotSequence = 0;
+    private long lastWrittenSequence = 0;
+
     /**
      * The difficulty mode for this world (DISABLED, EASY, or EXTREME).
      * Default is DISABLED (mod inactive).
@@ -66,9 +127,69 @@ public class ChunkUnlockData {
     /**
      * Stores globally unlocked chunks (shared across all players).
      * In multiplayer, chunks are unlocked globally - if one player unlocks it, all
-     * can access it.
+     * can access it. Provided by the storage backend (in memory, or a
+     * memory-mapped bitmap for very large worlds).
+     */
+    private final ChunkStore globalUnlockedChunks;
+
+    /**
+     * Incremented on every change to {@link #globalUnlockedChunks}. Starts
+     * ahead of {@link ChunkSetSnapshot#EMPTY}, since a persistent store may
+     * already hold chunks when it is opened.
+     */
+    private long chunkSetVersion = 1;
+
+    /**
+     * Immutable copy of {@link #globalUnlockedChunks}, republished after every
+     * change. All unlock queries read it, so they are lock-free and safe from
+     * any thread (chunk generation workers, network threads, async tasks)
+     * while the server thread keeps mutating the live set.
+     */
+    private volatile ChunkSetSnapshot unlockedSnapshot = ChunkSetSnapshot.EMPTY;
+
+    /**
+     * Locked chunks bordering the unlocked area, updated on every unlock and
+     * lock.
+     */
+    private final FrontierIndex frontier = new FrontierIndex();
+    private volatile ChunkSetSnapshot frontierSnapshot = ChunkSetSnapshot.EMPTY;
+
+    /**
+     * Connected areas of unlocked chunks, updated on every unlock and lock.
      */
-    private final Set<ChunkPos> globalUnlockedChunks = new HashSet<>();
+    private final AreaDetector areaDetector = new AreaDetector();
+    private boolean areaDetectorBuilt;
+
+    /**
+     * Unlocked chunks bucketed by cell, for nearest-chunk lookups.
+     */
+    private final NearestChunkIndex nearestIndex = new NearestChunkIndex();
+    private boolean nearestIndexBuilt;
+
+    /**
+     * Distance of nearby locked chunks from the unlocked area.
+     */
+    private final DistanceField distanceField = new DistanceField(DistanceField.DEFAULT_RADIUS);
+
+    /**
+     * Chunks unlocked and locked since the last {@link #drainChanges()}. A
+     * chunk unlocked and locked again in between (or the reverse) is in
+     * neither.
+     */
+    private final LongChunkSet changedUnlocked = new LongChunkSet();
+    private final LongChunkSet changedLocked = new LongChunkSet();
+
+    /**
+     * Players whose credit balance changed since the last
+     * {@link #drainChanges()}.
+     */
+    private final Set<UUID> changedCredits = new HashSet<>();
+
+    /**
+     * Versioned deltas of the unlock set and credit balances, one version per
+     * drained journal batch. Used for admin rollbacks.
+     */
+    private final UnlockHistory history;
 
     /**
      * Creates a new ChunkUnlockData instance with the specified credit manager.
@@ -77,8 +198,24 @@ public class ChunkUnlockData {
      * @param worldDir      The world directory to store data in
      */
     public ChunkUnlockData(AdvancementCreditManager creditManager, Path worldDir) {
+        this(creditManager, new NbtStorageBackend(worldDir));
+    }
+
+    /**
+     * Creates a new ChunkUnlockData instance persisted by the given backend.
+     *
+     * @param creditManager The credit manager to associate with this data
+     * @param storage       Where the data is persisted
+     */
+    public ChunkUnlockData(AdvancementCreditManager creditManager, StorageBackend storage) {
         this.creditManager = creditManager;
-        this.dataFile = worldDir.resolve(FILE_NAME);
+        this.storage = storage;
+        this.globalUnlockedChunks = storage.openChunkStore();
+        this.history = storage.openHistory();
+
+        // Players not in memory are loaded from storage on first access
+        creditManager.setPlayerDataLoader(playerId -> storage.readPlayer(playerId)
+                .orElseGet(PlayerProgressionData::new));
     }
 
     /**
@@ -89,238 +226,317 @@ public class ChunkUnlockData {
      * @return The loaded or newly created ChunkUnlockData
      */
     public static ChunkUnlockData getOrCreate(MinecraftServer server, AdvancementCreditManager creditManager) {
+        ChunkUnlockData data = new ChunkUnlockData(creditManager, worldDirectory(server));
+        data.load();
+        return data;
+    }
+
+    /**
+     * Gets the directory the data for the server's world is stored in. Known
+     * as soon as the server is constructed, before any level is loaded.
+     *
+     * @param server The Minecraft server
+     * @return The world directory
+     */
+    public static Path worldDirectory(MinecraftServer server) {
         // Use the world-specific save directory, NOT the run directory
         // This ensures data is per-world, not shared across all worlds
-        Path worldDir = server.getServerDirectory()
+        return server.getServerDirectory()
                 .resolve("saves")
                 .resolve(server.getWorldData().getLevelName());
-        ChunkUnlockData data = new ChunkUnlockData(creditManager, worldDir);
-        data.load();
-        return data;
     }
 
     /**
-     * Loads the data from the NBT file, handling both v1 (legacy) and v2 formats.
+     * Loads the stored state from the storage backend (for NBT: the snapshot,
+     * then any journal records written after it).
      */
     public void load() {
-        if (!java.nio.file.Files.exists(dataFile)) {
-            LOGGER.info("No existing chunk unlock data found at {}, starting fresh", dataFile.toAbsolutePath());
-            return;
+        journalGeneration = storage.load(new JournalReplayer());
+        frontier.rebuild(globalUnlockedChunks);
+        distanceField.rebuild(globalUnlockedChunks);
+        // Full copies of the set; a persistent store defers them to first use
+        areaDetector.clear();
+        nearestIndex.clear();
+        areaDetectorBuilt = false;
+        nearestIndexBuilt = false;
+        if (!globalUnlockedChunks.isPersistent()) {
+            areaDetector();
+            nearestIndex();
         }
-
-        try {
-            LOGGER.info("Loading chunk unlock data from {}", dataFile.toAbsolutePath());
-            // Use the NbtIo method with a NbtAccounter - allow unlimited size
-            CompoundTag nbt = NbtIo.readCompressed(dataFile, NbtAccounter.unlimitedHeap());
-
-            // Check data version
-            int version = nbt.getInt("DataVersion").orElse(0);
-            if (version == 1) {
-                LOGGER.info("Detected legacy chunk unlock data (v1). Will migrate to v4 on next save.");
-            } else if (version != DATA_VERSION && version != 0) {
-                LOGGER.warn("Loading chunk unlock data with version {} (expected {}). Migration may be needed.",
-                        version, DATA_VERSION);
-            }
-
-            // Load mode (v4 feature, defaults to DISABLED for older saves)
-            if (nbt.contains("Mode")) {
-                String modeString = nbt.getString("Mode").orElse("DISABLED");
-                try {
-                    this.mode = ChunklockedMode.valueOf(modeString);
-                    this.modeSetAtCreation = true; // Mark as set to prevent changes
-                    LOGGER.info("Loaded ChunklockedMode: {}", this.mode);
-                } catch (IllegalArgumentException e) {
-                    LOGGER.warn("Invalid mode '{}' in save data, defaulting to DISABLED", modeString);
-                    this.mode = ChunklockedMode.DISABLED;
-                }
-            } else {
-                LOGGER.info("No mode found in save data (pre-v4), defaulting to DISABLED");
-                this.mode = ChunklockedMode.DISABLED;
+        unlockedSnapshot = ChunkSetSnapshot.copyOf(globalUnlockedChunks::forEach, chunkSetVersion);
+        changedUnlocked.clear();
+        changedLocked.clear();
+        changedCredits.clear();
+
+        // Everything just loaded is already on disk (players changed by the
+        // journal still need their own file rewritten)
+        pendingRecords.clear();
+        for (Map.Entry<UUID, PlayerProgressionData> entry : creditManager.getAllPlayerData().entrySet()) {
+            if (entry.getValue().hasUnsavedChanges()) {
+                playersNeedingWrite.add(entry.getKey());
             }
+            entry.getValue().markSaved();
+        }
+        isDirty = false;
+    }
 
-            // Load player data
-            if (nbt.contains("Players")) {
-                CompoundTag playersNbt = nbt.getCompound("Players").orElse(new CompoundTag());
-                for (String uuidString : playersNbt.keySet()) {
-                    try {
-                        UUID playerUuid = UUID.fromString(uuidString);
-                        CompoundTag playerNbt = playersNbt.getCompound(uuidString).orElse(new CompoundTag());
-
-                        // Load credits (validate >= 0)
-                        int credits = Math.max(0, playerNbt.getInt("Credits").orElse(0));
-
-                        // Load total advancements
-                        int totalAdvancements = Math.max(0, playerNbt.getInt("TotalAdvancements").orElse(0));
-
-                        // Create progression data
-                        PlayerProgressionData progressionData = new PlayerProgressionData();
-                        progressionData.setAvailableCredits(credits);
-                        progressionData.setTotalAdvancementsCompleted(totalAdvancements);
-
-                        // Load rewarded advancements
-                        if (playerNbt.contains("RewardedAdvancements")) {
-                            ListTag rewardedList = playerNbt.getList("RewardedAdvancements").orElse(new ListTag());
-                            for (int i = 0; i < rewardedList.size(); i++) {
-                                String advancementId = rewardedList.getString(i).orElse("");
-                                if (!advancementId.isEmpty()) {
-                                    // Mark as rewarded without incrementing total
-                                    progressionData.markAdvancementRewarded(advancementId);
-                                }
-                            }
-                            // Correct the total since markAdvancementRewarded increments it
-                            progressionData.setTotalAdvancementsCompleted(totalAdvancements);
-                        }
-
-                        // Load progression data into credit manager
-                        creditManager.loadPlayerData(playerUuid, progressionData);
-
-                        LOGGER.debug("Loaded progression data for player {}: {} credits, {} advancements",
-                                playerUuid, credits, totalAdvancements);
-
-                    } catch (IllegalArgumentException e) {
-                        LOGGER.warn("Invalid UUID in chunk unlock data: {}", uuidString, e);
-                    }
-                }
-            }
+    /**
+     * Gets the backend this data is persisted with.
+     *
+     * @return The storage backend
+     */
+    public StorageBackend getStorage() {
+        return storage;
+    }
 
-            // Load global unlocked chunks (v3 format)
-            // First try new v3 format (GlobalUnlockedChunks)
-            if (nbt.contains("GlobalUnlockedChunks")) {
-                ListTag chunksList = nbt.getList("GlobalUnlockedChunks").orElse(new ListTag());
-                for (int i = 0; i < chunksList.size(); i++) {
-                    CompoundTag chunkNbt = chunksList.getCompound(i).orElse(new CompoundTag());
-                    int x = chunkNbt.getInt("x").orElse(0);
-                    int z = chunkNbt.getInt("z").orElse(0);
-                    globalUnlockedChunks.add(new ChunkPos(x, z));
-                }
-                LOGGER.info("Loaded {} globally unlocked chunks (v3 format)", globalUnlockedChunks.size());
-            } else {
-                // Migration: Aggregate all per-player chunks from v2 format into global set
-                LOGGER.info("Migrating from v2 (per-player) to v3 (global) chunk format...");
-                if (nbt.contains("Players")) {
-                    CompoundTag playersNbt = nbt.getCompound("Players").orElse(new CompoundTag());
-                    int totalMigrated = 0;
-                    for (String uuidString : playersNbt.keySet()) {
-                        CompoundTag playerNbt = playersNbt.getCompound(uuidString).orElse(new CompoundTag());
-                        if (playerNbt.contains("UnlockedChunks")) {
-                            ListTag chunksList = playerNbt.getList("UnlockedChunks").orElse(new ListTag());
-                            for (int i = 0; i < chunksList.size(); i++) {
-                                CompoundTag chunkNbt = chunksList.getCompound(i).orElse(new CompoundTag());
-                                int x = chunkNbt.getInt("x").orElse(0);
-                                int z = chunkNbt.getInt("z").orElse(0);
-                                if (globalUnlockedChunks.add(new ChunkPos(x, z))) {
-                                    totalMigrated++;
-                                }
-                            }
-                        }
-                    }
-                    LOGGER.info("Migrated {} unique chunks from v2 per-player format", totalMigrated);
-                }
-            }
+    /**
+     * Releases the storage backend and the chunk set. Call once, after the
+     * final save.
+     */
+    public void close() {
+        synchronized (writeLock) {
+            storage.close();
+            globalUnlockedChunks.close();
+        }
+    }
 
-            // Load starter items tracking (v5 feature)
-            if (nbt.contains("StarterItemsGiven")) {
-                ListTag starterItemsList = nbt.getList("StarterItemsGiven").orElse(new ListTag());
-                for (int i = 0; i < starterItemsList.size(); i++) {
-                    String uuidString = starterItemsList.getString(i).orElse("");
-                    if (!uuidString.isEmpty()) {
-                        try {
-                            playersWithStarterItems.add(UUID.fromString(uuidString));
-                        } catch (IllegalArgumentException e) {
-                            LOGGER.warn("Invalid UUID in starter items list: {}", uuidString);
-                        }
-                    }
-                }
-                LOGGER.info("Loaded {} players with starter items", playersWithStarterItems.size());
-            }
+    /**
+     * Saves the data, compacting the journal.
+     * <p>
+     * This is a synchronous save on the calling thread. Gameplay code should use
+     * {@link #markDirtyAndSave()}, which defers to the attached
+     * {@link SaveScheduler} when one is present.
+     */
+    public void save() {
+        // Journal first, so the changes survive even if the snapshot write fails
+        JournalBatch batch = drainJournal();
+        if (batch != null) {
+            appendJournal(batch);
+        }
+        if (!writeSnapshot(createSnapshot())) {
+            markDirty();
+        }
+    }
 
-            // Load barriers enabled flag (v5 feature, defaults to true for compatibility)
-            if (nbt.contains("BarriersEnabled")) {
-                barriersEnabled = nbt.getBoolean("BarriersEnabled").orElse(true);
-                LOGGER.info("Barriers enabled: {}", barriersEnabled);
-            } else {
-                barriersEnabled = true; // Default to enabled for older saves
-                LOGGER.debug("No barriers flag in save data, defaulting to enabled");
+    /**
+     * Collects every change made since the last call into one journal batch.
+     * <p>
+     * Must be called on the server thread. Players whose credits or rewarded
+     * advancements changed are written as absolute state, so replay does not
+     * depend on how the change was made (award, spend, admin command).
+     *
+     * @return The batch to append, or null if nothing changed
+     */
+    public JournalBatch drainJournal() {
+        for (Map.Entry<UUID, PlayerProgressionData> entry : creditManager.getAllPlayerData().entrySet()) {
+            if (entry.getValue().hasUnsavedChanges()) {
+                recordPlayerChanges(entry.getKey(), entry.getValue());
+                playersNeedingWrite.add(entry.getKey());
             }
+        }
 
-            LOGGER.info("Loaded chunk unlock data for {} players with {} global unlocked chunks",
-                    creditManager.getPlayerCount(), globalUnlockedChunks.size());
+        history.commit(System.currentTimeMillis());
 
-        } catch (IOException e) {
-            LOGGER.error("Failed to load chunk unlock data", e);
+        isDirty = false;
+        if (pendingRecords.isEmpty()) {
+            return null;
         }
+        int recordCount = pendingRecords.size();
+        return new JournalBatch(journalGeneration, pendingRecords.drain(), recordCount);
     }
 
     /**
-     * Saves the data to the NBT file in v3 format.
+     * Buffers journal records for a player's unsaved changes.
+     *
+     * @param playerId        The player's UUID
+     * @param progressionData The player's progression data
      */
-    public void save() {
-        try {
-            CompoundTag nbt = new CompoundTag();
-
-            // Write data version
-            nbt.putInt("DataVersion", DATA_VERSION);
-
-            // Write mode (v4 feature)
-            nbt.putString("Mode", mode.name());
-
-            // Write player data (credits and advancements)
-            CompoundTag playersNbt = new CompoundTag();
-            for (Map.Entry<UUID, PlayerProgressionData> entry : creditManager.getAllPlayerData().entrySet()) {
-                UUID playerUuid = entry.getKey();
-                PlayerProgressionData progressionData = entry.getValue();
+    private void recordPlayerChanges(UUID playerId, PlayerProgressionData progressionData) {
+        for (String advancementId : progressionData.getUnsavedRewards()) {
+            pendingRecords.advancementRewarded(playerId, advancementId);
+        }
+        pendingRecords.playerState(playerId, progressionData.getAvailableCredits(),
+                progressionData.getTotalAdvancementsCompleted());
+        history.creditsChanged(playerId, progressionData.getRecordedCredits(), progressionData.getAvailableCredits());
+        progressionData.markSaved();
+    }
 
-                CompoundTag playerNbt = new CompoundTag();
+    /**
+     * Appends a journal batch to disk.
+     * <p>
+     * Safe to call from a background thread. Serialized with snapshot writes.
+     *
+     * @param batch The batch from {@link #drainJournal()}
+     * @return true if the batch is on disk, false if the write failed
+     */
+    public boolean appendJournal(JournalBatch batch) {
+        synchronized (writeLock) {
+            history.writePending();
+            return storage.appendChanges(batch);
+        }
+    }
 
-                // Write credits
-                playerNbt.putInt("Credits", progressionData.getAvailableCredits());
+    /**
+     * Captures the current state into an immutable snapshot that can be written
+     * from any thread.
+     * <p>
+     * Must be called on the server thread. Only the cheap parts happen here:
+     * changed players are staged with the backend and the chunk set is copied
+     * into a flat array of packed longs, unless the chunk set persists itself
+     * or the backend already holds every chunk
+     * ({@link StorageBackend#snapshotNeedsChunks()}). Sorting, delta encoding,
+     * compression and disk I/O are left to {@link #writeSnapshot(SaveSnapshot)}.
+     * Clears the dirty flag, since the snapshot now owns the pending changes.
+     *
+     * @return A snapshot of the data at this point in time
+     */
+    public SaveSnapshot createSnapshot() {
+        // Stage changed players for their own files
+        for (Map.Entry<UUID, PlayerProgressionData> entry : creditManager.getAllPlayerData().entrySet()) {
+            if (entry.getValue().hasUnsavedChanges() || playersNeedingWrite.contains(entry.getKey())) {
+                storage.stagePlayer(entry.getKey(), entry.getValue());
+            }
+        }
+        playersNeedingWrite.clear();
+
+        // The snapshot contains everything up to now: start a new journal
+        // generation and drop records that were never appended
+        pendingRecords.clear();
+        creditManager.getAllPlayerData().values().forEach(PlayerProgressionData::markSaved);
+        journalGeneration++;
+
+        long[] packedChunks = globalUnlockedChunks.isPersistent() || !storage.snapshotNeedsChunks()
+                ? null
+                : globalUnlockedChunks.toArray();
+
+        isDirty = false;
+        return new SaveSnapshot(++snapshotSequence, mode.name(), barriersEnabled,
+                List.copyOf(playersWithStarterItems), packedChunks,
+                creditManager.getPlayerCount(), journalGeneration);
+    }
 
-                // Write total advancements
-                playerNbt.putInt("TotalAdvancements", progressionData.getTotalAdvancementsCompleted());
+    /**
+     * Writes staged per-player files.
+     * <p>
+     * Safe to call from a background thread. Serialized with snapshot writes.
+     *
+     * @return true if every staged player is on disk
+     */
+    public boolean writePlayers() {
+        synchronized (writeLock) {
+            return storage.writeStagedPlayers();
+        }
+    }
 
-                // Write rewarded advancements
-                ListTag rewardedList = new ListTag();
-                for (String advancementId : progressionData.getRewardedAdvancements()) {
-                    rewardedList.add(StringTag.valueOf(advancementId));
-                }
-                playerNbt.put("RewardedAdvancements", rewardedList);
+    /**
+     * Checks whether per-player files are waiting to be written.
+     *
+     * @return true if any player is staged
+     */
+    public boolean hasStagedPlayers() {
+        return storage.hasStagedPlayers();
+    }
 
-                playersNbt.put(playerUuid.toString(), playerNbt);
+    /**
+     * Writes a snapshot through the storage backend.
+     * <p>
+     * Safe to call from a background thread. A snapshot is single-use: its chunk
+     * array is consumed by the write. Writes are serialized, and a snapshot
+     * older than the last one written is skipped so a slow background write can
+     * never overwrite newer data.
+     *
+     * @param snapshot The snapshot to write
+     * @return true if the snapshot is on disk (or superseded), false if the write
+     *         failed
+     */
+    public boolean writeSnapshot(SaveSnapshot snapshot) {
+        synchronized (writeLock) {
+            if (snapshot.sequence() <= lastWrittenSequence) {
+                LOGGER.debug("Skipping stale chunk unlock snapshot #{}", snapshot.sequence());
+                return true;
             }
-            nbt.put("Players", playersNbt);
-
-            // Write global unlocked chunks (v3 format)
-            ListTag chunksList = new ListTag();
-            for (ChunkPos chunk : globalUnlockedChunks) {
-                CompoundTag chunkNbt = new CompoundTag();
-                chunkNbt.putInt("x", chunk.x);
-                chunkNbt.putInt("z", chunk.z);
-                chunksList.add(chunkNbt);
+            // A chunk set with its own file is made durable first: the snapshot
+            // marks the journals before it as no longer needed
+            if (globalUnlockedChunks.isPersistent() && !globalUnlockedChunks.flush()) {
+                return false;
             }
-            nbt.put("GlobalUnlockedChunks", chunksList);
-
-            // Write starter items tracking (v5 feature)
-            ListTag starterItemsList = new ListTag();
-            for (UUID playerId : playersWithStarterItems) {
-                starterItemsList.add(StringTag.valueOf(playerId.toString()));
+            history.writePending();
+            if (!storage.writeSnapshot(snapshot)) {
+                return false;
             }
-            nbt.put("StarterItemsGiven", starterItemsList);
+            lastWrittenSequence = snapshot.sequence();
+            return true;
+        }
+    }
 
-            // Write barriers enabled flag (v5 feature)
-            nbt.putBoolean("BarriersEnabled", barriersEnabled);
+    /**
+     * Encodes a set of chunk positions into the v6 on-disk layout.
+     * <p>
+     * Each chunk is packed with {@link ChunkPos#asLong(int, int)}, the values are
+     * sorted, and every entry after the first is stored as the difference from
+     * its predecessor. Sorting keeps neighbouring chunks close together so the
+     * deltas are small and repetitive, which GZIP compresses far better than the
+     * raw positions.
+     *
+     * @param chunks The chunk positions to encode
+     * @return The sorted, delta-encoded packed positions
+     */
+    static long[] encodeChunks(Collection<ChunkPos> chunks) {
+        return encodePacked(packChunks(chunks));
+    }
 
-            // Create parent directory if needed
-            java.nio.file.Files.createDirectories(dataFile.getParent());
+    /**
+     * Packs chunk positions into an unsorted array of longs.
+     *
+     * @param chunks The chunk positions to pack
+     * @return One {@link ChunkPos#asLong(int, int)} value per chunk
+     */
+    private static long[] packChunks(Collection<ChunkPos> chunks) {
+        long[] packed = new long[chunks.size()];
+        int i = 0;
+        for (ChunkPos chunk : chunks) {
+            packed[i++] = ChunkPos.asLong(chunk.x, chunk.z);
+        }
+        return packed;
+    }
+
+    /**
+     * Sorts and delta-encodes packed chunk positions in place.
+     *
+     * @param packed The packed positions (modified in place)
+     * @return The same array, now in the v6 on-disk layout
+     */
+    static long[] encodePacked(long[] packed) {
+        Arrays.sort(packed);
 
-            // Write to file using NbtIo with Path parameter
-            NbtIo.writeCompressed(nbt, dataFile);
+        // Delta-encode back to front so each step still sees the original value
+        for (int j = packed.length - 1; j > 0; j--) {
+            packed[j] -= packed[j - 1];
+        }
+        return packed;
+    }
 
-            LOGGER.debug("Saved chunk unlock data: {} players, {} global chunks",
-                    creditManager.getPlayerCount(), globalUnlockedChunks.size());
-            isDirty = false;
+    /**
+     * Decodes the v6 on-disk layout produced by {@link #encodeChunks(Collection)}.
+     *
+     * @param encoded The sorted, delta-encoded packed positions
+     * @param sink    Receives each decoded chunk position
+     */
+    static void decodeChunks(long[] encoded, Consumer<ChunkPos> sink) {
+        decodePacked(encoded, packed -> sink.accept(new ChunkPos(ChunkPos.getX(packed), ChunkPos.getZ(packed))));
+    }
 
-        } catch (IOException e) {
-            LOGGER.error("Failed to save chunk unlock data", e);
+    /**
+     * Decodes the v6 on-disk layout into packed positions.
+     *
+     * @param encoded The sorted, delta-encoded packed positions
+     * @param sink    Receives each packed position
+     */
+    static void decodePacked(long[] encoded, LongConsumer sink) {
+        long packed = 0L;
+        for (int i = 0; i < encoded.length; i++) {
+            packed = (i == 0) ? encoded[0] : packed + encoded[i];
+            sink.accept(packed);
         }
     }
 
@@ -332,11 +548,28 @@ public class ChunkUnlockData {
     }
 
     /**
-     * Marks this data as dirty and immediately saves it.
+     * Marks this data as dirty and requests a save.
+     * <p>
+     * With a {@link SaveScheduler} attached (the normal in-game case) the save is
+     * coalesced with other requests and written on a background thread. Without
+     * one, the data is saved immediately on the calling thread.
      */
     public void markDirtyAndSave() {
         markDirty();
-        save();
+        if (saveScheduler != null) {
+            saveScheduler.requestSave();
+        } else {
+            save();
+        }
+    }
+
+    /**
+     * Attaches a save scheduler that {@link #markDirtyAndSave()} defers to.
+     *
+     * @param saveScheduler The scheduler to use, or null to save synchronously
+     */
+    public void setSaveScheduler(SaveScheduler saveScheduler) {
+        this.saveScheduler = saveScheduler;
     }
 
     /**
@@ -350,13 +583,116 @@ public class ChunkUnlockData {
 
     /**
      * Gets all player UUIDs that have progression data loaded.
+     * <p>
+     * Only online and recently active players are loaded; others are read from
+     * their own file when needed.
      *
-     * @return A set of all player UUIDs with credit/advancement data
+     * @return A set of all loaded player UUIDs with credit/advancement data
      */
     public Set<UUID> getAllPlayerUuids() {
         return creditManager.getAllPlayerData().keySet();
     }
 
+    // ========== PLAYER LOADING ==========
+
+    /**
+     * Loads a joining player's progression data from their file.
+     *
+     * @param playerId The player's UUID
+     */
+    public void onPlayerJoin(UUID playerId) {
+        onlinePlayers.add(playerId);
+        recentlyActivePlayers.remove(playerId);
+        creditManager.getPlayerData(playerId);
+    }
+
+    /**
+     * Stages a leaving player's file for writing and makes their data
+     * eligible for eviction.
+     *
+     * @param playerId The player's UUID
+     */
+    public void onPlayerLeave(UUID playerId) {
+        onlinePlayers.remove(playerId);
+        recentlyActivePlayers.remove(playerId);
+        recentlyActivePlayers.add(playerId);
+
+        PlayerProgressionData progressionData = creditManager.getAllPlayerData().get(playerId);
+        if (progressionData == null) {
+            return;
+        }
+        boolean changed = progressionData.hasUnsavedChanges();
+        if (changed) {
+            recordPlayerChanges(playerId, progressionData);
+        }
+        if (playersNeedingWrite.remove(playerId) || changed) {
+            storage.stagePlayer(playerId, progressionData);
+        }
+    }
+
+    /**
+     * Unloads offline players beyond the cache limit, least recently active
+     * first. Players with changes that are not yet staged for writing stay
+     * loaded.
+     *
+     * @return The number of players evicted
+     */
+    public int evictOfflinePlayers() {
+        List<UUID> offline = new ArrayList<>();
+        for (UUID playerId : creditManager.getAllPlayerData().keySet()) {
+            if (!onlinePlayers.contains(playerId) && !recentlyActivePlayers.contains(playerId)) {
+                offline.add(playerId); // Loaded at startup, never seen since: oldest
+            }
+        }
+        for (UUID playerId : recentlyActivePlayers) {
+            if (creditManager.isPlayerLoaded(playerId)) {
+                offline.add(playerId);
+            }
+        }
+
+        int evicted = 0;
+        int excess = offline.size() - maxCachedOfflinePlayers;
+        for (int i = 0; i < offline.size() && evicted < excess; i++) {
+            UUID playerId = offline.get(i);
+            PlayerProgressionData progressionData = creditManager.getAllPlayerData().get(playerId);
+            if (progressionData.hasUnsavedChanges() || playersNeedingWrite.contains(playerId)) {
+                continue;
+            }
+            creditManager.unloadPlayerData(playerId);
+            recentlyActivePlayers.remove(playerId);
+            evicted++;
+        }
+
+        if (evicted > 0) {
+            LOGGER.debug("Evicted {} offline players from memory", evicted);
+        }
+        return evicted;
+    }
+
+    /**
+     * Sets how many offline players are kept in memory.
+     *
+     * @param maxCachedOfflinePlayers The cache size (>= 0)
+     * @throws IllegalArgumentException if the size is negative
+     */
+    public void setMaxCachedOfflinePlayers(int maxCachedOfflinePlayers) {
+        if (maxCachedOfflinePlayers < 0) {
+            throw new IllegalArgumentException("Cache size cannot be negative: " + maxCachedOfflinePlayers);
+        }
+        this.maxCachedOfflinePlayers = maxCachedOfflinePlayers;
+    }
+
+    /**
+     * Sets how far from the unlocked area chunk distances are tracked, and
+     * recomputes them.
+     *
+     * @param radius The radius in chunks, 1 to {@link DistanceField#MAX_RADIUS}
+     * @throws IllegalArgumentException if the radius is out of range
+     */
+    public void setDistanceFieldRadius(int radius) {
+        distanceField.setRadius(radius, globalUnlockedChunks);
+    }
+
     // ========== GLOBAL CHUNK STORAGE OPERATIONS ==========
 
     /**
@@ -367,19 +703,101 @@ public class ChunkUnlockData {
      * @param chunkPos The chunk position to unlock
      */
     public void unlockChunk(ChunkPos chunkPos) {
-        if (globalUnlockedChunks.add(chunkPos)) {
-            markDirty();
+        long packedPos = ChunkPos.asLong(chunkPos.x, chunkPos.z);
+        if (applyUnlock(packedPos)) {
+            unlockedSnapshot = unlockedSnapshot.withChunk(packedPos, ++chunkSetVersion);
         }
     }
 
     /**
-     * Checks if a chunk is unlocked globally.
+     * Unlocks a chunk and updates the indexes, journal and history, without
+     * publishing a new snapshot.
+     *
+     * @return true if the chunk was locked
+     */
+    private boolean applyUnlock(long packedPos) {
+        if (!globalUnlockedChunks.add(packedPos)) {
+            return false;
+        }
+        frontier.chunkUnlocked(packedPos, globalUnlockedChunks);
+        if (areaDetectorBuilt) {
+            areaDetector.chunkUnlocked(packedPos);
+        }
+        if (nearestIndexBuilt) {
+            nearestIndex.add(packedPos);
+        }
+        distanceField.chunkUnlocked(packedPos, globalUnlockedChunks);
+        if (!changedLocked.remove(packedPos)) {
+            changedUnlocked.add(packedPos);
+        }
+        pendingRecords.chunkUnlocked(packedPos);
+        history.chunkUnlocked(packedPos);
+        markDirty();
+        return true;
+    }
+
+    /**
+     * Checks if a chunk is unlocked globally. Lock-free; safe from any thread.
      *
      * @param chunkPos The chunk position to check
      * @return true if the chunk is unlocked, false otherwise
      */
     public boolean isChunkUnlocked(ChunkPos chunkPos) {
-        return globalUnlockedChunks.contains(chunkPos);
+        return unlockedSnapshot.contains(chunkPos.x, chunkPos.z);
+    }
+
+    /**
+     * Checks if a chunk is unlocked globally, without allocating a
+     * {@code ChunkPos}. Lock-free; safe from any thread.
+     *
+     * @param x The chunk X coordinate
+     * @param z The chunk Z coordinate
+     * @return true if the chunk is unlocked, false otherwise
+     */
+    public boolean isChunkUnlocked(int x, int z) {
+        return unlockedSnapshot.contains(x, z);
+    }
+
+    /**
+     * Gets which cardinal neighbours of a chunk are unlocked. Lock-free; safe
+     * from any thread.
+     *
+     * @param x The chunk X coordinate
+     * @param z The chunk Z coordinate
+     * @return A combination of {@link ChunkStore#NORTH}, {@link ChunkStore#SOUTH},
+     *         {@link ChunkStore#EAST} and {@link ChunkStore#WEST}
+     */
+    public int getUnlockedNeighborMask(int x, int z) {
+        return unlockedSnapshot.neighborMask(x, z);
+    }
+
+    /**
+     * Checks if any cardinal neighbour of a chunk is unlocked. Lock-free; safe
+     * from any thread.
+     *
+     * @param x The chunk X coordinate
+     * @param z The chunk Z coordinate
+     * @return true if the chunk borders an unlocked chunk
+     */
+    public boolean hasUnlockedNeighbor(int x, int z) {
+        return unlockedSnapshot.hasNeighbor(x, z);
+    }
+
+    /**
+     * Visits every unlocked chunk without copying the set. The set must not be
+     * modified while iterating.
+     *
+     * @param action Receives each packed chunk position
+     */
+    public void forEachUnlockedChunk(LongConsumer action) {
+        globalUnlockedChunks.forEach(action);
+    }
+
+    /**
+     * @return The number of globally unlocked chunks
+     */
+    public int getGlobalUnlockedChunkCount() {
+        return unlockedSnapshot.size();
     }
 
     /**
@@ -389,19 +807,217 @@ public class ChunkUnlockData {
      * @param chunkPos The chunk position to lock
      */
     public void lockChunk(ChunkPos chunkPos) {
-        if (globalUnlockedChunks.remove(chunkPos)) {
-            markDirty();
+        long packedPos = ChunkPos.asLong(chunkPos.x, chunkPos.z);
+        if (applyLock(packedPos)) {
+            unlockedSnapshot = unlockedSnapshot.withoutChunk(packedPos, ++chunkSetVersion);
+        }
+    }
+
+    /**
+     * Locks a chunk and updates the indexes, journal and history, without
+     * publishing a new snapshot.
+     *
+     * @return true if the chunk was unlocked
+     */
+    private boolean applyLock(long packedPos) {
+        if (!globalUnlockedChunks.remove(packedPos)) {
+            return false;
+        }
+        frontier.chunkLocked(packedPos, globalUnlockedChunks);
+        if (areaDetectorBuilt) {
+            areaDetector.chunkLocked(packedPos);
+        }
+        if (nearestIndexBuilt) {
+            nearestIndex.remove(packedPos);
+        }
+        distanceField.chunkLocked(packedPos, globalUnlockedChunks);
+        noteLocked(packedPos);
+        pendingRecords.chunkLocked(packedPos);
+        history.chunkLocked(packedPos);
+        markDirty();
+        return true;
+    }
+
+    private void noteLocked(long packedPos) {
+        if (!changedUnlocked.remove(packedPos)) {
+            changedLocked.add(packedPos);
+        }
+    }
+
+    /**
+     * Locks and unlocks a batch of chunks as one change: the chunk set version
+     * moves once and readers on other threads see either none or all of the
+     * batch. Locks are applied first. Chunks already in the requested state
+     * are skipped.
+     *
+     * @param unlocks Chunks to unlock
+     * @param locks   Chunks to lock
+     */
+    public void applyChanges(Collection<ChunkPos> unlocks, Collection<ChunkPos> locks) {
+        LongChunkSet removed = new LongChunkSet();
+        for (ChunkPos chunkPos : locks) {
+            long packedPos = ChunkPos.asLong(chunkPos.x, chunkPos.z);
+            if (applyLock(packedPos)) {
+                removed.add(packedPos);
+            }
+        }
+        LongChunkSet added = new LongChunkSet(unlocks.size());
+        for (ChunkPos chunkPos : unlocks) {
+            long packedPos = ChunkPos.asLong(chunkPos.x, chunkPos.z);
+            if (applyUnlock(packedPos)) {
+                // A chunk locked and unlocked again is unchanged for readers
+                if (!removed.remove(packedPos)) {
+                    added.add(packedPos);
+                }
+            }
+        }
+        if (!added.isEmpty() || !removed.isEmpty()) {
+            unlockedSnapshot = unlockedSnapshot.withChanges(added, removed, ++chunkSetVersion);
         }
     }
 
     /**
      * Gets all globally unlocked chunks.
-     * Returns an immutable copy to prevent external modification.
+     * <p>
+     * Returns an immutable snapshot shared by every caller until the set next
+     * changes, so repeated calls between unlocks cost nothing. A new snapshot
+     * is published on every change, so this is lock-free and safe from any
+     * thread.
+     *
+     * @return An immutable snapshot of all unlocked chunk positions
+     */
+    public ChunkSetSnapshot getGlobalUnlockedChunks() {
+        return unlockedSnapshot;
+    }
+
+    /**
+     * Gets the frontier: locked chunks with at least one unlocked cardinal
+     * neighbour. Maintained incrementally and shared like
+     * {@link #getGlobalUnlockedChunks()}, but copied lazily on the first call
+     * after a change, so call it from the server thread.
+     *
+     * @return An immutable snapshot of the frontier chunk positions
+     */
+    public ChunkSetSnapshot getFrontierChunks() {
+        ChunkSetSnapshot snapshot = frontierSnapshot;
+        long version = chunkSetVersion;
+        if (snapshot.getVersion() != version) {
+            snapshot = ChunkSetSnapshot.copyOf(frontier::forEach, version);
+            frontierSnapshot = snapshot;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Checks if a chunk is on the frontier, in O(1).
+     *
+     * @param x The chunk X coordinate
+     * @param z The chunk Z coordinate
+     * @return true if the chunk is locked and borders an unlocked chunk
+     */
+    public boolean isFrontierChunk(int x, int z) {
+        return frontier.contains(x, z);
+    }
+
+    /**
+     * @return The number of chunks on the frontier
+     */
+    public int getFrontierSize() {
+        return frontier.size();
+    }
+
+    /**
+     * Finds the unlocked chunk nearest to a position (Euclidean distance in
+     * chunks), however far away it is.
+     *
+     * @param x The chunk X coordinate to search from
+     * @param z The chunk Z coordinate to search from
+     * @return The packed position of the nearest unlocked chunk, or empty if
+     *         no chunk is unlocked
+     */
+    public OptionalLong findNearestUnlockedChunk(int x, int z) {
+        return nearestIndex().findNearest(x, z);
+    }
+
+    /**
+     * Gets how many steps between cardinal neighbours a chunk is from the
+     * nearest unlocked chunk, in O(1).
+     *
+     * @param x The chunk X coordinate
+     * @param z The chunk Z coordinate
+     * @return 0 if the chunk is unlocked, up to the distance field radius for
+     *         locked chunks near the unlocked area, otherwise
+     *         {@link DistanceField#BEYOND}
+     */
+    public int getDistanceToUnlocked(int x, int z) {
+        return distanceField.distanceTo(x, z, globalUnlockedChunks);
+    }
+
+    /**
+     * @return How far from the unlocked area chunk distances are tracked
+     */
+    public int getDistanceFieldRadius() {
+        return distanceField.getRadius();
+    }
+
+    /**
+     * Gets the connected areas of unlocked chunks. Only areas changed since the
+     * last call are rebuilt.
      *
-     * @return An immutable set of all unlocked chunk positions
+     * @return The playable areas
      */
-    public Set<ChunkPos> getGlobalUnlockedChunks() {
-        return Set.copyOf(globalUnlockedChunks);
+    public List<PlayableArea> getAreas() {
+        return areaDetector().getCachedAreas();
+    }
+
+    /**
+     * Gets the area containing an unlocked chunk.
+     *
+     * @param chunkPos The chunk position
+     * @return The area, or empty if the chunk is locked
+     */
+    public Optional<PlayableArea> getAreaContaining(ChunkPos chunkPos) {
+        return areaDetector().findAreaContainingChunk(chunkPos);
+    }
+
+    /**
+     * Gets the ID of the area containing an unlocked chunk. IDs stay the same
+     * while the area grows; see {@link AreaDetector}.
+     *
+     * @param chunkPos The chunk position
+     * @return The area ID, or -1 if the chunk is locked
+     */
+    public int getAreaId(ChunkPos chunkPos) {
+        return areaDetector().getAreaId(ChunkPos.asLong(chunkPos.x, chunkPos.z));
+    }
+
+    /**
+     * @return The area detector, built from the unlocked set on first use
+     */
+    private AreaDetector areaDetector() {
+        if (!areaDetectorBuilt) {
+            areaDetector.rebuild(globalUnlockedChunks);
+            areaDetectorBuilt = true;
+        }
+        return areaDetector;
+    }
+
+    /**
+     * @return The nearest-chunk index, built from the unlocked set on first use
+     */
+    private NearestChunkIndex nearestIndex() {
+        if (!nearestIndexBuilt) {
+            nearestIndex.rebuild(globalUnlockedChunks);
+            nearestIndexBuilt = true;
+        }
+        return nearestIndex;
+    }
+
+    /**
+     * @return The version of the unlocked chunk set, incremented on every change
+     */
+    public long getChunkSetVersion() {
+        return unlockedSnapshot.getVersion();
     }
 
     /**
@@ -409,9 +1025,131 @@ public class ChunkUnlockData {
      */
     public void clearAllChunks() {
         if (!globalUnlockedChunks.isEmpty()) {
+            globalUnlockedChunks.forEach(history::chunkLocked);
+            globalUnlockedChunks.forEach(this::noteLocked);
             globalUnlockedChunks.clear();
+            chunkSetVersion++;
+            unlockedSnapshot = ChunkSetSnapshot.copyOf(globalUnlockedChunks::forEach, chunkSetVersion);
+            frontier.clear();
+            areaDetector.clear();
+            nearestIndex.clear();
+            distanceField.clear();
+            pendingRecords.chunksCleared();
+            markDirty();
+        }
+    }
+
+    // ========== CHANGE NOTIFICATION ==========
+
+    /**
+     * Records that a player's credit balance changed, so the next
+     * {@link #drainChanges()} reports it. Chunk changes are recorded by the
+     * unlock and lock paths themselves.
+     *
+     * @param playerId The player
+     */
+    public void markCreditsChanged(UUID playerId) {
+        changedCredits.add(playerId);
+    }
+
+    /**
+     * Takes the changes made since the last call: chunks unlocked and locked
+     * (net of any that changed back) and players whose credits changed.
+     * Server thread only; drained once per tick to fire
+     * {@link ChunkUnlockStateChangedCallback}.
+     *
+     * @return The changes, or null if nothing changed
+     */
+    public ChunkChanges drainChanges() {
+        if (changedUnlocked.isEmpty() && changedLocked.isEmpty() && changedCredits.isEmpty()) {
+            return null;
+        }
+        ChunkChanges changes = new ChunkChanges(chunkSetVersion, toChunkPositions(changedUnlocked),
+                toChunkPositions(changedLocked), Set.copyOf(changedCredits));
+        changedUnlocked.clear();
+        changedLocked.clear();
+        changedCredits.clear();
+        return changes;
+    }
+
+    private static Set<ChunkPos> toChunkPositions(LongChunkSet chunks) {
+        Set<ChunkPos> positions = new HashSet<>(chunks.size() * 2);
+        chunks.forEach(packed -> positions.add(new ChunkPos(ChunkPos.getX(packed), ChunkPos.getZ(packed))));
+        return Collections.unmodifiableSet(positions);
+    }
+
+    // ========== HISTORY ==========
+
+    /**
+     * Gets the versioned history of unlocks and credit balances.
+     *
+     * @return The history
+     */
+    public UnlockHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Restores the unlock set and credit balances of an earlier history
+     * version.
+     * <p>
+     * Changes not yet committed to the history are committed first, so they
+     * are rolled back too. The rollback goes through the normal unlock, lock
+     * and credit paths: it is journaled and becomes a new version itself, so
+     * it can be undone the same way. Barriers are not touched here.
+     *
+     * @param version The version to restore
+     * @return The chunks and players that changed
+     * @throws IllegalArgumentException if the version is not in the history
+     */
+    public RollbackResult rollbackTo(long version) {
+        drainPendingHistory();
+        UnlockHistory.Rollback rollback = history.computeRollback(version);
+
+        Set<ChunkPos> unlocked = new HashSet<>();
+        Set<ChunkPos> locked = new HashSet<>();
+        rollback.chunks().forEach((packed, shouldBeUnlocked) -> {
+            ChunkPos chunkPos = new ChunkPos(ChunkPos.getX(packed), ChunkPos.getZ(packed));
+            if (shouldBeUnlocked && !isChunkUnlocked(chunkPos)) {
+                unlocked.add(chunkPos);
+            } else if (!shouldBeUnlocked && isChunkUnlocked(chunkPos)) {
+                locked.add(chunkPos);
+            }
+        });
+        applyChanges(unlocked, locked);
+
+        Set<UUID> players = new HashSet<>();
+        rollback.credits().forEach((playerId, credits) -> {
+            PlayerProgressionData progressionData = creditManager.getPlayerData(playerId);
+            if (progressionData.getAvailableCredits() != credits) {
+                progressionData.setAvailableCredits(credits);
+                players.add(playerId);
+                changedCredits.add(playerId);
+            }
+        });
+
+        if (!players.isEmpty()) {
             markDirty();
         }
+        LOGGER.info("Rolled back to history version {}: {} chunks unlocked, {} locked, {} players' credits restored",
+                version, unlocked.size(), locked.size(), players.size());
+        return new RollbackResult(version, unlocked, locked, players);
+    }
+
+    /**
+     * Commits uncommitted changes to the history without draining the
+     * journal: their records stay pending for the next save.
+     */
+    private void drainPendingHistory() {
+        for (Map.Entry<UUID, PlayerProgressionData> entry : creditManager.getAllPlayerData().entrySet()) {
+            PlayerProgressionData progressionData = entry.getValue();
+            if (progressionData.hasUnsavedChanges()) {
+                history.creditsChanged(entry.getKey(), progressionData.getRecordedCredits(),
+                        progressionData.getAvailableCredits());
+                progressionData.markCreditsRecorded();
+            }
+        }
+        history.commit(System.currentTimeMillis());
     }
 
     // ========== MODE MANAGEMENT ==========
@@ -455,6 +1193,7 @@ public class ChunkUnlockData {
 
         this.mode = mode;
         this.modeSetAtCreation = true;
+        pendingRecords.mode(mode.name());
         markDirty();
         LOGGER.info("ChunklockedMode set to {} (immutable)", mode);
     }
@@ -489,6 +1228,7 @@ public class ChunkUnlockData {
      */
     public void markStarterItemsGiven(UUID playerId) {
         if (playersWithStarterItems.add(playerId)) {
+            pendingRecords.starterItemsGiven(playerId);
             markDirty();
             LOGGER.debug("Marked player {} as having received starter items", playerId);
         }
@@ -526,8 +1266,135 @@ public class ChunkUnlockData {
     public void setBarriersEnabled(boolean enabled) {
         if (this.barriersEnabled != enabled) {
             this.barriersEnabled = enabled;
+            pendingRecords.barriersEnabled(enabled);
             markDirty();
             LOGGER.info("Barriers {}", enabled ? "enabled" : "disabled");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * An immutable, point-in-time copy of the data awaiting a write. Player
+     * progression is not included: changed players are staged with the
+     * backend when the snapshot is taken.
+     *
+     * @param sequence          Monotonic snapshot number, used to drop stale writes
+     * @param mode              The mode name
+     * @param barriersEnabled   Whether barriers are enabled
+     * @param starterItems      Players who have received starter items
+     * @param packedChunks      Unsorted packed chunk positions, or null if the
+     *                          chunk set persists itself
+     *                          ({@link ChunkStore#isPersistent()}) or the
+     *                          backend already holds every chunk
+     * @param playerCount       Number of players in the snapshot (for logging)
+     * @param journalGeneration First journal generation not contained in the
+     *                          snapshot
+     */
+    public record SaveSnapshot(long sequence, String mode, boolean barriersEnabled, List<UUID> starterItems,
+            long[] packedChunks, int playerCount, long journalGeneration) {
+    }
+
+    /**
+     * Outcome of {@link #rollbackTo(long)}.
+     *
+     * @param version  The version restored
+     * @param unlocked Chunks that were unlocked again
+     * @param locked   Chunks that were locked again
+     * @param players  Players whose credit balance was restored
+     */
+    public record RollbackResult(long version, Set<ChunkPos> unlocked, Set<ChunkPos> locked, Set<UUID> players) {
+        /**
+         * @return Every chunk whose state changed
+         */
+        public Set<ChunkPos> changedChunks() {
+            Set<ChunkPos> changed = new HashSet<>(unlocked);
+            changed.addAll(locked);
+            return changed;
+        }
+    }
+
+    /**
+     * Changes drained by {@link #drainChanges()}.
+     *
+     * @param version  The chunk set version after the changes
+     * @param unlocked Chunks unlocked
+     * @param locked   Chunks locked
+     * @param players  Players whose credit balance changed
+     */
+    public record ChunkChanges(long version, Set<ChunkPos> unlocked, Set<ChunkPos> locked, Set<UUID> players) {
+        /**
+         * @return Every chunk whose state changed
+         */
+        public Set<ChunkPos> changedChunks() {
+            Set<ChunkPos> changed = new HashSet<>(unlocked);
+            changed.addAll(locked);
+            return changed;
+        }
+    }
+
+    /**
+     * Encoded journal records awaiting an append.
+     *
+     * @param generation  Journal generation to append to
+     * @param records     The encoded records
+     * @param recordCount Number of records (for logging)
+     */
+    public record JournalBatch(long generation, byte[] records, int recordCount) {
+    }
+
+    /**
+     * Applies stored state and replayed journal records directly to the loaded
+     * state.
+     */
+    private class JournalReplayer implements SaveJournal.RecordHandler {
+        @Override
+        public void chunkUnlocked(long packedPos) {
+            globalUnlockedChunks.add(packedPos);
+            chunkSetVersion++;
+        }
+
+        @Override
+        public void chunkLocked(long packedPos) {
+            globalUnlockedChunks.remove(packedPos);
+            chunkSetVersion++;
+        }
+
+        @Override
+        public void chunksCleared() {
+            globalUnlockedChunks.clear();
+            chunkSetVersion++;
+        }
+
+        @Override
+        public void playerState(UUID player, int credits, int totalAdvancements) {
+            PlayerProgressionData progressionData = creditManager.getPlayerData(player);
+            progressionData.setAvailableCredits(Math.max(0, credits));
+            progressionData.setTotalAdvancementsCompleted(Math.max(0, totalAdvancements));
+        }
+
+        @Override
+        public void advancementRewarded(UUID player, String advancementId) {
+            // The PLAYER_STATE record that follows sets the correct total
+            creditManager.getPlayerData(player).markAdvancementRewarded(advancementId);
+        }
+
+        @Override
+        public void starterItemsGiven(UUID player) {
+            playersWithStarterItems.add(player);
+        }
+
+        @Override
+        public void barriersEnabled(boolean enabled) {
+            barriersEnabled = enabled;
+        }
+
+        @Override
+        public void mode(String modeName) {
+            try {
+                mode = ChunklockedMode.valueOf(modeName);
+                modeSetAtCreation = true;
+            } catch (IllegalArgumentException e) {
+                LOGGER.warn("Invalid mode '{}' in save data, ignoring", modeName);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package chunklocked.core;
+
+import net.fabricmc.fabric.api.event.Event;
+import net.fabricmc.fabric.api.event.EventFactory;
+import net.minecraft.server.MinecraftServer;
+
+/**
+ * Callback interface for reacting to changes of the unlocked chunk set.
+ * <p>
+ * This event is fired at the end of each server tick in which chunks were
+ * unlocked or locked, or credit balances were changed through
+ * {@link ChunkManager}. It carries every change of the tick as one batch, so a
+ * transaction, a rollback or many single unlocks in the same tick are handled
+ * together. A chunk that was unlocked and locked again within the tick is not
+ * reported.
+ * <p>
+ * By the time it fires, the unlocked chunk set, the frontier, the area index
+ * and the distance field already reflect the changes. Listeners bring derived
+ * state up to date: barriers, client sync and persistence are all handled
+ * here, so code that unlocks chunks does not need to call them itself.
+ * <p>
+ * <b>Thread Safety:</b> This event is only fired on the server thread.
+ * Listeners do not need to implement additional synchronization.
+ * <p>
+ * Usage example:
+ *
+ * <pre>{@code
+ * ChunkUnlockStateChangedCallback.EVENT.register((server, changes) -> {
+ *   System.out.println(changes.unlocked().size() + " chunks unlocked this tick");
+ * });
+ * }</pre>
+ *
+ * @see ChunkManager#dispatchChanges(MinecraftServer)
+ */
+@FunctionalInterface
+public interface ChunkUnlockStateChangedCallback {
+  /**
+   * The event instance that listeners should register with.
+   * <p>
+   * Multiple listeners can be registered and will be invoked in registration
+   * order.
+   */
+  Event<ChunkUnlockStateChangedCallback> EVENT = EventFactory.createArrayBacked(
+      ChunkUnlockStateChangedCallback.class,
+      (listeners) -> (server, changes) -> {
+        for (ChunkUnlockStateChangedCallback listener : listeners) {
+          listener.onChunkUnlockStateChanged(server, changes);
+        }
+      });
+
+  /**
+   * Called once per tick with the changes made during it.
+   *
+   * @param server  The server. Never null.
+   * @param changes The chunks unlocked and locked and the players whose credits
+   *                changed. Never null; at least one of the sets is non-empty.
+   */
+  void onChunkUnlockStateChanged(MinecraftServer server, ChunkUnlockData.ChunkChanges changes);
+}
@@ -0,0 +1,156 @@
+package chunklocked.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Loads {@link ChunkUnlockData} on a background thread and holds back work
+ * that needs it until the load has finished.
+ * <p>
+ * The load starts as soon as the world directory is known (server starting),
+ * so reading a large save overlaps with world loading instead of delaying the
+ * first join. Until the data is ready, gameplay code queues its work with
+ * {@link #runWhenReady(Runnable)} or checks {@link #isReady()} and skips.
+ * <p>
+ * Completion is only ever observed on the server thread, in {@link #poll()}:
+ * the loaded data is handed to the ready callback first, then queued tasks run
+ * in the order they were queued. Everything except {@link #isReady()} must be
+ * called on the server thread.
+ */
+public class DataLoadGate {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger("chunk-locked");
+
+  private final Supplier<ChunkUnlockData> loader;
+  private final Consumer<ChunkUnlockData> onReady;
+  private final Queue<Runnable> pendingTasks = new ArrayDeque<>();
+
+  private CompletableFuture<ChunkUnlockData> loadFuture;
+  private volatile boolean ready = false;
+
+  /**
+   * Creates a gate. Call {@link #start()} to begin loading.
+   *
+   * @param loader  Creates and loads the data; runs on the loader thread
+   * @param onReady Receives the loaded data on the server thread, before any
+   *                queued task runs
+   */
+  public DataLoadGate(Supplier<ChunkUnlockData> loader, Consumer<ChunkUnlockData> onReady) {
+    this.loader = loader;
+    this.onReady = onReady;
+  }
+
+  /**
+   * Starts loading on a background thread.
+   */
+  public void start() {
+    if (loadFuture != null) {
+      return;
+    }
+    long startNanos = System.nanoTime();
+    loadFuture = CompletableFuture.supplyAsync(() -> {
+      ChunkUnlockData data = loader.get();
+      LOGGER.info("Chunk unlock data loaded in {} ms", (System.nanoTime() - startNanos) / 1_000_000);
+      return data;
+    }, task -> {
+      Thread thread = new Thread(task, "Chunklocked-Load");
+      thread.setDaemon(true);
+      thread.start();
+    });
+  }
+
+  /**
+   * Checks whether the data has been loaded and handed to the ready callback.
+   * Safe to call from any thread.
+   *
+   * @return true once the data is ready
+   */
+  public boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * Runs a task now if the data is ready, otherwise queues it until it is.
+   *
+   * @param task The task to run on the server thread
+   */
+  public void runWhenReady(Runnable task) {
+    if (ready) {
+      task.run();
+    } else {
+      pendingTasks.add(task);
+    }
+  }
+
+  /**
+   * Gets the number of tasks waiting for the data.
+   *
+   * @return The queue size
+   */
+  public int getPendingTaskCount() {
+    return pendingTasks.size();
+  }
+
+  /**
+   * Finishes initialization if the background load has completed. Called
+   * every server tick.
+   *
+   * @return true if the data is ready
+   */
+  public boolean poll() {
+    if (ready) {
+      return true;
+    }
+    if (loadFuture == null || !loadFuture.isDone()) {
+      return false;
+    }
+    complete();
+    return true;
+  }
+
+  /**
+   * Blocks until the data is loaded, then finishes initialization. Used when
+   * the server cannot continue without the data (e.g. while stopping).
+   */
+  public void awaitReady() {
+    if (ready) {
+      return;
+    }
+    start();
+    complete();
+  }
+
+  private void complete() {
+    ChunkUnlockData data;
+    try {
+      data = loadFuture.join();
+    } catch (CompletionException e) {
+      // Retry on the server thread so a persistent failure surfaces the same
+      // way a synchronous load would
+      LOGGER.error("Background load of chunk unlock data failed, retrying on the server thread", e.getCause());
+      data = loader.get();
+    }
+
+    onReady.accept(data);
+    ready = true;
+
+    if (!pendingTasks.isEmpty()) {
+      LOGGER.info("Running {} actions that were waiting for chunk unlock data", pendingTasks.size());
+    }
+    Runnable task;
+    while ((task = pendingTasks.poll()) != null) {
+      try {
+        task.run();
+      } catch (RuntimeException e) {
+        LOGGER.error("Action waiting for chunk unlock data failed", e);
+      }
+    }
+  }
+}
@@ -0,0 +1,278 @@
+package chunklocked.core;
+
+import net.minecraft.world.level.ChunkPos;
+
+import java.util.Arrays;
+
+/**
+ * How far each locked chunk is from the unlocked area, out to a fixed radius.
+ * <p>
+ * Distances are steps between cardinal neighbours (Manhattan distance) to the
+ * nearest unlocked chunk, as a multi-source breadth-first search from the
+ * unlocked chunks would find them. Only locked chunks within the radius are
+ * stored; unlocked chunks are at distance 0 and everything else is
+ * {@link #BEYOND}.
+ * <p>
+ * Updates stay local. An unlock lowers distances outward from the new chunk
+ * until they stop improving. A lock clears the chunks within the radius of
+ * the locked chunk, the only ones that may have been nearest to it, and
+ * refills them from the unlocked chunks among them and the unchanged ring just
+ * outside. Either costs O(radius²), however large the unlocked area is.
+ * <p>
+ * Owned by {@link ChunkUnlockData}, which updates it on every change. Not
+ * thread-safe.
+ */
+public final class DistanceField {
+
+  /**
+   * Distance reported for chunks farther than the radius, or when nothing is
+   * unlocked.
+   */
+  public static final int BEYOND = Integer.MAX_VALUE;
+
+  /**
+   * Radius used unless configured otherwise.
+   */
+  public static final int DEFAULT_RADIUS = 16;
+
+  /**
+   * Largest supported radius.
+   */
+  public static final int MAX_RADIUS = 256;
+
+  private final LongIntMap distances = new LongIntMap();
+  private int radius;
+
+  /**
+   * Creates an empty field.
+   *
+   * @param radius How far from the unlocked area distances are tracked
+   * @throws IllegalArgumentException if the radius is outside 1 to
+   *                                  {@link #MAX_RADIUS}
+   */
+  public DistanceField(int radius) {
+    this.radius = checkRadius(radius);
+  }
+
+  /**
+   * @return How far from the unlocked area distances are tracked
+   */
+  public int getRadius() {
+    return radius;
+  }
+
+  /**
+   * Changes the radius and recomputes the field.
+   *
+   * @param radius   The new radius
+   * @param unlocked The unlocked chunk set
+   * @throws IllegalArgumentException if the radius is outside 1 to
+   *                                  {@link #MAX_RADIUS}
+   */
+  public void setRadius(int radius, ChunkStore unlocked) {
+    this.radius = checkRadius(radius);
+    rebuild(unlocked);
+  }
+
+  private static int checkRadius(int radius) {
+    if (radius < 1 || radius > MAX_RADIUS) {
+      throw new IllegalArgumentException("Distance field radius must be 1-" + MAX_RADIUS + ": " + radius);
+    }
+    return radius;
+  }
+
+  // ========== QUERIES ==========
+
+  /**
+   * Gets the distance from a chunk to the nearest unlocked chunk.
+   *
+   * @param x        The chunk X coordinate
+   * @param z        The chunk Z coordinate
+   * @param unlocked The unlocked chunk set
+   * @return 0 for unlocked chunks, 1 to the radius for locked chunks within
+   *         it, otherwise {@link #BEYOND}
+   */
+  public int distanceTo(int x, int z, ChunkStore unlocked) {
+    long packedPos = ChunkPos.asLong(x, z);
+    return unlocked.contains(packedPos) ? 0 : distances.get(packedPos, BEYOND);
+  }
+
+  /**
+   * @return The number of locked chunks within the radius
+   */
+  public int size() {
+    return distances.size();
+  }
+
+  // ========== UPDATES ==========
+
+  /**
+   * Updates the field after a chunk was unlocked.
+   *
+   * @param packedPos The chunk that was unlocked
+   * @param unlocked  The unlocked chunk set, already including the chunk
+   */
+  public void chunkUnlocked(long packedPos, ChunkStore unlocked) {
+    distances.remove(packedPos);
+    LongList level = new LongList();
+    level.add(packedPos);
+    spread(level, unlocked);
+  }
+
+  /**
+   * Updates the field after a chunk was locked.
+   *
+   * @param packedPos The chunk that was locked
+   * @param unlocked  The unlocked chunk set, already without the chunk
+   */
+  public void chunkLocked(long packedPos, ChunkStore unlocked) {
+    int centerX = ChunkPos.getX(packedPos);
+    int centerZ = ChunkPos.getZ(packedPos);
+
+    // Forget the diamond of chunks within the radius; collect the unlocked
+    // chunks inside it as sources
+    LongList[] levels = new LongList[radius];
+    for (int dx = -radius; dx <= radius; dx++) {
+      int reach = radius - Math.abs(dx);
+      for (int dz = -reach; dz <= reach; dz++) {
+        long pos = ChunkPos.asLong(centerX + dx, centerZ + dz);
+        if (unlocked.contains(pos)) {
+          levelAt(levels, 0).add(pos);
+        } else {
+          distances.remove(pos);
+        }
+      }
+    }
+
+    // Chunks just outside the diamond were never nearest to the locked chunk,
+    // so their distances still hold
+    for (int dx = -radius - 1; dx <= radius + 1; dx++) {
+      int reach = radius + 1 - Math.abs(dx);
+      seedFromRing(levels, ChunkPos.asLong(centerX + dx, centerZ + reach), unlocked);
+      if (reach != 0) {
+        seedFromRing(levels, ChunkPos.asLong(centerX + dx, centerZ - reach), unlocked);
+      }
+    }
+
+    // Sources start at different distances, so spread level by level: every
+    // chunk is first reached at its final distance
+    for (int distance = 0; distance < radius; distance++) {
+      if (levels[distance] == null) {
+        continue;
+      }
+      LongList next = spreadOneLevel(levels[distance], distance, unlocked, centerX, centerZ, radius);
+      if (distance + 1 < radius) {
+        levelAt(levels, distance + 1).addAll(next);
+      }
+    }
+  }
+
+  private void seedFromRing(LongList[] levels, long pos, ChunkStore unlocked) {
+    int distance = unlocked.contains(pos) ? 0 : distances.get(pos, BEYOND);
+    if (distance < radius) {
+      levelAt(levels, distance).add(pos);
+    }
+  }
+
+  private static LongList levelAt(LongList[] levels, int distance) {
+    if (levels[distance] == null) {
+      levels[distance] = new LongList();
+    }
+    return levels[distance];
+  }
+
+  /**
+   * Recomputes the field from scratch, spreading outward from every unlocked
+   * chunk. Used after loading.
+   *
+   * @param unlocked The unlocked chunk set
+   */
+  public void rebuild(ChunkStore unlocked) {
+    clear();
+    LongList sources = new LongList();
+    unlocked.forEach(sources::add);
+    spread(sources, unlocked);
+  }
+
+  /**
+   * Empties the field (no chunks unlocked).
+   */
+  public void clear() {
+    distances.clear();
+  }
+
+  /**
+   * Breadth-first spread from unlocked chunks, lowering the stored distance of
+   * each locked chunk reached while it improves, up to the radius.
+   */
+  private void spread(LongList sources, ChunkStore unlocked) {
+    LongList level = sources;
+    for (int distance = 0; level.size() > 0 && distance < radius; distance++) {
+      level = spreadOneLevel(level, distance, unlocked, 0, 0, -1);
+    }
+  }
+
+  /**
+   * Visits the neighbours of one level of chunks. With {@code limit} >= 0,
+   * chunks farther than {@code limit} from the given center are not entered.
+   *
+   * @return The chunks whose distance was lowered, one step farther out
+   */
+  private LongList spreadOneLevel(LongList level, int distance, ChunkStore unlocked,
+      int centerX, int centerZ, int limit) {
+    LongList next = new LongList();
+    int nextDistance = distance + 1;
+    for (int i = 0; i < level.size(); i++) {
+      long pos = level.get(i);
+      int x = ChunkPos.getX(pos);
+      int z = ChunkPos.getZ(pos);
+      visit(x, z - 1, nextDistance, unlocked, next, centerX, centerZ, limit);
+      visit(x, z + 1, nextDistance, unlocked, next, centerX, centerZ, limit);
+      visit(x + 1, z, nextDistance, unlocked, next, centerX, centerZ, limit);
+      visit(x - 1, z, nextDistance, unlocked, next, centerX, centerZ, limit);
+    }
+    return next;
+  }
+
+  private void visit(int x, int z, int distance, ChunkStore unlocked, LongList next,
+      int centerX, int centerZ, int limit) {
+    if (limit >= 0 && Math.abs(x - centerX) + Math.abs(z - centerZ) > limit) {
+      return;
+    }
+    long pos = ChunkPos.asLong(x, z);
+    if (unlocked.contains(pos) || distances.get(pos, BEYOND) <= distance) {
+      return;
+    }
+    distances.put(pos, distance);
+    next.add(pos);
+  }
+
+  /**
+   * A growable list of packed positions.
+   */
+  private static final class LongList {
+    private long[] items = new long[16];
+    private int size;
+
+    void add(long value) {
+      if (size == items.length) {
+        items = Arrays.copyOf(items, size * 2);
+      }
+      items[size++] = value;
+    }
+
+    void addAll(LongList other) {
+      for (int i = 0; i < other.size; i++) {
+        add(other.items[i]);
+      }
+    }
+
+    long get(int index) {
+      return items[index];
+    }
+
+    int size() {
+      return size;
+    }
+  }
+}
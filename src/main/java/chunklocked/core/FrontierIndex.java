@@ -0,0 +1,277 @@
+package chunklocked.core;
+
+import net.minecraft.world.level.ChunkPos;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * The frontier of the unlocked area, kept up to date as chunks are unlocked
+ * and locked: every locked chunk with at least one unlocked cardinal
+ * neighbour, together with how many such neighbours it has.
+ * <p>
+ * An unlock or lock adjusts the counts of the changed chunk's four neighbours,
+ * so it costs O(1) however large the unlocked area is. Membership and size
+ * are O(1) as well. Stored like {@link LongChunkSet}: packed positions in an
+ * open-addressing table, with a parallel array of counts.
+ * <p>
+ * Owned by {@link ChunkUnlockData}, which updates it on every change. Not
+ * thread-safe.
+ */
+public final class FrontierIndex {
+
+  /**
+   * Marks a free slot. The packed value of chunk [0, -2^31] is tracked
+   * separately, as in {@link LongChunkSet}.
+   */
+  private static final long EMPTY = Long.MIN_VALUE;
+
+  private static final int MIN_CAPACITY = 16;
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  private long[] keys;
+  private byte[] counts;
+  private int mask;
+  private int resizeAt;
+  private int size;
+  private byte emptyKeyCount;
+
+  /**
+   * Creates an empty frontier.
+   */
+  public FrontierIndex() {
+    allocate(MIN_CAPACITY);
+  }
+
+  // ========== UPDATES ==========
+
+  /**
+   * Updates the frontier after a chunk was unlocked.
+   *
+   * @param packedPos The chunk that was unlocked
+   * @param unlocked  The unlocked chunk set, already including the chunk
+   */
+  public void chunkUnlocked(long packedPos, ChunkStore unlocked) {
+    // The chunk is no longer locked, so it leaves the frontier
+    remove(packedPos);
+    ChunkStore.forEachNeighbor(packedPos, neighbor -> {
+      if (!unlocked.contains(neighbor)) {
+        adjust(neighbor, 1);
+      }
+    });
+  }
+
+  /**
+   * Updates the frontier after a chunk was locked.
+   *
+   * @param packedPos The chunk that was locked
+   * @param unlocked  The unlocked chunk set, already without the chunk
+   */
+  public void chunkLocked(long packedPos, ChunkStore unlocked) {
+    ChunkStore.forEachNeighbor(packedPos, neighbor -> {
+      if (!unlocked.contains(neighbor)) {
+        adjust(neighbor, -1);
+      }
+    });
+    int unlockedNeighbors = Integer.bitCount(
+        unlocked.neighborMask(ChunkPos.getX(packedPos), ChunkPos.getZ(packedPos)));
+    if (unlockedNeighbors > 0) {
+      adjust(packedPos, unlockedNeighbors);
+    }
+  }
+
+  /**
+   * Recomputes the frontier from scratch. Used after loading, when chunks are
+   * added without going through {@link #chunkUnlocked}.
+   *
+   * @param unlocked The unlocked chunk set
+   */
+  public void rebuild(ChunkStore unlocked) {
+    clear();
+    unlocked.forEach(pos -> ChunkStore.forEachNeighbor(pos, neighbor -> {
+      if (!unlocked.contains(neighbor)) {
+        adjust(neighbor, 1);
+      }
+    }));
+  }
+
+  /**
+   * Empties the frontier (no chunks unlocked).
+   */
+  public void clear() {
+    Arrays.fill(keys, EMPTY);
+    Arrays.fill(counts, (byte) 0);
+    size = 0;
+    emptyKeyCount = 0;
+  }
+
+  // ========== QUERIES ==========
+
+  /**
+   * @param x The chunk X coordinate
+   * @param z The chunk Z coordinate
+   * @return true if the chunk is locked and borders an unlocked chunk
+   */
+  public boolean contains(int x, int z) {
+    return getUnlockedNeighborCount(x, z) > 0;
+  }
+
+  /**
+   * Gets how many cardinal neighbours of a locked chunk are unlocked.
+   *
+   * @param x The chunk X coordinate
+   * @param z The chunk Z coordinate
+   * @return 0 to 4; 0 for chunks off the frontier, including unlocked ones
+   */
+  public int getUnlockedNeighborCount(int x, int z) {
+    long packedPos = ChunkPos.asLong(x, z);
+    if (packedPos == EMPTY) {
+      return emptyKeyCount;
+    }
+    int slot = find(packedPos);
+    return slot < 0 ? 0 : counts[slot];
+  }
+
+  /**
+   * @return The number of chunks on the frontier
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Visits every frontier chunk, in no particular order.
+   *
+   * @param action Receives each packed chunk position
+   */
+  public void forEach(LongConsumer action) {
+    for (long key : keys) {
+      if (key != EMPTY) {
+        action.accept(key);
+      }
+    }
+    if (emptyKeyCount > 0) {
+      action.accept(EMPTY);
+    }
+  }
+
+  // ========== TABLE ==========
+
+  private void adjust(long packedPos, int delta) {
+    if (packedPos == EMPTY) {
+      int count = emptyKeyCount + delta;
+      if (emptyKeyCount == 0 && count > 0) {
+        size++;
+      } else if (emptyKeyCount > 0 && count <= 0) {
+        size--;
+      }
+      emptyKeyCount = (byte) Math.max(0, count);
+      return;
+    }
+    int slot = slot(packedPos);
+    long key;
+    while ((key = keys[slot]) != EMPTY) {
+      if (key == packedPos) {
+        int count = counts[slot] + delta;
+        if (count <= 0) {
+          shiftBack(slot);
+          size--;
+        } else {
+          counts[slot] = (byte) count;
+        }
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+    if (delta <= 0) {
+      return;
+    }
+    keys[slot] = packedPos;
+    counts[slot] = (byte) delta;
+    if (++size >= resizeAt) {
+      rehash(keys.length * 2);
+    }
+  }
+
+  private void remove(long packedPos) {
+    if (packedPos == EMPTY) {
+      if (emptyKeyCount > 0) {
+        emptyKeyCount = 0;
+        size--;
+      }
+      return;
+    }
+    int slot = find(packedPos);
+    if (slot >= 0) {
+      shiftBack(slot);
+      size--;
+    }
+  }
+
+  private int find(long packedPos) {
+    int slot = slot(packedPos);
+    long key;
+    while ((key = keys[slot]) != EMPTY) {
+      if (key == packedPos) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  /**
+   * Closes the gap left by a removed entry, as in {@link LongChunkSet}.
+   */
+  private void shiftBack(int gap) {
+    int slot = gap;
+    while (true) {
+      slot = (slot + 1) & mask;
+      long key = keys[slot];
+      if (key == EMPTY) {
+        break;
+      }
+      int home = slot(key);
+      if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+        keys[gap] = key;
+        counts[gap] = counts[slot];
+        gap = slot;
+      }
+    }
+    keys[gap] = EMPTY;
+    counts[gap] = 0;
+  }
+
+  private void rehash(int capacity) {
+    if (capacity > MAX_CAPACITY) {
+      resizeAt = Integer.MAX_VALUE;
+      return;
+    }
+    long[] oldKeys = keys;
+    byte[] oldCounts = counts;
+    allocate(capacity);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY) {
+        int slot = slot(oldKeys[i]);
+        while (keys[slot] != EMPTY) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        counts[slot] = oldCounts[i];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    Arrays.fill(keys, EMPTY);
+    counts = new byte[capacity];
+    mask = capacity - 1;
+    resizeAt = capacity / 4 * 3;
+  }
+
+  private int slot(long packedPos) {
+    long hash = packedPos * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+}
@@ -0,0 +1,257 @@
+package chunklocked.core;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+/**
+ * A set of chunks keyed by {@code ChunkPos.asLong(x, z)}, stored in a flat
+ * {@code long[]} with open addressing.
+ * <p>
+ * Lookups hash the packed position and probe linearly through the table, so
+ * {@link #contains(int, int)} never boxes a key or allocates a
+ * {@code ChunkPos}. Removal shifts the following entries back instead of
+ * leaving tombstones, so probe chains stay short under unlock/lock churn. Each
+ * chunk costs 8-16 bytes, against 50+ for a {@code HashSet<ChunkPos>} entry.
+ * <p>
+ * This is the default {@link ChunkStore}. Not thread-safe.
+ */
+public class LongChunkSet implements ChunkStore {
+
+  /**
+   * Marks a free slot. The packed value of chunk [0, -2^31] is tracked by a
+   * flag instead, since it cannot be stored in the table.
+   */
+  private static final long EMPTY = Long.MIN_VALUE;
+
+  private static final int MIN_CAPACITY = 16;
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  private long[] keys;
+  private int mask;
+  private int resizeAt;
+  private int size;
+  private boolean hasEmptyKey;
+
+  /**
+   * Creates an empty set.
+   */
+  public LongChunkSet() {
+    this(0);
+  }
+
+  /**
+   * Creates an empty set sized for the given number of chunks.
+   *
+   * @param expectedSize Number of chunks the set should hold without resizing
+   */
+  public LongChunkSet(int expectedSize) {
+    allocate(capacityFor(expectedSize));
+  }
+
+  /**
+   * Creates a copy of another set.
+   *
+   * @param other The set to copy
+   */
+  public LongChunkSet(LongChunkSet other) {
+    this.keys = other.keys.clone();
+    this.mask = other.mask;
+    this.resizeAt = other.resizeAt;
+    this.size = other.size;
+    this.hasEmptyKey = other.hasEmptyKey;
+  }
+
+  @Override
+  public boolean add(long packedPos) {
+    if (packedPos == EMPTY) {
+      if (hasEmptyKey) {
+        return false;
+      }
+      hasEmptyKey = true;
+      size++;
+      return true;
+    }
+    int slot = slot(packedPos);
+    long key;
+    while ((key = keys[slot]) != EMPTY) {
+      if (key == packedPos) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = packedPos;
+    if (++size >= resizeAt) {
+      rehash(keys.length * 2);
+    }
+    return true;
+  }
+
+  @Override
+  public boolean remove(long packedPos) {
+    if (packedPos == EMPTY) {
+      if (!hasEmptyKey) {
+        return false;
+      }
+      hasEmptyKey = false;
+      size--;
+      return true;
+    }
+    int slot = slot(packedPos);
+    long key;
+    while ((key = keys[slot]) != EMPTY) {
+      if (key == packedPos) {
+        shiftBack(slot);
+        size--;
+        return true;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return false;
+  }
+
+  @Override
+  public boolean contains(long packedPos) {
+    if (packedPos == EMPTY) {
+      return hasEmptyKey;
+    }
+    int slot = slot(packedPos);
+    long key;
+    while ((key = keys[slot]) != EMPTY) {
+      if (key == packedPos) {
+        return true;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return false;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(keys, EMPTY);
+    size = 0;
+    hasEmptyKey = false;
+  }
+
+  @Override
+  public void forEach(LongConsumer action) {
+    for (long key : keys) {
+      if (key != EMPTY) {
+        action.accept(key);
+      }
+    }
+    if (hasEmptyKey) {
+      action.accept(EMPTY);
+    }
+  }
+
+  /**
+   * Iterates over the set, in no particular order. The set must not be
+   * modified while iterating.
+   *
+   * @return An iterator of packed chunk positions
+   */
+  public PrimitiveIterator.OfLong longIterator() {
+    return new PrimitiveIterator.OfLong() {
+      private int slot = advance(0);
+      private boolean emptyKeyPending = hasEmptyKey;
+
+      private int advance(int from) {
+        while (from < keys.length && keys[from] == EMPTY) {
+          from++;
+        }
+        return from;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return slot < keys.length || emptyKeyPending;
+      }
+
+      @Override
+      public long nextLong() {
+        if (slot < keys.length) {
+          long key = keys[slot];
+          slot = advance(slot + 1);
+          return key;
+        }
+        if (emptyKeyPending) {
+          emptyKeyPending = false;
+          return EMPTY;
+        }
+        throw new NoSuchElementException();
+      }
+    };
+  }
+
+  /**
+   * Closes the gap left by a removed entry: later entries of the same probe
+   * chain move back into it, so lookups never stop early at a hole.
+   */
+  private void shiftBack(int gap) {
+    int slot = gap;
+    while (true) {
+      slot = (slot + 1) & mask;
+      long key = keys[slot];
+      if (key == EMPTY) {
+        break;
+      }
+      // Move the entry if the gap lies between its home slot and its slot
+      int home = slot(key);
+      if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+        keys[gap] = key;
+        gap = slot;
+      }
+    }
+    keys[gap] = EMPTY;
+  }
+
+  private void rehash(int capacity) {
+    if (capacity > MAX_CAPACITY) {
+      // Already at the largest table: run fuller rather than fail
+      resizeAt = Integer.MAX_VALUE;
+      return;
+    }
+    long[] oldKeys = keys;
+    allocate(capacity);
+    for (long key : oldKeys) {
+      if (key != EMPTY) {
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    Arrays.fill(keys, EMPTY);
+    mask = capacity - 1;
+    resizeAt = capacity / 4 * 3;
+  }
+
+  private static int capacityFor(int expectedSize) {
+    int capacity = MIN_CAPACITY;
+    while (capacity < MAX_CAPACITY && capacity / 4 * 3 <= expectedSize) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
+  /**
+   * Home slot of a packed position. Neighbouring chunks differ only in the
+   * low bits of x or z, so the bits are mixed before masking.
+   */
+  private int slot(long packedPos) {
+    long hash = packedPos * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+}
@@ -0,0 +1,169 @@
+package chunklocked.core;
+
+import java.util.Arrays;
+
+/**
+ * A map from packed positions to ints, stored like {@link LongChunkSet}:
+ * open addressing over a {@code long[]} of keys with a parallel
+ * {@code int[]} of values, and backward-shift deletion.
+ * <p>
+ * Not thread-safe.
+ */
+public final class LongIntMap {
+
+  private static final long EMPTY = Long.MIN_VALUE;
+
+  private static final int MIN_CAPACITY = 16;
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  private long[] keys;
+  private int[] values;
+  private int mask;
+  private int resizeAt;
+  private int size;
+  private boolean hasEmptyKey;
+  private int emptyKeyValue;
+
+  public LongIntMap() {
+    allocate(MIN_CAPACITY);
+  }
+
+  /**
+   * @param key     The packed position
+   * @param missing Returned if the key is not mapped
+   * @return The mapped value, or {@code missing}
+   */
+  public int get(long key, int missing) {
+    if (key == EMPTY) {
+      return hasEmptyKey ? emptyKeyValue : missing;
+    }
+    int slot = find(key);
+    return slot < 0 ? missing : values[slot];
+  }
+
+  /**
+   * Maps a key, replacing any previous value.
+   *
+   * @param key   The packed position
+   * @param value The value
+   */
+  public void put(long key, int value) {
+    if (key == EMPTY) {
+      if (!hasEmptyKey) {
+        hasEmptyKey = true;
+        size++;
+      }
+      emptyKeyValue = value;
+      return;
+    }
+    int slot = slot(key);
+    long existing;
+    while ((existing = keys[slot]) != EMPTY) {
+      if (existing == key) {
+        values[slot] = value;
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    values[slot] = value;
+    if (++size >= resizeAt) {
+      rehash(keys.length * 2);
+    }
+  }
+
+  /**
+   * @param key The packed position
+   * @return true if the key was mapped
+   */
+  public boolean remove(long key) {
+    if (key == EMPTY) {
+      if (!hasEmptyKey) {
+        return false;
+      }
+      hasEmptyKey = false;
+      size--;
+      return true;
+    }
+    int slot = find(key);
+    if (slot < 0) {
+      return false;
+    }
+    shiftBack(slot);
+    size--;
+    return true;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public void clear() {
+    Arrays.fill(keys, EMPTY);
+    size = 0;
+    hasEmptyKey = false;
+  }
+
+  private int find(long key) {
+    int slot = slot(key);
+    long existing;
+    while ((existing = keys[slot]) != EMPTY) {
+      if (existing == key) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  private void shiftBack(int gap) {
+    int slot = gap;
+    while (true) {
+      slot = (slot + 1) & mask;
+      long key = keys[slot];
+      if (key == EMPTY) {
+        break;
+      }
+      int home = slot(key);
+      if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+        keys[gap] = key;
+        values[gap] = values[slot];
+        gap = slot;
+      }
+    }
+    keys[gap] = EMPTY;
+  }
+
+  private void rehash(int capacity) {
+    if (capacity > MAX_CAPACITY) {
+      resizeAt = Integer.MAX_VALUE;
+      return;
+    }
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    allocate(capacity);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY) {
+        int slot = slot(oldKeys[i]);
+        while (keys[slot] != EMPTY) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    Arrays.fill(keys, EMPTY);
+    values = new int[capacity];
+    mask = capacity - 1;
+    resizeAt = capacity / 4 * 3;
+  }
+
+  private int slot(long key) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+}
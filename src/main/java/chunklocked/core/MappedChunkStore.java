@@ -0,0 +1,300 @@
+package chunklocked.core;
+
+import net.minecraft.world.level.ChunkPos;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.VarHandle;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
+
+/**
+ * A {@link ChunkStore} kept as tiled bitmaps in a memory-mapped file.
+ * <p>
+ * The chunk plane is split into 32x32-chunk tiles (the same grid as region
+ * files). Each tile that has ever held an unlocked chunk gets a slot in the
+ * file: its tile coordinates followed by a 1024-bit bitmap, 136 bytes for up
+ * to 1024 chunks instead of 50+ bytes per chunk in a hash set. The OS pages
+ * tiles in on demand, and saving is just a flush of the dirty pages.
+ * <p>
+ * File layout ({@code chunklocked_chunks.bin}):
+ * <ul>
+ * <li>Header: magic ("CLTB"), format version, tile count, reserved (4 ints)</li>
+ * <li>Slots: packed tile position (long), then 16 longs of bitmap. Bit
+ * {@code (z & 31) * 32 + (x & 31)} is set if the chunk is unlocked.</li>
+ * </ul>
+ * Slots are appended and never moved; emptied tiles keep their slot. The
+ * file grows by doubling.
+ * <p>
+ * Durability is not ordered with the journal. {@link #flush()} only runs in
+ * a compaction, after that save's journal append, but the OS may write dirty
+ * pages back at any time, so a bit can reach the disk before the journal
+ * record of the unlock that set it. That record's batch also carries the
+ * credit spend and history entry, so a crash in between leaves the chunk
+ * unlocked without the credit charged. The window is at most one save
+ * interval, and only a crash (not a clean stop) can hit it. The reverse
+ * order is safe: the journal is replayed on top of the file, and every
+ * record sets or clears a bit outright.
+ * <p>
+ * Mutated on the server thread only; {@link #flush()} runs on the save
+ * thread without locking. That is safe because {@code force()} does not read
+ * the buffer through the Java memory model: it asks the OS to write back the
+ * shared page cache, which the server thread's stores go to directly. A
+ * flush racing a store writes either the old or the new word, which is no
+ * different from the OS writing the page back on its own.
+ */
+public class MappedChunkStore implements ChunkStore {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger("chunk-locked");
+
+  /**
+   * Name of the bitmap file in the world directory.
+   */
+  public static final String FILE_NAME = "chunklocked_chunks.bin";
+
+  private static final int MAGIC = 0x434C5442;
+  private static final int FORMAT_VERSION = 1;
+
+  private static final int TILE_SHIFT = 5;
+  private static final int TILE_MASK = (1 << TILE_SHIFT) - 1;
+  private static final int WORDS_PER_TILE = (1 << (2 * TILE_SHIFT)) / Long.SIZE;
+
+  private static final int HEADER_BYTES = 16;
+  private static final int TILE_COUNT_OFFSET = 8;
+  private static final int SLOT_BYTES = Long.BYTES + WORDS_PER_TILE * Long.BYTES;
+  private static final int INITIAL_SLOTS = 256;
+
+  private final Path file;
+  private final FileChannel channel;
+
+  /**
+   * Replaced when the file grows. Volatile so {@link #flush()} on the save
+   * thread sees the current mapping.
+   */
+  private volatile MappedByteBuffer buffer;
+  private int capacity;
+  private int tileCount;
+  private int size;
+
+  /**
+   * Packed tile position to slot index.
+   */
+  private final LongIntMap tileSlots = new LongIntMap();
+
+  /**
+   * Opens (or creates) the bitmap file.
+   *
+   * @param file The bitmap file
+   * @throws UncheckedIOException if the file cannot be opened or is not a
+   *                              chunk bitmap
+   */
+  public MappedChunkStore(Path file) {
+    this.file = file;
+    try {
+      this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+          StandardOpenOption.WRITE);
+      if (channel.size() < HEADER_BYTES) {
+        map(INITIAL_SLOTS);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, FORMAT_VERSION);
+        buffer.putInt(TILE_COUNT_OFFSET, 0);
+      } else {
+        map(Math.max(INITIAL_SLOTS, (int) ((channel.size() - HEADER_BYTES) / SLOT_BYTES)));
+        readTiles();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to open chunk bitmap " + file, e);
+    }
+    LOGGER.info("Opened chunk bitmap {}: {} unlocked chunks in {} tiles", file.getFileName(), size, tileCount);
+  }
+
+  private void readTiles() throws IOException {
+    if (buffer.getInt(0) != MAGIC) {
+      throw new IOException("Not a chunk bitmap file");
+    }
+    int version = buffer.getInt(4);
+    if (version != FORMAT_VERSION) {
+      throw new IOException("Unsupported chunk bitmap version " + version);
+    }
+    tileCount = Math.min(buffer.getInt(TILE_COUNT_OFFSET), capacity);
+    for (int slot = 0; slot < tileCount; slot++) {
+      long tileKey = buffer.getLong(slotOffset(slot));
+      if (tileSlots.get(tileKey, -1) != -1) {
+        // Left by a crash while a tile was being added; the first copy wins
+        LOGGER.warn("Ignoring duplicate tile [{}, {}] in chunk bitmap", ChunkPos.getX(tileKey), ChunkPos.getZ(tileKey));
+        continue;
+      }
+      tileSlots.put(tileKey, slot);
+      int bitmapOffset = slotOffset(slot) + Long.BYTES;
+      for (int word = 0; word < WORDS_PER_TILE; word++) {
+        size += Long.bitCount(buffer.getLong(bitmapOffset + word * Long.BYTES));
+      }
+    }
+  }
+
+  private void map(int slots) throws IOException {
+    long bytes = HEADER_BYTES + (long) slots * SLOT_BYTES;
+    if (bytes > Integer.MAX_VALUE) {
+      throw new IOException("Chunk bitmap cannot hold " + slots + " tiles");
+    }
+    buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+    capacity = slots;
+  }
+
+  @Override
+  public boolean add(long packedPos) {
+    int x = ChunkPos.getX(packedPos);
+    int z = ChunkPos.getZ(packedPos);
+    int slot = tileSlots.get(tileKey(x, z), -1);
+    int offset = wordOffset(slot != -1 ? slot : allocate(tileKey(x, z)), x, z);
+    long bit = bit(x, z);
+    long word = buffer.getLong(offset);
+    if ((word & bit) != 0) {
+      return false;
+    }
+    buffer.putLong(offset, word | bit);
+    size++;
+    return true;
+  }
+
+  @Override
+  public boolean remove(long packedPos) {
+    int x = ChunkPos.getX(packedPos);
+    int z = ChunkPos.getZ(packedPos);
+    int slot = tileSlots.get(tileKey(x, z), -1);
+    if (slot == -1) {
+      return false;
+    }
+    int offset = wordOffset(slot, x, z);
+    long bit = bit(x, z);
+    long word = buffer.getLong(offset);
+    if ((word & bit) == 0) {
+      return false;
+    }
+    buffer.putLong(offset, word & ~bit);
+    size--;
+    return true;
+  }
+
+  @Override
+  public boolean contains(long packedPos) {
+    int x = ChunkPos.getX(packedPos);
+    int z = ChunkPos.getZ(packedPos);
+    int slot = tileSlots.get(tileKey(x, z), -1);
+    return slot != -1 && (buffer.getLong(wordOffset(slot, x, z)) & bit(x, z)) != 0;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Forgets every tile. The slots are zeroed again as they are reused.
+   */
+  @Override
+  public void clear() {
+    tileSlots.clear();
+    tileCount = 0;
+    size = 0;
+    buffer.putInt(TILE_COUNT_OFFSET, 0);
+  }
+
+  @Override
+  public void forEach(LongConsumer action) {
+    for (int slot = 0; slot < tileCount; slot++) {
+      long tileKey = buffer.getLong(slotOffset(slot));
+      if (tileSlots.get(tileKey, -1) != slot) {
+        continue; // Duplicate ignored by readTiles
+      }
+      int baseX = ChunkPos.getX(tileKey) << TILE_SHIFT;
+      int baseZ = ChunkPos.getZ(tileKey) << TILE_SHIFT;
+      int bitmapOffset = slotOffset(slot) + Long.BYTES;
+      for (int word = 0; word < WORDS_PER_TILE; word++) {
+        long bits = buffer.getLong(bitmapOffset + word * Long.BYTES);
+        while (bits != 0) {
+          int local = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+          action.accept(ChunkPos.asLong(baseX + (local & TILE_MASK), baseZ + (local >>> TILE_SHIFT)));
+          bits &= bits - 1;
+        }
+      }
+    }
+  }
+
+  @Override
+  public boolean isPersistent() {
+    return true;
+  }
+
+  @Override
+  public boolean flush() {
+    try {
+      buffer.force();
+      return true;
+    } catch (UncheckedIOException e) {
+      LOGGER.error("Failed to flush chunk bitmap {}", file, e);
+      return false;
+    }
+  }
+
+  @Override
+  public void close() {
+    flush();
+    try {
+      channel.close();
+    } catch (IOException e) {
+      LOGGER.error("Failed to close chunk bitmap {}", file, e);
+    }
+  }
+
+  /**
+   * Gives a tile the next free slot. The bitmap and key are written before the
+   * header count, so a torn write never exposes a slot with stale bits.
+   */
+  private int allocate(long tileKey) {
+    if (tileCount == capacity) {
+      try {
+        map(capacity * 2);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to grow chunk bitmap " + file, e);
+      }
+    }
+    int slot = tileCount;
+    int offset = slotOffset(slot);
+    buffer.putLong(offset, tileKey);
+    for (int word = 0; word < WORDS_PER_TILE; word++) {
+      buffer.putLong(offset + Long.BYTES + word * Long.BYTES, 0L);
+    }
+    // Keeps the JIT from moving the count ahead of the slot
+    VarHandle.releaseFence();
+    tileCount++;
+    buffer.putInt(TILE_COUNT_OFFSET, tileCount);
+    tileSlots.put(tileKey, slot);
+    return slot;
+  }
+
+  private static long tileKey(int x, int z) {
+    return ChunkPos.asLong(x >> TILE_SHIFT, z >> TILE_SHIFT);
+  }
+
+  private static int slotOffset(int slot) {
+    return HEADER_BYTES + slot * SLOT_BYTES;
+  }
+
+  private static int localIndex(int x, int z) {
+    return ((z & TILE_MASK) << TILE_SHIFT) | (x & TILE_MASK);
+  }
+
+  private static int wordOffset(int slot, int x, int z) {
+    return slotOffset(slot) + Long.BYTES + (localIndex(x, z) >>> 6) * Long.BYTES;
+  }
+
+  private static long bit(int x, int z) {
+    return 1L << (localIndex(x, z) & 63);
+  }
+}
@@ -0,0 +1,428 @@
+package chunklocked.core;
+
+import chunklocked.advancement.PlayerProgressionData;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtAccounter;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.StringTag;
+import net.minecraft.world.level.ChunkPos;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * The default {@link StorageBackend}: everything lives in NBT files in the
+ * world directory.
+ * <ul>
+ * <li>{@code chunklocked_data.nbt}: snapshot of the world state (v7)</li>
+ * <li>{@code chunklocked_data.<generation>.journal}: changes since the
+ * snapshot (see {@link SaveJournal})</li>
+ * <li>{@code chunklocked_players/}: one file per player (see
+ * {@link PlayerDataStore})</li>
+ * <li>{@code chunklocked_chunks.bin}: only with the mapped chunk store (see
+ * {@link MappedChunkStore}), which replaces the chunk list in the snapshot</li>
+ * </ul>
+ * Loads every format from v1 (legacy) to v7. Switching the mapped chunk store
+ * on imports the snapshot's chunks into the bitmap; switching it off reads
+ * the bitmap once and deletes it after the next snapshot.
+ */
+public class NbtStorageBackend implements StorageBackend {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger("chunk-locked");
+
+  /**
+   * Name of the snapshot file in the world directory.
+   */
+  public static final String FILE_NAME = "chunklocked_data.nbt";
+
+  /**
+   * Snapshot format version. v7 moved players to their own files.
+   */
+  public static final int DATA_VERSION = 7;
+
+  private final Path dataFile;
+  private final Path bitmapFile;
+  private final Path historyFile;
+  private final SaveJournal journal;
+  private final PlayerDataStore playerStore;
+  private final boolean mappedChunks;
+
+  /**
+   * True once chunks were read from a bitmap file left by the mapped chunk
+   * store; the file is deleted once a snapshot contains them.
+   */
+  private volatile boolean bitmapImported = false;
+
+  /**
+   * Creates a backend for the given world directory, keeping chunks in memory.
+   *
+   * @param worldDir The world directory
+   */
+  public NbtStorageBackend(Path worldDir) {
+    this(worldDir, false);
+  }
+
+  /**
+   * Creates a backend for the given world directory.
+   *
+   * @param worldDir     The world directory
+   * @param mappedChunks Whether to keep unlocked chunks in a
+   *                     {@link MappedChunkStore} instead of the snapshot
+   */
+  public NbtStorageBackend(Path worldDir, boolean mappedChunks) {
+    this.dataFile = worldDir.resolve(FILE_NAME);
+    this.bitmapFile = worldDir.resolve(MappedChunkStore.FILE_NAME);
+    this.historyFile = worldDir.resolve(UnlockHistory.FILE_NAME);
+    this.journal = new SaveJournal(worldDir);
+    this.playerStore = new PlayerDataStore(worldDir);
+    this.mappedChunks = mappedChunks;
+  }
+
+  @Override
+  public String getName() {
+    return NBT;
+  }
+
+  @Override
+  public ChunkStore openChunkStore() {
+    if (!mappedChunks) {
+      return new LongChunkSet();
+    }
+    try {
+      Files.createDirectories(bitmapFile.getParent());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to create " + bitmapFile.getParent(), e);
+    }
+    return new MappedChunkStore(bitmapFile);
+  }
+
+  @Override
+  public UnlockHistory openHistory() {
+    return new UnlockHistory(historyFile, UnlockHistory.DEFAULT_MAX_VERSIONS);
+  }
+
+  // ========== LOADING ==========
+
+  /**
+   * Loads the snapshot, then replays any journal records written after it.
+   */
+  @Override
+  public long load(SaveJournal.RecordHandler target) {
+    long snapshotGeneration = 0;
+    if (Files.exists(dataFile)) {
+      snapshotGeneration = loadSnapshot(target);
+    } else {
+      LOGGER.info("No existing chunk unlock data found at {}, starting fresh", dataFile.toAbsolutePath());
+    }
+
+    if (!mappedChunks && Files.exists(bitmapFile)) {
+      importBitmap(target);
+    }
+
+    int replayed = journal.replay(snapshotGeneration, target);
+    if (replayed > 0) {
+      LOGGER.info("Replayed {} journal records written after the last snapshot", replayed);
+    }
+
+    // Always continue in a fresh generation so new records are never
+    // appended after a partial record left by a crash
+    List<Long> generations = journal.listGenerations();
+    long lastGeneration = generations.isEmpty() ? -1 : generations.get(generations.size() - 1);
+    return Math.max(snapshotGeneration, lastGeneration + 1);
+  }
+
+  /**
+   * Loads the NBT snapshot.
+   * <p>
+   * v7 snapshots are streamed with a {@link SnapshotStreamReader}: chunks are
+   * decoded straight from the file into the target without building the NBT
+   * tree, which matters once a world has hundreds of thousands of unlocked
+   * chunks. Older layouts are detected by the reader and re-read with
+   * {@link #loadSnapshotTree(SaveJournal.RecordHandler)}. Anything the reader
+   * fed before stopping is fed again by the tree loader, which is harmless
+   * since chunks and starter items are sets.
+   *
+   * @return The first journal generation not contained in the snapshot
+   */
+  private long loadSnapshot(SaveJournal.RecordHandler target) {
+    LOGGER.info("Loading chunk unlock data from {}", dataFile.toAbsolutePath());
+    SnapshotStreamReader reader = new SnapshotStreamReader(target::chunkUnlocked, target::starterItemsGiven);
+    try {
+      NbtIo.parseCompressed(dataFile, reader, NbtAccounter.unlimitedHeap());
+    } catch (IOException e) {
+      LOGGER.error("Failed to load chunk unlock data", e);
+      // A mapped chunk set was not read from the snapshot and must survive
+      if (!mappedChunks) {
+        target.chunksCleared();
+      }
+      return 0;
+    }
+
+    if (reader.isLegacyLayout()) {
+      return loadSnapshotTree(target);
+    }
+
+    logDataVersion(reader.getDataVersion());
+    applyLoadedMode(reader.getMode(), target);
+    target.barriersEnabled(reader.areBarriersEnabled());
+    if (reader.getInvalidStarterItemIds() > 0) {
+      LOGGER.warn("Skipped {} invalid UUIDs in starter items list", reader.getInvalidStarterItemIds());
+    }
+
+    LOGGER.info("Loaded {} globally unlocked chunks, barriers enabled: {}", reader.getChunkCount(),
+        reader.areBarriersEnabled());
+    return reader.getJournalGeneration();
+  }
+
+  /**
+   * Feeds the chunks from a bitmap left by the mapped chunk store. The
+   * snapshot does not contain them.
+   */
+  private void importBitmap(SaveJournal.RecordHandler target) {
+    LOGGER.info("Reading unlocked chunks from {} (mapped chunk store is off)", bitmapFile.getFileName());
+    MappedChunkStore bitmap = new MappedChunkStore(bitmapFile);
+    try {
+      bitmap.forEach(target::chunkUnlocked);
+    } finally {
+      bitmap.close();
+    }
+    bitmapImported = true;
+  }
+
+  private static void logDataVersion(int version) {
+    if (version == 1) {
+      LOGGER.info("Detected legacy chunk unlock data (v1). Will migrate to v{} on next save.", DATA_VERSION);
+    } else if (version != DATA_VERSION && version != 0) {
+      LOGGER.warn("Loading chunk unlock data with version {} (expected {}). Migration may be needed.",
+          version, DATA_VERSION);
+    }
+  }
+
+  /**
+   * Applies the mode read from a snapshot (v4 feature, defaults to DISABLED
+   * for older saves).
+   */
+  private static void applyLoadedMode(String modeString, SaveJournal.RecordHandler target) {
+    if (modeString == null) {
+      LOGGER.info("No mode found in save data (pre-v4), defaulting to DISABLED");
+      return;
+    }
+    target.mode(modeString);
+  }
+
+  /**
+   * Loads a pre-v7 snapshot by reading the whole NBT tree. Only used once per
+   * world: the next compaction rewrites it in the streamable v7 layout.
+   *
+   * @return The first journal generation not contained in the snapshot
+   */
+  private long loadSnapshotTree(SaveJournal.RecordHandler target) {
+    try {
+      // Use the NbtIo method with a NbtAccounter - allow unlimited size
+      CompoundTag nbt = NbtIo.readCompressed(dataFile, NbtAccounter.unlimitedHeap());
+
+      logDataVersion(nbt.getInt("DataVersion").orElse(0));
+      applyLoadedMode(nbt.contains("Mode") ? nbt.getString("Mode").orElse("DISABLED") : null, target);
+
+      // Load player data (pre-v7 saves kept every player in the main file;
+      // they are moved to per-player files at the next compaction). v1/v2
+      // also stored chunks per player; they are collected in the same pass
+      // and only used if the save has no global chunk list.
+      List<Long> perPlayerChunks = new ArrayList<>();
+      if (nbt.contains("Players")) {
+        CompoundTag playersNbt = nbt.getCompound("Players").orElse(new CompoundTag());
+        int migrated = 0;
+        for (String uuidString : playersNbt.keySet()) {
+          CompoundTag playerNbt = playersNbt.getCompound(uuidString).orElse(new CompoundTag());
+          if (playerNbt.contains("UnlockedChunks")) {
+            ListTag chunksList = playerNbt.getList("UnlockedChunks").orElse(new ListTag());
+            for (int i = 0; i < chunksList.size(); i++) {
+              CompoundTag chunkNbt = chunksList.getCompound(i).orElse(new CompoundTag());
+              perPlayerChunks.add(ChunkPos.asLong(chunkNbt.getInt("x").orElse(0), chunkNbt.getInt("z").orElse(0)));
+            }
+          }
+
+          try {
+            UUID playerUuid = UUID.fromString(uuidString);
+            PlayerProgressionData progressionData = playerStore.decodeFile(playerNbt);
+
+            // Feed progression as if it had been journaled; the loaded player
+            // counts as changed and gets its own file at the next compaction
+            for (String advancementId : progressionData.getRewardedAdvancements()) {
+              target.advancementRewarded(playerUuid, advancementId);
+            }
+            target.playerState(playerUuid, progressionData.getAvailableCredits(),
+                progressionData.getTotalAdvancementsCompleted());
+            migrated++;
+
+            LOGGER.debug("Loaded progression data for player {}: {} credits, {} advancements",
+                playerUuid, progressionData.getAvailableCredits(),
+                progressionData.getTotalAdvancementsCompleted());
+
+          } catch (IllegalArgumentException e) {
+            LOGGER.warn("Invalid UUID in chunk unlock data: {}", uuidString, e);
+          }
+        }
+        LOGGER.info("Migrating {} players from the main save to {}/", migrated, PlayerDataStore.DIRECTORY_NAME);
+      }
+
+      // Load global unlocked chunks
+      // v6 stores a single sorted, delta-encoded long array; v3-v5 used a list of
+      // {x, z} compounds; v1/v2 stored chunks per player
+      Optional<long[]> packedChunks = nbt.getLongArray("GlobalUnlockedChunks");
+      if (packedChunks.isPresent()) {
+        ChunkUnlockData.decodePacked(packedChunks.get(), target::chunkUnlocked);
+        LOGGER.info("Loaded {} globally unlocked chunks (v6 format)", packedChunks.get().length);
+      } else if (nbt.contains("GlobalUnlockedChunks")) {
+        ListTag chunksList = nbt.getList("GlobalUnlockedChunks").orElse(new ListTag());
+        for (int i = 0; i < chunksList.size(); i++) {
+          CompoundTag chunkNbt = chunksList.getCompound(i).orElse(new CompoundTag());
+          int x = chunkNbt.getInt("x").orElse(0);
+          int z = chunkNbt.getInt("z").orElse(0);
+          target.chunkUnlocked(ChunkPos.asLong(x, z));
+        }
+        LOGGER.info("Loaded {} globally unlocked chunks (v3 format), will migrate to v{} on next save",
+            chunksList.size(), DATA_VERSION);
+      } else {
+        // Migration: Aggregate all per-player chunks from v2 format into global set
+        LOGGER.info("Migrating from v2 (per-player) to v3 (global) chunk format...");
+        perPlayerChunks.forEach(target::chunkUnlocked);
+        LOGGER.info("Migrated {} per-player chunk entries from v2 format", perPlayerChunks.size());
+      }
+
+      // Load starter items tracking (v5 feature)
+      if (nbt.contains("StarterItemsGiven")) {
+        ListTag starterItemsList = nbt.getList("StarterItemsGiven").orElse(new ListTag());
+        for (int i = 0; i < starterItemsList.size(); i++) {
+          String uuidString = starterItemsList.getString(i).orElse("");
+          if (!uuidString.isEmpty()) {
+            try {
+              target.starterItemsGiven(UUID.fromString(uuidString));
+            } catch (IllegalArgumentException e) {
+              LOGGER.warn("Invalid UUID in starter items list: {}", uuidString);
+            }
+          }
+        }
+        LOGGER.info("Loaded {} players with starter items", starterItemsList.size());
+      }
+
+      // Load barriers enabled flag (v5 feature, defaults to true for compatibility)
+      target.barriersEnabled(nbt.getBoolean("BarriersEnabled").orElse(true));
+
+      // Snapshots written before the journal existed contain everything
+      return nbt.getLong("JournalGeneration").orElse(0L);
+
+    } catch (IOException e) {
+      LOGGER.error("Failed to load chunk unlock data", e);
+      return 0;
+    }
+  }
+
+  // ========== PLAYERS ==========
+
+  @Override
+  public Optional<PlayerProgressionData> readPlayer(UUID playerId) {
+    return playerStore.read(playerId);
+  }
+
+  @Override
+  public void stagePlayer(UUID playerId, PlayerProgressionData data) {
+    playerStore.stage(playerId, data);
+  }
+
+  @Override
+  public boolean hasStagedPlayers() {
+    return playerStore.hasStaged();
+  }
+
+  @Override
+  public boolean writeStagedPlayers() {
+    return playerStore.writeStaged();
+  }
+
+  // ========== WRITING ==========
+
+  /**
+   * Appends the batch to its generation's journal file.
+   */
+  @Override
+  public boolean appendChanges(ChunkUnlockData.JournalBatch batch) {
+    try {
+      journal.append(batch.generation(), batch.records());
+      LOGGER.debug("Journaled {} chunk unlock records ({} bytes)", batch.recordCount(), batch.records().length);
+      return true;
+    } catch (IOException e) {
+      LOGGER.error("Failed to append to chunk unlock journal", e);
+      return false;
+    }
+  }
+
+  /**
+   * Writes the snapshot to the NBT file and deletes the journals it compacts.
+   * <p>
+   * Staged players are written first: the journals are only deleted once their
+   * files are current. The snapshot goes through a temporary file that is
+   * atomically moved into place, so a crash mid-write never leaves a truncated
+   * save behind.
+   */
+  @Override
+  public boolean writeSnapshot(ChunkUnlockData.SaveSnapshot snapshot) {
+    if (!playerStore.writeStaged()) {
+      return false;
+    }
+
+    try {
+      CompoundTag nbt = new CompoundTag();
+      nbt.putInt("DataVersion", DATA_VERSION);
+      nbt.putString("Mode", snapshot.mode());
+
+      ListTag starterItemsList = new ListTag();
+      for (UUID playerId : snapshot.starterItems()) {
+        starterItemsList.add(StringTag.valueOf(playerId.toString()));
+      }
+      nbt.put("StarterItemsGiven", starterItemsList);
+      nbt.putBoolean("BarriersEnabled", snapshot.barriersEnabled());
+      nbt.putLong("JournalGeneration", snapshot.journalGeneration());
+
+      // Write global unlocked chunks (v6 format: one sorted, delta-encoded long
+      // array), unless the mapped chunk store keeps them in its own file
+      if (snapshot.packedChunks() != null) {
+        nbt.putLongArray("GlobalUnlockedChunks", ChunkUnlockData.encodePacked(snapshot.packedChunks()));
+      }
+
+      Files.createDirectories(dataFile.getParent());
+      Path tempFile = dataFile.resolveSibling(FILE_NAME + ".tmp");
+      NbtIo.writeCompressed(nbt, tempFile);
+      Files.move(tempFile, dataFile, StandardCopyOption.REPLACE_EXISTING);
+
+      // Older journals are now contained in the snapshot
+      journal.deleteBefore(snapshot.journalGeneration());
+      if (bitmapImported && snapshot.packedChunks() != null) {
+        Files.deleteIfExists(bitmapFile);
+        bitmapImported = false;
+      }
+      LOGGER.debug("Saved chunk unlock data: {} players, {} global chunks", snapshot.playerCount(),
+          snapshot.packedChunks() != null ? snapshot.packedChunks().length : "mapped");
+      return true;
+
+    } catch (IOException e) {
+      LOGGER.error("Failed to save chunk unlock data", e);
+      return false;
+    }
+  }
+
+  @Override
+  public void close() {
+    // Every file is closed after each write
+  }
+}
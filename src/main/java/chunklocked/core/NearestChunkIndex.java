@@ -0,0 +1,212 @@
+package chunklocked.core;
+
+import net.minecraft.world.level.ChunkPos;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.PrimitiveIterator;
+
+/**
+ * Finds the unlocked chunk nearest to a position, at any distance.
+ * <p>
+ * Chunks are bucketed into cells of {@value #CELL_SIZE}x{@value #CELL_SIZE}
+ * chunks. A query visits rings of cells around the origin, nearest first, and
+ * stops as soon as no unvisited cell can hold a closer chunk. When the rings
+ * would cover more cells than are occupied (a lone area far away), the
+ * remaining occupied cells are checked directly instead, so a query never
+ * costs more than one pass over the cells plus the chunks of the cells that
+ * could win.
+ * <p>
+ * Distance is Euclidean in chunk coordinates; ties go to the smaller packed
+ * position, so results are deterministic. Owned by {@link ChunkUnlockData},
+ * which updates it on every change. Not thread-safe.
+ */
+public final class NearestChunkIndex {
+
+  private static final int CELL_SHIFT = 4;
+
+  /**
+   * Width of a cell, in chunks.
+   */
+  public static final int CELL_SIZE = 1 << CELL_SHIFT;
+
+  private final Map<Long, LongChunkSet> cells = new HashMap<>();
+  private int size;
+
+  // ========== UPDATES ==========
+
+  /**
+   * Adds an unlocked chunk.
+   *
+   * @param packedPos The packed chunk position
+   */
+  public void add(long packedPos) {
+    if (cells.computeIfAbsent(cellOf(packedPos), key -> new LongChunkSet()).add(packedPos)) {
+      size++;
+    }
+  }
+
+  /**
+   * Removes a chunk that was locked. Empty cells are dropped.
+   *
+   * @param packedPos The packed chunk position
+   */
+  public void remove(long packedPos) {
+    long cell = cellOf(packedPos);
+    LongChunkSet chunks = cells.get(cell);
+    if (chunks != null && chunks.remove(packedPos)) {
+      size--;
+      if (chunks.isEmpty()) {
+        cells.remove(cell);
+      }
+    }
+  }
+
+  /**
+   * Replaces the indexed chunks with the contents of a chunk store.
+   *
+   * @param unlocked The unlocked chunks
+   */
+  public void rebuild(ChunkStore unlocked) {
+    clear();
+    unlocked.forEach(this::add);
+  }
+
+  /**
+   * Removes all chunks.
+   */
+  public void clear() {
+    cells.clear();
+    size = 0;
+  }
+
+  /**
+   * @return The number of indexed chunks
+   */
+  public int size() {
+    return size;
+  }
+
+  // ========== QUERIES ==========
+
+  /**
+   * Finds the indexed chunk nearest to a position. The position itself counts
+   * if it is indexed.
+   *
+   * @param x The chunk X coordinate to search from
+   * @param z The chunk Z coordinate to search from
+   * @return The packed position of the nearest chunk, or empty if the index is
+   *         empty
+   */
+  public OptionalLong findNearest(int x, int z) {
+    if (size == 0) {
+      return OptionalLong.empty();
+    }
+    Search search = new Search(x, z);
+    int originX = x >> CELL_SHIFT;
+    int originZ = z >> CELL_SHIFT;
+
+    for (int ring = 0;; ring++) {
+      // Any chunk in this ring or beyond is at least this far along one axis
+      long reach = ring == 0 ? 0 : (long) (ring - 1) * CELL_SIZE + 1;
+      if (reach * reach > search.bestDistance) {
+        break;
+      }
+      long ringCells = ring == 0 ? 1 : 8L * ring;
+      if (ringCells > cells.size()) {
+        scanRemainingCells(search, originX, originZ, ring);
+        break;
+      }
+      if (ring == 0) {
+        scanCell(search, originX, originZ);
+        continue;
+      }
+      for (int d = -ring; d <= ring; d++) {
+        scanCell(search, originX + d, originZ - ring);
+        scanCell(search, originX + d, originZ + ring);
+      }
+      for (int d = -ring + 1; d < ring; d++) {
+        scanCell(search, originX - ring, originZ + d);
+        scanCell(search, originX + ring, originZ + d);
+      }
+    }
+    return OptionalLong.of(search.best);
+  }
+
+  /**
+   * Checks every occupied cell at least {@code fromRing} rings from the
+   * origin cell that could still hold a closer chunk.
+   */
+  private void scanRemainingCells(Search search, int originX, int originZ, int fromRing) {
+    for (Map.Entry<Long, LongChunkSet> entry : cells.entrySet()) {
+      int cellX = ChunkPos.getX(entry.getKey());
+      int cellZ = ChunkPos.getZ(entry.getKey());
+      int ring = Math.max(Math.abs(cellX - originX), Math.abs(cellZ - originZ));
+      if (ring >= fromRing) {
+        scan(search, cellX, cellZ, entry.getValue());
+      }
+    }
+  }
+
+  private void scanCell(Search search, int cellX, int cellZ) {
+    LongChunkSet chunks = cells.get(ChunkPos.asLong(cellX, cellZ));
+    if (chunks != null) {
+      scan(search, cellX, cellZ, chunks);
+    }
+  }
+
+  private static void scan(Search search, int cellX, int cellZ, LongChunkSet chunks) {
+    // Skip the cell if even its closest point cannot beat the best so far
+    long dx = axisGap(search.x, cellX);
+    long dz = axisGap(search.z, cellZ);
+    if (dx * dx + dz * dz > search.bestDistance) {
+      return;
+    }
+    PrimitiveIterator.OfLong it = chunks.longIterator();
+    while (it.hasNext()) {
+      search.offer(it.nextLong());
+    }
+  }
+
+  /**
+   * Distance along one axis from a coordinate to the nearest chunk of a cell.
+   */
+  private static long axisGap(int coordinate, int cell) {
+    long min = (long) cell << CELL_SHIFT;
+    long max = min + CELL_SIZE - 1;
+    if (coordinate < min) {
+      return min - coordinate;
+    }
+    return coordinate > max ? coordinate - max : 0;
+  }
+
+  private static long cellOf(long packedPos) {
+    return ChunkPos.asLong(ChunkPos.getX(packedPos) >> CELL_SHIFT, ChunkPos.getZ(packedPos) >> CELL_SHIFT);
+  }
+
+  /**
+   * The best candidate of one query.
+   */
+  private static final class Search {
+    final int x;
+    final int z;
+    long best;
+    long bestDistance = Long.MAX_VALUE;
+
+    Search(int x, int z) {
+      this.x = x;
+      this.z = z;
+    }
+
+    void offer(long packedPos) {
+      long dx = ChunkPos.getX(packedPos) - (long) x;
+      long dz = ChunkPos.getZ(packedPos) - (long) z;
+      long distance = dx * dx + dz * dz;
+      if (distance < bestDistance || (distance == bestDistance && packedPos < best)) {
+        best = packedPos;
+        bestDistance = distance;
+      }
+    }
+  }
+}
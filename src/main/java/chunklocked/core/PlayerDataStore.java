@@ -0,0 +1,387 @@
+package chunklocked.core;
+
+import chunklocked.advancement.AdvancementIdTable;
+import chunklocked.advancement.PlayerProgressionData;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtAccounter;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.StringTag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Per-player progression files, one per UUID under
+ * {@code <world>/chunklocked_players/}.
+ * <p>
+ * Keeping each player in their own small file means the main save no longer
+ * grows with every player who ever joined, and a player's data only has to be
+ * in memory while they are online (plus a small cache of recent players).
+ * <p>
+ * Writes are two-step: the server thread {@link #stage stages} an encoded
+ * compound, and the I/O thread later {@link #writeStaged() writes} everything
+ * staged. Reads check the staged compounds first, so a player who leaves and
+ * rejoins before their file is written still gets their latest data. Staged
+ * compounds stay staged until a write succeeds, so failed writes are retried.
+ * <p>
+ * Rewarded advancements are stored as a bitset per player. The bit positions
+ * refer to a per-world dictionary of advancement identifiers
+ * ({@code advancements.nbt} in the same directory), so each identifier is
+ * written once rather than once per player. The dictionary is append-only:
+ * an identifier keeps its position forever, so every player file stays valid
+ * as it grows. On load the positions are remapped to the in-memory
+ * {@link AdvancementIdTable}.
+ */
+public class PlayerDataStore {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger("chunk-locked");
+
+  /**
+   * Name of the directory (inside the world folder) holding the player files.
+   */
+  public static final String DIRECTORY_NAME = "chunklocked_players";
+
+  private static final String DICTIONARY_FILE = "advancements.nbt";
+
+  /**
+   * Player file format: v1 stored advancement IDs as strings, v2 stores a
+   * bitset over the world dictionary.
+   */
+  private static final int FORMAT_VERSION = 2;
+
+  private final Path directory;
+  private final AdvancementIdTable idTable;
+
+  /**
+   * The world dictionary, in file order. Null until first used. Only touched
+   * on the server thread.
+   */
+  private List<String> dictionary;
+  private int[] fileToTable = new int[0];
+  private int[] tableToFile = new int[0];
+
+  /**
+   * Copy of the dictionary waiting to be written because it grew.
+   */
+  private final AtomicReference<List<String>> stagedDictionary = new AtomicReference<>();
+
+  /**
+   * Encoded player data waiting to be written. Filled on the server thread,
+   * drained on the I/O thread.
+   */
+  private final Map<UUID, CompoundTag> staged = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a store for the given world directory.
+   *
+   * @param worldDir The world directory
+   */
+  public PlayerDataStore(Path worldDir) {
+    this(worldDir, AdvancementIdTable.shared());
+  }
+
+  /**
+   * Creates a store for the given world directory and advancement table.
+   *
+   * @param worldDir The world directory
+   * @param idTable  The in-memory advancement table to decode into
+   */
+  public PlayerDataStore(Path worldDir, AdvancementIdTable idTable) {
+    this.directory = worldDir.resolve(DIRECTORY_NAME);
+    this.idTable = idTable;
+  }
+
+  /**
+   * Gets the file path for a player.
+   *
+   * @param playerId The player's UUID
+   * @return The player's file path
+   */
+  public Path fileFor(UUID playerId) {
+    return directory.resolve(playerId + ".nbt");
+  }
+
+  /**
+   * Reads a player's data, preferring staged (not yet written) data.
+   *
+   * @param playerId The player's UUID
+   * @return The player's data, or empty if the player has never been saved
+   */
+  public Optional<PlayerProgressionData> read(UUID playerId) {
+    CompoundTag nbt = staged.get(playerId);
+    if (nbt == null) {
+      Path file = fileFor(playerId);
+      if (!Files.exists(file)) {
+        return Optional.empty();
+      }
+      try {
+        nbt = NbtIo.readCompressed(file, NbtAccounter.unlimitedHeap());
+      } catch (IOException e) {
+        LOGGER.error("Failed to load progression data for player {}", playerId, e);
+        return Optional.empty();
+      }
+    }
+    return Optional.of(decodeFile(nbt));
+  }
+
+  /**
+   * Stages a player's current data for the next {@link #writeStaged()}.
+   * Must be called on the server thread.
+   *
+   * @param playerId The player's UUID
+   * @param data     The player's progression data
+   */
+  public void stage(UUID playerId, PlayerProgressionData data) {
+    staged.put(playerId, encode(data));
+  }
+
+  /**
+   * Checks whether any player data is waiting to be written.
+   *
+   * @return true if there are staged players
+   */
+  public boolean hasStaged() {
+    return !staged.isEmpty() || stagedDictionary.get() != null;
+  }
+
+  /**
+   * Checks whether a player's data is waiting to be written.
+   *
+   * @param playerId The player's UUID
+   * @return true if the player is staged
+   */
+  public boolean isStaged(UUID playerId) {
+    return staged.containsKey(playerId);
+  }
+
+  /**
+   * Writes every staged player to disk.
+   * <p>
+   * Safe to call from a background thread. Each file is written to a temporary
+   * file and moved into place. A player is only unstaged if no newer data was
+   * staged while the write was running.
+   *
+   * @return true if every staged player was written
+   */
+  public boolean writeStaged() {
+    // Copy the players before reading the dictionary: stage() publishes a
+    // grown dictionary before the player that needs it, so the dictionary
+    // read below always covers every player in the copy
+    Map<UUID, CompoundTag> toWrite = new HashMap<>(staged);
+
+    // The dictionary goes first: player files may use its newest entries
+    List<String> newDictionary = stagedDictionary.get();
+    if (newDictionary != null) {
+      try {
+        writeDictionary(newDictionary);
+        stagedDictionary.compareAndSet(newDictionary, null);
+      } catch (IOException e) {
+        LOGGER.error("Failed to save advancement dictionary", e);
+        return false;
+      }
+    }
+
+    boolean success = true;
+    for (Map.Entry<UUID, CompoundTag> entry : toWrite.entrySet()) {
+      UUID playerId = entry.getKey();
+      try {
+        Files.createDirectories(directory);
+        Path file = fileFor(playerId);
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        NbtIo.writeCompressed(entry.getValue(), tempFile);
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        staged.remove(playerId, entry.getValue());
+      } catch (IOException e) {
+        LOGGER.error("Failed to save progression data for player {}", playerId, e);
+        success = false;
+      }
+    }
+    return success;
+  }
+
+  /**
+   * Encodes progression data into the v2 player file layout.
+   * <p>
+   * Must be called on the server thread. Advancements not yet in the world
+   * dictionary are appended to it, and the grown dictionary is staged.
+   *
+   * @param data The progression data
+   * @return The encoded compound
+   */
+  public CompoundTag encode(PlayerProgressionData data) {
+    ensureDictionaryLoaded();
+
+    CompoundTag playerNbt = new CompoundTag();
+    playerNbt.putInt("DataVersion", FORMAT_VERSION);
+
+    // Write credits
+    playerNbt.putInt("Credits", data.getAvailableCredits());
+
+    // Write total advancements
+    playerNbt.putInt("TotalAdvancements", data.getTotalAdvancementsCompleted());
+
+    // Write rewarded advancements as a bitset over the world dictionary
+    int dictionarySize = dictionary.size();
+    BitSet tableBits = data.getRewardedAdvancementBits();
+    BitSet fileBits = new BitSet(dictionarySize);
+    for (int tableIndex = tableBits.nextSetBit(0); tableIndex >= 0;
+        tableIndex = tableBits.nextSetBit(tableIndex + 1)) {
+      fileBits.set(toFileIndex(tableIndex));
+    }
+    playerNbt.putLongArray("RewardedBits", fileBits.toLongArray());
+
+    if (dictionary.size() > dictionarySize) {
+      stagedDictionary.set(List.copyOf(dictionary));
+    }
+    return playerNbt;
+  }
+
+  /**
+   * Decodes a player file, either v2 (bitset) or v1 (string list).
+   * The result has no unsaved changes.
+   *
+   * @param playerNbt The encoded compound
+   * @return The decoded progression data
+   */
+  public PlayerProgressionData decodeFile(CompoundTag playerNbt) {
+    Optional<long[]> bits = playerNbt.getLongArray("RewardedBits");
+    if (bits.isEmpty()) {
+      return decode(playerNbt, idTable);
+    }
+
+    ensureDictionaryLoaded();
+    BitSet fileBits = BitSet.valueOf(bits.get());
+    BitSet tableBits = new BitSet();
+    for (int fileIndex = fileBits.nextSetBit(0); fileIndex >= 0;
+        fileIndex = fileBits.nextSetBit(fileIndex + 1)) {
+      if (fileIndex < fileToTable.length) {
+        tableBits.set(fileToTable[fileIndex]);
+      } else {
+        LOGGER.warn("Ignoring advancement #{} missing from the advancement dictionary", fileIndex);
+      }
+    }
+
+    PlayerProgressionData progressionData = new PlayerProgressionData(idTable);
+    progressionData.setAvailableCredits(Math.max(0, playerNbt.getInt("Credits").orElse(0)));
+    progressionData.setTotalAdvancementsCompleted(Math.max(0, playerNbt.getInt("TotalAdvancements").orElse(0)));
+    progressionData.addRewardedAdvancementBits(tableBits);
+    progressionData.markSaved();
+    return progressionData;
+  }
+
+  /**
+   * Decodes a pre-v7 "Players" entry or a v1 player file, which store
+   * advancement IDs as a list of strings. The result has no unsaved changes.
+   *
+   * @param playerNbt The encoded compound
+   * @param idTable   The advancement table to decode into
+   * @return The decoded progression data
+   */
+  public static PlayerProgressionData decode(CompoundTag playerNbt, AdvancementIdTable idTable) {
+    // Load credits and total advancements (validate >= 0)
+    int credits = Math.max(0, playerNbt.getInt("Credits").orElse(0));
+    int totalAdvancements = Math.max(0, playerNbt.getInt("TotalAdvancements").orElse(0));
+
+    PlayerProgressionData progressionData = new PlayerProgressionData(idTable);
+    progressionData.setAvailableCredits(credits);
+
+    // Load rewarded advancements
+    ListTag rewardedList = playerNbt.getList("RewardedAdvancements").orElse(new ListTag());
+    for (int i = 0; i < rewardedList.size(); i++) {
+      String advancementId = rewardedList.getString(i).orElse("");
+      if (!advancementId.isEmpty()) {
+        progressionData.markAdvancementRewarded(advancementId);
+      }
+    }
+
+    // Correct the total since markAdvancementRewarded increments it
+    progressionData.setTotalAdvancementsCompleted(totalAdvancements);
+    progressionData.markSaved();
+    return progressionData;
+  }
+
+  // ========== ADVANCEMENT DICTIONARY ==========
+
+  private void ensureDictionaryLoaded() {
+    if (dictionary != null) {
+      return;
+    }
+    dictionary = new ArrayList<>();
+
+    Path file = directory.resolve(DICTIONARY_FILE);
+    if (Files.exists(file)) {
+      try {
+        CompoundTag nbt = NbtIo.readCompressed(file, NbtAccounter.unlimitedHeap());
+        ListTag names = nbt.getList("Advancements").orElse(new ListTag());
+        for (int i = 0; i < names.size(); i++) {
+          // Keep positions even for unreadable entries
+          appendLoadedEntry(names.getString(i).orElse(""));
+        }
+        LOGGER.info("Loaded advancement dictionary with {} entries", dictionary.size());
+      } catch (IOException e) {
+        LOGGER.error("Failed to load advancement dictionary", e);
+      }
+    }
+  }
+
+  private void appendLoadedEntry(String advancementId) {
+    int fileIndex = dictionary.size();
+    dictionary.add(advancementId);
+    int tableIndex = idTable.intern(advancementId);
+    link(fileIndex, tableIndex);
+  }
+
+  private int toFileIndex(int tableIndex) {
+    if (tableIndex < tableToFile.length && tableToFile[tableIndex] >= 0) {
+      return tableToFile[tableIndex];
+    }
+    int fileIndex = dictionary.size();
+    dictionary.add(idTable.nameOf(tableIndex));
+    link(fileIndex, tableIndex);
+    return fileIndex;
+  }
+
+  private void link(int fileIndex, int tableIndex) {
+    if (fileIndex >= fileToTable.length) {
+      fileToTable = Arrays.copyOf(fileToTable, Math.max(fileIndex + 1, fileToTable.length * 2));
+    }
+    fileToTable[fileIndex] = tableIndex;
+
+    if (tableIndex >= tableToFile.length) {
+      int oldLength = tableToFile.length;
+      tableToFile = Arrays.copyOf(tableToFile, Math.max(tableIndex + 1, oldLength * 2));
+      Arrays.fill(tableToFile, oldLength, tableToFile.length, -1);
+    }
+    tableToFile[tableIndex] = fileIndex;
+  }
+
+  private void writeDictionary(List<String> names) throws IOException {
+    CompoundTag nbt = new CompoundTag();
+    ListTag list = new ListTag();
+    for (String name : names) {
+      list.add(StringTag.valueOf(name));
+    }
+    nbt.put("Advancements", list);
+
+    Files.createDirectories(directory);
+    Path file = directory.resolve(DICTIONARY_FILE);
+    Path tempFile = file.resolveSibling(DICTIONARY_FILE + ".tmp");
+    NbtIo.writeCompressed(nbt, tempFile);
+    Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+  }
+}
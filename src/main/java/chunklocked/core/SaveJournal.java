@@ -0,0 +1,396 @@
+package chunklocked.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Append-only write-ahead journal for {@link ChunkUnlockData}.
+ * <p>
+ * Every change (chunk unlocked/locked, player credits, advancement rewarded,
+ * starter items given, barrier toggle, mode) is written as a small binary
+ * record. Durable changes therefore cost O(1) I/O no matter how large the
+ * world is. The full NBT snapshot is only rewritten during compaction.
+ * <p>
+ * Journals are split into generations, one file per generation:
+ * {@code chunklocked_data.<generation>.journal}. The snapshot stores the
+ * generation of the first journal it does NOT contain. On load, the snapshot
+ * is read first and every journal with a generation at or above that number
+ * is replayed in order. Compaction starts a new generation, writes a snapshot
+ * that covers everything before it, and then deletes the older journal files.
+ * A crash at any point leaves a snapshot plus journals that replay to the
+ * latest durable state.
+ * <p>
+ * A record that was only partly written when the server crashed is ignored,
+ * along with anything after it in the same file.
+ */
+public class SaveJournal {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger("chunk-locked");
+
+  private static final String FILE_PREFIX = "chunklocked_data.";
+  private static final String FILE_SUFFIX = ".journal";
+
+  /**
+   * File header magic ("CLJL") followed by the format version and generation.
+   */
+  private static final int MAGIC = 0x434C4A4C;
+  private static final int FORMAT_VERSION = 1;
+
+  // ========== RECORD TYPES ==========
+
+  /** Payload: packed chunk position (long). */
+  public static final byte CHUNK_UNLOCKED = 1;
+  /** Payload: packed chunk position (long). */
+  public static final byte CHUNK_LOCKED = 2;
+  /** No payload. */
+  public static final byte CHUNKS_CLEARED = 3;
+  /** Payload: player UUID, available credits (int), total advancements (int). */
+  public static final byte PLAYER_STATE = 4;
+  /** Payload: player UUID, advancement ID (UTF). */
+  public static final byte ADVANCEMENT_REWARDED = 5;
+  /** Payload: player UUID. */
+  public static final byte STARTER_ITEMS_GIVEN = 6;
+  /** Payload: enabled (boolean). */
+  public static final byte BARRIERS_ENABLED = 7;
+  /** Payload: mode name (UTF). */
+  public static final byte MODE = 8;
+
+  private final Path directory;
+
+  /**
+   * Creates a journal that stores its files in the given world directory.
+   *
+   * @param directory The world directory (same as the snapshot)
+   */
+  public SaveJournal(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Gets the path of the journal file for a generation.
+   *
+   * @param generation The journal generation
+   * @return The journal file path
+   */
+  public Path fileFor(long generation) {
+    return directory.resolve(FILE_PREFIX + generation + FILE_SUFFIX);
+  }
+
+  /**
+   * Lists the generations of all journal files on disk, oldest first.
+   *
+   * @return The sorted generations (empty if there are none)
+   */
+  public List<Long> listGenerations() {
+    List<Long> generations = new ArrayList<>();
+    if (!Files.isDirectory(directory)) {
+      return generations;
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      files.forEach(file -> {
+        String name = file.getFileName().toString();
+        if (name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX)) {
+          String number = name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length());
+          try {
+            generations.add(Long.parseLong(number));
+          } catch (NumberFormatException e) {
+            // Not one of ours (e.g. chunklocked_data.nbt.journal)
+          }
+        }
+      });
+    } catch (IOException e) {
+      LOGGER.error("Failed to list chunk unlock journals in {}", directory, e);
+    }
+    generations.sort(null);
+    return generations;
+  }
+
+  /**
+   * Appends an encoded batch of records to a generation's journal.
+   * <p>
+   * Creates the file (with header) if needed. The batch is written with a
+   * single call and forced to disk before returning.
+   *
+   * @param generation The journal generation to append to
+   * @param records    Encoded records, as produced by {@link RecordBuffer}
+   * @throws IOException if the write fails
+   */
+  public void append(long generation, byte[] records) throws IOException {
+    Path file = fileFor(generation);
+    Files.createDirectories(directory);
+
+    boolean newFile = !Files.exists(file);
+    try (OutputStream out = Files.newOutputStream(file, StandardOpenOption.CREATE,
+        StandardOpenOption.APPEND, StandardOpenOption.SYNC)) {
+      if (newFile) {
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(MAGIC);
+        header.writeInt(FORMAT_VERSION);
+        header.writeLong(generation);
+      }
+      out.write(records);
+    }
+  }
+
+  /**
+   * Replays every journal with a generation at or above {@code fromGeneration}.
+   *
+   * @param fromGeneration The first generation not contained in the snapshot
+   * @param handler        Receives each record
+   * @return The number of records replayed
+   */
+  public int replay(long fromGeneration, RecordHandler handler) {
+    int replayed = 0;
+    for (long generation : listGenerations()) {
+      if (generation >= fromGeneration) {
+        replayed += replayFile(generation, handler);
+      }
+    }
+    return replayed;
+  }
+
+  /**
+   * Deletes every journal file older than the given generation.
+   * Called after a snapshot containing those generations has been written.
+   *
+   * @param generation The snapshot's journal generation
+   */
+  public void deleteBefore(long generation) {
+    for (long older : listGenerations()) {
+      if (older >= generation) {
+        break;
+      }
+      try {
+        Files.deleteIfExists(fileFor(older));
+      } catch (IOException e) {
+        LOGGER.warn("Failed to delete compacted journal {}", fileFor(older), e);
+      }
+    }
+  }
+
+  private int replayFile(long generation, RecordHandler handler) {
+    Path file = fileFor(generation);
+    int count = 0;
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || in.readLong() != generation) {
+        LOGGER.warn("Ignoring journal {} with an unrecognized header", file);
+        return 0;
+      }
+
+      while (true) {
+        int type = in.read();
+        if (type < 0) {
+          break; // Clean end of file
+        }
+        readRecord((byte) type, in, handler);
+        count++;
+      }
+    } catch (EOFException e) {
+      LOGGER.warn("Journal {} ends with a partial record (server crashed mid-write?), "
+          + "ignoring it after {} records", file, count);
+    } catch (IOException e) {
+      LOGGER.error("Failed to replay journal {} after {} records", file, count, e);
+    }
+    return count;
+  }
+
+  /**
+   * Decodes a batch of records produced by {@link RecordBuffer#drain()}.
+   * <p>
+   * Lets storage backends that do not keep a journal file apply a batch as
+   * individual point updates.
+   *
+   * @param records Encoded records
+   * @param handler Receives each record
+   * @return The number of records decoded
+   * @throws IOException if the batch is malformed
+   */
+  public static int decode(byte[] records, RecordHandler handler) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(records));
+    int count = 0;
+    int type;
+    while ((type = in.read()) >= 0) {
+      readRecord((byte) type, in, handler);
+      count++;
+    }
+    return count;
+  }
+
+  private static void readRecord(byte type, DataInput in, RecordHandler handler) throws IOException {
+    // Read the whole payload before dispatching so a truncated record is never
+    // half-applied
+    switch (type) {
+      case CHUNK_UNLOCKED -> handler.chunkUnlocked(in.readLong());
+      case CHUNK_LOCKED -> handler.chunkLocked(in.readLong());
+      case CHUNKS_CLEARED -> handler.chunksCleared();
+      case PLAYER_STATE -> {
+        UUID player = readUuid(in);
+        int credits = in.readInt();
+        int total = in.readInt();
+        handler.playerState(player, credits, total);
+      }
+      case ADVANCEMENT_REWARDED -> {
+        UUID player = readUuid(in);
+        String advancementId = in.readUTF();
+        handler.advancementRewarded(player, advancementId);
+      }
+      case STARTER_ITEMS_GIVEN -> handler.starterItemsGiven(readUuid(in));
+      case BARRIERS_ENABLED -> handler.barriersEnabled(in.readBoolean());
+      case MODE -> handler.mode(in.readUTF());
+      default -> throw new IOException("Unknown journal record type " + type);
+    }
+  }
+
+  private static UUID readUuid(DataInput in) throws IOException {
+    long most = in.readLong();
+    long least = in.readLong();
+    return new UUID(most, least);
+  }
+
+  /**
+   * Receives records during {@link #replay(long, RecordHandler)} and
+   * {@link #decode(byte[], RecordHandler)}. Storage backends also load their
+   * snapshot through this interface.
+   */
+  public interface RecordHandler {
+    void chunkUnlocked(long packedPos);
+
+    void chunkLocked(long packedPos);
+
+    void chunksCleared();
+
+    void playerState(UUID player, int credits, int totalAdvancements);
+
+    void advancementRewarded(UUID player, String advancementId);
+
+    void starterItemsGiven(UUID player);
+
+    void barriersEnabled(boolean enabled);
+
+    void mode(String modeName);
+  }
+
+  /**
+   * In-memory buffer of encoded records waiting to be appended.
+   * <p>
+   * Filled on the server thread as changes happen and drained once per save
+   * into a single {@link #append(long, byte[])} call.
+   */
+  public static class RecordBuffer {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(bytes);
+    private int recordCount = 0;
+
+    public void chunkUnlocked(long packedPos) {
+      write(CHUNK_UNLOCKED, o -> o.writeLong(packedPos));
+    }
+
+    public void chunkLocked(long packedPos) {
+      write(CHUNK_LOCKED, o -> o.writeLong(packedPos));
+    }
+
+    public void chunksCleared() {
+      write(CHUNKS_CLEARED, o -> {
+      });
+    }
+
+    public void playerState(UUID player, int credits, int totalAdvancements) {
+      write(PLAYER_STATE, o -> {
+        writeUuid(o, player);
+        o.writeInt(credits);
+        o.writeInt(totalAdvancements);
+      });
+    }
+
+    public void advancementRewarded(UUID player, String advancementId) {
+      write(ADVANCEMENT_REWARDED, o -> {
+        writeUuid(o, player);
+        o.writeUTF(advancementId);
+      });
+    }
+
+    public void starterItemsGiven(UUID player) {
+      write(STARTER_ITEMS_GIVEN, o -> writeUuid(o, player));
+    }
+
+    public void barriersEnabled(boolean enabled) {
+      write(BARRIERS_ENABLED, o -> o.writeBoolean(enabled));
+    }
+
+    public void mode(String modeName) {
+      write(MODE, o -> o.writeUTF(modeName));
+    }
+
+    /**
+     * @return true if no records are buffered
+     */
+    public boolean isEmpty() {
+      return recordCount == 0;
+    }
+
+    /**
+     * @return The number of buffered records
+     */
+    public int size() {
+      return recordCount;
+    }
+
+    /**
+     * Returns the buffered records and empties the buffer.
+     *
+     * @return The encoded records
+     */
+    public byte[] drain() {
+      byte[] drained = bytes.toByteArray();
+      clear();
+      return drained;
+    }
+
+    /**
+     * Discards all buffered records.
+     */
+    public void clear() {
+      bytes.reset();
+      recordCount = 0;
+    }
+
+    private void write(byte type, PayloadWriter payload) {
+      try {
+        out.writeByte(type);
+        payload.write(out);
+        recordCount++;
+      } catch (IOException e) {
+        // ByteArrayOutputStream never throws
+        throw new IllegalStateException(e);
+      }
+    }
+
+    private static void writeUuid(DataOutput out, UUID uuid) throws IOException {
+      out.writeLong(uuid.getMostSignificantBits());
+      out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    @FunctionalInterface
+    private interface PayloadWriter {
+      void write(DataOutput out) throws IOException;
+    }
+  }
+}
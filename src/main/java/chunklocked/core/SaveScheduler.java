@@ -0,0 +1,261 @@
+package chunklocked.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces save requests for {@link ChunkUnlockData} and writes them on a
+ * background I/O thread.
+ * <p>
+ * Gameplay events (advancements, unlocks, credit changes, starter items) only
+ * call {@link #requestSave()}, which sets a flag. Once per server tick,
+ * {@link #tick(long)} checks the flag and, if enough time has passed since the
+ * last write and no write is still running, drains the changed records on the
+ * server thread and hands them to the I/O thread, which appends them to the
+ * {@link SaveJournal}. A burst of changes within the save interval therefore
+ * produces a single small append.
+ * <p>
+ * The full snapshot is only rewritten (compacting the journal) when the journal
+ * has grown past {@link #COMPACTION_THRESHOLD_BYTES}, when
+ * {@link #COMPACTION_INTERVAL_TICKS} have passed since the last compaction, or
+ * after a failed write. Per-player files staged by {@link ChunkUnlockData}
+ * (for example when a player leaves) are written on the same thread, and
+ * offline players beyond the cache limit are evicted after each save.
+ * <p>
+ * {@link #shutdown()} waits for any in-flight write and then saves
+ * synchronously, so nothing is lost on {@code SERVER_STOPPING}.
+ * <p>
+ * {@link #requestSave()}, {@link #tick(long)}, {@link #flush()} and
+ * {@link #shutdown()} must be called on the server thread.
+ */
+public class SaveScheduler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger("chunk-locked");
+
+  /**
+   * Minimum number of ticks between background writes.
+   * 20 ticks = 1 second, so bursts within a second share one write.
+   */
+  public static final int DEFAULT_SAVE_INTERVAL_TICKS = 20;
+
+  /**
+   * Journal size that triggers a compaction into the snapshot (1 MiB).
+   */
+  public static final long COMPACTION_THRESHOLD_BYTES = 1024 * 1024;
+
+  /**
+   * Ticks between compactions while the journal is non-empty.
+   * 6000 ticks = 5 minutes.
+   */
+  public static final int COMPACTION_INTERVAL_TICKS = 6000;
+
+  private final ChunkUnlockData data;
+  private final int saveIntervalTicks;
+  private final ExecutorService ioExecutor;
+
+  private boolean savePending = false;
+  private long lastSaveTick = Long.MIN_VALUE / 2;
+  private long lastCompactionTick = -1;
+  private long journalBytesSinceCompaction = 0;
+  private boolean compactionRequested = false;
+  private Future<Boolean> inFlight;
+  private int writesSubmitted = 0;
+  private int compactions = 0;
+
+  /**
+   * Creates a save scheduler with the default save interval.
+   *
+   * @param data The data to save
+   */
+  public SaveScheduler(ChunkUnlockData data) {
+    this(data, DEFAULT_SAVE_INTERVAL_TICKS);
+  }
+
+  /**
+   * Creates a save scheduler.
+   *
+   * @param data              The data to save
+   * @param saveIntervalTicks Minimum ticks between background writes (>= 0)
+   * @throws IllegalArgumentException if saveIntervalTicks is negative
+   */
+  public SaveScheduler(ChunkUnlockData data, int saveIntervalTicks) {
+    if (saveIntervalTicks < 0) {
+      throw new IllegalArgumentException("Save interval cannot be negative: " + saveIntervalTicks);
+    }
+    this.data = data;
+    this.saveIntervalTicks = saveIntervalTicks;
+    this.ioExecutor = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "Chunklocked-IO");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Requests that the data be saved soon.
+   * Multiple requests before the next write are merged into one.
+   */
+  public void requestSave() {
+    savePending = true;
+  }
+
+  /**
+   * Called once per server tick. Submits a background write if one is due.
+   *
+   * @param currentTick The current server tick count
+   */
+  public void tick(long currentTick) {
+    if (lastCompactionTick < 0) {
+      lastCompactionTick = currentTick;
+    }
+
+    if (inFlight != null && inFlight.isDone()) {
+      if (!completedSuccessfully(inFlight)) {
+        // Records may be missing from the journal: rewrite the full snapshot
+        compactionRequested = true;
+      }
+      inFlight = null;
+    }
+
+    boolean compactionDue = isCompactionDue(currentTick);
+    if ((!savePending && !compactionDue && !data.hasStagedPlayers()) || inFlight != null) {
+      return;
+    }
+    if (currentTick - lastSaveTick < saveIntervalTicks) {
+      return;
+    }
+
+    ChunkUnlockData.JournalBatch batch = data.drainJournal();
+    if (batch != null) {
+      journalBytesSinceCompaction += batch.records().length;
+    }
+
+    ChunkUnlockData.SaveSnapshot snapshot = null;
+    if (compactionDue || isCompactionDue(currentTick)) {
+      snapshot = data.createSnapshot();
+      journalBytesSinceCompaction = 0;
+      compactionRequested = false;
+      lastCompactionTick = currentTick;
+      compactions++;
+    }
+
+    savePending = false;
+    if (batch != null || snapshot != null || data.hasStagedPlayers()) {
+      lastSaveTick = currentTick;
+      writesSubmitted++;
+      ChunkUnlockData.SaveSnapshot compacted = snapshot;
+      inFlight = ioExecutor.submit(() -> {
+        // Append first: if a later write fails, the journal still holds the
+        // changes
+        boolean success = batch == null || data.appendJournal(batch);
+        success &= data.writePlayers();
+        if (compacted != null) {
+          success &= data.writeSnapshot(compacted);
+        }
+        return success;
+      });
+    }
+
+    // Staged players can be read back from the store, so only players with
+    // unstaged changes have to stay in memory
+    data.evictOfflinePlayers();
+  }
+
+  private boolean isCompactionDue(long currentTick) {
+    return compactionRequested
+        || journalBytesSinceCompaction >= COMPACTION_THRESHOLD_BYTES
+        || (journalBytesSinceCompaction > 0 && currentTick - lastCompactionTick >= COMPACTION_INTERVAL_TICKS);
+  }
+
+  /**
+   * Waits for any in-flight write, then saves a full snapshot synchronously if
+   * anything is still pending or the journal is non-empty.
+   */
+  public void flush() {
+    awaitPendingWrite();
+
+    if (savePending || data.isDirty() || compactionRequested || journalBytesSinceCompaction > 0) {
+      data.save();
+      savePending = false;
+      compactionRequested = false;
+      journalBytesSinceCompaction = 0;
+      compactions++;
+    }
+  }
+
+  /**
+   * Blocks until the in-flight background write (if any) has finished.
+   */
+  public void awaitPendingWrite() {
+    if (inFlight != null) {
+      if (!completedSuccessfully(inFlight)) {
+        compactionRequested = true;
+      }
+      inFlight = null;
+    }
+  }
+
+  /**
+   * Flushes pending changes and stops the I/O thread.
+   * Call on {@code SERVER_STOPPING}.
+   */
+  public void shutdown() {
+    flush();
+    ioExecutor.shutdown();
+    try {
+      if (!ioExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+        LOGGER.warn("Chunklocked I/O thread did not stop within 10 seconds");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    LOGGER.info("Save scheduler stopped after {} background writes and {} compactions",
+        writesSubmitted, compactions);
+  }
+
+  /**
+   * Checks whether a save has been requested but not yet submitted.
+   *
+   * @return true if a save is pending
+   */
+  public boolean isSavePending() {
+    return savePending;
+  }
+
+  /**
+   * Gets the number of background writes submitted so far.
+   * Useful for statistics and tests.
+   *
+   * @return The number of submitted writes
+   */
+  public int getWritesSubmitted() {
+    return writesSubmitted;
+  }
+
+  /**
+   * Gets the number of snapshot compactions so far (background and flushed).
+   *
+   * @return The number of compactions
+   */
+  public int getCompactions() {
+    return compactions;
+  }
+
+  private static boolean completedSuccessfully(Future<Boolean> write) {
+    try {
+      return Boolean.TRUE.equals(write.get());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } catch (ExecutionException e) {
+      LOGGER.error("Background save of chunk unlock data failed", e.getCause());
+      return false;
+    }
+  }
+}
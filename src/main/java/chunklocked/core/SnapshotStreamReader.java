@@ -0,0 +1,250 @@
+package chunklocked.core;
+
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.LongArrayTag;
+import net.minecraft.nbt.StreamTagVisitor;
+import net.minecraft.nbt.StringTag;
+import net.minecraft.nbt.TagType;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Reads a {@code chunklocked_data.nbt} snapshot in a single streaming pass,
+ * without building the intermediate {@link CompoundTag} tree.
+ * <p>
+ * Used with {@code NbtIo.parseCompressed(Path, StreamTagVisitor, NbtAccounter)}.
+ * Unlocked chunks are decoded straight from the packed long array into the
+ * target, and starter item UUIDs are parsed as each string arrives. Every
+ * other root entry is skipped at the byte level.
+ * <p>
+ * Only the current (v7) layout is streamed. When the reader meets a legacy
+ * layout (a "Players" compound, or chunks stored as a list of compounds) it
+ * halts and {@link #isLegacyLayout()} returns true, so the caller can fall back
+ * to the tree loader for the one-time migration.
+ */
+public class SnapshotStreamReader implements StreamTagVisitor {
+
+  private final LongConsumer chunkSink;
+  private final Consumer<UUID> starterItemsSink;
+
+  private int depth = 0;
+  private String rootKey;
+
+  private boolean legacyLayout = false;
+  private int dataVersion = 0;
+  private String mode;
+  private boolean barriersEnabled = true;
+  private long journalGeneration = 0;
+  private int chunkCount = 0;
+  private int invalidStarterItemIds = 0;
+
+  /**
+   * Creates a reader that feeds decoded values into the given sinks.
+   *
+   * @param chunkSink        Receives each unlocked chunk, packed with
+   *                         {@code ChunkPos.asLong}
+   * @param starterItemsSink Receives each player who was given starter items
+   */
+  public SnapshotStreamReader(LongConsumer chunkSink, Consumer<UUID> starterItemsSink) {
+    this.chunkSink = chunkSink;
+    this.starterItemsSink = starterItemsSink;
+  }
+
+  // ========== RESULTS ==========
+
+  /**
+   * @return true if the snapshot uses a pre-v7 layout and must be re-read with
+   *         the tree loader
+   */
+  public boolean isLegacyLayout() {
+    return legacyLayout;
+  }
+
+  public int getDataVersion() {
+    return dataVersion;
+  }
+
+  /**
+   * @return The stored mode name, or null if the snapshot has none
+   */
+  public String getMode() {
+    return mode;
+  }
+
+  public boolean areBarriersEnabled() {
+    return barriersEnabled;
+  }
+
+  public long getJournalGeneration() {
+    return journalGeneration;
+  }
+
+  public int getChunkCount() {
+    return chunkCount;
+  }
+
+  public int getInvalidStarterItemIds() {
+    return invalidStarterItemIds;
+  }
+
+  // ========== STRUCTURE ==========
+
+  @Override
+  public ValueResult visitRootEntry(TagType<?> type) {
+    if (type != CompoundTag.TYPE) {
+      return ValueResult.HALT;
+    }
+    depth = 1;
+    return ValueResult.CONTINUE;
+  }
+
+  @Override
+  public EntryResult visitEntry(TagType<?> type) {
+    // Only root entries are visited; decide once the name is known
+    return depth == 1 ? EntryResult.ENTER : EntryResult.SKIP;
+  }
+
+  @Override
+  public EntryResult visitEntry(TagType<?> type, String id) {
+    rootKey = null;
+    if (depth != 1) {
+      return EntryResult.SKIP;
+    }
+
+    switch (id) {
+      case "Players" -> {
+        // Pre-v7: players were stored in the main file
+        legacyLayout = true;
+        return EntryResult.HALT;
+      }
+      case "GlobalUnlockedChunks" -> {
+        if (type != LongArrayTag.TYPE) {
+          // v3-v5: list of {x, z} compounds
+          legacyLayout = true;
+          return EntryResult.HALT;
+        }
+      }
+      case "StarterItemsGiven" -> {
+        if (type != ListTag.TYPE) {
+          return EntryResult.SKIP;
+        }
+      }
+      case "DataVersion", "Mode", "BarriersEnabled", "JournalGeneration" -> {
+        // Primitive values, handled in visit()
+        if (type == CompoundTag.TYPE || type == ListTag.TYPE) {
+          return EntryResult.SKIP;
+        }
+      }
+      default -> {
+        return EntryResult.SKIP;
+      }
+    }
+    rootKey = id;
+    return EntryResult.ENTER;
+  }
+
+  @Override
+  public EntryResult visitElement(TagType<?> type, int index) {
+    if ("StarterItemsGiven".equals(rootKey) && type == StringTag.TYPE) {
+      return EntryResult.ENTER;
+    }
+    return EntryResult.SKIP;
+  }
+
+  @Override
+  public ValueResult visitList(TagType<?> elementType, int size) {
+    depth++;
+    return ValueResult.CONTINUE;
+  }
+
+  @Override
+  public ValueResult visitContainerEnd() {
+    depth--;
+    if (depth <= 1) {
+      rootKey = null;
+    }
+    return ValueResult.CONTINUE;
+  }
+
+  @Override
+  public ValueResult visitEnd() {
+    return ValueResult.CONTINUE;
+  }
+
+  // ========== VALUES ==========
+
+  @Override
+  public ValueResult visit(long[] value) {
+    if ("GlobalUnlockedChunks".equals(rootKey)) {
+      ChunkUnlockData.decodePacked(value, chunkSink);
+      chunkCount += value.length;
+    }
+    return ValueResult.CONTINUE;
+  }
+
+  @Override
+  public ValueResult visit(String value) {
+    if ("Mode".equals(rootKey) && depth == 1) {
+      mode = value;
+    } else if ("StarterItemsGiven".equals(rootKey) && !value.isEmpty()) {
+      try {
+        starterItemsSink.accept(UUID.fromString(value));
+      } catch (IllegalArgumentException e) {
+        invalidStarterItemIds++;
+      }
+    }
+    return ValueResult.CONTINUE;
+  }
+
+  @Override
+  public ValueResult visit(int value) {
+    if ("DataVersion".equals(rootKey)) {
+      dataVersion = value;
+    }
+    return ValueResult.CONTINUE;
+  }
+
+  @Override
+  public ValueResult visit(byte value) {
+    if ("BarriersEnabled".equals(rootKey)) {
+      barriersEnabled = value != 0;
+    }
+    return ValueResult.CONTINUE;
+  }
+
+  @Override
+  public ValueResult visit(long value) {
+    if ("JournalGeneration".equals(rootKey)) {
+      journalGeneration = value;
+    }
+    return ValueResult.CONTINUE;
+  }
+
+  @Override
+  public ValueResult visit(short value) {
+    return ValueResult.CONTINUE;
+  }
+
+  @Override
+  public ValueResult visit(float value) {
+    return ValueResult.CONTINUE;
+  }
+
+  @Override
+  public ValueResult visit(double value) {
+    return ValueResult.CONTINUE;
+  }
+
+  @Override
+  public ValueResult visit(byte[] value) {
+    return ValueResult.CONTINUE;
+  }
+
+  @Override
+  public ValueResult visit(int[] value) {
+    return ValueResult.CONTINUE;
+  }
+}
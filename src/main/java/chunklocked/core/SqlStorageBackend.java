@@ -0,0 +1,610 @@
+package chunklocked.core;
+
+import chunklocked.advancement.PlayerProgressionData;
+import org.h2.jdbcx.JdbcDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link StorageBackend} backed by an embedded H2 database
+ * ({@code chunklocked.mv.db} in the world directory).
+ * <p>
+ * Every journal record becomes an indexed point update: unlocking one chunk
+ * touches one row of {@code unlocked_chunks}, a player's credits touch one row
+ * of {@code players}. A snapshot only has to write the few small rows that
+ * are not journaled (staged players, settings, starter items) and carries no
+ * chunks (see {@link #snapshotNeedsChunks()}), so its cost does not grow with
+ * the number of unlocked chunks. Only after a batch of changes failed to apply
+ * does the next snapshot carry every chunk, and the chunk table is rewritten
+ * from it.
+ * <p>
+ * On the first start with this backend, an existing NBT save is imported in
+ * one transaction. Per-player NBT files are imported lazily: a player missing
+ * from the database is read from {@code chunklocked_players/} and stored here
+ * the next time they change.
+ * <p>
+ * Reads use their own connection so the server thread never waits for a
+ * write transaction on the I/O thread.
+ */
+public class SqlStorageBackend implements StorageBackend {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger("chunk-locked");
+
+  /**
+   * Database name in the world directory; H2 adds the {@code .mv.db} suffix.
+   */
+  public static final String DATABASE_NAME = "chunklocked";
+
+  private static final String[] SCHEMA = {
+      "CREATE TABLE IF NOT EXISTS unlocked_chunks (pos BIGINT PRIMARY KEY)",
+      "CREATE TABLE IF NOT EXISTS players (uuid UUID PRIMARY KEY, credits INT NOT NULL,"
+          + " total_advancements INT NOT NULL)",
+      "CREATE TABLE IF NOT EXISTS rewarded_advancements (uuid UUID NOT NULL, advancement VARCHAR NOT NULL,"
+          + " PRIMARY KEY (uuid, advancement))",
+      "CREATE TABLE IF NOT EXISTS starter_items (uuid UUID PRIMARY KEY)",
+      "CREATE TABLE IF NOT EXISTS settings (name VARCHAR PRIMARY KEY, setting_value VARCHAR NOT NULL)"
+  };
+
+  private static final String UNLOCK_CHUNK = "MERGE INTO unlocked_chunks KEY (pos) VALUES (?)";
+  private static final String LOCK_CHUNK = "DELETE FROM unlocked_chunks WHERE pos = ?";
+  private static final String CLEAR_CHUNKS = "DELETE FROM unlocked_chunks";
+  private static final String PLAYER_STATE = "MERGE INTO players KEY (uuid) VALUES (?, ?, ?)";
+  private static final String ADVANCEMENT_REWARDED =
+      "MERGE INTO rewarded_advancements KEY (uuid, advancement) VALUES (?, ?)";
+  private static final String STARTER_ITEMS = "MERGE INTO starter_items KEY (uuid) VALUES (?)";
+  private static final String SETTING = "MERGE INTO settings KEY (name) VALUES (?, ?)";
+
+  private static final String SETTING_MODE = "mode";
+  private static final String SETTING_BARRIERS = "barriers_enabled";
+
+  private final Path worldDir;
+  private final Path databaseFile;
+
+  /**
+   * Reads go through {@code readConnection}; writes (which
+   * {@link ChunkUnlockData} serializes) through {@code writeConnection}, with
+   * auto-commit off. Both are null until {@link #load} opens the database.
+   */
+  private Connection readConnection;
+  private Connection writeConnection;
+
+  /**
+   * Per-player NBT files left by the NBT backend, read for players not yet in
+   * the database. Null if the world never had any.
+   */
+  private PlayerDataStore legacyPlayers;
+
+  /**
+   * Players waiting to be written. Filled on the server thread, drained on
+   * the I/O thread.
+   */
+  private final Map<UUID, PlayerRow> staged = new ConcurrentHashMap<>();
+
+  /**
+   * False once a batch failed to apply: the next snapshot rewrites the chunk
+   * table from scratch.
+   */
+  private volatile boolean inSync = true;
+
+  /**
+   * Creates a backend for the given world directory. The database is opened
+   * by {@link #load}.
+   *
+   * @param worldDir The world directory
+   */
+  public SqlStorageBackend(Path worldDir) {
+    this.worldDir = worldDir;
+    this.databaseFile = worldDir.resolve(DATABASE_NAME + ".mv.db");
+  }
+
+  @Override
+  public String getName() {
+    return H2;
+  }
+
+  @Override
+  public UnlockHistory openHistory() {
+    return new UnlockHistory(worldDir.resolve(UnlockHistory.FILE_NAME), UnlockHistory.DEFAULT_MAX_VERSIONS);
+  }
+
+  // ========== LOADING ==========
+
+  /**
+   * Opens the database (importing an NBT save on first use) and feeds its
+   * contents into the target.
+   * <p>
+   * There is no journal file, so the returned generation is always 0.
+   */
+  @Override
+  public long load(SaveJournal.RecordHandler target) {
+    boolean fresh = !Files.exists(databaseFile);
+    try {
+      Files.createDirectories(worldDir);
+      open();
+    } catch (IOException | SQLException e) {
+      LOGGER.error("Failed to open chunk unlock database {}", databaseFile.toAbsolutePath(), e);
+      return 0;
+    }
+
+    if (Files.isDirectory(worldDir.resolve(PlayerDataStore.DIRECTORY_NAME))) {
+      legacyPlayers = new PlayerDataStore(worldDir);
+    }
+
+    if (fresh && Files.exists(worldDir.resolve(NbtStorageBackend.FILE_NAME))) {
+      importNbt(target);
+      return 0;
+    }
+
+    try {
+      loadTables(target);
+    } catch (SQLException e) {
+      LOGGER.error("Failed to load chunk unlock data from {}", databaseFile.toAbsolutePath(), e);
+      target.chunksCleared();
+    }
+    return 0;
+  }
+
+  private void open() throws SQLException {
+    JdbcDataSource dataSource = new JdbcDataSource();
+    dataSource.setURL("jdbc:h2:file:" + worldDir.resolve(DATABASE_NAME).toAbsolutePath());
+    writeConnection = dataSource.getConnection();
+    readConnection = dataSource.getConnection();
+    try (Statement statement = writeConnection.createStatement()) {
+      for (String sql : SCHEMA) {
+        statement.execute(sql);
+      }
+    }
+    writeConnection.setAutoCommit(false);
+    LOGGER.info("Opened chunk unlock database {}", databaseFile.toAbsolutePath());
+  }
+
+  private void loadTables(SaveJournal.RecordHandler target) throws SQLException {
+    int chunks = 0;
+    try (Statement statement = readConnection.createStatement()) {
+      try (ResultSet rows = statement.executeQuery("SELECT pos FROM unlocked_chunks")) {
+        while (rows.next()) {
+          target.chunkUnlocked(rows.getLong(1));
+          chunks++;
+        }
+      }
+      try (ResultSet rows = statement.executeQuery("SELECT uuid FROM starter_items")) {
+        while (rows.next()) {
+          target.starterItemsGiven(rows.getObject(1, UUID.class));
+        }
+      }
+      try (ResultSet rows = statement.executeQuery("SELECT name, setting_value FROM settings")) {
+        while (rows.next()) {
+          String value = rows.getString(2);
+          switch (rows.getString(1)) {
+            case SETTING_MODE -> target.mode(value);
+            case SETTING_BARRIERS -> target.barriersEnabled(Boolean.parseBoolean(value));
+            default -> LOGGER.warn("Ignoring unknown setting '{}' in chunk unlock database", rows.getString(1));
+          }
+        }
+      }
+    }
+    LOGGER.info("Loaded {} globally unlocked chunks from {}", chunks, databaseFile.getFileName());
+  }
+
+  /**
+   * Loads the NBT save through {@link NbtStorageBackend} and writes every
+   * record it produces into the database in one transaction.
+   */
+  private void importNbt(SaveJournal.RecordHandler target) {
+    LOGGER.info("Importing {} into {}", NbtStorageBackend.FILE_NAME, databaseFile.getFileName());
+    try (RecordWriter writer = new RecordWriter(writeConnection)) {
+      new NbtStorageBackend(worldDir).load(new SaveJournal.RecordHandler() {
+        @Override
+        public void chunkUnlocked(long packedPos) {
+          target.chunkUnlocked(packedPos);
+          writer.chunkUnlocked(packedPos);
+        }
+
+        @Override
+        public void chunkLocked(long packedPos) {
+          target.chunkLocked(packedPos);
+          writer.chunkLocked(packedPos);
+        }
+
+        @Override
+        public void chunksCleared() {
+          target.chunksCleared();
+          writer.chunksCleared();
+        }
+
+        @Override
+        public void playerState(UUID player, int credits, int totalAdvancements) {
+          target.playerState(player, credits, totalAdvancements);
+          writer.playerState(player, credits, totalAdvancements);
+        }
+
+        @Override
+        public void advancementRewarded(UUID player, String advancementId) {
+          target.advancementRewarded(player, advancementId);
+          writer.advancementRewarded(player, advancementId);
+        }
+
+        @Override
+        public void starterItemsGiven(UUID player) {
+          target.starterItemsGiven(player);
+          writer.starterItemsGiven(player);
+        }
+
+        @Override
+        public void barriersEnabled(boolean enabled) {
+          target.barriersEnabled(enabled);
+          writer.barriersEnabled(enabled);
+        }
+
+        @Override
+        public void mode(String modeName) {
+          target.mode(modeName);
+          writer.mode(modeName);
+        }
+      });
+      writer.commit();
+    } catch (SQLException | RecordWriteException e) {
+      // Everything was still fed to the target: the first snapshot writes it
+      LOGGER.error("Failed to import {} into the chunk unlock database", NbtStorageBackend.FILE_NAME, e);
+      inSync = false;
+    }
+  }
+
+  // ========== PLAYERS ==========
+
+  /**
+   * Reads a player, preferring staged data, then the database, then a legacy
+   * per-player NBT file.
+   */
+  @Override
+  public Optional<PlayerProgressionData> readPlayer(UUID playerId) {
+    PlayerRow stagedRow = staged.get(playerId);
+    if (stagedRow != null) {
+      return Optional.of(stagedRow.toData());
+    }
+    if (readConnection != null) {
+      try {
+        Optional<PlayerRow> row = selectPlayer(playerId);
+        if (row.isPresent()) {
+          return Optional.of(row.get().toData());
+        }
+      } catch (SQLException e) {
+        LOGGER.error("Failed to load progression data for player {}", playerId, e);
+        return Optional.empty();
+      }
+    }
+    return legacyPlayers != null ? legacyPlayers.read(playerId) : Optional.empty();
+  }
+
+  private Optional<PlayerRow> selectPlayer(UUID playerId) throws SQLException {
+    int credits;
+    int totalAdvancements;
+    try (PreparedStatement select = readConnection.prepareStatement(
+        "SELECT credits, total_advancements FROM players WHERE uuid = ?")) {
+      select.setObject(1, playerId);
+      try (ResultSet rows = select.executeQuery()) {
+        if (!rows.next()) {
+          return Optional.empty();
+        }
+        credits = rows.getInt(1);
+        totalAdvancements = rows.getInt(2);
+      }
+    }
+
+    List<String> advancements = new ArrayList<>();
+    try (PreparedStatement select = readConnection.prepareStatement(
+        "SELECT advancement FROM rewarded_advancements WHERE uuid = ?")) {
+      select.setObject(1, playerId);
+      try (ResultSet rows = select.executeQuery()) {
+        while (rows.next()) {
+          advancements.add(rows.getString(1));
+        }
+      }
+    }
+    return Optional.of(new PlayerRow(credits, totalAdvancements, advancements));
+  }
+
+  @Override
+  public void stagePlayer(UUID playerId, PlayerProgressionData data) {
+    staged.put(playerId, new PlayerRow(data.getAvailableCredits(), data.getTotalAdvancementsCompleted(),
+        List.copyOf(data.getRewardedAdvancements())));
+  }
+
+  @Override
+  public boolean hasStagedPlayers() {
+    return !staged.isEmpty();
+  }
+
+  /**
+   * Writes every staged player in one transaction. A player is only unstaged
+   * if no newer data was staged while the write was running.
+   */
+  @Override
+  public boolean writeStagedPlayers() {
+    if (staged.isEmpty()) {
+      return true;
+    }
+    if (writeConnection == null) {
+      return false;
+    }
+    Map<UUID, PlayerRow> toWrite = new HashMap<>(staged);
+    try (RecordWriter writer = new RecordWriter(writeConnection)) {
+      for (Map.Entry<UUID, PlayerRow> entry : toWrite.entrySet()) {
+        PlayerRow row = entry.getValue();
+        for (String advancementId : row.advancements()) {
+          writer.advancementRewarded(entry.getKey(), advancementId);
+        }
+        writer.playerState(entry.getKey(), row.credits(), row.totalAdvancements());
+      }
+      writer.commit();
+    } catch (SQLException | RecordWriteException e) {
+      LOGGER.error("Failed to save progression data for {} players", toWrite.size(), e);
+      return false;
+    }
+    toWrite.forEach(staged::remove);
+    return true;
+  }
+
+  // ========== WRITING ==========
+
+  /**
+   * Applies the batch as point updates in one transaction.
+   */
+  @Override
+  public boolean appendChanges(ChunkUnlockData.JournalBatch batch) {
+    if (writeConnection == null) {
+      inSync = false;
+      return false;
+    }
+    try (RecordWriter writer = new RecordWriter(writeConnection)) {
+      SaveJournal.decode(batch.records(), writer);
+      writer.commit();
+      LOGGER.debug("Applied {} chunk unlock records to the database", batch.recordCount());
+      return true;
+    } catch (IOException | SQLException | RecordWriteException e) {
+      LOGGER.error("Failed to apply chunk unlock changes to the database", e);
+      inSync = false;
+      return false;
+    }
+  }
+
+  /**
+   * The chunk table is current unless a batch failed to apply.
+   */
+  @Override
+  public boolean snapshotNeedsChunks() {
+    return !inSync;
+  }
+
+  /**
+   * Writes staged players, settings and starter items. The chunk table is
+   * already current unless a batch failed, in which case it is replaced with
+   * the snapshot's chunks.
+   */
+  @Override
+  public boolean writeSnapshot(ChunkUnlockData.SaveSnapshot snapshot) {
+    if (!writeStagedPlayers()) {
+      return false;
+    }
+    if (writeConnection == null) {
+      return false;
+    }
+
+    boolean rewriteChunks = !inSync;
+    if (rewriteChunks && snapshot.packedChunks() == null) {
+      // A batch failed after this snapshot was taken without chunks; the
+      // compaction requested for the failed write carries them
+      LOGGER.warn("Chunk table is out of date; rewriting it at the next compaction");
+      return false;
+    }
+    try (RecordWriter writer = new RecordWriter(writeConnection)) {
+      writer.mode(snapshot.mode());
+      writer.barriersEnabled(snapshot.barriersEnabled());
+      for (UUID playerId : snapshot.starterItems()) {
+        writer.starterItemsGiven(playerId);
+      }
+      if (rewriteChunks) {
+        writer.chunksCleared();
+        for (long packedPos : snapshot.packedChunks()) {
+          writer.chunkUnlocked(packedPos);
+        }
+      }
+      writer.commit();
+    } catch (SQLException | RecordWriteException e) {
+      LOGGER.error("Failed to save chunk unlock data to the database", e);
+      return false;
+    }
+
+    inSync = true;
+    LOGGER.debug("Saved chunk unlock data: {} players{}", snapshot.playerCount(),
+        rewriteChunks ? " (chunk table rewritten)" : "");
+    return true;
+  }
+
+  @Override
+  public void close() {
+    for (Connection connection : new Connection[] { readConnection, writeConnection }) {
+      if (connection != null) {
+        try {
+          connection.close();
+        } catch (SQLException e) {
+          LOGGER.error("Failed to close chunk unlock database", e);
+        }
+      }
+    }
+    readConnection = null;
+    writeConnection = null;
+  }
+
+  /**
+   * A player as stored in the database.
+   */
+  private record PlayerRow(int credits, int totalAdvancements, List<String> advancements) {
+    PlayerProgressionData toData() {
+      PlayerProgressionData data = new PlayerProgressionData();
+      data.setAvailableCredits(Math.max(0, credits));
+      for (String advancementId : advancements) {
+        data.markAdvancementRewarded(advancementId);
+      }
+      // Correct the total since markAdvancementRewarded increments it
+      data.setTotalAdvancementsCompleted(Math.max(0, totalAdvancements));
+      data.markSaved();
+      return data;
+    }
+  }
+
+  /**
+   * Applies records to the database inside one transaction.
+   * <p>
+   * Consecutive records of the same type are batched into one statement.
+   * The batch is flushed whenever the type changes, so records are applied
+   * in their original order (an unlock followed by a lock of the same chunk
+   * leaves it locked). Rolls back on close unless {@link #commit()} was
+   * called.
+   */
+  private static class RecordWriter implements SaveJournal.RecordHandler, AutoCloseable {
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+    private PreparedStatement current;
+    private boolean committed = false;
+
+    RecordWriter(Connection connection) {
+      this.connection = connection;
+    }
+
+    @Override
+    public void chunkUnlocked(long packedPos) {
+      add(UNLOCK_CHUNK, s -> s.setLong(1, packedPos));
+    }
+
+    @Override
+    public void chunkLocked(long packedPos) {
+      add(LOCK_CHUNK, s -> s.setLong(1, packedPos));
+    }
+
+    @Override
+    public void chunksCleared() {
+      add(CLEAR_CHUNKS, s -> {
+      });
+    }
+
+    @Override
+    public void playerState(UUID player, int credits, int totalAdvancements) {
+      add(PLAYER_STATE, s -> {
+        s.setObject(1, player);
+        s.setInt(2, credits);
+        s.setInt(3, totalAdvancements);
+      });
+    }
+
+    @Override
+    public void advancementRewarded(UUID player, String advancementId) {
+      add(ADVANCEMENT_REWARDED, s -> {
+        s.setObject(1, player);
+        s.setString(2, advancementId);
+      });
+    }
+
+    @Override
+    public void starterItemsGiven(UUID player) {
+      add(STARTER_ITEMS, s -> s.setObject(1, player));
+    }
+
+    @Override
+    public void barriersEnabled(boolean enabled) {
+      add(SETTING, s -> {
+        s.setString(1, SETTING_BARRIERS);
+        s.setString(2, Boolean.toString(enabled));
+      });
+    }
+
+    @Override
+    public void mode(String modeName) {
+      add(SETTING, s -> {
+        s.setString(1, SETTING_MODE);
+        s.setString(2, modeName);
+      });
+    }
+
+    /**
+     * Executes any batched statement and commits the transaction.
+     *
+     * @throws SQLException if a statement or the commit fails
+     */
+    void commit() throws SQLException {
+      flush();
+      connection.commit();
+      committed = true;
+    }
+
+    @Override
+    public void close() throws SQLException {
+      try {
+        if (!committed) {
+          connection.rollback();
+        }
+      } finally {
+        for (PreparedStatement statement : statements.values()) {
+          statement.close();
+        }
+      }
+    }
+
+    private void add(String sql, ParameterSetter parameters) {
+      // RecordHandler cannot throw checked exceptions
+      try {
+        PreparedStatement statement = statements.get(sql);
+        if (statement == null) {
+          statement = connection.prepareStatement(sql);
+          statements.put(sql, statement);
+        }
+        if (statement != current) {
+          flush();
+          current = statement;
+        }
+        parameters.set(statement);
+        statement.addBatch();
+      } catch (SQLException e) {
+        throw new RecordWriteException(e);
+      }
+    }
+
+    private void flush() throws SQLException {
+      if (current != null) {
+        current.executeBatch();
+        current = null;
+      }
+    }
+  }
+
+  @FunctionalInterface
+  private interface ParameterSetter {
+    void set(PreparedStatement statement) throws SQLException;
+  }
+
+  /**
+   * Carries an {@link SQLException} out of a {@link SaveJournal.RecordHandler}
+   * callback.
+   */
+  private static class RecordWriteException extends RuntimeException {
+    RecordWriteException(SQLException cause) {
+      super(cause);
+    }
+  }
+}
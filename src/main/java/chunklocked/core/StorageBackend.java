@@ -0,0 +1,163 @@
+package chunklocked.core;
+
+import chunklocked.advancement.PlayerProgressionData;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Where {@link ChunkUnlockData} keeps its state on disk.
+ * <p>
+ * {@link ChunkUnlockData} owns the in-memory state and records every change as
+ * a journal record (see {@link SaveJournal}). A backend persists those
+ * changes and can hand the state back on load:
+ * <ul>
+ * <li>{@link NbtStorageBackend} (default): NBT snapshot, write-ahead journal
+ * files and per-player files.</li>
+ * <li>{@link SqlStorageBackend}: an embedded H2 database. Each change record
+ * becomes an indexed point update, so saves stay small however large the
+ * world gets.</li>
+ * </ul>
+ * <p>
+ * Threading: {@link #load}, {@link #readPlayer} and {@link #stagePlayer} are
+ * called on the server thread (or the loader thread during startup). The
+ * {@code write}/{@code append} methods may be called from the save thread;
+ * {@link ChunkUnlockData} serializes them.
+ */
+public interface StorageBackend {
+
+  /**
+   * Name of the default backend in the config.
+   */
+  String NBT = "nbt";
+
+  /**
+   * Name of the embedded SQL backend in the config.
+   */
+  String H2 = "h2";
+
+  /**
+   * Creates a backend by its config name.
+   *
+   * @param name         {@link #NBT} or {@link #H2}
+   * @param worldDir     The world directory
+   * @param mappedChunks Whether to keep unlocked chunks in a
+   *                     {@link MappedChunkStore} (NBT only; the H2 backend
+   *                     already updates chunks in place)
+   * @return The backend
+   * @throws IllegalArgumentException if the name is unknown
+   */
+  static StorageBackend create(String name, Path worldDir, boolean mappedChunks) {
+    return switch (name) {
+      case NBT -> new NbtStorageBackend(worldDir, mappedChunks);
+      case H2 -> {
+        if (mappedChunks) {
+          LoggerFactory.getLogger("chunk-locked").warn("The mapped chunk store is not used with the h2 backend");
+        }
+        yield new SqlStorageBackend(worldDir);
+      }
+      default -> throw new IllegalArgumentException("Unknown storage backend: " + name);
+    };
+  }
+
+  /**
+   * @return The config name of this backend
+   */
+  String getName();
+
+  /**
+   * Creates the set that holds the unlocked chunks. Called once, before
+   * {@link #load}.
+   *
+   * @return An empty (or, if it persists itself, already populated) chunk set
+   */
+  default ChunkStore openChunkStore() {
+    return new LongChunkSet();
+  }
+
+  /**
+   * Opens the versioned history of unlocks and credit balances used for
+   * rollbacks. Called once, before {@link #load}.
+   *
+   * @return The history (in memory only unless the backend keeps a file)
+   */
+  default UnlockHistory openHistory() {
+    return new UnlockHistory();
+  }
+
+  /**
+   * Feeds the stored world state into {@code target}: unlocked chunks, starter
+   * items, mode and barrier flag. Player progression may be fed too (legacy
+   * saves), but is normally read lazily with {@link #readPlayer(UUID)}.
+   *
+   * @param target Receives the stored state
+   * @return The journal generation new changes should be appended to
+   */
+  long load(SaveJournal.RecordHandler target);
+
+  /**
+   * Reads one player's progression.
+   *
+   * @param playerId The player's UUID
+   * @return The player's data, or empty if the player has never been saved
+   */
+  Optional<PlayerProgressionData> readPlayer(UUID playerId);
+
+  /**
+   * Captures a player's full progression for the next
+   * {@link #writeStagedPlayers()}. Must be called on the server thread.
+   *
+   * @param playerId The player's UUID
+   * @param data     The player's progression data
+   */
+  void stagePlayer(UUID playerId, PlayerProgressionData data);
+
+  /**
+   * @return true if staged players are waiting to be written
+   */
+  boolean hasStagedPlayers();
+
+  /**
+   * Writes every staged player.
+   *
+   * @return true if every staged player is on disk
+   */
+  boolean writeStagedPlayers();
+
+  /**
+   * Persists a batch of change records.
+   *
+   * @param batch The records from {@link ChunkUnlockData#drainJournal()}
+   * @return true if the changes are durable
+   */
+  boolean appendChanges(ChunkUnlockData.JournalBatch batch);
+
+  /**
+   * Whether the next snapshot has to carry every unlocked chunk. Backends that
+   * apply chunk records in place return false while they hold every chunk, so
+   * a compaction does not copy the whole set on the server thread.
+   * <p>
+   * Asked on the server thread when the snapshot is taken.
+   *
+   * @return true unless the stored chunks are known to be current
+   */
+  default boolean snapshotNeedsChunks() {
+    return true;
+  }
+
+  /**
+   * Persists a full snapshot of the state. Backends that apply changes in
+   * place only need to make sure nothing is missing.
+   *
+   * @param snapshot The snapshot from {@link ChunkUnlockData#createSnapshot()}
+   * @return true if the snapshot is durable
+   */
+  boolean writeSnapshot(ChunkUnlockData.SaveSnapshot snapshot);
+
+  /**
+   * Releases files and connections. Called once, after the final save.
+   */
+  void close();
+}
@@ -0,0 +1,483 @@
+package chunklocked.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Versioned history of the unlock set and credit balances, kept as deltas.
+ * <p>
+ * Every save of {@link ChunkUnlockData} commits the changes made since the
+ * previous one as a new {@link Version}: the chunks that were unlocked, the
+ * chunks that were locked, and each changed credit balance (before and
+ * after). A version costs a few bytes per change, never a copy of the whole
+ * set. Rolling back to a version walks the newer versions and, for every
+ * chunk or player they touched, takes the value from before the first touch.
+ * <p>
+ * Versions are appended to {@code chunklocked_history.bin} in the world
+ * directory, one length-prefixed entry each, so the history survives
+ * restarts. Only the newest {@link #DEFAULT_MAX_VERSIONS} are kept; the file
+ * is rewritten once it holds twice that many.
+ * <p>
+ * Changes and commits happen on the server thread. {@link #writePending()}
+ * runs on the save thread.
+ */
+public class UnlockHistory {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger("chunk-locked");
+
+  /**
+   * Name of the history file in the world directory.
+   */
+  public static final String FILE_NAME = "chunklocked_history.bin";
+
+  /**
+   * Number of versions kept by default.
+   */
+  public static final int DEFAULT_MAX_VERSIONS = 1000;
+
+  /**
+   * File header magic ("CLHS") followed by the format version.
+   */
+  private static final int MAGIC = 0x434C4853;
+  private static final int FORMAT_VERSION = 1;
+
+  private final Path file;
+  private final int maxVersions;
+
+  /**
+   * Committed versions, oldest first. Server thread only.
+   */
+  private final ArrayDeque<Version> versions = new ArrayDeque<>();
+  private long lastVersion = 0;
+  private int entriesInFile = 0;
+
+  /**
+   * Changes since the last commit: new state per chunk, and credits before
+   * the first change and after the last one per player.
+   */
+  private final Map<Long, Boolean> chunkChanges = new HashMap<>();
+  private final Map<UUID, int[]> creditChanges = new LinkedHashMap<>();
+
+  /**
+   * Encoded versions waiting to be written by the save thread.
+   */
+  private final ConcurrentLinkedQueue<PendingWrite> pendingWrites = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Creates a history that is kept in memory only.
+   */
+  public UnlockHistory() {
+    this(null, DEFAULT_MAX_VERSIONS);
+  }
+
+  /**
+   * Creates a history backed by a file, loading any versions already in it.
+   *
+   * @param file        The history file, or null to keep it in memory only
+   * @param maxVersions Number of versions to keep
+   */
+  public UnlockHistory(Path file, int maxVersions) {
+    if (maxVersions < 1) {
+      throw new IllegalArgumentException("maxVersions must be positive: " + maxVersions);
+    }
+    this.file = file;
+    this.maxVersions = maxVersions;
+    if (file != null && Files.exists(file)) {
+      load();
+    }
+  }
+
+  // ========== RECORDING ==========
+
+  /**
+   * Records that a chunk was unlocked.
+   *
+   * @param packedPos The packed chunk position
+   */
+  public void chunkUnlocked(long packedPos) {
+    chunkChanged(packedPos, true);
+  }
+
+  /**
+   * Records that a chunk was locked.
+   *
+   * @param packedPos The packed chunk position
+   */
+  public void chunkLocked(long packedPos) {
+    chunkChanged(packedPos, false);
+  }
+
+  private void chunkChanged(long packedPos, boolean unlocked) {
+    // Each change flips the chunk, so a second change in the same version
+    // restores the state it had before the version
+    if (chunkChanges.remove(packedPos) == null) {
+      chunkChanges.put(packedPos, unlocked);
+    }
+  }
+
+  /**
+   * Records a change of a player's credit balance.
+   *
+   * @param player The player's UUID
+   * @param before The balance before the change
+   * @param after  The balance after the change
+   */
+  public void creditsChanged(UUID player, int before, int after) {
+    int[] change = creditChanges.get(player);
+    if (change == null) {
+      creditChanges.put(player, new int[] { before, after });
+    } else {
+      change[1] = after;
+    }
+  }
+
+  /**
+   * Turns the changes recorded since the last commit into a new version.
+   *
+   * @param timestamp The commit time (epoch milliseconds)
+   * @return The new version, or null if nothing changed
+   */
+  public Version commit(long timestamp) {
+    creditChanges.values().removeIf(change -> change[0] == change[1]);
+    if (chunkChanges.isEmpty() && creditChanges.isEmpty()) {
+      return null;
+    }
+
+    long[] unlocked = chunkChanges.entrySet().stream().filter(Map.Entry::getValue)
+        .mapToLong(Map.Entry::getKey).sorted().toArray();
+    long[] locked = chunkChanges.entrySet().stream().filter(entry -> !entry.getValue())
+        .mapToLong(Map.Entry::getKey).sorted().toArray();
+    List<CreditChange> credits = new ArrayList<>(creditChanges.size());
+    creditChanges.forEach((player, change) -> credits.add(new CreditChange(player, change[0], change[1])));
+    chunkChanges.clear();
+    creditChanges.clear();
+
+    Version version = new Version(++lastVersion, timestamp, unlocked, locked, List.copyOf(credits));
+    versions.addLast(version);
+    while (versions.size() > maxVersions) {
+      versions.removeFirst();
+    }
+
+    if (file != null) {
+      if (entriesInFile >= 2 * maxVersions) {
+        // Drop the trimmed versions from the file as well
+        pendingWrites.add(new PendingWrite(encodeAll(versions), true));
+        entriesInFile = versions.size();
+      } else {
+        pendingWrites.add(new PendingWrite(encodeEntry(version), false));
+        entriesInFile++;
+      }
+    }
+    return version;
+  }
+
+  // ========== QUERIES ==========
+
+  /**
+   * @return The newest committed version number (0 if there is none)
+   */
+  public long getLatestVersion() {
+    return lastVersion;
+  }
+
+  /**
+   * @return The oldest version that can be rolled back to
+   */
+  public long getOldestReachableVersion() {
+    return versions.isEmpty() ? lastVersion : versions.peekFirst().version() - 1;
+  }
+
+  /**
+   * Gets the most recent versions, newest first.
+   *
+   * @param limit Maximum number of versions to return
+   * @return The versions
+   */
+  public List<Version> getRecentVersions(int limit) {
+    List<Version> recent = new ArrayList<>(Math.min(limit, versions.size()));
+    Iterator<Version> iterator = versions.descendingIterator();
+    while (iterator.hasNext() && recent.size() < limit) {
+      recent.add(iterator.next());
+    }
+    return recent;
+  }
+
+  /**
+   * Finds the version that was current at a point in time.
+   *
+   * @param timestamp The point in time (epoch milliseconds)
+   * @return The newest version committed at or before that time, the oldest
+   *         reachable version if the time is older than the history, or empty
+   *         if the history is empty
+   */
+  public OptionalLong findVersionAt(long timestamp) {
+    if (versions.isEmpty()) {
+      return OptionalLong.empty();
+    }
+    long found = getOldestReachableVersion();
+    for (Version version : versions) {
+      if (version.timestamp() > timestamp) {
+        break;
+      }
+      found = version.version();
+    }
+    return OptionalLong.of(found);
+  }
+
+  /**
+   * Computes the chunk states and credit balances that a rollback to the
+   * given version has to restore. Changes that were not committed yet are
+   * not covered.
+   *
+   * @param target The version to roll back to
+   * @return The values at that version of everything changed since
+   * @throws IllegalArgumentException if the version is not in the history
+   */
+  public Rollback computeRollback(long target) {
+    if (target < getOldestReachableVersion() || target > lastVersion) {
+      throw new IllegalArgumentException("Version " + target + " is not in the history (available: "
+          + getOldestReachableVersion() + " to " + lastVersion + ")");
+    }
+
+    // Oldest first: the first version to touch something holds its value from
+    // before the rollback target
+    Map<Long, Boolean> chunks = new HashMap<>();
+    Map<UUID, Integer> credits = new HashMap<>();
+    for (Version version : versions) {
+      if (version.version() <= target) {
+        continue;
+      }
+      for (long pos : version.unlocked()) {
+        chunks.putIfAbsent(pos, false);
+      }
+      for (long pos : version.locked()) {
+        chunks.putIfAbsent(pos, true);
+      }
+      for (CreditChange change : version.credits()) {
+        credits.putIfAbsent(change.player(), change.before());
+      }
+    }
+    return new Rollback(target, Collections.unmodifiableMap(chunks), Collections.unmodifiableMap(credits));
+  }
+
+  // ========== PERSISTENCE ==========
+
+  /**
+   * Writes every version committed since the last call.
+   * <p>
+   * Safe to call from the save thread. A failed write is not retried: the
+   * history is a convenience for admins, the save itself does not depend on
+   * it.
+   */
+  public void writePending() {
+    PendingWrite write;
+    while ((write = pendingWrites.poll()) != null) {
+      try {
+        Files.createDirectories(file.getParent());
+        if (write.replace()) {
+          Path tempFile = file.resolveSibling(FILE_NAME + ".tmp");
+          try (OutputStream out = Files.newOutputStream(tempFile)) {
+            writeHeader(out);
+            out.write(write.bytes());
+          }
+          Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        } else {
+          boolean newFile = !Files.exists(file);
+          try (OutputStream out = Files.newOutputStream(file, StandardOpenOption.CREATE,
+              StandardOpenOption.APPEND)) {
+            if (newFile) {
+              writeHeader(out);
+            }
+            out.write(write.bytes());
+          }
+        }
+      } catch (IOException e) {
+        LOGGER.error("Failed to write chunk unlock history to {}", file, e);
+      }
+    }
+  }
+
+  private static void writeHeader(OutputStream out) throws IOException {
+    DataOutputStream header = new DataOutputStream(out);
+    header.writeInt(MAGIC);
+    header.writeInt(FORMAT_VERSION);
+    header.flush();
+  }
+
+  private void load() {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+        LOGGER.warn("Ignoring chunk unlock history {} with an unrecognized header", file);
+        return;
+      }
+      while (true) {
+        int length;
+        try {
+          length = in.readInt();
+        } catch (EOFException e) {
+          break; // Clean end of file
+        }
+        byte[] entry = new byte[length];
+        in.readFully(entry);
+        Version version = decodeEntry(entry);
+        versions.addLast(version);
+        lastVersion = version.version();
+        entriesInFile++;
+        if (versions.size() > maxVersions) {
+          versions.removeFirst();
+        }
+      }
+    } catch (EOFException e) {
+      // Left by a crash during an append. New entries must not follow it, so
+      // the file is rewritten with the complete ones.
+      LOGGER.warn("Chunk unlock history {} ends with a partial entry, ignoring it", file);
+      pendingWrites.add(new PendingWrite(encodeAll(versions), true));
+      entriesInFile = versions.size();
+    } catch (IOException e) {
+      LOGGER.error("Failed to load chunk unlock history from {}", file, e);
+    }
+    if (!versions.isEmpty()) {
+      LOGGER.info("Loaded chunk unlock history: versions {} to {}", getOldestReachableVersion() + 1, lastVersion);
+    }
+  }
+
+  private static byte[] encodeAll(Iterable<Version> versions) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    for (Version version : versions) {
+      bytes.writeBytes(encodeEntry(version));
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Encodes a version as a length-prefixed entry. Chunk lists are sorted and
+   * delta-encoded like the snapshot.
+   */
+  private static byte[] encodeEntry(Version version) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    try {
+      out.writeInt(0); // Length, filled in below
+      out.writeLong(version.version());
+      out.writeLong(version.timestamp());
+      writeChunks(out, version.unlocked());
+      writeChunks(out, version.locked());
+      out.writeInt(version.credits().size());
+      for (CreditChange change : version.credits()) {
+        out.writeLong(change.player().getMostSignificantBits());
+        out.writeLong(change.player().getLeastSignificantBits());
+        out.writeInt(change.before());
+        out.writeInt(change.after());
+      }
+    } catch (IOException e) {
+      // ByteArrayOutputStream never throws
+      throw new IllegalStateException(e);
+    }
+    byte[] entry = bytes.toByteArray();
+    int length = entry.length - Integer.BYTES;
+    entry[0] = (byte) (length >>> 24);
+    entry[1] = (byte) (length >>> 16);
+    entry[2] = (byte) (length >>> 8);
+    entry[3] = (byte) length;
+    return entry;
+  }
+
+  private static void writeChunks(DataOutputStream out, long[] sorted) throws IOException {
+    out.writeInt(sorted.length);
+    long previous = 0;
+    for (long pos : sorted) {
+      out.writeLong(pos - previous);
+      previous = pos;
+    }
+  }
+
+  private static Version decodeEntry(byte[] entry) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(entry));
+    long version = in.readLong();
+    long timestamp = in.readLong();
+    long[] unlocked = readChunks(in);
+    long[] locked = readChunks(in);
+    int creditCount = in.readInt();
+    List<CreditChange> credits = new ArrayList<>(creditCount);
+    for (int i = 0; i < creditCount; i++) {
+      UUID player = new UUID(in.readLong(), in.readLong());
+      credits.add(new CreditChange(player, in.readInt(), in.readInt()));
+    }
+    return new Version(version, timestamp, unlocked, locked, List.copyOf(credits));
+  }
+
+  private static long[] readChunks(DataInputStream in) throws IOException {
+    long[] chunks = new long[in.readInt()];
+    long previous = 0;
+    for (int i = 0; i < chunks.length; i++) {
+      previous += in.readLong();
+      chunks[i] = previous;
+    }
+    return chunks;
+  }
+
+  /**
+   * One committed set of changes.
+   *
+   * @param version   Version number, starting at 1
+   * @param timestamp Commit time (epoch milliseconds)
+   * @param unlocked  Chunks unlocked in this version, sorted
+   * @param locked    Chunks locked in this version, sorted
+   * @param credits   Credit balances changed in this version
+   */
+  public record Version(long version, long timestamp, long[] unlocked, long[] locked, List<CreditChange> credits) {
+    @Override
+    public String toString() {
+      return "Version{" + version + ", unlocked=" + Arrays.toString(unlocked) + ", locked="
+          + Arrays.toString(locked) + ", credits=" + credits + '}';
+    }
+  }
+
+  /**
+   * A change of one player's credit balance.
+   *
+   * @param player The player's UUID
+   * @param before The balance before the version
+   * @param after  The balance after the version
+   */
+  public record CreditChange(UUID player, int before, int after) {
+  }
+
+  /**
+   * What a rollback has to restore.
+   *
+   * @param target  The version rolled back to
+   * @param chunks  Unlock state at the target of every chunk changed since
+   * @param credits Balance at the target of every player changed since
+   */
+  public record Rollback(long target, Map<Long, Boolean> chunks, Map<UUID, Integer> credits) {
+  }
+
+  private record PendingWrite(byte[] bytes, boolean replace) {
+  }
+}
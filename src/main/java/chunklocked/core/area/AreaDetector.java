@@ -1,5 +1,7 @@
 package chunklocked.core.area;
 
+import chunklocked.core.ChunkStore;
+import chunklocked.core.LongIntMap;
 import net.minecraft.world.level.ChunkPos;
 import org.jetbrains.annotations.NotNull;
 
@@ -8,17 +10,113 @@ import java.util.*;
 /**
  * Detects connected components (playable areas) in a set of unlocked chunks.
  * <p>
- * Uses a breadth-first search (BFS) algorithm to identify contiguous regions
- * of chunks. The detector maintains a cache of detected areas that is
- * invalidated
- * when the underlying chunk set is modified.
+ * Connectivity is maintained incrementally with a union-find over the
+ * unlocked chunks: {@link #chunkUnlocked(long)} joins the new chunk to the
+ * areas of its unlocked neighbours in near-constant time, and
+ * {@link #chunkLocked(long)} recomputes only the area the chunk belonged to,
+ * which may split. Area IDs are stable: an unlock keeps the ID of the largest
+ * area it touches, and a split keeps the old ID for the largest piece. IDs are
+ * never reused within a session.
  * <p>
- * This class is thread-safe for read operations but not for concurrent
- * modifications.
- * External synchronization is required if used from multiple threads.
+ * Chunks are stored in primitive parallel arrays (position, parent, next
+ * member) indexed through a {@link LongIntMap}, so tracking a chunk costs a
+ * few dozen bytes and no objects. Only each area keeps an object with its
+ * size, coordinate sums, bounding box and perimeter, which are combined when
+ * areas merge. {@link PlayableArea}
+ * objects are built on demand from those and cached per area, so only areas
+ * that changed are rebuilt. Looking up the area of a chunk, or the areas
+ * bordering one, costs a few array reads and hash probes.
+ * <p>
+ * Not thread-safe: lookups compress paths and fill the area cache, so reads
+ * need the same external synchronization as modifications.
  */
 public class AreaDetector {
-  private final Map<ChunkPos, Integer> chunkCache;
+
+  private static final int MISSING = -1;
+
+  /**
+   * Parent of a chunk not yet assigned to a piece while an area splits.
+   */
+  private static final int UNASSIGNED = Integer.MIN_VALUE;
+
+  /**
+   * One playable area, held for its root chunk only: the ID and the
+   * statistics of all its chunks.
+   */
+  private static final class Area {
+    int id;
+    final int root;
+    int size;
+    long sumX;
+    long sumZ;
+    int minX;
+    int minZ;
+    int maxX;
+    int maxZ;
+    int perimeter;
+
+    /**
+     * An area of one chunk.
+     */
+    Area(int root, long pos) {
+      this.root = root;
+      this.size = 1;
+      int x = ChunkPos.getX(pos);
+      int z = ChunkPos.getZ(pos);
+      sumX = minX = maxX = x;
+      sumZ = minZ = maxZ = z;
+      perimeter = 4;
+    }
+
+    void addChunk(long pos) {
+      int x = ChunkPos.getX(pos);
+      int z = ChunkPos.getZ(pos);
+      size++;
+      sumX += x;
+      sumZ += z;
+      minX = Math.min(minX, x);
+      minZ = Math.min(minZ, z);
+      maxX = Math.max(maxX, x);
+      maxZ = Math.max(maxZ, z);
+      perimeter += 4;
+    }
+
+    void addArea(Area other) {
+      size += other.size;
+      sumX += other.sumX;
+      sumZ += other.sumZ;
+      minX = Math.min(minX, other.minX);
+      minZ = Math.min(minZ, other.minZ);
+      maxX = Math.max(maxX, other.maxX);
+      maxZ = Math.max(maxZ, other.maxZ);
+      perimeter += other.perimeter;
+    }
+  }
+
+  /**
+   * Chunk position to slot in the arrays below.
+   */
+  private final LongIntMap slots = new LongIntMap();
+
+  /**
+   * Per slot: the chunk, and its parent in the area's tree. A root holds
+   * {@code -1 - areaId} instead of a parent.
+   */
+  private long[] positions = new long[0];
+  private int[] parents = new int[0];
+
+  /**
+   * Per slot: the next chunk of the same area, in a circular list, so an
+   * area's chunks can be listed without scanning every chunk.
+   */
+  private int[] nexts = new int[0];
+
+  private int[] freeSlots = new int[0];
+  private int freeCount;
+  private int slotCount;
+
+  private final Map<Integer, Area> roots = new LinkedHashMap<>();
+  private final Map<Integer, PlayableArea> areaCache = new HashMap<>();
   private List<PlayableArea> cachedAreas;
   private boolean cacheValid = false;
   private int nextAreaId = 0;
@@ -27,14 +125,136 @@ public class AreaDetector {
    * Creates a new AreaDetector instance.
    */
   public AreaDetector() {
-    this.chunkCache = new HashMap<>();
-    this.cachedAreas = new ArrayList<>();
   }
 
+  // ========== INCREMENTAL UPDATES ==========
+
+  /**
+   * Adds an unlocked chunk, merging the areas of its unlocked neighbours.
+   * Nothing happens if the chunk is already tracked.
+   *
+   * @param packedPos The packed position of the unlocked chunk
+   */
+  public void chunkUnlocked(long packedPos) {
+    cacheValid = true;
+    if (slots.get(packedPos, MISSING) != MISSING) {
+      return;
+    }
+    int slot = allocate(packedPos);
+
+    // Join the largest neighbouring area, then fold the others into it
+    Area[] neighborAreas = new Area[4];
+    int count = 0;
+    Area largest = null;
+    for (long neighbor : neighbors(packedPos)) {
+      int neighborSlot = slots.get(neighbor, MISSING);
+      if (neighborSlot == MISSING) {
+        continue;
+      }
+      Area area = areaOf(find(neighborSlot));
+      neighborAreas[count++] = area;
+      if (largest == null || area.size > largest.size) {
+        largest = area;
+      }
+    }
+
+    if (largest == null) {
+      Area area = new Area(slot, packedPos);
+      setRoot(area, nextAreaId++);
+    } else {
+      link(largest.root, slot);
+      largest.addChunk(packedPos);
+      for (int i = 0; i < count; i++) {
+        union(largest, neighborAreas[i]);
+      }
+      // Each shared edge was counted once on either side
+      largest.perimeter -= 2 * count;
+      markChanged(largest.id);
+    }
+    cachedAreas = null;
+  }
+
+  /**
+   * Removes a chunk that was locked. The area it belonged to is recomputed:
+   * it disappears, shrinks, or splits into several areas, the largest of
+   * which keeps the old ID.
+   *
+   * @param packedPos The packed position of the locked chunk
+   */
+  public void chunkLocked(long packedPos) {
+    int removed = slots.get(packedPos, MISSING);
+    if (removed == MISSING) {
+      return;
+    }
+    int oldRoot = find(removed);
+    int oldId = areaId(oldRoot);
+    roots.remove(oldId);
+    markChanged(oldId);
+    cachedAreas = null;
+
+    // Detach every chunk of the area, the removed one included
+    int member = oldRoot;
+    do {
+      int following = nexts[member];
+      parents[member] = UNASSIGNED;
+      nexts[member] = member;
+      member = following;
+    } while (member != oldRoot);
+    release(packedPos, removed);
+
+    // Every remaining chunk is reachable from one of the removed chunk's
+    // neighbours, so flooding from those finds all pieces
+    Area largestPiece = null;
+    List<Area> pieces = new ArrayList<>(4);
+    for (long neighbor : neighbors(packedPos)) {
+      int start = slots.get(neighbor, MISSING);
+      if (start != MISSING && parents[start] == UNASSIGNED) {
+        Area piece = flood(start);
+        pieces.add(piece);
+        if (largestPiece == null || piece.size > largestPiece.size) {
+          largestPiece = piece;
+        }
+      }
+    }
+    for (Area piece : pieces) {
+      setRoot(piece, piece == largestPiece ? oldId : nextAreaId++);
+    }
+  }
+
+  /**
+   * Replaces the tracked chunks with the contents of a chunk store.
+   *
+   * @param unlocked The unlocked chunks
+   */
+  public void rebuild(@NotNull ChunkStore unlocked) {
+    clear();
+    unlocked.forEach(this::chunkUnlocked);
+    cacheValid = true;
+  }
+
+  /**
+   * Forgets all tracked chunks. Area IDs handed out before are not reused.
+   */
+  public void clear() {
+    slots.clear();
+    positions = new long[0];
+    parents = new int[0];
+    nexts = new int[0];
+    freeSlots = new int[0];
+    freeCount = 0;
+    slotCount = 0;
+    roots.clear();
+    areaCache.clear();
+    cachedAreas = null;
+  }
+
+  // ========== QUERIES ==========
+
   /**
    * Detects all playable areas in the given set of unlocked chunks.
    * <p>
-   * Results are cached until {@link #invalidateCache()} is called.
+   * If the set matches the chunks already tracked, the current areas are
+   * returned; otherwise they are rebuilt from the set.
    *
    * @param unlockedChunks the set of unlocked chunks to analyze
    * @return a list of detected playable areas
@@ -44,83 +264,37 @@ public class AreaDetector {
   public List<PlayableArea> detectAreas(@NotNull Set<ChunkPos> unlockedChunks) {
     Objects.requireNonNull(unlockedChunks, "unlockedChunks cannot be null");
 
-    if (unlockedChunks.isEmpty()) {
-      cachedAreas = new ArrayList<>();
-      cacheValid = true;
-      return cachedAreas;
+    if (cacheValid && slots.size() == unlockedChunks.size() && tracksAll(unlockedChunks)) {
+      return getCachedAreas();
     }
 
-    // Check if we need to recompute
-    if (cacheValid && chunkCache.size() == unlockedChunks.size()) {
-      boolean cacheHitsAll = unlockedChunks.stream().allMatch(chunkCache::containsKey);
-      if (cacheHitsAll) {
-        return new ArrayList<>(cachedAreas);
-      }
-    }
-
-    // Recompute areas
-    List<PlayableArea> areas = new ArrayList<>();
-    Set<ChunkPos> visited = new HashSet<>();
-    nextAreaId = 0;
-
+    clear();
     for (ChunkPos chunk : unlockedChunks) {
-      if (!visited.contains(chunk)) {
-        PlayableArea area = bfs(chunk, unlockedChunks, visited);
-        areas.add(area);
-        nextAreaId++;
-      }
+      Objects.requireNonNull(chunk, "unlockedChunks cannot contain null");
+      chunkUnlocked(ChunkPos.asLong(chunk.x, chunk.z));
     }
+    cacheValid = true;
+    return getCachedAreas();
+  }
 
-    // Update cache
-    this.cachedAreas = areas;
-    this.cacheValid = true;
-    this.chunkCache.clear();
-    for (ChunkPos chunk : unlockedChunks) {
-      this.chunkCache.put(chunk, nextAreaId);
+  private boolean tracksAll(Set<ChunkPos> chunks) {
+    for (ChunkPos chunk : chunks) {
+      if (chunk == null || slots.get(ChunkPos.asLong(chunk.x, chunk.z), MISSING) == MISSING) {
+        return false;
+      }
     }
-
-    return new ArrayList<>(areas);
+    return true;
   }
 
   /**
-   * Performs a breadth-first search from the starting chunk to find all connected
-   * chunks.
+   * Gets the ID of the area containing a chunk.
    *
-   * @param start     the starting chunk position
-   * @param allChunks the set of all unlocked chunks
-   * @param visited   the set of already visited chunks (modified in-place)
-   * @return a PlayableArea containing all connected chunks
-   */
-  private PlayableArea bfs(@NotNull ChunkPos start, @NotNull Set<ChunkPos> allChunks,
-      @NotNull Set<ChunkPos> visited) {
-    Set<ChunkPos> areaChunks = new HashSet<>();
-    Queue<ChunkPos> queue = new LinkedList<>();
-
-    queue.add(start);
-    visited.add(start);
-    areaChunks.add(start);
-
-    while (!queue.isEmpty()) {
-      ChunkPos current = queue.poll();
-
-      // Check all 4 adjacent chunks (up, down, left, right)
-      ChunkPos[] adjacent = {
-          new ChunkPos(current.x + 1, current.z),
-          new ChunkPos(current.x - 1, current.z),
-          new ChunkPos(current.x, current.z + 1),
-          new ChunkPos(current.x, current.z - 1)
-      };
-
-      for (ChunkPos neighbor : adjacent) {
-        if (allChunks.contains(neighbor) && !visited.contains(neighbor)) {
-          visited.add(neighbor);
-          areaChunks.add(neighbor);
-          queue.add(neighbor);
-        }
-      }
-    }
-
-    return new PlayableArea(nextAreaId, areaChunks);
+   * @param packedPos The packed chunk position
+   * @return The area ID, or -1 if the chunk is not tracked
+   */
+  public int getAreaId(long packedPos) {
+    int slot = slots.get(packedPos, MISSING);
+    return slot == MISSING ? -1 : areaId(find(slot));
   }
 
   /**
@@ -134,12 +308,11 @@ public class AreaDetector {
   public Optional<PlayableArea> findAreaContainingChunk(@NotNull ChunkPos chunk) {
     Objects.requireNonNull(chunk, "chunk cannot be null");
 
-    for (PlayableArea area : cachedAreas) {
-      if (area.contains(chunk)) {
-        return Optional.of(area);
-      }
+    int slot = slots.get(ChunkPos.asLong(chunk.x, chunk.z), MISSING);
+    if (slot == MISSING) {
+      return Optional.empty();
     }
-    return Optional.empty();
+    return Optional.of(area(areaOf(find(slot))));
   }
 
   /**
@@ -152,10 +325,17 @@ public class AreaDetector {
   public List<PlayableArea> findAdjacentAreas(@NotNull ChunkPos chunk) {
     Objects.requireNonNull(chunk, "chunk cannot be null");
 
-    List<PlayableArea> adjacent = new ArrayList<>();
-    for (PlayableArea area : cachedAreas) {
-      if (area.isAdjacentTo(chunk)) {
-        adjacent.add(area);
+    List<PlayableArea> adjacent = new ArrayList<>(4);
+    List<Area> seen = new ArrayList<>(4);
+    for (long neighbor : neighbors(ChunkPos.asLong(chunk.x, chunk.z))) {
+      int slot = slots.get(neighbor, MISSING);
+      if (slot == MISSING) {
+        continue;
+      }
+      Area area = areaOf(find(slot));
+      if (!seen.contains(area)) {
+        seen.add(area);
+        adjacent.add(area(area));
       }
     }
     return adjacent;
@@ -166,10 +346,8 @@ public class AreaDetector {
    * to {@link #detectAreas(Set)}.
    */
   public void invalidateCache() {
+    clear();
     cacheValid = false;
-    cachedAreas.clear();
-    chunkCache.clear();
-    nextAreaId = 0;
   }
 
   /**
@@ -187,7 +365,7 @@ public class AreaDetector {
    * @return the number of cached areas, or 0 if cache is invalid
    */
   public int getCachedAreaCount() {
-    return cachedAreas.size();
+    return roots.size();
   }
 
   /**
@@ -198,6 +376,169 @@ public class AreaDetector {
    * @return a copy of the cached areas list
    */
   public List<PlayableArea> getCachedAreas() {
-    return new ArrayList<>(cachedAreas);
+    return new ArrayList<>(areas());
+  }
+
+  // ========== UNION-FIND ==========
+
+  private List<PlayableArea> areas() {
+    if (cachedAreas == null) {
+      List<PlayableArea> areas = new ArrayList<>(roots.size());
+      for (Area root : roots.values()) {
+        areas.add(area(root));
+      }
+      cachedAreas = areas;
+    }
+    return cachedAreas;
+  }
+
+  /**
+   * Gets the {@link PlayableArea} of an area, building it only if the area
+   * changed since it was last built.
+   */
+  private PlayableArea area(Area root) {
+    PlayableArea area = areaCache.get(root.id);
+    if (area == null) {
+      Set<ChunkPos> chunks = new HashSet<>(root.size * 4 / 3 + 1);
+      int member = root.root;
+      do {
+        chunks.add(new ChunkPos(ChunkPos.getX(positions[member]), ChunkPos.getZ(positions[member])));
+        member = nexts[member];
+      } while (member != root.root);
+      area = new PlayableArea(root.id, chunks, root.sumX, root.sumZ,
+          root.minX, root.minZ, root.maxX, root.maxZ, root.perimeter);
+      areaCache.put(root.id, area);
+    }
+    return area;
+  }
+
+  private void markChanged(int areaId) {
+    areaCache.remove(areaId);
+  }
+
+  private int areaId(int root) {
+    return -1 - parents[root];
+  }
+
+  private Area areaOf(int root) {
+    return roots.get(areaId(root));
+  }
+
+  private void setRoot(Area area, int id) {
+    area.id = id;
+    parents[area.root] = -1 - id;
+    roots.put(id, area);
+  }
+
+  private int find(int slot) {
+    // Path halving: point every other chunk on the way at its grandparent
+    while (parents[slot] >= 0) {
+      int parent = parents[slot];
+      int grandparent = parents[parent];
+      if (grandparent < 0) {
+        return parent;
+      }
+      parents[slot] = grandparent;
+      slot = grandparent;
+    }
+    return slot;
+  }
+
+  /**
+   * Merges {@code other} into {@code survivor}, which keeps its ID.
+   * {@code survivor} must be at least as large, so trees stay shallow.
+   */
+  private void union(Area survivor, Area other) {
+    if (other == survivor || roots.get(other.id) != other) {
+      return; // Already merged
+    }
+    roots.remove(other.id);
+    markChanged(other.id);
+    link(survivor.root, other.root);
+    survivor.addArea(other);
+  }
+
+  /**
+   * Hangs the tree rooted at {@code child} under {@code root} and splices the
+   * two member lists together. Statistics are combined by the caller.
+   */
+  private void link(int root, int child) {
+    parents[child] = root;
+    int rootNext = nexts[root];
+    nexts[root] = nexts[child];
+    nexts[child] = rootNext;
+  }
+
+  /**
+   * Collects the piece of a split area reachable from {@code start} into a
+   * new tree rooted at {@code start}. The caller gives it its ID.
+   */
+  private Area flood(int start) {
+    Area piece = new Area(start, positions[start]);
+    parents[start] = -1; // Root, until the caller sets the ID
+    int[] stack = new int[16];
+    int depth = 0;
+    stack[depth++] = start;
+    while (depth > 0) {
+      int current = stack[--depth];
+      for (long neighbor : neighbors(positions[current])) {
+        int next = slots.get(neighbor, MISSING);
+        if (next == MISSING) {
+          continue;
+        }
+        // Every neighbour is in this piece; each shared edge is seen from
+        // both sides, taking one off each chunk's four
+        piece.perimeter--;
+        if (parents[next] == UNASSIGNED) {
+          link(start, next);
+          piece.addChunk(neighbor);
+          if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+          }
+          stack[depth++] = next;
+        }
+      }
+    }
+    return piece;
+  }
+
+  // ========== SLOTS ==========
+
+  private int allocate(long pos) {
+    int slot;
+    if (freeCount > 0) {
+      slot = freeSlots[--freeCount];
+    } else {
+      if (slotCount == positions.length) {
+        int capacity = Math.max(16, positions.length * 2);
+        positions = Arrays.copyOf(positions, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        nexts = Arrays.copyOf(nexts, capacity);
+      }
+      slot = slotCount++;
+    }
+    positions[slot] = pos;
+    nexts[slot] = slot;
+    slots.put(pos, slot);
+    return slot;
+  }
+
+  private void release(long pos, int slot) {
+    slots.remove(pos);
+    if (freeCount == freeSlots.length) {
+      freeSlots = Arrays.copyOf(freeSlots, Math.max(16, freeSlots.length * 2));
+    }
+    freeSlots[freeCount++] = slot;
+  }
+
+  private static long[] neighbors(long packedPos) {
+    int x = ChunkPos.getX(packedPos);
+    int z = ChunkPos.getZ(packedPos);
+    return new long[] {
+        ChunkPos.asLong(x, z - 1),
+        ChunkPos.asLong(x, z + 1),
+        ChunkPos.asLong(x + 1, z),
+        ChunkPos.asLong(x - 1, z)
+    };
   }
 }
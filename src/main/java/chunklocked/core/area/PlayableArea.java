@@ -14,12 +14,21 @@ import java.util.Set;
  * A playable area is a connected component of unlocked chunks, where chunks are
  * considered connected if they are adjacent (sharing an edge in 2D space).
  * <p>
+ * Besides its chunks, an area carries its bounding box, perimeter and
+ * centroid. {@link AreaDetector} keeps these up to date as chunks are unlocked
+ * and hands them in, so they are not recomputed for every new area.
+ * <p>
  * This class is immutable after construction.
  */
 public class PlayableArea {
   private final int areaId;
   private final Set<ChunkPos> chunks;
   private final ChunkPos centerChunk;
+  private final int minX;
+  private final int minZ;
+  private final int maxX;
+  private final int maxZ;
+  private final int perimeter;
 
   /**
    * Creates a new PlayableArea with the given ID and chunks.
@@ -42,30 +51,65 @@ public class PlayableArea {
 
     this.areaId = areaId;
     this.chunks = Collections.unmodifiableSet(new HashSet<>(chunks));
-    this.centerChunk = calculateCenter();
-  }
 
-  /**
-   * Calculates the center chunk of this area (approximate centroid).
-   * <p>
-   * The center is calculated as the average X and Z coordinates of all chunks,
-   * rounded to the nearest chunk position.
-   *
-   * @return the approximate center chunk
-   */
-  private ChunkPos calculateCenter() {
+    // One pass for the centroid, bounding box and perimeter
     long sumX = 0;
     long sumZ = 0;
-
-    for (ChunkPos pos : chunks) {
+    int minX = Integer.MAX_VALUE;
+    int minZ = Integer.MAX_VALUE;
+    int maxX = Integer.MIN_VALUE;
+    int maxZ = Integer.MIN_VALUE;
+    int perimeter = 0;
+    for (ChunkPos pos : this.chunks) {
       sumX += pos.x;
       sumZ += pos.z;
+      minX = Math.min(minX, pos.x);
+      minZ = Math.min(minZ, pos.z);
+      maxX = Math.max(maxX, pos.x);
+      maxZ = Math.max(maxZ, pos.z);
+      perimeter += 4 - countNeighbors(pos.x, pos.z);
     }
+    this.centerChunk = centroid(sumX, sumZ, this.chunks.size());
+    this.minX = minX;
+    this.minZ = minZ;
+    this.maxX = maxX;
+    this.maxZ = maxZ;
+    this.perimeter = perimeter;
+  }
 
-    int centerX = (int) (sumX / chunks.size());
-    int centerZ = (int) (sumZ / chunks.size());
+  /**
+   * Creates an area whose statistics were already computed by
+   * {@link AreaDetector}.
+   *
+   * @param areaId    the unique identifier for this area
+   * @param chunks    the chunks of the area; taken over without copying
+   * @param sumX      the sum of the chunks' X coordinates
+   * @param sumZ      the sum of the chunks' Z coordinates
+   * @param minX      the smallest chunk X coordinate
+   * @param minZ      the smallest chunk Z coordinate
+   * @param maxX      the largest chunk X coordinate
+   * @param maxZ      the largest chunk Z coordinate
+   * @param perimeter the number of chunk edges not shared with another chunk
+   *                  of the area
+   */
+  PlayableArea(int areaId, Set<ChunkPos> chunks, long sumX, long sumZ,
+      int minX, int minZ, int maxX, int maxZ, int perimeter) {
+    this.areaId = areaId;
+    this.chunks = Collections.unmodifiableSet(chunks);
+    this.centerChunk = centroid(sumX, sumZ, chunks.size());
+    this.minX = minX;
+    this.minZ = minZ;
+    this.maxX = maxX;
+    this.maxZ = maxZ;
+    this.perimeter = perimeter;
+  }
 
-    return new ChunkPos(centerX, centerZ);
+  /**
+   * Calculates the center chunk of an area (approximate centroid): the average
+   * X and Z coordinates of all chunks, rounded towards zero.
+   */
+  private static ChunkPos centroid(long sumX, long sumZ, int count) {
+    return new ChunkPos((int) (sumX / count), (int) (sumZ / count));
   }
 
   /**
@@ -104,6 +148,53 @@ public class PlayableArea {
     return centerChunk;
   }
 
+  /**
+   * Gets the smallest chunk X coordinate in this area.
+   *
+   * @return the western edge of the bounding box
+   */
+  public int getMinX() {
+    return minX;
+  }
+
+  /**
+   * Gets the smallest chunk Z coordinate in this area.
+   *
+   * @return the northern edge of the bounding box
+   */
+  public int getMinZ() {
+    return minZ;
+  }
+
+  /**
+   * Gets the largest chunk X coordinate in this area.
+   *
+   * @return the eastern edge of the bounding box
+   */
+  public int getMaxX() {
+    return maxX;
+  }
+
+  /**
+   * Gets the largest chunk Z coordinate in this area.
+   *
+   * @return the southern edge of the bounding box
+   */
+  public int getMaxZ() {
+    return maxZ;
+  }
+
+  /**
+   * Gets the perimeter of this area: the number of chunk edges that face a
+   * chunk outside the area. For a connected area this is the number of
+   * barrier walls around it.
+   *
+   * @return the perimeter length in chunk edges
+   */
+  public int getPerimeter() {
+    return perimeter;
+  }
+
   /**
    * Checks if a specific chunk is contained in this area.
    *
@@ -119,7 +210,8 @@ public class PlayableArea {
    * Checks if a chunk position is adjacent to this area.
    * <p>
    * A chunk is considered adjacent if it shares an edge (not diagonal) with
-   * any chunk in this area.
+   * any chunk in this area. Checked with at most four lookups, after a
+   * bounding box test.
    *
    * @param pos the chunk position to check
    * @return true if the chunk is adjacent to any chunk in this area
@@ -127,27 +219,30 @@ public class PlayableArea {
   public boolean isAdjacentTo(@NotNull ChunkPos pos) {
     Objects.requireNonNull(pos, "ChunkPos cannot be null");
 
-    for (ChunkPos chunk : chunks) {
-      if (isAdjacent(chunk, pos)) {
-        return true;
-      }
+    if (pos.x < minX - 1 || pos.x > maxX + 1 || pos.z < minZ - 1 || pos.z > maxZ + 1) {
+      return false;
     }
-    return false;
+    return countNeighbors(pos.x, pos.z) > 0;
   }
 
   /**
-   * Checks if two chunk positions are adjacent (share an edge).
-   *
-   * @param pos1 the first chunk position
-   * @param pos2 the second chunk position
-   * @return true if they are adjacent, false otherwise
+   * Counts the chunks of this area that share an edge with a position.
    */
-  private boolean isAdjacent(@NotNull ChunkPos pos1, @NotNull ChunkPos pos2) {
-    int dx = Math.abs(pos1.x - pos2.x);
-    int dz = Math.abs(pos1.z - pos2.z);
-
-    // Adjacent means: (dx == 1 && dz == 0) || (dx == 0 && dz == 1)
-    return (dx == 1 && dz == 0) || (dx == 0 && dz == 1);
+  private int countNeighbors(int x, int z) {
+    int count = 0;
+    if (chunks.contains(new ChunkPos(x, z - 1))) {
+      count++;
+    }
+    if (chunks.contains(new ChunkPos(x, z + 1))) {
+      count++;
+    }
+    if (chunks.contains(new ChunkPos(x + 1, z))) {
+      count++;
+    }
+    if (chunks.contains(new ChunkPos(x - 1, z))) {
+      count++;
+    }
+    return count;
   }
 
   /**
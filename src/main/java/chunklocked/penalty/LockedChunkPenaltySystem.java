@@ -2,6 +2,7 @@ package chunklocked.penalty;
 
 import chunklocked.Chunklocked;
 import chunklocked.core.ChunkManager;
+import chunklocked.core.DistanceField;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import net.minecraft.world.effect.MobEffectInstance;
 import net.minecraft.world.effect.MobEffects;
@@ -83,6 +84,11 @@ public class LockedChunkPenaltySystem {
    * very cheap operations.
    */
   private static void onServerTickEnd(MinecraftServer server) {
+    // Nothing to check against until the unlocked chunks have loaded
+    if (!Chunklocked.isDataReady()) {
+      return;
+    }
+
     for (ServerPlayer player : server.getPlayerList().getPlayers()) {
       if (player == null || player.isRemoved() || player.isSpectator()) {
         continue;
@@ -206,10 +212,16 @@ public class LockedChunkPenaltySystem {
 
     // Only send warning every WARNING_MESSAGE_INTERVAL ticks
     if (lastWarning == null || (currentTick - lastWarning) >= WARNING_MESSAGE_INTERVAL) {
+      ChunkManager chunkManager = Chunklocked.getChunkManager();
+      int distance = chunkManager != null ? chunkManager.distanceToUnlocked(chunk) : DistanceField.BEYOND;
+      String escape = distance == DistanceField.BEYOND
+          ? "§c⚠ Return to an unlocked chunk to escape the Wither effect"
+          : "§c⚠ Return to an unlocked chunk to escape the Wither effect (" + distance
+              + (distance == 1 ? " chunk away)" : " chunks away)");
       player.sendSystemMessage(
           Component.literal("§c⚠ WARNING: You are in a locked chunk with no credits!")
               .append("\n")
-              .append(Component.literal("§c⚠ Return to an unlocked chunk to escape the Wither effect")));
+              .append(Component.literal(escape)));
 
       lastWarningTick.put(player.getUUID(), currentTick);
 
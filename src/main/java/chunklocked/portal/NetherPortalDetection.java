@@ -3,7 +3,6 @@ package chunklocked.portal;
 import chunklocked.Chunklocked;
 import chunklocked.core.ChunkManager;
 import net.minecraft.server.level.ServerPlayer;
-import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.Level;
 import org.slf4j.Logger;
@@ -87,6 +86,17 @@ public class NetherPortalDetection {
     if (credits <= 0) {
       LOGGER.info("Player {} has no credits ({}) - cannot auto-unlock chunk",
           player.getUUID(), credits);
+      // Point the player back to the unlocked area
+      chunkManager.findNearestUnlockedChunk(currentChunk).ifPresent(nearest -> {
+        int distance = (int) Math.round(Math.sqrt(
+            (double) (nearest.x - currentChunk.x) * (nearest.x - currentChunk.x)
+                + (double) (nearest.z - currentChunk.z) * (nearest.z - currentChunk.z)));
+        player.sendSystemMessage(
+            net.minecraft.network.chat.Component.literal(
+                "§eNo credits to unlock this chunk. Nearest unlocked chunk: [" +
+                    nearest.x + ", " + nearest.z + "] (" + distance + " chunks away)"),
+            false);
+      });
       // Eventually add Wither effect here
       return;
     }
@@ -98,15 +108,7 @@ public class NetherPortalDetection {
       LOGGER.info("✓ Auto-unlocked chunk [{}, {}] for player {} via Nether portal exit",
           currentChunk.x, currentChunk.z, player.getUUID());
 
-      // Update barriers around the newly unlocked chunk and adjacent locked chunks
-      try {
-        ServerLevel world = (ServerLevel) player.level();
-        chunkManager.updateBarriersAfterUnlock(world, player.getUUID(), currentChunk);
-        LOGGER.info("✓ Updated barriers after unlocking chunk [{}, {}]", currentChunk.x, currentChunk.z);
-      } catch (Exception e) {
-        LOGGER.error("Failed to update barriers after unlocking chunk", e);
-      }
-
+      // Barriers around the chunk are rebuilt at the end of the tick
       player.sendSystemMessage(
           net.minecraft.network.chat.Component.literal(
               "§a✓ Chunk auto-unlocked via Nether portal! (Credits remaining: " +
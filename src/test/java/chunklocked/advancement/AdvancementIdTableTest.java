@@ -0,0 +1,60 @@
+package chunklocked.advancement;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link AdvancementIdTable}.
+ */
+class AdvancementIdTableTest {
+
+  private AdvancementIdTable table;
+
+  @BeforeEach
+  void setUp() {
+    table = new AdvancementIdTable();
+  }
+
+  @Test
+  void intern_NewIds_AssignsDenseIndexes() {
+    assertEquals(0, table.intern("minecraft:story/root"));
+    assertEquals(1, table.intern("minecraft:story/mine_stone"));
+    assertEquals(2, table.size());
+  }
+
+  @Test
+  void intern_SameId_ReturnsSameIndex() {
+    int first = table.intern("minecraft:story/root");
+
+    assertEquals(first, table.intern("minecraft:story/root"));
+    assertEquals(1, table.size(), "Interning twice should not grow the table");
+  }
+
+  @Test
+  void indexOf_UnknownId_ReturnsMinusOneWithoutAssigning() {
+    assertEquals(-1, table.indexOf("minecraft:story/root"));
+    assertEquals(0, table.size());
+  }
+
+  @Test
+  void nameOf_ReturnsInternedId() {
+    int index = table.intern("minecraft:nether/root");
+
+    assertEquals("minecraft:nether/root", table.nameOf(index));
+  }
+
+  @Test
+  void sharedProgression_SameIdAcrossPlayers_StoredOnce() {
+    PlayerProgressionData first = new PlayerProgressionData(table);
+    PlayerProgressionData second = new PlayerProgressionData(table);
+
+    first.markAdvancementRewarded("minecraft:story/root");
+    second.markAdvancementRewarded("minecraft:story/root");
+
+    assertEquals(1, table.size());
+    assertTrue(first.hasReceivedReward("minecraft:story/root"));
+    assertTrue(second.hasReceivedReward("minecraft:story/root"));
+  }
+}
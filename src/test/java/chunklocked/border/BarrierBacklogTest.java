@@ -0,0 +1,128 @@
+package chunklocked.border;
+
+import net.minecraft.world.level.ChunkPos;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link BarrierBacklog}, the world-free part of the
+ * {@link BarrierWorkQueue}.
+ */
+class BarrierBacklogTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void removals_ComeOutInQueueOrder() {
+    BarrierBacklog backlog = new BarrierBacklog();
+    for (long i = 0; i < 1000; i++) {
+      backlog.addRemoval(i);
+      if (i % 3 == 0) {
+        assertEquals(i / 3, backlog.pollRemoval()); // Interleaved polls force compaction
+      }
+    }
+
+    long expected = 334;
+    while (backlog.getRemovalCount() > 0) {
+      assertEquals(expected++, backlog.pollRemoval());
+    }
+    assertEquals(1000, expected);
+    assertThrows(IllegalStateException.class, backlog::pollRemoval);
+  }
+
+  @Test
+  void addRebuild_SameChunkTwice_QueuedOnce() {
+    BarrierBacklog backlog = new BarrierBacklog();
+
+    assertTrue(backlog.addRebuild(ChunkPos.asLong(1, 2)));
+    assertFalse(backlog.addRebuild(ChunkPos.asLong(1, 2)));
+
+    assertEquals(1, backlog.getRebuildCount());
+    assertTrue(backlog.isOrderStale());
+  }
+
+  @Test
+  void pollRebuild_NearestPlayerFirst() {
+    BarrierBacklog backlog = new BarrierBacklog();
+    backlog.addRebuild(ChunkPos.asLong(50, 50));
+    backlog.addRebuild(ChunkPos.asLong(-3, 0));
+    backlog.addRebuild(ChunkPos.asLong(10, 0));
+    backlog.addRebuild(ChunkPos.asLong(98, 101));
+
+    // One player at the origin, one at (100, 100)
+    backlog.prioritize(new long[] {ChunkPos.asLong(0, 0), ChunkPos.asLong(100, 100)});
+
+    assertFalse(backlog.isOrderStale());
+    assertEquals(ChunkPos.asLong(98, 101), backlog.pollRebuild()); // 5 from the second player
+    assertEquals(ChunkPos.asLong(-3, 0), backlog.pollRebuild()); // 9 from the first
+    assertEquals(ChunkPos.asLong(10, 0), backlog.pollRebuild());
+    assertEquals(ChunkPos.asLong(50, 50), backlog.pollRebuild());
+    assertThrows(IllegalStateException.class, backlog::pollRebuild);
+  }
+
+  @Test
+  void pollRebuild_AddedAfterPrioritize_StillHandedOut() {
+    BarrierBacklog backlog = new BarrierBacklog();
+    backlog.addRebuild(ChunkPos.asLong(0, 0));
+    backlog.prioritize(new long[0]);
+    backlog.addRebuild(ChunkPos.asLong(7, 7));
+
+    Set<Long> polled = new HashSet<>();
+    polled.add(backlog.pollRebuild());
+    polled.add(backlog.pollRebuild());
+
+    assertEquals(Set.of(ChunkPos.asLong(0, 0), ChunkPos.asLong(7, 7)), polled);
+    assertTrue(backlog.isEmpty());
+  }
+
+  @Test
+  void clearRebuilds_KeepsRemovals() {
+    BarrierBacklog backlog = new BarrierBacklog();
+    backlog.addRebuild(ChunkPos.asLong(0, 0));
+    backlog.prioritize(new long[0]);
+    backlog.addRemoval(42L);
+
+    backlog.clearRebuilds();
+
+    assertEquals(0, backlog.getRebuildCount());
+    assertEquals(1, backlog.getRemovalCount());
+    assertFalse(backlog.isEmpty());
+  }
+
+  @Test
+  void saveAndLoad_RoundTrip() throws IOException {
+    BarrierBacklog backlog = new BarrierBacklog();
+    backlog.addRemoval(3L);
+    backlog.addRemoval(-9L);
+    backlog.addRebuild(ChunkPos.asLong(-1, 4));
+    backlog.addRebuild(ChunkPos.asLong(2, -8));
+    Path file = tempDir.resolve(BarrierWorkQueue.FILE_NAME);
+
+    backlog.save(file);
+    BarrierBacklog loaded = BarrierBacklog.load(file);
+
+    assertEquals(3L, loaded.pollRemoval());
+    assertEquals(-9L, loaded.pollRemoval());
+    assertEquals(2, loaded.getRebuildCount());
+    loaded.prioritize(new long[] {ChunkPos.asLong(0, 0)});
+    assertEquals(ChunkPos.asLong(-1, 4), loaded.pollRebuild());
+    assertEquals(ChunkPos.asLong(2, -8), loaded.pollRebuild());
+  }
+
+  @Test
+  void load_UnrecognizedFile_Throws() throws IOException {
+    Path file = tempDir.resolve(BarrierWorkQueue.FILE_NAME);
+    Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+
+    assertThrows(IOException.class, () -> BarrierBacklog.load(file));
+  }
+}
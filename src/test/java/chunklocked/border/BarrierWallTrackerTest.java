@@ -0,0 +1,182 @@
+package chunklocked.border;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link BarrierWallTracker}.
+ */
+class BarrierWallTrackerTest {
+
+  private static final int MIN_Y = -64;
+  private static final int MAX_Y = 319;
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void add_TrackedOnceAndFoundAgain() {
+    BarrierWallTracker tracker = new BarrierWallTracker(MIN_Y, MAX_Y);
+
+    assertTrue(tracker.add(5, 70, 0, BarrierWallTracker.NORTH));
+    assertFalse(tracker.add(5, 70, 0, BarrierWallTracker.NORTH));
+
+    assertTrue(tracker.contains(5, 70, 0));
+    assertFalse(tracker.contains(5, 71, 0));
+    assertFalse(tracker.contains(5, 70, 1));
+    assertEquals(1, tracker.size());
+    assertEquals(1, tracker.wallCount());
+  }
+
+  @Test
+  void add_OutsideWall_Ignored() {
+    BarrierWallTracker tracker = new BarrierWallTracker(MIN_Y, MAX_Y);
+
+    assertFalse(tracker.add(0, MIN_Y - 1, 0, BarrierWallTracker.NORTH));
+    assertFalse(tracker.add(0, MAX_Y + 1, 0, BarrierWallTracker.NORTH));
+    assertFalse(tracker.add(0, 0, 1, BarrierWallTracker.NORTH)); // Not on the north edge
+    assertTrue(tracker.add(0, MAX_Y, 0, BarrierWallTracker.NORTH));
+
+    assertEquals(1, tracker.size());
+  }
+
+  @Test
+  void add_CornerThroughSecondWall_NotCountedTwice() {
+    BarrierWallTracker tracker = new BarrierWallTracker(MIN_Y, MAX_Y);
+
+    // (-16, y, -16) is the north-west corner of chunk (-1, -1)
+    assertTrue(tracker.add(-16, 0, -16, BarrierWallTracker.NORTH));
+    assertFalse(tracker.add(-16, 0, -16, BarrierWallTracker.WEST));
+    assertEquals(1, tracker.size());
+
+    assertTrue(tracker.remove(-16, 0, -16));
+    assertFalse(tracker.contains(-16, 0, -16));
+    assertEquals(0, tracker.size());
+    assertEquals(0, tracker.wallCount());
+  }
+
+  @Test
+  void removeChunk_ReportsEveryBarrierOfItsWalls() {
+    BarrierWallTracker tracker = new BarrierWallTracker(MIN_Y, MAX_Y);
+    Set<List<Integer>> expected = new HashSet<>();
+    for (int y = MIN_Y; y <= MAX_Y; y++) {
+      for (int i = 0; i < 16; i++) {
+        tracker.add(32 + i, y, -49, BarrierWallTracker.SOUTH); // Chunk (2, -4)
+        tracker.add(47, y, -64 + i, BarrierWallTracker.EAST);
+        expected.add(List.of(32 + i, y, -49));
+        expected.add(List.of(47, y, -64 + i));
+      }
+    }
+    tracker.add(48, 0, -64, BarrierWallTracker.WEST); // Neighbouring chunk (3, -4)
+
+    Set<List<Integer>> removed = new HashSet<>();
+    int count = tracker.removeChunk(2, -4, (x, y, z) -> removed.add(List.of(x, y, z)));
+
+    assertEquals(expected.size(), count);
+    assertEquals(expected, removed);
+    assertEquals(1, tracker.size());
+    assertTrue(tracker.contains(48, 0, -64));
+  }
+
+  @Test
+  void forEach_VisitsEveryBarrier() {
+    BarrierWallTracker tracker = new BarrierWallTracker(MIN_Y, MAX_Y);
+    tracker.add(0, -64, 0, BarrierWallTracker.WEST);
+    tracker.add(15, 319, 7, BarrierWallTracker.EAST);
+    tracker.add(-1000, 64, -1008, BarrierWallTracker.NORTH);
+
+    List<List<Integer>> visited = new ArrayList<>();
+    tracker.forEach((x, y, z) -> visited.add(List.of(x, y, z)));
+
+    assertEquals(Set.of(List.of(0, -64, 0), List.of(15, 319, 7), List.of(-1000, 64, -1008)),
+        new HashSet<>(visited));
+    assertEquals(3, visited.size());
+  }
+
+  @Test
+  void remove_ReleasedWallsAreReused() {
+    BarrierWallTracker tracker = new BarrierWallTracker(MIN_Y, MAX_Y);
+    for (int chunk = 0; chunk < 100; chunk++) {
+      tracker.add(chunk * 16, 0, 0, BarrierWallTracker.NORTH);
+    }
+    for (int chunk = 0; chunk < 100; chunk++) {
+      assertTrue(tracker.remove(chunk * 16, 0, 0));
+    }
+    assertEquals(0, tracker.wallCount());
+
+    tracker.add(5, 5, 15, BarrierWallTracker.SOUTH);
+
+    assertTrue(tracker.contains(5, 5, 15));
+    assertFalse(tracker.contains(0, 0, 0)); // Reused slot starts empty
+    assertEquals(1, tracker.size());
+  }
+
+  @Test
+  void clear_ForgetsEverything() {
+    BarrierWallTracker tracker = new BarrierWallTracker(MIN_Y, MAX_Y);
+    tracker.add(0, 0, 0, BarrierWallTracker.NORTH);
+
+    tracker.clear();
+
+    assertFalse(tracker.contains(0, 0, 0));
+    assertEquals(0, tracker.size());
+    assertEquals(0, tracker.wallCount());
+  }
+
+  @Test
+  void saveAndLoad_RoundTrip() throws IOException {
+    BarrierWallTracker tracker = new BarrierWallTracker(MIN_Y, MAX_Y);
+    for (int y = MIN_Y; y <= MAX_Y; y += 7) {
+      tracker.add(-33, y, -20, BarrierWallTracker.WEST);
+      tracker.add(100, y, 31, BarrierWallTracker.SOUTH);
+    }
+    tracker.add(101, 5, 31, BarrierWallTracker.SOUTH);
+    tracker.remove(100, MIN_Y, 31); // Leaves a freed slot behind
+    tracker.remove(-33, MIN_Y, -20);
+    Path file = tempDir.resolve(ChunkBarrierManager.FILE_NAME);
+
+    tracker.save(file);
+    BarrierWallTracker loaded = new BarrierWallTracker(MIN_Y, MAX_Y);
+    loaded.add(0, 0, 0, BarrierWallTracker.NORTH); // Replaced by the load
+    loaded.load(file);
+
+    Set<List<Integer>> expected = new HashSet<>();
+    tracker.forEach((x, y, z) -> expected.add(List.of(x, y, z)));
+    Set<List<Integer>> actual = new HashSet<>();
+    loaded.forEach((x, y, z) -> actual.add(List.of(x, y, z)));
+    assertEquals(expected, actual);
+    assertEquals(tracker.size(), loaded.size());
+    assertEquals(tracker.wallCount(), loaded.wallCount());
+    assertFalse(loaded.contains(0, 0, 0));
+  }
+
+  @Test
+  void load_DifferentWorldHeight_ThrowsAndLeavesEmpty() throws IOException {
+    BarrierWallTracker tracker = new BarrierWallTracker(0, 255);
+    tracker.add(0, 10, 0, BarrierWallTracker.NORTH);
+    Path file = tempDir.resolve(ChunkBarrierManager.FILE_NAME);
+    tracker.save(file);
+
+    BarrierWallTracker other = new BarrierWallTracker(MIN_Y, MAX_Y);
+    assertThrows(IOException.class, () -> other.load(file));
+    assertEquals(0, other.size());
+  }
+
+  @Test
+  void load_UnrecognizedFile_Throws() throws IOException {
+    Path file = tempDir.resolve(ChunkBarrierManager.FILE_NAME);
+    Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+
+    assertThrows(IOException.class, () -> new BarrierWallTracker(MIN_Y, MAX_Y).load(file));
+  }
+}
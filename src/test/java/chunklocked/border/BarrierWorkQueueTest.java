@@ -0,0 +1,54 @@
+package chunklocked.border;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.ChunkPos;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the world-free parts of {@link BarrierWorkQueue}.
+ */
+class BarrierWorkQueueTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void clearAll_UnloadedChunkAfterTrackingReload_RemovalSurvivesRestart() {
+    // A wall barrier of chunk (3, -2), tracked and saved by an earlier run
+    BlockPos barrier = new BlockPos(48, 70, -32);
+    ChunkBarrierManager previousRun = new ChunkBarrierManager();
+    previousRun.trackBarrier(barrier);
+    previousRun.saveTracking(tempDir);
+
+    ChunkBarrierManager barrierManager = new ChunkBarrierManager();
+    assertTrue(barrierManager.loadTracking(tempDir));
+    assertFalse(barrierManager.isStrayScanEnabled());
+    BarrierWorkQueue queue = new BarrierWorkQueue(barrierManager, null, tempDir, 5);
+
+    assertEquals(1, queue.queueClearAll());
+    assertFalse(barrierManager.isTrackedBarrier(barrier));
+
+    // The tick finds the chunk unloaded
+    queue.deferRemoval(barrier);
+
+    assertTrue(barrierManager.isTrackedBarrier(barrier));
+    assertTrue(queue.getLazyLoader().isAwaitingLoad(new ChunkPos(3, -2)));
+
+    // The server stops before the chunk loads
+    queue.save();
+    barrierManager.saveTracking(tempDir);
+
+    ChunkBarrierManager nextManager = new ChunkBarrierManager();
+    assertTrue(nextManager.loadTracking(tempDir));
+    BarrierWorkQueue nextQueue = new BarrierWorkQueue(nextManager, null, tempDir, 5);
+    nextQueue.load();
+
+    assertTrue(nextManager.isTrackedBarrier(barrier)); // Removed by the chunk's rebuild, no scan needed
+    assertEquals(1, nextQueue.getPendingRebuilds());
+  }
+}
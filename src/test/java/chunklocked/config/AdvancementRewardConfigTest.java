@@ -111,6 +111,34 @@ class AdvancementRewardConfigTest {
         "Error message should mention null value");
   }
 
+  @Test
+  void testSetDistanceFieldRadius_OutOfRange_ThrowsException() {
+    assertEquals(16, config.getDistanceFieldRadius(), "Default radius should be 16");
+    config.setDistanceFieldRadius(256); // Should be valid
+    assertTrue(config.validate(), "Maximum radius should be valid");
+
+    Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+      config.setDistanceFieldRadius(0);
+    });
+
+    assertTrue(exception.getMessage().contains("distanceFieldRadius"),
+        "Error message should name the field");
+  }
+
+  @Test
+  void testSetBarrierTickBudgetMillis_OutOfRange_ThrowsException() {
+    assertEquals(5, config.getBarrierTickBudgetMillis(), "Default budget should be 5 ms");
+    config.setBarrierTickBudgetMillis(50); // Should be valid
+    assertTrue(config.validate(), "Maximum budget should be valid");
+
+    Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+      config.setBarrierTickBudgetMillis(51);
+    });
+
+    assertTrue(exception.getMessage().contains("barrierTickBudgetMillis"),
+        "Error message should name the field");
+  }
+
   @Test
   void testValidate_NullBlacklist_ThrowsException() {
     Exception exception = assertThrows(IllegalArgumentException.class, () -> {
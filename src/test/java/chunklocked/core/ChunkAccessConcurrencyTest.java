@@ -0,0 +1,169 @@
+package chunklocked.core;
+
+import chunklocked.advancement.AdvancementCreditManager;
+import net.minecraft.world.level.ChunkPos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress tests for the lock-free read path: reader threads query
+ * {@link ChunkAccessManager} and {@link ChunkManager} while the test thread,
+ * standing in for the server thread, keeps unlocking and locking chunks.
+ */
+class ChunkAccessConcurrencyTest {
+
+  private static final int READERS = 4;
+  private static final UUID PLAYER = UUID.randomUUID();
+
+  @TempDir
+  Path tempDir;
+
+  private ChunkUnlockData data;
+  private ChunkManager chunkManager;
+  private ChunkAccessManager accessManager;
+
+  @BeforeEach
+  void setUp() {
+    AdvancementCreditManager creditManager = new AdvancementCreditManager();
+    data = new ChunkUnlockData(creditManager, tempDir);
+    data.load();
+    chunkManager = new ChunkManager(data, creditManager);
+    accessManager = new ChunkAccessManager(chunkManager);
+  }
+
+  @Test
+  void readersDuringUnlocks_NeverSeeUnlocksOutOfOrder() throws InterruptedException {
+    int count = 20_000;
+
+    // Chunks are unlocked in order along the X axis, so a reader that saw
+    // chunk k unlocked must see every chunk before it unlocked too
+    Readers readers = new Readers(random -> {
+      int k = random.nextInt(count);
+      if (accessManager.canAccessChunk(PLAYER, new ChunkPos(k, 0))) {
+        int j = random.nextInt(k + 1);
+        assertTrue(chunkManager.isChunkUnlockedGlobally(j, 0), "Chunk " + j + " unlocked before " + k);
+      }
+    });
+
+    for (int x = 0; x < count; x++) {
+      data.unlockChunk(new ChunkPos(x, 0));
+    }
+    readers.stop();
+
+    assertEquals(count, chunkManager.getGlobalChunkCount());
+  }
+
+  @Test
+  void readersDuringChurn_SeeUntouchedChunksUnchanged() throws InterruptedException {
+    // A fixed block of unlocked chunks, plus one chunk that is never unlocked
+    for (int x = 0; x < 20; x++) {
+      for (int z = 0; z < 20; z++) {
+        data.unlockChunk(new ChunkPos(x, z));
+      }
+    }
+    ChunkPos neverUnlocked = new ChunkPos(-1, -1);
+
+    Readers readers = new Readers(random -> {
+      ChunkPos pos = new ChunkPos(random.nextInt(20), random.nextInt(20));
+      assertTrue(accessManager.canAccessChunk(PLAYER, pos), "Untouched chunk " + pos + " reads as locked");
+      assertTrue(chunkManager.isChunkUnlockedGlobally(pos));
+      assertFalse(accessManager.canAccessChunk(PLAYER, neverUnlocked));
+      assertTrue(accessManager.isAdjacentToUnlockedChunk(PLAYER, new ChunkPos(20, 0)));
+    });
+
+    // Churn chunks away from the fixed block, growing and shrinking the set
+    Random random = new Random(3);
+    for (int i = 0; i < 100_000; i++) {
+      ChunkPos pos = new ChunkPos(20 + random.nextInt(200), random.nextInt(200));
+      if (random.nextInt(3) == 0) {
+        data.lockChunk(pos);
+      } else {
+        data.unlockChunk(pos);
+      }
+    }
+    readers.stop();
+  }
+
+  @Test
+  void snapshots_StayConsistentWhileWriterContinues() throws InterruptedException {
+    Readers readers = new Readers(random -> {
+      ChunkSetSnapshot snapshot = chunkManager.getGlobalUnlockedChunks();
+      int iterated = 0;
+      for (ChunkPos pos : snapshot) {
+        assertTrue(snapshot.contains(pos.x, pos.z));
+        iterated++;
+      }
+      assertEquals(snapshot.size(), iterated, "Snapshot size and contents disagree");
+    });
+
+    Random random = new Random(5);
+    for (int i = 0; i < 20_000; i++) {
+      ChunkPos pos = new ChunkPos(random.nextInt(60), random.nextInt(60));
+      if (random.nextBoolean()) {
+        data.unlockChunk(pos);
+      } else {
+        data.lockChunk(pos);
+      }
+    }
+    readers.stop();
+  }
+
+  /**
+   * Reader threads running a check in a loop until stopped. The first failure
+   * is rethrown by {@link #stop()}.
+   */
+  private static final class Readers {
+    private final List<Thread> threads = new ArrayList<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile boolean running = true;
+
+    Readers(ReadCheck check) throws InterruptedException {
+      CountDownLatch started = new CountDownLatch(READERS);
+      for (int i = 0; i < READERS; i++) {
+        Random random = new Random(i);
+        Thread thread = new Thread(() -> {
+          started.countDown();
+          try {
+            while (running) {
+              check.run(random);
+            }
+          } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+          }
+        }, "chunk-reader-" + i);
+        thread.setDaemon(true);
+        threads.add(thread);
+        thread.start();
+      }
+      assertTrue(started.await(10, TimeUnit.SECONDS));
+    }
+
+    void stop() throws InterruptedException {
+      running = false;
+      for (Thread thread : threads) {
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(thread.isAlive(), thread.getName() + " did not stop");
+      }
+      if (failure.get() != null) {
+        fail("Reader failed: " + failure.get(), failure.get());
+      }
+    }
+  }
+
+  @FunctionalInterface
+  private interface ReadCheck {
+    void run(Random random);
+  }
+}
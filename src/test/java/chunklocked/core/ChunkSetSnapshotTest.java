@@ -0,0 +1,77 @@
+package chunklocked.core;
+
+import chunklocked.advancement.AdvancementCreditManager;
+import net.minecraft.world.level.ChunkPos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the versioned snapshots returned by
+ * {@link ChunkUnlockData#getGlobalUnlockedChunks()}.
+ */
+class ChunkSetSnapshotTest {
+
+  @TempDir
+  Path tempDir;
+
+  private ChunkUnlockData data;
+
+  @BeforeEach
+  void setUp() {
+    data = new ChunkUnlockData(new AdvancementCreditManager(), tempDir);
+    data.load();
+  }
+
+  @Test
+  void unchangedSet_ReturnsSameSnapshot() {
+    data.unlockChunk(new ChunkPos(1, 2));
+
+    ChunkSetSnapshot first = data.getGlobalUnlockedChunks();
+    data.unlockChunk(new ChunkPos(1, 2)); // Already unlocked: no change
+
+    assertSame(first, data.getGlobalUnlockedChunks());
+  }
+
+  @Test
+  void change_LeavesOldSnapshotIntact() {
+    data.unlockChunk(new ChunkPos(1, 2));
+    ChunkSetSnapshot before = data.getGlobalUnlockedChunks();
+
+    data.lockChunk(new ChunkPos(1, 2));
+    data.unlockChunk(new ChunkPos(3, 4));
+    ChunkSetSnapshot after = data.getGlobalUnlockedChunks();
+
+    assertEquals(Set.of(new ChunkPos(1, 2)), before);
+    assertEquals(Set.of(new ChunkPos(3, 4)), after);
+    assertTrue(after.getVersion() > before.getVersion());
+    assertTrue(after.contains(3, 4));
+    assertFalse(after.contains(new ChunkPos(1, 2)));
+  }
+
+  @Test
+  void snapshot_IsImmutable() {
+    data.unlockChunk(new ChunkPos(0, 0));
+    ChunkSetSnapshot snapshot = data.getGlobalUnlockedChunks();
+
+    assertThrows(UnsupportedOperationException.class, () -> snapshot.add(new ChunkPos(5, 5)));
+    assertThrows(UnsupportedOperationException.class, () -> snapshot.remove(new ChunkPos(0, 0)));
+    assertEquals(1, data.getGlobalUnlockedChunkCount());
+  }
+
+  @Test
+  void load_InvalidatesEmptySnapshot() {
+    data.unlockChunk(new ChunkPos(6, 6));
+    data.save();
+
+    ChunkUnlockData loaded = new ChunkUnlockData(new AdvancementCreditManager(), tempDir);
+    loaded.load();
+
+    assertEquals(Set.of(new ChunkPos(6, 6)), loaded.getGlobalUnlockedChunks());
+  }
+}
@@ -0,0 +1,204 @@
+package chunklocked.core;
+
+import chunklocked.advancement.AdvancementCreditManager;
+import net.minecraft.world.level.ChunkPos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ChunkTransaction}: staged changes are validated as a
+ * whole and applied all at once, or not at all.
+ */
+class ChunkTransactionTest {
+
+  @TempDir
+  Path tempDir;
+
+  private ChunkUnlockData data;
+  private ChunkManager chunkManager;
+  private final UUID player = UUID.randomUUID();
+
+  @BeforeEach
+  void setUp() {
+    AdvancementCreditManager creditManager = new AdvancementCreditManager();
+    data = new ChunkUnlockData(creditManager, tempDir);
+    data.load();
+    chunkManager = new ChunkManager(data, creditManager);
+    chunkManager.forceUnlockChunk(player, new ChunkPos(0, 0));
+  }
+
+  @Test
+  void commit_ConnectedChain_AppliesAllAsOneChange() {
+    chunkManager.addCredits(player, 3);
+    long versionBefore = data.getChunkSetVersion();
+
+    ChunkTransaction.CommitResult result = chunkManager.beginTransaction()
+        .unlock(player, new ChunkPos(3, 0)) // Connects through the two below
+        .unlock(player, new ChunkPos(2, 0))
+        .unlock(player, new ChunkPos(1, 0))
+        .commit();
+
+    assertTrue(result.committed(), result.failure());
+    assertEquals(Set.of(new ChunkPos(1, 0), new ChunkPos(2, 0), new ChunkPos(3, 0)), result.unlocked());
+    assertEquals(Set.of(player), result.players());
+    assertEquals(0, chunkManager.getAvailableCredits(player));
+    assertEquals(4, chunkManager.getGlobalChunkCount());
+    assertEquals(versionBefore + 1, data.getChunkSetVersion(), "The batch should be one version");
+
+    ChunkUnlockData.ChunkChanges changes = data.drainChanges();
+    assertEquals(result.unlocked(), changes.unlocked(), "Listeners should see the whole batch");
+    assertEquals(Set.of(player), changes.players());
+  }
+
+  @Test
+  void commit_NotEnoughCredits_AppliesNothing() {
+    chunkManager.addCredits(player, 1);
+
+    ChunkTransaction.CommitResult result = chunkManager.beginTransaction()
+        .unlock(player, new ChunkPos(1, 0))
+        .unlock(player, new ChunkPos(2, 0))
+        .commit();
+
+    assertFalse(result.committed());
+    assertTrue(result.failure().contains("credits"));
+    assertFalse(chunkManager.isChunkUnlockedGlobally(1, 0));
+    assertEquals(1, chunkManager.getAvailableCredits(player));
+  }
+
+  @Test
+  void commit_DisconnectedChunk_AppliesNothing() {
+    chunkManager.addCredits(player, 2);
+
+    ChunkTransaction.CommitResult result = chunkManager.beginTransaction()
+        .unlock(player, new ChunkPos(1, 0))
+        .unlock(player, new ChunkPos(5, 5))
+        .commit();
+
+    assertFalse(result.committed());
+    assertTrue(result.failure().contains("[5, 5]"), result.failure());
+    assertEquals(1, chunkManager.getGlobalChunkCount());
+    assertEquals(2, chunkManager.getAvailableCredits(player));
+  }
+
+  @Test
+  void commit_ForcedUnlock_ConnectsPaidUnlocks() {
+    chunkManager.addCredits(player, 1);
+
+    ChunkTransaction.CommitResult result = chunkManager.beginTransaction()
+        .forceUnlock(new ChunkPos(10, 10))
+        .unlock(player, new ChunkPos(10, 11))
+        .commit();
+
+    assertTrue(result.committed(), result.failure());
+    assertTrue(chunkManager.isChunkUnlockedGlobally(10, 11));
+    assertEquals(0, chunkManager.getAvailableCredits(player));
+  }
+
+  @Test
+  void commit_LockedNeighbour_NoLongerConnects() {
+    chunkManager.addCredits(player, 1);
+
+    ChunkTransaction.CommitResult result = chunkManager.beginTransaction()
+        .lock(new ChunkPos(0, 0))
+        .unlock(player, new ChunkPos(0, 1))
+        .forceUnlock(new ChunkPos(9, 9))
+        .commit();
+
+    assertFalse(result.committed());
+    assertTrue(chunkManager.isChunkUnlockedGlobally(0, 0));
+  }
+
+  @Test
+  void commit_LocksAndCreditChanges_AppliedTogether() {
+    UUID other = UUID.randomUUID();
+    chunkManager.forceUnlockChunk(player, new ChunkPos(1, 0));
+
+    ChunkTransaction.CommitResult result = chunkManager.beginTransaction()
+        .lock(new ChunkPos(1, 0))
+        .addCredits(player, 2)
+        .addCredits(other, 1)
+        .addCredits(other, -1)
+        .commit();
+
+    assertTrue(result.committed(), result.failure());
+    assertEquals(Set.of(new ChunkPos(1, 0)), result.locked());
+    assertEquals(Set.of(player), result.players(), "A net change of zero is no change");
+    assertFalse(chunkManager.isChunkUnlockedGlobally(1, 0));
+    assertEquals(2, chunkManager.getAvailableCredits(player));
+  }
+
+  @Test
+  void commit_AlreadyUnlockedOrStagedTwice_Rejected() {
+    chunkManager.addCredits(player, 5);
+
+    assertFalse(chunkManager.beginTransaction()
+        .unlock(player, new ChunkPos(0, 0))
+        .commit().committed());
+    assertFalse(chunkManager.beginTransaction()
+        .forceUnlock(new ChunkPos(3, 3))
+        .lock(new ChunkPos(3, 3))
+        .commit().committed());
+    assertFalse(chunkManager.beginTransaction()
+        .lock(new ChunkPos(7, 7))
+        .commit().committed());
+    assertEquals(5, chunkManager.getAvailableCredits(player));
+  }
+
+  @Test
+  void commit_EmptyWorld_FirstPaidUnlockStartsArea() {
+    chunkManager.lockChunk(player, new ChunkPos(0, 0));
+    chunkManager.addCredits(player, 2);
+
+    ChunkTransaction.CommitResult result = chunkManager.beginTransaction()
+        .unlock(player, new ChunkPos(50, 50))
+        .unlock(player, new ChunkPos(50, 51))
+        .commit();
+
+    assertTrue(result.committed(), result.failure());
+    assertEquals(2, chunkManager.getGlobalChunkCount());
+  }
+
+  @Test
+  void finishedTransaction_Throws() {
+    ChunkTransaction transaction = chunkManager.beginTransaction();
+    transaction.commit();
+
+    assertThrows(IllegalStateException.class, () -> transaction.lock(new ChunkPos(0, 0)));
+    assertThrows(IllegalStateException.class, () -> transaction.commit());
+  }
+
+  @Test
+  void tryUnlockChunks_StopsWhenCreditsRunOut() {
+    chunkManager.addCredits(player, 2);
+    Set<ChunkPos> positions = new LinkedHashSet<>(List.of(
+        new ChunkPos(1, 0), new ChunkPos(2, 0), new ChunkPos(3, 0)));
+
+    assertEquals(2, chunkManager.tryUnlockChunks(player, positions));
+    assertTrue(chunkManager.isChunkUnlockedGlobally(2, 0));
+    assertFalse(chunkManager.isChunkUnlockedGlobally(3, 0));
+    assertEquals(0, chunkManager.getAvailableCredits(player));
+  }
+
+  @Test
+  void tryUnlockChunks_NotAdjacent_StillUnlockedLikeSingleUnlocks() {
+    chunkManager.addCredits(player, 3);
+    Set<ChunkPos> positions = new LinkedHashSet<>(List.of(
+        new ChunkPos(1, 0), new ChunkPos(9, 9), new ChunkPos(0, 0), new ChunkPos(2, 0)));
+
+    // (9, 9) is not adjacent, as tryUnlockChunk allows; (0, 0) is unlocked
+    // already and stops the batch
+    assertEquals(2, chunkManager.tryUnlockChunks(player, positions));
+    assertTrue(chunkManager.isChunkUnlockedGlobally(9, 9));
+    assertFalse(chunkManager.isChunkUnlockedGlobally(2, 0));
+    assertEquals(1, chunkManager.getAvailableCredits(player));
+  }
+}
@@ -0,0 +1,131 @@
+package chunklocked.core;
+
+import chunklocked.advancement.AdvancementCreditManager;
+import net.minecraft.world.level.ChunkPos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the per-tick change batches of {@link ChunkUnlockData}, as
+ * delivered to {@link ChunkUnlockStateChangedCallback} listeners.
+ */
+class ChunkUnlockDataChangesTest {
+
+  private static final UUID PLAYER = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+  @TempDir
+  Path tempDir;
+
+  private ChunkUnlockData data;
+  private ChunkManager chunkManager;
+
+  @BeforeEach
+  void setUp() {
+    AdvancementCreditManager creditManager = new AdvancementCreditManager();
+    data = new ChunkUnlockData(creditManager, tempDir);
+    data.load();
+    chunkManager = new ChunkManager(data, creditManager);
+  }
+
+  @Test
+  void drainChanges_NothingChanged_ReturnsNull() {
+    assertNull(data.drainChanges());
+  }
+
+  @Test
+  void drainChanges_ReportsEachChangeOnce() {
+    data.unlockChunk(new ChunkPos(0, 0));
+    data.unlockChunk(new ChunkPos(1, 0));
+
+    ChunkUnlockData.ChunkChanges changes = data.drainChanges();
+
+    assertNotNull(changes);
+    assertEquals(Set.of(new ChunkPos(0, 0), new ChunkPos(1, 0)), changes.unlocked());
+    assertTrue(changes.locked().isEmpty());
+    assertEquals(data.getChunkSetVersion(), changes.version());
+    assertNull(data.drainChanges(), "A drained change should not be reported again");
+  }
+
+  @Test
+  void drainChanges_ChunkChangedBack_CancelsOut() {
+    data.unlockChunk(new ChunkPos(0, 0));
+    data.drainChanges();
+
+    data.unlockChunk(new ChunkPos(5, 5));
+    data.lockChunk(new ChunkPos(5, 5)); // Unlocked and locked in the same batch
+    data.lockChunk(new ChunkPos(0, 0));
+    data.unlockChunk(new ChunkPos(0, 0)); // Locked and unlocked in the same batch
+    data.lockChunk(new ChunkPos(7, 7)); // Never unlocked
+
+    assertNull(data.drainChanges(), "Changes that cancel out should not be reported");
+  }
+
+  @Test
+  void drainChanges_BatchAndClear_ReportNetChanges() {
+    data.unlockChunk(new ChunkPos(0, 0));
+    data.unlockChunk(new ChunkPos(1, 0));
+    data.drainChanges();
+
+    data.applyChanges(List.of(new ChunkPos(2, 0)), List.of(new ChunkPos(0, 0)));
+    data.clearAllChunks();
+
+    ChunkUnlockData.ChunkChanges changes = data.drainChanges();
+    assertTrue(changes.unlocked().isEmpty(), "The chunk unlocked in the batch was cleared again");
+    assertEquals(Set.of(new ChunkPos(0, 0), new ChunkPos(1, 0)), changes.locked());
+    assertEquals(changes.locked(), changes.changedChunks());
+  }
+
+  @Test
+  void drainChanges_CreditChanges_ReportPlayers() {
+    chunkManager.forceUnlockChunk(PLAYER, new ChunkPos(0, 0));
+    chunkManager.addCredits(PLAYER, 2);
+    assertTrue(chunkManager.tryUnlockChunk(PLAYER, new ChunkPos(1, 0)));
+    assertEquals(1, chunkManager.tryUnlockChunks(PLAYER, Set.of(new ChunkPos(2, 0))));
+
+    ChunkUnlockData.ChunkChanges changes = data.drainChanges();
+
+    assertEquals(Set.of(PLAYER), changes.players());
+    assertEquals(3, changes.unlocked().size());
+
+    chunkManager.setCredits(PLAYER, 0); // Already 0
+    assertNull(data.drainChanges());
+  }
+
+  @Test
+  void drainChanges_Rollback_ReportsRestoredChunksAndPlayers() {
+    chunkManager.addCredits(PLAYER, 1);
+    chunkManager.forceUnlockChunk(PLAYER, new ChunkPos(0, 0));
+    data.save();
+    long checkpoint = data.getHistory().getLatestVersion();
+    assertTrue(chunkManager.tryUnlockChunk(PLAYER, new ChunkPos(1, 0)));
+    data.drainChanges();
+
+    chunkManager.rollback(checkpoint);
+
+    ChunkUnlockData.ChunkChanges changes = data.drainChanges();
+    assertEquals(Set.of(new ChunkPos(1, 0)), changes.locked());
+    assertEquals(Set.of(PLAYER), changes.players());
+  }
+
+  @Test
+  void load_ReplayedStateIsNotAChange() {
+    data.unlockChunk(new ChunkPos(0, 0));
+    data.save();
+    data.unlockChunk(new ChunkPos(1, 0));
+    assertTrue(data.appendJournal(data.drainJournal()));
+
+    ChunkUnlockData loaded = new ChunkUnlockData(new AdvancementCreditManager(), tempDir);
+    loaded.load();
+
+    assertEquals(2, loaded.getGlobalUnlockedChunkCount());
+    assertNull(loaded.drainChanges(), "Loaded chunks should not be reported as unlocked");
+  }
+}
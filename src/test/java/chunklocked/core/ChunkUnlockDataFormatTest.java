@@ -0,0 +1,241 @@
+package chunklocked.core;
+
+import chunklocked.advancement.AdvancementCreditManager;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtAccounter;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.world.level.ChunkPos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the on-disk chunk layout of {@link ChunkUnlockData}.
+ * <p>
+ * Covers the v6 packed long array format and migration from the older
+ * list-of-compounds (v3-v5) and per-player (v2) layouts, and the streaming
+ * loader used for v7 snapshots.
+ */
+class ChunkUnlockDataFormatTest {
+
+  @TempDir
+  Path tempDir;
+
+  private AdvancementCreditManager creditManager;
+  private ChunkUnlockData data;
+
+  @BeforeEach
+  void setUp() {
+    creditManager = new AdvancementCreditManager();
+    data = new ChunkUnlockData(creditManager, tempDir);
+  }
+
+  // ========== CODEC TESTS ==========
+
+  @Test
+  void encodeDecode_RoundTrip_PreservesAllChunks() {
+    Set<ChunkPos> chunks = new HashSet<>();
+    for (int x = -20; x < 20; x++) {
+      for (int z = -20; z < 20; z++) {
+        chunks.add(new ChunkPos(x * 7, z * 3));
+      }
+    }
+    chunks.add(new ChunkPos(1_875_000, -1_875_000));
+    chunks.add(new ChunkPos(-1_875_000, 1_875_000));
+
+    long[] encoded = ChunkUnlockData.encodeChunks(chunks);
+    Set<ChunkPos> decoded = new HashSet<>();
+    ChunkUnlockData.decodeChunks(encoded, decoded::add);
+
+    assertEquals(chunks.size(), encoded.length, "One long per chunk");
+    assertEquals(chunks, decoded, "Decoded chunks should match the originals");
+  }
+
+  @Test
+  void encode_EmptySet_ReturnsEmptyArray() {
+    assertEquals(0, ChunkUnlockData.encodeChunks(Set.of()).length);
+  }
+
+  @Test
+  void encode_Sorted_DeltasAreNonNegative() {
+    List<ChunkPos> chunks = new ArrayList<>();
+    for (int x = 0; x < 16; x++) {
+      chunks.add(new ChunkPos(x, 4));
+    }
+
+    long[] encoded = ChunkUnlockData.encodeChunks(chunks);
+
+    for (int i = 1; i < encoded.length; i++) {
+      assertEquals(1L, encoded[i], "A contiguous row should encode as unit deltas");
+    }
+  }
+
+  // ========== SAVE / LOAD TESTS ==========
+
+  @Test
+  void save_WritesLongArray() throws IOException {
+    data.unlockChunk(new ChunkPos(0, 0));
+    data.unlockChunk(new ChunkPos(-3, 9));
+    data.save();
+
+    CompoundTag nbt = NbtIo.readCompressed(tempDir.resolve("chunklocked_data.nbt"), NbtAccounter.unlimitedHeap());
+
+    assertTrue(nbt.getLongArray("GlobalUnlockedChunks").isPresent(),
+        "v6 saves should store chunks as a long array");
+    assertEquals(2, nbt.getLongArray("GlobalUnlockedChunks").get().length);
+  }
+
+  @Test
+  void saveAndLoad_PreservesChunks() {
+    Set<ChunkPos> chunks = Set.of(new ChunkPos(0, 0), new ChunkPos(1, 0), new ChunkPos(-5, -5));
+    chunks.forEach(data::unlockChunk);
+    data.save();
+
+    ChunkUnlockData loaded = new ChunkUnlockData(creditManager, tempDir);
+    loaded.load();
+
+    assertEquals(chunks, loaded.getGlobalUnlockedChunks());
+  }
+
+  @Test
+  void load_V5ListFormat_MigratesChunks() throws IOException {
+    CompoundTag nbt = new CompoundTag();
+    nbt.putInt("DataVersion", 5);
+    ListTag chunksList = new ListTag();
+    chunksList.add(chunkCompound(2, 3));
+    chunksList.add(chunkCompound(-4, 7));
+    nbt.put("GlobalUnlockedChunks", chunksList);
+    writeSave(nbt);
+
+    ChunkUnlockData loaded = new ChunkUnlockData(creditManager, tempDir);
+    loaded.load();
+
+    assertEquals(Set.of(new ChunkPos(2, 3), new ChunkPos(-4, 7)), loaded.getGlobalUnlockedChunks());
+
+    // Re-saving upgrades the file to the packed layout
+    loaded.save();
+    CompoundTag upgraded = NbtIo.readCompressed(tempDir.resolve("chunklocked_data.nbt"),
+        NbtAccounter.unlimitedHeap());
+    assertEquals(7, upgraded.getInt("DataVersion").orElse(0));
+    assertTrue(upgraded.getLongArray("GlobalUnlockedChunks").isPresent());
+  }
+
+  @Test
+  void load_V2PerPlayerFormat_MigratesChunks() throws IOException {
+    CompoundTag nbt = new CompoundTag();
+    nbt.putInt("DataVersion", 2);
+    CompoundTag players = new CompoundTag();
+    CompoundTag player = new CompoundTag();
+    ListTag chunksList = new ListTag();
+    chunksList.add(chunkCompound(10, 10));
+    chunksList.add(chunkCompound(11, 10));
+    player.put("UnlockedChunks", chunksList);
+    players.put("00000000-0000-0000-0000-000000000001", player);
+    nbt.put("Players", players);
+    writeSave(nbt);
+
+    ChunkUnlockData loaded = new ChunkUnlockData(creditManager, tempDir);
+    loaded.load();
+
+    assertEquals(Set.of(new ChunkPos(10, 10), new ChunkPos(11, 10)), loaded.getGlobalUnlockedChunks());
+  }
+
+  // ========== STREAMING LOAD TESTS ==========
+
+  @Test
+  void load_V7Snapshot_StreamsEveryField() {
+    UUID player = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    data.setMode(ChunklockedMode.HARD);
+    data.unlockChunk(new ChunkPos(4, -4));
+    data.markStarterItemsGiven(player);
+    data.setBarriersEnabled(false);
+    data.save();
+
+    SnapshotStreamReader reader = new SnapshotStreamReader(chunk -> {
+    }, id -> {
+    });
+    assertDoesNotThrow(() -> NbtIo.parseCompressed(tempDir.resolve("chunklocked_data.nbt"), reader,
+        NbtAccounter.unlimitedHeap()));
+    assertFalse(reader.isLegacyLayout(), "v7 snapshots should be streamed");
+
+    ChunkUnlockData loaded = new ChunkUnlockData(creditManager, tempDir);
+    loaded.load();
+
+    assertEquals(Set.of(new ChunkPos(4, -4)), loaded.getGlobalUnlockedChunks());
+    assertEquals(ChunklockedMode.HARD, loaded.getMode());
+    assertTrue(loaded.isModeImmutable());
+    assertTrue(loaded.hasReceivedStarterItems(player));
+    assertFalse(loaded.areBarriersEnabled());
+  }
+
+  @Test
+  void streamReader_LegacyLayout_Halts() throws IOException {
+    CompoundTag nbt = new CompoundTag();
+    nbt.putInt("DataVersion", 5);
+    ListTag chunksList = new ListTag();
+    chunksList.add(chunkCompound(2, 3));
+    nbt.put("GlobalUnlockedChunks", chunksList);
+    writeSave(nbt);
+
+    SnapshotStreamReader reader = new SnapshotStreamReader(chunk -> fail("Legacy chunks must not be streamed"),
+        id -> {
+        });
+    NbtIo.parseCompressed(tempDir.resolve("chunklocked_data.nbt"), reader, NbtAccounter.unlimitedHeap());
+
+    assertTrue(reader.isLegacyLayout());
+  }
+
+  @Test
+  void load_Snapshot_StreamingMatchesTree() throws IOException {
+    // A 40x40 region, spanning negative coordinates
+    Set<ChunkPos> chunks = new HashSet<>();
+    for (int x = -20; x < 20; x++) {
+      for (int z = -20; z < 20; z++) {
+        chunks.add(new ChunkPos(x, z));
+      }
+    }
+    chunks.forEach(data::unlockChunk);
+    data.save();
+    Path file = tempDir.resolve("chunklocked_data.nbt");
+
+    assertEquals(chunks, loadTree(file));
+    assertEquals(chunks, loadStreaming(), "Streaming load should produce the same chunks as the tree load");
+  }
+
+  private static Set<ChunkPos> loadTree(Path file) throws IOException {
+    CompoundTag nbt = NbtIo.readCompressed(file, NbtAccounter.unlimitedHeap());
+    Set<ChunkPos> chunks = new HashSet<>();
+    ChunkUnlockData.decodeChunks(nbt.getLongArray("GlobalUnlockedChunks").orElseThrow(), chunks::add);
+    return chunks;
+  }
+
+  private Set<ChunkPos> loadStreaming() {
+    ChunkUnlockData loaded = new ChunkUnlockData(new AdvancementCreditManager(), tempDir);
+    loaded.load();
+    return loaded.getGlobalUnlockedChunks();
+  }
+
+  private static CompoundTag chunkCompound(int x, int z) {
+    CompoundTag chunk = new CompoundTag();
+    chunk.putInt("x", x);
+    chunk.putInt("z", z);
+    return chunk;
+  }
+
+  private void writeSave(CompoundTag nbt) throws IOException {
+    Files.createDirectories(tempDir);
+    NbtIo.writeCompressed(nbt, tempDir.resolve("chunklocked_data.nbt"));
+  }
+}
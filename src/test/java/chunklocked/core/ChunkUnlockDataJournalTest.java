@@ -0,0 +1,183 @@
+package chunklocked.core;
+
+import chunklocked.advancement.AdvancementCreditManager;
+import chunklocked.advancement.PlayerProgressionData;
+import net.minecraft.world.level.ChunkPos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the write-ahead journal of {@link ChunkUnlockData}.
+ * <p>
+ * Covers replay of every record type, compaction into the snapshot, crash
+ * windows during compaction, and tolerance of a truncated final record.
+ */
+class ChunkUnlockDataJournalTest {
+
+  private static final UUID PLAYER = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+  @TempDir
+  Path tempDir;
+
+  private AdvancementCreditManager creditManager;
+  private ChunkUnlockData data;
+
+  @BeforeEach
+  void setUp() {
+    creditManager = new AdvancementCreditManager();
+    data = new ChunkUnlockData(creditManager, tempDir);
+    data.load();
+  }
+
+  // ========== REPLAY TESTS ==========
+
+  @Test
+  void drainAndAppend_ThenLoad_ReplaysChunks() {
+    data.unlockChunk(new ChunkPos(0, 0));
+    data.unlockChunk(new ChunkPos(1, 0));
+    data.unlockChunk(new ChunkPos(2, 0));
+    data.lockChunk(new ChunkPos(1, 0));
+    assertTrue(data.appendJournal(data.drainJournal()));
+
+    ChunkUnlockData loaded = reload();
+
+    assertEquals(Set.of(new ChunkPos(0, 0), new ChunkPos(2, 0)), loaded.getGlobalUnlockedChunks());
+  }
+
+  @Test
+  void drainAndAppend_ThenLoad_ReplaysPlayerState() {
+    PlayerProgressionData progression = creditManager.getPlayerData(PLAYER);
+    progression.addCredits(3);
+    progression.markAdvancementRewarded("minecraft:story/mine_stone");
+    progression.spendCredits(1);
+    data.markStarterItemsGiven(PLAYER);
+    data.setBarriersEnabled(false);
+    data.setMode(ChunklockedMode.EASY);
+    assertTrue(data.appendJournal(data.drainJournal()));
+
+    AdvancementCreditManager reloadedCredits = new AdvancementCreditManager();
+    ChunkUnlockData loaded = new ChunkUnlockData(reloadedCredits, tempDir);
+    loaded.load();
+
+    PlayerProgressionData replayed = reloadedCredits.getPlayerData(PLAYER);
+    assertEquals(2, replayed.getAvailableCredits());
+    assertEquals(1, replayed.getTotalAdvancementsCompleted());
+    assertTrue(replayed.hasReceivedReward("minecraft:story/mine_stone"));
+    assertTrue(loaded.hasReceivedStarterItems(PLAYER));
+    assertFalse(loaded.areBarriersEnabled());
+    assertEquals(ChunklockedMode.EASY, loaded.getMode());
+    assertTrue(loaded.isModeImmutable());
+  }
+
+  @Test
+  void drainJournal_NoChanges_ReturnsNull() {
+    assertNull(data.drainJournal());
+  }
+
+  @Test
+  void drainJournal_UnchangedPlayer_NotJournaled() {
+    creditManager.getPlayerData(PLAYER).addCredits(1);
+    assertNotNull(data.drainJournal());
+
+    assertNull(data.drainJournal(), "Player state should only be journaled when it changes");
+  }
+
+  @Test
+  void load_JournalAfterSnapshot_AppliedOnTopOfSnapshot() {
+    data.unlockChunk(new ChunkPos(0, 0));
+    data.save();
+
+    data.unlockChunk(new ChunkPos(5, 5));
+    data.clearAllChunks();
+    data.unlockChunk(new ChunkPos(9, 9));
+    assertTrue(data.appendJournal(data.drainJournal()));
+
+    assertEquals(Set.of(new ChunkPos(9, 9)), reload().getGlobalUnlockedChunks());
+  }
+
+  // ========== COMPACTION TESTS ==========
+
+  @Test
+  void save_DeletesCompactedJournals() {
+    data.unlockChunk(new ChunkPos(0, 0));
+    assertTrue(data.appendJournal(data.drainJournal()));
+    assertFalse(journalFiles().isEmpty());
+
+    data.save();
+
+    assertTrue(journalFiles().isEmpty(), "Compaction should delete journals contained in the snapshot");
+    assertEquals(Set.of(new ChunkPos(0, 0)), reload().getGlobalUnlockedChunks());
+  }
+
+  @Test
+  void load_SnapshotWriteLost_ReplaysBothGenerations() {
+    // Records in the old generation, then a compaction whose snapshot never
+    // reaches the disk, then records in the new generation
+    data.unlockChunk(new ChunkPos(0, 0));
+    assertTrue(data.appendJournal(data.drainJournal()));
+    data.createSnapshot();
+    data.unlockChunk(new ChunkPos(1, 1));
+    assertTrue(data.appendJournal(data.drainJournal()));
+
+    assertEquals(Set.of(new ChunkPos(0, 0), new ChunkPos(1, 1)), reload().getGlobalUnlockedChunks());
+  }
+
+  @Test
+  void load_StaleJournalBeforeSnapshot_Ignored() throws IOException {
+    data.unlockChunk(new ChunkPos(0, 0));
+    ChunkUnlockData.JournalBatch oldBatch = data.drainJournal();
+    data.lockChunk(new ChunkPos(0, 0));
+    data.unlockChunk(new ChunkPos(3, 3));
+    data.save();
+
+    // A journal left behind from before the snapshot must not be replayed
+    new SaveJournal(tempDir).append(oldBatch.generation(), oldBatch.records());
+
+    assertEquals(Set.of(new ChunkPos(3, 3)), reload().getGlobalUnlockedChunks());
+  }
+
+  // ========== CRASH TOLERANCE TESTS ==========
+
+  @Test
+  void load_TruncatedFinalRecord_KeepsEarlierRecords() throws IOException {
+    data.unlockChunk(new ChunkPos(0, 0));
+    data.unlockChunk(new ChunkPos(1, 0));
+    ChunkUnlockData.JournalBatch batch = data.drainJournal();
+    assertTrue(data.appendJournal(batch));
+
+    // Chop the last few bytes off, as if the server died mid-append
+    Path file = journalFiles().get(0);
+    byte[] bytes = Files.readAllBytes(file);
+    Files.write(file, java.util.Arrays.copyOf(bytes, bytes.length - 3), StandardOpenOption.TRUNCATE_EXISTING);
+
+    ChunkUnlockData loaded = reload();
+    assertEquals(Set.of(new ChunkPos(0, 0)), loaded.getGlobalUnlockedChunks());
+
+    // New records go to a fresh generation, never after the partial record
+    loaded.unlockChunk(new ChunkPos(7, 7));
+    assertTrue(loaded.appendJournal(loaded.drainJournal()));
+    assertEquals(Set.of(new ChunkPos(0, 0), new ChunkPos(7, 7)), reload().getGlobalUnlockedChunks());
+  }
+
+  private ChunkUnlockData reload() {
+    ChunkUnlockData loaded = new ChunkUnlockData(creditManager, tempDir);
+    loaded.load();
+    return loaded;
+  }
+
+  private List<Path> journalFiles() {
+    SaveJournal journal = new SaveJournal(tempDir);
+    return journal.listGenerations().stream().map(journal::fileFor).toList();
+  }
+}
@@ -185,13 +185,13 @@ class ChunkUnlockDataModeTest {
     data.setMode(ChunklockedMode.EASY);
     data.save();
 
-    // Verify data version is 5 (updated for starter items)
+    // Verify data version is current (v7, per-player files)
     try {
       Path saveFile = tempDir.resolve("chunklocked_data.nbt");
       CompoundTag nbt = NbtIo.readCompressed(saveFile, net.minecraft.nbt.NbtAccounter.unlimitedHeap());
 
-      assertEquals(5, nbt.getInt("DataVersion").orElse(0),
-          "Data version should be 5 for starter items support");
+      assertEquals(7, nbt.getInt("DataVersion").orElse(0),
+          "Data version should be 7 for per-player files");
       assertEquals("EASY", nbt.getString("Mode").orElse(""),
           "Mode should be serialized as string");
     } catch (IOException e) {
@@ -348,13 +348,13 @@ class ChunkUnlockDataModeTest {
     data.markStarterItemsGiven(UUID.randomUUID());
     data.save();
 
-    // Verify data version is 5
+    // Verify data version is current and still carries starter items
     try {
       Path saveFile = tempDir.resolve("chunklocked_data.nbt");
       CompoundTag nbt = NbtIo.readCompressed(saveFile, net.minecraft.nbt.NbtAccounter.unlimitedHeap());
 
-      assertEquals(5, nbt.getInt("DataVersion").orElse(0),
-          "Data version should be 5 for starter items support");
+      assertEquals(7, nbt.getInt("DataVersion").orElse(0),
+          "Data version should be 7 (starter items carried forward)");
       assertTrue(nbt.contains("StarterItemsGiven"),
           "NBT should contain StarterItemsGiven field");
     } catch (IOException e) {
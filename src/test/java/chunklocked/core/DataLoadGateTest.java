@@ -0,0 +1,112 @@
+package chunklocked.core;
+
+import chunklocked.advancement.AdvancementCreditManager;
+import net.minecraft.world.level.ChunkPos;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link DataLoadGate}, the background load of
+ * {@link ChunkUnlockData} and the queue of work waiting for it.
+ */
+class DataLoadGateTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void poll_LoadStillRunning_QueuesTasks() throws InterruptedException {
+    CountDownLatch release = new CountDownLatch(1);
+    DataLoadGate gate = new DataLoadGate(() -> {
+      awaitQuietly(release);
+      return new ChunkUnlockData(new AdvancementCreditManager(), tempDir);
+    }, data -> {
+    });
+    gate.start();
+
+    List<String> ran = new ArrayList<>();
+    gate.runWhenReady(() -> ran.add("join"));
+
+    assertFalse(gate.poll(), "The gate should stay closed while the load is running");
+    assertFalse(gate.isReady());
+    assertTrue(ran.isEmpty(), "Queued tasks must wait for the data");
+    assertEquals(1, gate.getPendingTaskCount());
+
+    release.countDown();
+    gate.awaitReady();
+
+    assertTrue(gate.isReady());
+    assertEquals(List.of("join"), ran);
+  }
+
+  @Test
+  void poll_LoadFinished_RunsReadyCallbackBeforeQueuedTasksInOrder() throws InterruptedException {
+    ChunkUnlockData seed = new ChunkUnlockData(new AdvancementCreditManager(), tempDir);
+    seed.unlockChunk(new ChunkPos(3, 4));
+    seed.save();
+
+    List<String> ran = new ArrayList<>();
+    AtomicReference<ChunkUnlockData> published = new AtomicReference<>();
+    CountDownLatch loaded = new CountDownLatch(1);
+    DataLoadGate gate = new DataLoadGate(() -> {
+      ChunkUnlockData data = new ChunkUnlockData(new AdvancementCreditManager(), tempDir);
+      data.load();
+      loaded.countDown();
+      return data;
+    }, data -> {
+      published.set(data);
+      ran.add("ready");
+    });
+    gate.runWhenReady(() -> ran.add("first"));
+    gate.runWhenReady(() -> ran.add("second"));
+    gate.start();
+
+    assertTrue(loaded.await(10, TimeUnit.SECONDS));
+    while (!gate.poll()) {
+      Thread.onSpinWait();
+    }
+
+    assertEquals(List.of("ready", "first", "second"), ran);
+    assertTrue(published.get().isChunkUnlocked(new ChunkPos(3, 4)));
+
+    // Once open, tasks run immediately
+    gate.runWhenReady(() -> ran.add("later"));
+    assertEquals("later", ran.get(ran.size() - 1));
+  }
+
+  @Test
+  void awaitReady_BackgroundLoadFails_RetriesOnCallingThread() {
+    int[] attempts = { 0 };
+    AtomicReference<ChunkUnlockData> published = new AtomicReference<>();
+    DataLoadGate gate = new DataLoadGate(() -> {
+      if (attempts[0]++ == 0) {
+        throw new IllegalStateException("disk went away");
+      }
+      return new ChunkUnlockData(new AdvancementCreditManager(), tempDir);
+    }, published::set);
+    gate.start();
+
+    gate.awaitReady();
+
+    assertEquals(2, attempts[0]);
+    assertNotNull(published.get());
+    assertTrue(gate.isReady());
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
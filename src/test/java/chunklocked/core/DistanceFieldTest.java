@@ -0,0 +1,160 @@
+package chunklocked.core;
+
+import chunklocked.advancement.AdvancementCreditManager;
+import net.minecraft.world.level.ChunkPos;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link DistanceField}: the incrementally maintained field is
+ * compared with distances found by brute force over the unlocked chunks.
+ */
+class DistanceFieldTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void emptyField_EverythingIsBeyond() {
+    DistanceField field = new DistanceField(4);
+
+    assertEquals(DistanceField.BEYOND, field.distanceTo(0, 0, new LongChunkSet()));
+    assertEquals(0, field.size());
+  }
+
+  @Test
+  void singleChunk_DistancesFormDiamond() {
+    LongChunkSet unlocked = new LongChunkSet();
+    DistanceField field = new DistanceField(3);
+    unlock(field, unlocked, 0, 0);
+
+    assertEquals(0, field.distanceTo(0, 0, unlocked));
+    assertEquals(1, field.distanceTo(1, 0, unlocked));
+    assertEquals(2, field.distanceTo(1, -1, unlocked));
+    assertEquals(3, field.distanceTo(0, 3, unlocked));
+    assertEquals(DistanceField.BEYOND, field.distanceTo(2, 2, unlocked));
+    // 4 + 8 + 12 chunks at distances 1 to 3
+    assertEquals(24, field.size());
+  }
+
+  @Test
+  void lockChunk_DistancesGrowBack() {
+    LongChunkSet unlocked = new LongChunkSet();
+    DistanceField field = new DistanceField(5);
+    unlock(field, unlocked, 0, 0);
+    unlock(field, unlocked, 4, 0);
+
+    assertEquals(2, field.distanceTo(2, 0, unlocked));
+
+    lock(field, unlocked, 0, 0);
+
+    assertEquals(2, field.distanceTo(2, 0, unlocked));
+    assertEquals(4, field.distanceTo(0, 0, unlocked));
+    assertEquals(DistanceField.BEYOND, field.distanceTo(-2, 0, unlocked));
+  }
+
+  @Test
+  void randomUnlockAndLock_MatchesBruteForce() {
+    LongChunkSet unlocked = new LongChunkSet();
+    DistanceField field = new DistanceField(6);
+    Random random = new Random(11);
+
+    for (int i = 0; i < 3000; i++) {
+      int x = random.nextInt(40) - 20;
+      int z = random.nextInt(40) - 20;
+      if (random.nextInt(3) == 0) {
+        lock(field, unlocked, x, z);
+      } else {
+        unlock(field, unlocked, x, z);
+      }
+      if (i % 300 == 0) {
+        assertMatchesBruteForce(field, unlocked);
+      }
+    }
+    assertMatchesBruteForce(field, unlocked);
+  }
+
+  @Test
+  void setRadius_RecomputesField() {
+    LongChunkSet unlocked = new LongChunkSet();
+    DistanceField field = new DistanceField(2);
+    unlock(field, unlocked, 0, 0);
+
+    assertEquals(DistanceField.BEYOND, field.distanceTo(5, 0, unlocked));
+
+    field.setRadius(8, unlocked);
+
+    assertEquals(5, field.distanceTo(5, 0, unlocked));
+    assertMatchesBruteForce(field, unlocked);
+  }
+
+  @Test
+  void invalidRadius_Throws() {
+    assertThrows(IllegalArgumentException.class, () -> new DistanceField(0));
+    assertThrows(IllegalArgumentException.class, () -> new DistanceField(DistanceField.MAX_RADIUS + 1));
+  }
+
+  @Test
+  void chunkUnlockData_KeepsFieldAcrossReload() {
+    ChunkUnlockData data = new ChunkUnlockData(new AdvancementCreditManager(), tempDir);
+    data.load();
+    data.unlockChunk(new ChunkPos(0, 0));
+    data.unlockChunk(new ChunkPos(10, 0));
+    data.lockChunk(new ChunkPos(0, 0));
+    data.save();
+
+    assertEquals(3, data.getDistanceToUnlocked(7, 0));
+    assertEquals(DistanceField.BEYOND, data.getDistanceToUnlocked(-10, 0));
+
+    ChunkUnlockData loaded = new ChunkUnlockData(new AdvancementCreditManager(), tempDir);
+    loaded.load();
+
+    assertEquals(0, loaded.getDistanceToUnlocked(10, 0));
+    assertEquals(3, loaded.getDistanceToUnlocked(7, 0));
+    assertEquals(DistanceField.BEYOND, loaded.getDistanceToUnlocked(-10, 0));
+  }
+
+  private static void unlock(DistanceField field, LongChunkSet unlocked, int x, int z) {
+    if (unlocked.add(ChunkPos.asLong(x, z))) {
+      field.chunkUnlocked(ChunkPos.asLong(x, z), unlocked);
+    }
+  }
+
+  private static void lock(DistanceField field, LongChunkSet unlocked, int x, int z) {
+    if (unlocked.remove(ChunkPos.asLong(x, z))) {
+      field.chunkLocked(ChunkPos.asLong(x, z), unlocked);
+    }
+  }
+
+  private static void assertMatchesBruteForce(DistanceField field, LongChunkSet unlocked) {
+    int radius = field.getRadius();
+    int tracked = 0;
+    for (int x = -20 - radius - 2; x < 20 + radius + 2; x++) {
+      for (int z = -20 - radius - 2; z < 20 + radius + 2; z++) {
+        int expected = bruteForce(unlocked, x, z, radius);
+        assertEquals(expected, field.distanceTo(x, z, unlocked), "Distance at " + x + ", " + z);
+        if (expected > 0 && expected != DistanceField.BEYOND) {
+          tracked++;
+        }
+      }
+    }
+    assertEquals(tracked, field.size());
+  }
+
+  private static int bruteForce(LongChunkSet unlocked, int x, int z, int radius) {
+    int best = DistanceField.BEYOND;
+    PrimitiveIterator.OfLong it = unlocked.longIterator();
+    while (it.hasNext()) {
+      long pos = it.nextLong();
+      int distance = Math.abs(ChunkPos.getX(pos) - x) + Math.abs(ChunkPos.getZ(pos) - z);
+      best = Math.min(best, distance);
+    }
+    return best > radius ? DistanceField.BEYOND : best;
+  }
+}
@@ -0,0 +1,104 @@
+package chunklocked.core;
+
+import chunklocked.advancement.AdvancementCreditManager;
+import net.minecraft.world.level.ChunkPos;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link FrontierIndex} as maintained by
+ * {@link ChunkUnlockData}.
+ * <p>
+ * The incremental frontier is compared with one recomputed from scratch after
+ * random unlocks and locks, and after a reload.
+ */
+class FrontierIndexTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void randomUnlockAndLock_MatchesRecomputedFrontier() {
+    ChunkUnlockData data = new ChunkUnlockData(new AdvancementCreditManager(), tempDir);
+    data.load();
+    Random random = new Random(7);
+
+    for (int i = 0; i < 5000; i++) {
+      ChunkPos pos = new ChunkPos(random.nextInt(30) - 15, random.nextInt(30) - 15);
+      if (random.nextInt(3) == 0) {
+        data.lockChunk(pos);
+      } else {
+        data.unlockChunk(pos);
+      }
+      if (i % 500 == 0) {
+        assertEquals(recompute(data.getGlobalUnlockedChunks()), data.getFrontierChunks());
+      }
+    }
+
+    Set<ChunkPos> expected = recompute(data.getGlobalUnlockedChunks());
+    assertEquals(expected, data.getFrontierChunks());
+    assertEquals(expected.size(), data.getFrontierSize());
+  }
+
+  @Test
+  void lockChunk_BetweenUnlockedChunks_CountsEverySide() {
+    ChunkUnlockData data = new ChunkUnlockData(new AdvancementCreditManager(), tempDir);
+    data.load();
+    data.unlockChunk(new ChunkPos(0, 0));
+    data.unlockChunk(new ChunkPos(1, 0));
+    data.unlockChunk(new ChunkPos(2, 0));
+
+    data.lockChunk(new ChunkPos(1, 0));
+
+    assertTrue(data.isFrontierChunk(1, 0));
+    assertFalse(data.isFrontierChunk(0, 0));
+    assertEquals(recompute(data.getGlobalUnlockedChunks()), data.getFrontierChunks());
+  }
+
+  @Test
+  void load_RebuildsFrontier() {
+    ChunkUnlockData data = new ChunkUnlockData(new AdvancementCreditManager(), tempDir);
+    data.load();
+    data.unlockChunk(new ChunkPos(4, 4));
+    data.unlockChunk(new ChunkPos(4, 5));
+    data.save();
+
+    ChunkUnlockData loaded = new ChunkUnlockData(new AdvancementCreditManager(), tempDir);
+    loaded.load();
+
+    assertEquals(6, loaded.getFrontierSize());
+    assertEquals(recompute(loaded.getGlobalUnlockedChunks()), loaded.getFrontierChunks());
+  }
+
+  @Test
+  void clearAllChunks_EmptiesFrontier() {
+    ChunkUnlockData data = new ChunkUnlockData(new AdvancementCreditManager(), tempDir);
+    data.load();
+    data.unlockChunk(new ChunkPos(0, 0));
+
+    data.clearAllChunks();
+
+    assertEquals(0, data.getFrontierSize());
+    assertTrue(data.getFrontierChunks().isEmpty());
+  }
+
+  private static Set<ChunkPos> recompute(Set<ChunkPos> unlocked) {
+    Set<ChunkPos> frontier = new HashSet<>();
+    for (ChunkPos chunk : unlocked) {
+      for (ChunkPos neighbor : new ChunkPos[] { new ChunkPos(chunk.x, chunk.z - 1), new ChunkPos(chunk.x, chunk.z + 1),
+          new ChunkPos(chunk.x + 1, chunk.z), new ChunkPos(chunk.x - 1, chunk.z) }) {
+        if (!unlocked.contains(neighbor)) {
+          frontier.add(neighbor);
+        }
+      }
+    }
+    return frontier;
+  }
+}
@@ -0,0 +1,89 @@
+package chunklocked.core;
+
+import net.minecraft.world.level.ChunkPos;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link LongChunkSet}.
+ * <p>
+ * Checks the table against a {@code HashSet} under random churn (which
+ * exercises growth and backward-shift removal), the reserved empty-slot key,
+ * and the neighbour helpers inherited from {@link ChunkStore}.
+ */
+class LongChunkSetTest {
+
+  @Test
+  void randomAddRemove_MatchesHashSet() {
+    LongChunkSet set = new LongChunkSet();
+    Set<Long> expected = new HashSet<>();
+    Random random = new Random(42);
+
+    for (int i = 0; i < 200_000; i++) {
+      // A small coordinate range forces collisions and repeated keys
+      long pos = ChunkPos.asLong(random.nextInt(200) - 100, random.nextInt(200) - 100);
+      if (random.nextInt(3) == 0) {
+        assertEquals(expected.remove(pos), set.remove(pos));
+      } else {
+        assertEquals(expected.add(pos), set.add(pos));
+      }
+    }
+
+    assertEquals(expected.size(), set.size());
+    for (int x = -100; x < 100; x++) {
+      for (int z = -100; z < 100; z++) {
+        assertEquals(expected.contains(ChunkPos.asLong(x, z)), set.contains(x, z));
+      }
+    }
+    Set<Long> visited = new HashSet<>();
+    set.forEach(visited::add);
+    assertEquals(expected, visited);
+  }
+
+  @Test
+  void emptySlotKey_IsStoredLikeAnyOther() {
+    LongChunkSet set = new LongChunkSet();
+    long reserved = ChunkPos.asLong(0, Integer.MIN_VALUE);
+
+    assertTrue(set.add(reserved));
+    assertFalse(set.add(reserved));
+    assertTrue(set.contains(reserved));
+    assertEquals(1, set.size());
+    assertArrayEquals(new long[] { reserved }, set.toArray());
+
+    assertTrue(set.remove(reserved));
+    assertTrue(set.isEmpty());
+  }
+
+  @Test
+  void copy_IsIndependent() {
+    LongChunkSet set = new LongChunkSet();
+    set.add(ChunkPos.asLong(1, 1));
+    LongChunkSet copy = new LongChunkSet(set);
+    set.add(ChunkPos.asLong(2, 2));
+
+    assertEquals(1, copy.size());
+    assertFalse(copy.contains(2, 2));
+  }
+
+  @Test
+  void neighborMask_ReportsUnlockedSides() {
+    LongChunkSet set = new LongChunkSet();
+    set.add(ChunkPos.asLong(5, 4)); // North of [5, 5]
+    set.add(ChunkPos.asLong(4, 5)); // West of [5, 5]
+
+    assertEquals(ChunkStore.NORTH | ChunkStore.WEST, set.neighborMask(5, 5));
+    assertTrue(set.hasNeighbor(5, 5));
+    assertFalse(set.hasNeighbor(7, 7));
+
+    Set<Long> neighbors = new HashSet<>();
+    ChunkStore.forEachNeighbor(ChunkPos.asLong(5, 5), neighbors::add);
+    assertEquals(Set.of(ChunkPos.asLong(5, 4), ChunkPos.asLong(5, 6), ChunkPos.asLong(6, 5), ChunkPos.asLong(4, 5)),
+        neighbors);
+  }
+}
@@ -0,0 +1,188 @@
+package chunklocked.core;
+
+import chunklocked.advancement.AdvancementCreditManager;
+import net.minecraft.world.level.ChunkPos;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link MappedChunkStore} and its use by the NBT backend.
+ * <p>
+ * Covers bit addressing across tile and sign boundaries, growth of the file,
+ * persistence across reopen, and switching the store on and off for an
+ * existing world.
+ */
+class MappedChunkStoreTest {
+
+  @TempDir
+  Path tempDir;
+
+  // ========== STORE TESTS ==========
+
+  @Test
+  void addRemoveContains_AcrossTileBoundaries() {
+    MappedChunkStore store = new MappedChunkStore(tempDir.resolve(MappedChunkStore.FILE_NAME));
+    long[] chunks = {
+        ChunkPos.asLong(0, 0), ChunkPos.asLong(31, 31), ChunkPos.asLong(32, 0),
+        ChunkPos.asLong(-1, -1), ChunkPos.asLong(-32, 5), ChunkPos.asLong(1, 0), ChunkPos.asLong(0, 1)
+    };
+    for (long chunk : chunks) {
+      assertTrue(store.add(chunk));
+      assertFalse(store.add(chunk));
+    }
+
+    assertEquals(chunks.length, store.size());
+    for (long chunk : chunks) {
+      assertTrue(store.contains(chunk));
+    }
+    assertFalse(store.contains(ChunkPos.asLong(1, 1)));
+    assertFalse(store.contains(ChunkPos.asLong(-2, -1)));
+
+    assertTrue(store.remove(ChunkPos.asLong(31, 31)));
+    assertFalse(store.remove(ChunkPos.asLong(31, 31)));
+    assertFalse(store.contains(ChunkPos.asLong(31, 31)));
+    assertEquals(chunks.length - 1, store.size());
+    store.close();
+  }
+
+  @Test
+  void forEach_VisitsExactlyTheStoredChunks() {
+    MappedChunkStore store = new MappedChunkStore(tempDir.resolve(MappedChunkStore.FILE_NAME));
+    Set<Long> expected = new HashSet<>();
+    for (int x = -40; x < 40; x += 3) {
+      for (int z = -40; z < 40; z += 7) {
+        expected.add(ChunkPos.asLong(x, z));
+        store.add(ChunkPos.asLong(x, z));
+      }
+    }
+
+    Set<Long> visited = new HashSet<>();
+    store.forEach(visited::add);
+
+    assertEquals(expected, visited);
+    store.close();
+  }
+
+  @Test
+  void reopen_GrownFile_KeepsEveryChunk() {
+    Path file = tempDir.resolve(MappedChunkStore.FILE_NAME);
+    MappedChunkStore store = new MappedChunkStore(file);
+    // One chunk per tile, enough tiles to grow the file several times
+    for (int tile = 0; tile < 2000; tile++) {
+      store.add(ChunkPos.asLong(tile * 32, -tile * 32));
+    }
+    store.close();
+
+    MappedChunkStore reopened = new MappedChunkStore(file);
+
+    assertEquals(2000, reopened.size());
+    assertTrue(reopened.contains(ChunkPos.asLong(1999 * 32, -1999 * 32)));
+    reopened.close();
+  }
+
+  @Test
+  void clear_ThenReuse_DoesNotResurrectOldBits() {
+    Path file = tempDir.resolve(MappedChunkStore.FILE_NAME);
+    MappedChunkStore store = new MappedChunkStore(file);
+    store.add(ChunkPos.asLong(5, 5));
+    store.add(ChunkPos.asLong(100, 100));
+    store.clear();
+    store.add(ChunkPos.asLong(6, 5));
+    store.close();
+
+    MappedChunkStore reopened = new MappedChunkStore(file);
+
+    assertEquals(1, reopened.size());
+    assertFalse(reopened.contains(ChunkPos.asLong(5, 5)));
+    assertTrue(reopened.contains(ChunkPos.asLong(6, 5)));
+    reopened.close();
+  }
+
+  // ========== BACKEND TESTS ==========
+
+  @Test
+  void save_WithMappedStore_KeepsChunksOutOfSnapshot() {
+    ChunkUnlockData data = mappedData();
+    data.unlockChunk(new ChunkPos(3, 4));
+    data.unlockChunk(new ChunkPos(-7, 9));
+    data.save();
+    data.close();
+
+    ChunkUnlockData loaded = mappedData();
+
+    assertEquals(Set.of(new ChunkPos(3, 4), new ChunkPos(-7, 9)), loaded.getGlobalUnlockedChunks());
+    loaded.close();
+  }
+
+  @Test
+  void switchingOn_ImportsSnapshotChunks() {
+    ChunkUnlockData memory = new ChunkUnlockData(new AdvancementCreditManager(), tempDir);
+    memory.load();
+    memory.unlockChunk(new ChunkPos(1, 2));
+    memory.save();
+
+    ChunkUnlockData mapped = mappedData();
+    mapped.unlockChunk(new ChunkPos(2, 2));
+    mapped.save();
+    mapped.close();
+
+    ChunkUnlockData reloaded = mappedData();
+    assertEquals(Set.of(new ChunkPos(1, 2), new ChunkPos(2, 2)), reloaded.getGlobalUnlockedChunks());
+    reloaded.close();
+  }
+
+  @Test
+  void switchingOff_ReadsBitmapThenDeletesIt() {
+    ChunkUnlockData mapped = mappedData();
+    mapped.unlockChunk(new ChunkPos(8, 8));
+    mapped.save();
+    mapped.close();
+
+    ChunkUnlockData memory = new ChunkUnlockData(new AdvancementCreditManager(), tempDir);
+    memory.load();
+    assertTrue(memory.isChunkUnlocked(new ChunkPos(8, 8)));
+    memory.save();
+
+    assertFalse(Files.exists(tempDir.resolve(MappedChunkStore.FILE_NAME)));
+    ChunkUnlockData reloaded = new ChunkUnlockData(new AdvancementCreditManager(), tempDir);
+    reloaded.load();
+    assertTrue(reloaded.isChunkUnlocked(new ChunkPos(8, 8)));
+  }
+
+  @Test
+  void lazyIndexes_WithMappedStore_BuiltOnFirstQueryAndKeptCurrent() {
+    ChunkUnlockData data = mappedData();
+    data.unlockChunk(new ChunkPos(0, 0));
+    data.unlockChunk(new ChunkPos(1, 0));
+    data.save();
+    data.close();
+
+    ChunkUnlockData loaded = mappedData();
+    loaded.unlockChunk(new ChunkPos(10, 10)); // Before the first query
+
+    assertEquals(2, loaded.getAreas().size());
+    assertEquals(ChunkPos.asLong(10, 10), loaded.findNearestUnlockedChunk(9, 9).getAsLong());
+
+    loaded.unlockChunk(new ChunkPos(2, 0)); // After it
+    loaded.lockChunk(new ChunkPos(10, 10));
+
+    assertEquals(1, loaded.getAreas().size());
+    assertEquals(3, loaded.getAreaContaining(new ChunkPos(0, 0)).orElseThrow().getChunkCount());
+    assertEquals(ChunkPos.asLong(2, 0), loaded.findNearestUnlockedChunk(9, 9).getAsLong());
+    loaded.close();
+  }
+
+  private ChunkUnlockData mappedData() {
+    ChunkUnlockData data = new ChunkUnlockData(new AdvancementCreditManager(),
+        new NbtStorageBackend(tempDir, true));
+    data.load();
+    return data;
+  }
+}
@@ -0,0 +1,88 @@
+package chunklocked.core;
+
+import net.minecraft.world.level.ChunkPos;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.OptionalLong;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link NearestChunkIndex}: queries are compared with a brute
+ * force search over the same chunks.
+ */
+class NearestChunkIndexTest {
+
+  @Test
+  void emptyIndex_FindsNothing() {
+    assertTrue(new NearestChunkIndex().findNearest(0, 0).isEmpty());
+  }
+
+  @Test
+  void farAwayChunk_IsFound() {
+    NearestChunkIndex index = new NearestChunkIndex();
+    index.add(ChunkPos.asLong(5000, -7000));
+    index.add(ChunkPos.asLong(5001, -7000));
+
+    assertEquals(ChunkPos.asLong(5000, -7000), index.findNearest(0, 0).getAsLong());
+  }
+
+  @Test
+  void removedChunks_AreNotFound() {
+    NearestChunkIndex index = new NearestChunkIndex();
+    index.add(ChunkPos.asLong(1, 0));
+    index.add(ChunkPos.asLong(40, 0));
+    index.remove(ChunkPos.asLong(1, 0));
+
+    assertEquals(ChunkPos.asLong(40, 0), index.findNearest(0, 0).getAsLong());
+    assertEquals(1, index.size());
+  }
+
+  @Test
+  void randomQueries_MatchBruteForce() {
+    NearestChunkIndex index = new NearestChunkIndex();
+    Set<Long> chunks = new HashSet<>();
+    Random random = new Random(7);
+
+    // A few scattered clusters, some far apart
+    for (int cluster = 0; cluster < 6; cluster++) {
+      int centerX = random.nextInt(4000) - 2000;
+      int centerZ = random.nextInt(4000) - 2000;
+      for (int i = 0; i < 200; i++) {
+        long pos = ChunkPos.asLong(centerX + random.nextInt(30), centerZ + random.nextInt(30));
+        index.add(pos);
+        chunks.add(pos);
+      }
+    }
+    for (int i = 0; i < 300; i++) {
+      long pos = chunks.iterator().next();
+      index.remove(pos);
+      chunks.remove(pos);
+    }
+
+    for (int i = 0; i < 500; i++) {
+      int x = random.nextInt(6000) - 3000;
+      int z = random.nextInt(6000) - 3000;
+      OptionalLong nearest = index.findNearest(x, z);
+      assertEquals(bruteForce(chunks, x, z), nearest.getAsLong(), "Query from " + x + ", " + z);
+    }
+  }
+
+  private static long bruteForce(Set<Long> chunks, int x, int z) {
+    long best = 0;
+    long bestDistance = Long.MAX_VALUE;
+    for (long pos : chunks) {
+      long dx = ChunkPos.getX(pos) - (long) x;
+      long dz = ChunkPos.getZ(pos) - (long) z;
+      long distance = dx * dx + dz * dz;
+      if (distance < bestDistance || (distance == bestDistance && pos < best)) {
+        best = pos;
+        bestDistance = distance;
+      }
+    }
+    return best;
+  }
+}
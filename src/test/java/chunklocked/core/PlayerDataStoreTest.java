@@ -0,0 +1,233 @@
+package chunklocked.core;
+
+import chunklocked.advancement.AdvancementCreditManager;
+import chunklocked.advancement.AdvancementIdTable;
+import chunklocked.advancement.PlayerProgressionData;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtAccounter;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.StringTag;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for per-player progression files ({@link PlayerDataStore}) and
+ * how {@link ChunkUnlockData} loads, writes and evicts players.
+ */
+class PlayerDataStoreTest {
+
+  private static final UUID PLAYER = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+  @TempDir
+  Path tempDir;
+
+  private AdvancementCreditManager creditManager;
+  private ChunkUnlockData data;
+
+  @BeforeEach
+  void setUp() {
+    creditManager = new AdvancementCreditManager();
+    data = new ChunkUnlockData(creditManager, tempDir);
+    data.load();
+  }
+
+  // ========== STORE TESTS ==========
+
+  @Test
+  void encodeDecode_RoundTrip_PreservesProgression() {
+    PlayerProgressionData original = new PlayerProgressionData();
+    original.addCredits(4);
+    original.markAdvancementRewarded("minecraft:story/mine_stone");
+    original.markAdvancementRewarded("minecraft:story/smelt_iron");
+
+    PlayerDataStore store = new PlayerDataStore(tempDir);
+    PlayerProgressionData decoded = store.decodeFile(store.encode(original));
+
+    assertEquals(4, decoded.getAvailableCredits());
+    assertEquals(2, decoded.getTotalAdvancementsCompleted());
+    assertEquals(original.getRewardedAdvancements(), decoded.getRewardedAdvancements());
+    assertFalse(decoded.hasUnsavedChanges(), "Freshly decoded data should not be marked as changed");
+  }
+
+  @Test
+  void read_StagedButNotWritten_ReturnsStagedData() {
+    PlayerDataStore store = new PlayerDataStore(tempDir);
+    PlayerProgressionData progression = new PlayerProgressionData();
+    progression.addCredits(9);
+    store.stage(PLAYER, progression);
+
+    assertFalse(Files.exists(store.fileFor(PLAYER)));
+    assertEquals(9, store.read(PLAYER).orElseThrow().getAvailableCredits());
+
+    assertTrue(store.writeStaged());
+    assertFalse(store.hasStaged());
+    assertEquals(9, new PlayerDataStore(tempDir).read(PLAYER).orElseThrow().getAvailableCredits());
+  }
+
+  // ========== ADVANCEMENT DICTIONARY TESTS ==========
+
+  @Test
+  void encode_StoresBitsetNotStrings() {
+    PlayerProgressionData progression = new PlayerProgressionData();
+    progression.markAdvancementRewarded("minecraft:story/mine_stone");
+
+    CompoundTag nbt = new PlayerDataStore(tempDir).encode(progression);
+
+    assertTrue(nbt.getLongArray("RewardedBits").isPresent());
+    assertFalse(nbt.contains("RewardedAdvancements"), "Identifiers belong in the dictionary, not the player file");
+  }
+
+  @Test
+  void writeStaged_ManyPlayers_DictionaryStoredOnce() throws IOException {
+    PlayerDataStore store = new PlayerDataStore(tempDir);
+    for (int i = 0; i < 10; i++) {
+      PlayerProgressionData progression = new PlayerProgressionData();
+      progression.markAdvancementRewarded("minecraft:story/mine_stone");
+      progression.markAdvancementRewarded("minecraft:story/smelt_iron");
+      store.stage(new UUID(0, i), progression);
+    }
+    assertTrue(store.writeStaged());
+
+    CompoundTag dictionary = NbtIo.readCompressed(
+        tempDir.resolve(PlayerDataStore.DIRECTORY_NAME).resolve("advancements.nbt"), NbtAccounter.unlimitedHeap());
+    assertEquals(2, dictionary.getList("Advancements").orElseThrow().size());
+  }
+
+  @Test
+  void read_DifferentTableOrder_RemapsIndexes() {
+    AdvancementIdTable writerTable = new AdvancementIdTable();
+    writerTable.intern("minecraft:story/root");
+    PlayerProgressionData progression = new PlayerProgressionData(writerTable);
+    progression.markAdvancementRewarded("minecraft:story/smelt_iron");
+    PlayerDataStore writer = new PlayerDataStore(tempDir, writerTable);
+    writer.stage(PLAYER, progression);
+    assertTrue(writer.writeStaged());
+
+    // A fresh table where the same advancement gets a different index
+    AdvancementIdTable readerTable = new AdvancementIdTable();
+    readerTable.intern("minecraft:end/root");
+    readerTable.intern("minecraft:nether/root");
+    PlayerProgressionData loaded = new PlayerDataStore(tempDir, readerTable).read(PLAYER).orElseThrow();
+
+    assertTrue(loaded.hasReceivedReward("minecraft:story/smelt_iron"));
+    assertFalse(loaded.hasReceivedReward("minecraft:story/root"));
+    assertEquals(1, loaded.getRewardedAdvancements().size());
+  }
+
+  @Test
+  void read_V1StringFile_StillSupported() throws IOException {
+    CompoundTag player = new CompoundTag();
+    player.putInt("DataVersion", 1);
+    player.putInt("Credits", 2);
+    player.putInt("TotalAdvancements", 1);
+    ListTag rewarded = new ListTag();
+    rewarded.add(StringTag.valueOf("minecraft:story/mine_stone"));
+    player.put("RewardedAdvancements", rewarded);
+    PlayerDataStore store = new PlayerDataStore(tempDir);
+    Files.createDirectories(store.fileFor(PLAYER).getParent());
+    NbtIo.writeCompressed(player, store.fileFor(PLAYER));
+
+    PlayerProgressionData loaded = store.read(PLAYER).orElseThrow();
+
+    assertEquals(2, loaded.getAvailableCredits());
+    assertTrue(loaded.hasReceivedReward("minecraft:story/mine_stone"));
+  }
+
+  // ========== SAVE / LOAD TESTS ==========
+
+  @Test
+  void save_WritesPlayerFileNotMainFile() throws IOException {
+    creditManager.getPlayerData(PLAYER).addCredits(2);
+    data.save();
+
+    CompoundTag main = NbtIo.readCompressed(tempDir.resolve("chunklocked_data.nbt"), NbtAccounter.unlimitedHeap());
+    assertFalse(main.contains("Players"), "v7 saves should not embed players in the main file");
+    assertTrue(Files.exists(tempDir.resolve(PlayerDataStore.DIRECTORY_NAME).resolve(PLAYER + ".nbt")));
+  }
+
+  @Test
+  void getPlayerData_NotLoaded_ReadsPlayerFile() {
+    creditManager.getPlayerData(PLAYER).addCredits(5);
+    data.save();
+
+    AdvancementCreditManager freshCredits = new AdvancementCreditManager();
+    ChunkUnlockData loaded = new ChunkUnlockData(freshCredits, tempDir);
+    loaded.load();
+
+    assertFalse(freshCredits.isPlayerLoaded(PLAYER), "Players should not be loaded until they are needed");
+    loaded.onPlayerJoin(PLAYER);
+    assertTrue(freshCredits.isPlayerLoaded(PLAYER));
+    assertEquals(5, freshCredits.getPlayerData(PLAYER).getAvailableCredits());
+  }
+
+  @Test
+  void load_V6PlayersCompound_MigratesToPlayerFiles() throws IOException {
+    CompoundTag nbt = new CompoundTag();
+    nbt.putInt("DataVersion", 6);
+    CompoundTag players = new CompoundTag();
+    CompoundTag player = new CompoundTag();
+    player.putInt("Credits", 3);
+    player.putInt("TotalAdvancements", 1);
+    ListTag rewarded = new ListTag();
+    rewarded.add(StringTag.valueOf("minecraft:story/mine_stone"));
+    player.put("RewardedAdvancements", rewarded);
+    players.put(PLAYER.toString(), player);
+    nbt.put("Players", players);
+    NbtIo.writeCompressed(nbt, tempDir.resolve("chunklocked_data.nbt"));
+
+    ChunkUnlockData legacy = new ChunkUnlockData(creditManager, tempDir);
+    legacy.load();
+    legacy.save();
+
+    AdvancementCreditManager freshCredits = new AdvancementCreditManager();
+    new ChunkUnlockData(freshCredits, tempDir).load();
+    PlayerProgressionData migrated = freshCredits.getPlayerData(PLAYER);
+    assertEquals(3, migrated.getAvailableCredits());
+    assertEquals(1, migrated.getTotalAdvancementsCompleted());
+    assertTrue(migrated.hasReceivedReward("minecraft:story/mine_stone"));
+  }
+
+  // ========== EVICTION TESTS ==========
+
+  @Test
+  void evictOfflinePlayers_OverLimit_EvictsLeastRecentlyActive() {
+    data.setMaxCachedOfflinePlayers(2);
+    UUID[] players = new UUID[4];
+    for (int i = 0; i < players.length; i++) {
+      players[i] = new UUID(0, i + 10);
+      data.onPlayerJoin(players[i]);
+      creditManager.getPlayerData(players[i]).addCredits(i + 1);
+    }
+    for (UUID player : players) {
+      data.onPlayerLeave(player);
+    }
+
+    assertEquals(2, data.evictOfflinePlayers());
+
+    assertFalse(creditManager.isPlayerLoaded(players[0]));
+    assertFalse(creditManager.isPlayerLoaded(players[1]));
+    assertTrue(creditManager.isPlayerLoaded(players[3]));
+
+    // Evicted players come back with their data, even before the file is written
+    assertEquals(1, creditManager.getPlayerData(players[0]).getAvailableCredits());
+  }
+
+  @Test
+  void evictOfflinePlayers_OnlinePlayers_NeverEvicted() {
+    data.setMaxCachedOfflinePlayers(0);
+    data.onPlayerJoin(PLAYER);
+    creditManager.getPlayerData(PLAYER).addCredits(1);
+
+    assertEquals(0, data.evictOfflinePlayers());
+    assertTrue(creditManager.isPlayerLoaded(PLAYER));
+  }
+}
@@ -0,0 +1,138 @@
+package chunklocked.core;
+
+import chunklocked.advancement.AdvancementCreditManager;
+import net.minecraft.world.level.ChunkPos;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link SaveScheduler}.
+ * <p>
+ * Verifies that save requests are coalesced, rate-limited by the save
+ * interval, and flushed synchronously on shutdown.
+ */
+class SaveSchedulerTest {
+
+  @TempDir
+  Path tempDir;
+
+  private AdvancementCreditManager creditManager;
+  private ChunkUnlockData data;
+  private SaveScheduler scheduler;
+
+  @BeforeEach
+  void setUp() {
+    creditManager = new AdvancementCreditManager();
+    data = new ChunkUnlockData(creditManager, tempDir);
+    scheduler = new SaveScheduler(data, 20);
+  }
+
+  @AfterEach
+  void tearDown() {
+    scheduler.shutdown();
+  }
+
+  @Test
+  void requestSave_ManyRequests_SingleWrite() {
+    for (int i = 0; i < 100; i++) {
+      data.unlockChunk(new ChunkPos(i, 0));
+      scheduler.requestSave();
+    }
+
+    scheduler.tick(100);
+    scheduler.tick(101);
+
+    assertEquals(1, scheduler.getWritesSubmitted(), "A burst of requests should produce one write");
+    assertFalse(scheduler.isSavePending());
+  }
+
+  @Test
+  void tick_WithinInterval_DefersWrite() {
+    data.unlockChunk(new ChunkPos(0, 0));
+    scheduler.requestSave();
+    scheduler.tick(100);
+
+    data.unlockChunk(new ChunkPos(1, 0));
+    scheduler.requestSave();
+    scheduler.tick(110);
+    assertEquals(1, scheduler.getWritesSubmitted(), "Second write should wait for the interval");
+    assertTrue(scheduler.isSavePending());
+
+    scheduler.awaitPendingWrite();
+    scheduler.tick(120);
+    assertEquals(2, scheduler.getWritesSubmitted());
+  }
+
+  @Test
+  void tick_NoRequest_DoesNotWrite() {
+    scheduler.tick(100);
+
+    assertEquals(0, scheduler.getWritesSubmitted());
+    assertFalse(Files.exists(tempDir.resolve("chunklocked_data.nbt")));
+  }
+
+  @Test
+  void tick_SmallChange_AppendsJournalWithoutSnapshot() {
+    data.unlockChunk(new ChunkPos(5, 5));
+    scheduler.requestSave();
+    scheduler.tick(100);
+    scheduler.awaitPendingWrite();
+
+    assertEquals(0, scheduler.getCompactions(), "A single change should not rewrite the snapshot");
+    assertFalse(Files.exists(tempDir.resolve("chunklocked_data.nbt")));
+
+    ChunkUnlockData loaded = new ChunkUnlockData(creditManager, tempDir);
+    loaded.load();
+    assertEquals(Set.of(new ChunkPos(5, 5)), loaded.getGlobalUnlockedChunks(),
+        "Journaled change should be replayed on load");
+  }
+
+  @Test
+  void tick_AfterCompactionInterval_CompactsJournal() {
+    data.unlockChunk(new ChunkPos(0, 0));
+    scheduler.requestSave();
+    scheduler.tick(100);
+    scheduler.awaitPendingWrite();
+
+    scheduler.tick(100 + SaveScheduler.COMPACTION_INTERVAL_TICKS);
+    scheduler.awaitPendingWrite();
+
+    assertEquals(1, scheduler.getCompactions());
+    assertTrue(Files.exists(tempDir.resolve("chunklocked_data.nbt")));
+  }
+
+  @Test
+  void flush_WritesPendingChangesSynchronously() {
+    data.unlockChunk(new ChunkPos(3, 4));
+    scheduler.requestSave();
+
+    scheduler.flush();
+
+    ChunkUnlockData loaded = new ChunkUnlockData(creditManager, tempDir);
+    loaded.load();
+    assertEquals(Set.of(new ChunkPos(3, 4)), loaded.getGlobalUnlockedChunks());
+  }
+
+  @Test
+  void flush_AfterBackgroundWrite_PersistsLatestState() {
+    data.unlockChunk(new ChunkPos(0, 0));
+    scheduler.requestSave();
+    scheduler.tick(100);
+
+    data.unlockChunk(new ChunkPos(1, 0));
+    scheduler.requestSave();
+    scheduler.flush();
+
+    ChunkUnlockData loaded = new ChunkUnlockData(creditManager, tempDir);
+    loaded.load();
+    assertEquals(Set.of(new ChunkPos(0, 0), new ChunkPos(1, 0)), loaded.getGlobalUnlockedChunks());
+  }
+}
@@ -0,0 +1,129 @@
+package chunklocked.core;
+
+import chunklocked.advancement.AdvancementCreditManager;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtAccounter;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.world.level.ChunkPos;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Times loading a large snapshot through both {@link NbtStorageBackend}
+ * paths: the streaming v7 loader and the NBT tree loader used for pre-v7
+ * layouts.
+ * <p>
+ * Tagged {@code benchmark} and excluded from {@code ./gradlew test}; run it with
+ * {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class SnapshotLoadBenchmark {
+
+  /**
+   * Half the side of the unlocked region: 500x500 = 250,000 chunks.
+   */
+  private static final int RADIUS = 250;
+  private static final int WARMUP_ROUNDS = 3;
+  private static final int MEASURED_ROUNDS = 5;
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void load_LargeSnapshot_StreamingVersusTree() throws IOException {
+    Path streamingDir = tempDir.resolve("streaming");
+    Path treeDir = tempDir.resolve("tree");
+    Files.createDirectories(streamingDir);
+    Files.createDirectories(treeDir);
+
+    ChunkUnlockData data = new ChunkUnlockData(new AdvancementCreditManager(), streamingDir);
+    for (int x = -RADIUS; x < RADIUS; x++) {
+      for (int z = -RADIUS; z < RADIUS; z++) {
+        data.unlockChunk(new ChunkPos(x, z));
+      }
+    }
+    data.save();
+
+    // The same snapshot with a pre-v7 "Players" entry, which makes the
+    // backend fall back to the tree loader
+    CompoundTag nbt = NbtIo.readCompressed(streamingDir.resolve(NbtStorageBackend.FILE_NAME),
+        NbtAccounter.unlimitedHeap());
+    nbt.putInt("DataVersion", 6);
+    nbt.put("Players", new CompoundTag());
+    NbtIo.writeCompressed(nbt, treeDir.resolve(NbtStorageBackend.FILE_NAME));
+
+    int expected = 4 * RADIUS * RADIUS;
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      assertEquals(expected, load(streamingDir).size());
+      assertEquals(expected, load(treeDir).size());
+    }
+
+    long streamingNanos = 0;
+    long treeNanos = 0;
+    for (int i = 0; i < MEASURED_ROUNDS; i++) {
+      long start = System.nanoTime();
+      LongChunkSet streamed = load(streamingDir);
+      streamingNanos += System.nanoTime() - start;
+
+      start = System.nanoTime();
+      LongChunkSet tree = load(treeDir);
+      treeNanos += System.nanoTime() - start;
+
+      assertEquals(expected, streamed.size());
+      assertEquals(expected, tree.size());
+      tree.forEach(packed -> assertTrue(streamed.contains(packed)));
+    }
+
+    System.out.printf("Loading %d chunks (mean of %d): streaming %d ms, tree %d ms%n", expected,
+        MEASURED_ROUNDS, streamingNanos / MEASURED_ROUNDS / 1_000_000, treeNanos / MEASURED_ROUNDS / 1_000_000);
+  }
+
+  private static LongChunkSet load(Path worldDir) {
+    LongChunkSet chunks = new LongChunkSet();
+    new NbtStorageBackend(worldDir).load(new SaveJournal.RecordHandler() {
+      @Override
+      public void chunkUnlocked(long packedPos) {
+        chunks.add(packedPos);
+      }
+
+      @Override
+      public void chunkLocked(long packedPos) {
+        chunks.remove(packedPos);
+      }
+
+      @Override
+      public void chunksCleared() {
+        chunks.clear();
+      }
+
+      @Override
+      public void playerState(UUID player, int credits, int totalAdvancements) {
+      }
+
+      @Override
+      public void advancementRewarded(UUID player, String advancementId) {
+      }
+
+      @Override
+      public void starterItemsGiven(UUID player) {
+      }
+
+      @Override
+      public void barriersEnabled(boolean enabled) {
+      }
+
+      @Override
+      public void mode(String modeName) {
+      }
+    });
+    return chunks;
+  }
+}
@@ -0,0 +1,150 @@
+package chunklocked.core;
+
+import chunklocked.advancement.AdvancementCreditManager;
+import chunklocked.advancement.PlayerProgressionData;
+import net.minecraft.world.level.ChunkPos;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link SqlStorageBackend}.
+ * <p>
+ * Covers point updates through the journal path, player progression, saving
+ * without NBT files, and importing an existing NBT save.
+ */
+class SqlStorageBackendTest {
+
+  private static final UUID PLAYER = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+  @TempDir
+  Path tempDir;
+
+  private AdvancementCreditManager creditManager;
+  private ChunkUnlockData data;
+
+  @BeforeEach
+  void setUp() {
+    creditManager = new AdvancementCreditManager();
+    data = new ChunkUnlockData(creditManager, new SqlStorageBackend(tempDir));
+    data.load();
+  }
+
+  @AfterEach
+  void tearDown() {
+    data.close();
+  }
+
+  @Test
+  void appendChanges_ThenLoad_AppliesChunkUpdatesInOrder() {
+    data.unlockChunk(new ChunkPos(0, 0));
+    data.unlockChunk(new ChunkPos(1, 0));
+    data.lockChunk(new ChunkPos(1, 0));
+    data.unlockChunk(new ChunkPos(-5, 7));
+    assertTrue(data.appendJournal(data.drainJournal()));
+
+    ChunkUnlockData loaded = reload();
+
+    assertEquals(Set.of(new ChunkPos(0, 0), new ChunkPos(-5, 7)), loaded.getGlobalUnlockedChunks());
+    loaded.close();
+  }
+
+  @Test
+  void appendChanges_ThenLoad_RestoresSettingsAndPlayer() {
+    PlayerProgressionData progression = creditManager.getPlayerData(PLAYER);
+    progression.addCredits(3);
+    progression.markAdvancementRewarded("minecraft:story/mine_stone");
+    progression.spendCredits(1);
+    data.markStarterItemsGiven(PLAYER);
+    data.setBarriersEnabled(false);
+    data.setMode(ChunklockedMode.EASY);
+    assertTrue(data.appendJournal(data.drainJournal()));
+    data.close();
+
+    AdvancementCreditManager reloadedCredits = new AdvancementCreditManager();
+    ChunkUnlockData loaded = new ChunkUnlockData(reloadedCredits, new SqlStorageBackend(tempDir));
+    loaded.load();
+
+    PlayerProgressionData stored = reloadedCredits.getPlayerData(PLAYER);
+    assertEquals(2, stored.getAvailableCredits());
+    assertEquals(1, stored.getTotalAdvancementsCompleted());
+    assertTrue(stored.hasReceivedReward("minecraft:story/mine_stone"));
+    assertTrue(loaded.hasReceivedStarterItems(PLAYER));
+    assertFalse(loaded.areBarriersEnabled());
+    assertEquals(ChunklockedMode.EASY, loaded.getMode());
+    loaded.close();
+  }
+
+  @Test
+  void save_WritesNoNbtFiles() {
+    data.unlockChunk(new ChunkPos(2, 3));
+    data.save();
+
+    assertTrue(Files.exists(tempDir.resolve(SqlStorageBackend.DATABASE_NAME + ".mv.db")));
+    assertFalse(Files.exists(tempDir.resolve(NbtStorageBackend.FILE_NAME)));
+
+    ChunkUnlockData loaded = reload();
+    assertEquals(Set.of(new ChunkPos(2, 3)), loaded.getGlobalUnlockedChunks());
+    loaded.close();
+  }
+
+  @Test
+  void createSnapshot_ChunkTableInSync_CarriesNoChunks() {
+    data.unlockChunk(new ChunkPos(4, -4));
+    assertTrue(data.appendJournal(data.drainJournal()));
+
+    ChunkUnlockData.SaveSnapshot snapshot = data.createSnapshot();
+
+    assertNull(snapshot.packedChunks());
+    assertTrue(data.writeSnapshot(snapshot));
+    ChunkUnlockData loaded = reload();
+    assertEquals(Set.of(new ChunkPos(4, -4)), loaded.getGlobalUnlockedChunks());
+    loaded.close();
+  }
+
+  @Test
+  void load_ExistingNbtSave_IsImported() {
+    data.close();
+    Path nbtWorld = tempDir.resolve("nbt-world");
+    ChunkUnlockData nbtData = new ChunkUnlockData(new AdvancementCreditManager(), nbtWorld);
+    nbtData.load();
+    nbtData.unlockChunk(new ChunkPos(8, -8));
+    nbtData.markStarterItemsGiven(PLAYER);
+    nbtData.save();
+
+    ChunkUnlockData imported = new ChunkUnlockData(new AdvancementCreditManager(),
+        new SqlStorageBackend(nbtWorld));
+    imported.load();
+    imported.close();
+
+    // Second load reads the database, not the NBT file
+    ChunkUnlockData reloaded = new ChunkUnlockData(new AdvancementCreditManager(),
+        new SqlStorageBackend(nbtWorld));
+    reloaded.load();
+
+    assertEquals(Set.of(new ChunkPos(8, -8)), reloaded.getGlobalUnlockedChunks());
+    assertTrue(reloaded.hasReceivedStarterItems(PLAYER));
+    reloaded.close();
+  }
+
+  @Test
+  void create_UnknownName_Throws() {
+    assertThrows(IllegalArgumentException.class, () -> StorageBackend.create("yaml", tempDir, false));
+    assertInstanceOf(NbtStorageBackend.class, StorageBackend.create(StorageBackend.NBT, tempDir, false));
+  }
+
+  private ChunkUnlockData reload() {
+    data.close();
+    ChunkUnlockData loaded = new ChunkUnlockData(new AdvancementCreditManager(), new SqlStorageBackend(tempDir));
+    loaded.load();
+    return loaded;
+  }
+}
@@ -0,0 +1,152 @@
+package chunklocked.core;
+
+import chunklocked.advancement.AdvancementCreditManager;
+import net.minecraft.world.level.ChunkPos;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link UnlockHistory} and rollbacks through
+ * {@link ChunkUnlockData}.
+ * <p>
+ * Covers delta folding within a version, rollback computation across several
+ * versions, persistence (including a torn final entry) and trimming.
+ */
+class UnlockHistoryTest {
+
+  private static final UUID PLAYER = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+  @TempDir
+  Path tempDir;
+
+  // ========== HISTORY TESTS ==========
+
+  @Test
+  void commit_UnlockThenLockInSameVersion_RecordsNothing() {
+    UnlockHistory history = new UnlockHistory();
+    history.chunkUnlocked(ChunkPos.asLong(1, 1));
+    history.chunkLocked(ChunkPos.asLong(1, 1));
+    history.creditsChanged(PLAYER, 3, 2);
+    history.creditsChanged(PLAYER, 2, 3);
+
+    assertNull(history.commit(1000));
+    assertEquals(0, history.getLatestVersion());
+  }
+
+  @Test
+  void computeRollback_UsesStateBeforeFirstLaterChange() {
+    UnlockHistory history = new UnlockHistory();
+    history.chunkUnlocked(ChunkPos.asLong(0, 0));
+    history.creditsChanged(PLAYER, 0, 5);
+    history.commit(1000); // v1
+    history.chunkUnlocked(ChunkPos.asLong(1, 0));
+    history.creditsChanged(PLAYER, 5, 4);
+    history.commit(2000); // v2
+    history.chunkLocked(ChunkPos.asLong(0, 0));
+    history.chunkUnlocked(ChunkPos.asLong(2, 0));
+    history.creditsChanged(PLAYER, 4, 3);
+    history.commit(3000); // v3
+
+    UnlockHistory.Rollback rollback = history.computeRollback(1);
+
+    assertEquals(Map.of(ChunkPos.asLong(0, 0), true, ChunkPos.asLong(1, 0), false, ChunkPos.asLong(2, 0), false),
+        rollback.chunks());
+    assertEquals(Map.of(PLAYER, 5), rollback.credits());
+    assertTrue(history.computeRollback(3).chunks().isEmpty());
+  }
+
+  @Test
+  void findVersionAt_PicksNewestVersionAtOrBeforeTime() {
+    UnlockHistory history = new UnlockHistory();
+    for (int i = 1; i <= 3; i++) {
+      history.chunkUnlocked(ChunkPos.asLong(i, 0));
+      history.commit(i * 1000L);
+    }
+
+    assertEquals(2, history.findVersionAt(2500).getAsLong());
+    assertEquals(3, history.findVersionAt(9000).getAsLong());
+    assertEquals(0, history.findVersionAt(10).getAsLong());
+  }
+
+  @Test
+  void reopen_KeepsVersionsAndIgnoresTornEntry() throws Exception {
+    Path file = tempDir.resolve(UnlockHistory.FILE_NAME);
+    UnlockHistory history = new UnlockHistory(file, 10);
+    history.chunkUnlocked(ChunkPos.asLong(-4, 7));
+    history.commit(1000);
+    history.creditsChanged(PLAYER, 1, 2);
+    history.commit(2000);
+    history.writePending();
+    Files.write(file, new byte[] { 0, 0, 0, 40, 1, 2 }, StandardOpenOption.APPEND);
+
+    UnlockHistory reopened = new UnlockHistory(file, 10);
+    reopened.chunkLocked(ChunkPos.asLong(-4, 7));
+    reopened.commit(3000);
+    reopened.writePending();
+    UnlockHistory again = new UnlockHistory(file, 10);
+
+    assertEquals(3, again.getLatestVersion());
+    assertEquals(Map.of(ChunkPos.asLong(-4, 7), false), again.computeRollback(0).chunks());
+    assertEquals(Map.of(PLAYER, 1), again.computeRollback(0).credits());
+  }
+
+  @Test
+  void trimming_DropsOldestVersions() {
+    Path file = tempDir.resolve(UnlockHistory.FILE_NAME);
+    UnlockHistory history = new UnlockHistory(file, 3);
+    for (int i = 1; i <= 10; i++) {
+      history.chunkUnlocked(ChunkPos.asLong(i, i));
+      history.commit(i);
+      history.writePending();
+    }
+
+    UnlockHistory reopened = new UnlockHistory(file, 3);
+
+    assertEquals(7, reopened.getOldestReachableVersion());
+    assertThrows(IllegalArgumentException.class, () -> reopened.computeRollback(6));
+    assertEquals(3, reopened.computeRollback(7).chunks().size());
+  }
+
+  // ========== ROLLBACK TESTS ==========
+
+  @Test
+  void rollbackTo_RestoresChunksAndCredits() {
+    AdvancementCreditManager creditManager = new AdvancementCreditManager();
+    ChunkUnlockData data = new ChunkUnlockData(creditManager, tempDir);
+    data.load();
+    data.unlockChunk(new ChunkPos(0, 0));
+    creditManager.getPlayerData(PLAYER).addCredits(3);
+    data.save();
+    long checkpoint = data.getHistory().getLatestVersion();
+
+    data.unlockChunk(new ChunkPos(1, 0));
+    creditManager.getPlayerData(PLAYER).spendCredits(1);
+    data.save();
+    data.lockChunk(new ChunkPos(0, 0)); // Not saved yet: rolled back too
+
+    ChunkUnlockData.RollbackResult result = data.rollbackTo(checkpoint);
+
+    assertEquals(Set.of(new ChunkPos(0, 0)), result.unlocked());
+    assertEquals(Set.of(new ChunkPos(1, 0)), result.locked());
+    assertEquals(Set.of(PLAYER), result.players());
+    assertEquals(Set.of(new ChunkPos(0, 0)), data.getGlobalUnlockedChunks());
+    assertEquals(3, creditManager.getPlayerData(PLAYER).getAvailableCredits());
+
+    // The rollback is saved like any other change
+    data.save();
+    AdvancementCreditManager reloadedCredits = new AdvancementCreditManager();
+    ChunkUnlockData reloaded = new ChunkUnlockData(reloadedCredits, tempDir);
+    reloaded.load();
+    assertEquals(Set.of(new ChunkPos(0, 0)), reloaded.getGlobalUnlockedChunks());
+    assertEquals(3, reloadedCredits.getPlayerData(PLAYER).getAvailableCredits());
+  }
+}
@@ -8,6 +8,7 @@ import org.junit.jupiter.api.Test;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Random;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -15,7 +16,8 @@ import static org.junit.jupiter.api.Assertions.*;
 /**
  * Unit tests for the AreaDetector class.
  * 
- * Tests verify BFS-based connected component detection for chunk areas.
+ * Tests verify connected component detection for chunk areas, both from a
+ * whole chunk set and incrementally as chunks are unlocked and locked.
  * 
  * See: https://fabricmc.net/wiki/tutorial:testing
  */
@@ -361,4 +363,112 @@ public class AreaDetectorTest {
 
         assertEquals(disconnected.size(), allChunks.size());
     }
+
+    @Test
+    void testChunkUnlocked_MergesAreas_KeepsLargestId() {
+        unlock(0, 0);
+        unlock(1, 0);
+        unlock(2, 0);
+        unlock(4, 0);
+        int largeId = detector.getAreaId(ChunkPos.asLong(0, 0));
+        int smallId = detector.getAreaId(ChunkPos.asLong(4, 0));
+        assertNotEquals(largeId, smallId);
+
+        unlock(3, 0);
+
+        assertEquals(1, detector.getCachedAreaCount());
+        assertEquals(largeId, detector.getAreaId(ChunkPos.asLong(4, 0)));
+        assertEquals(5, detector.findAreaContainingChunk(new ChunkPos(3, 0)).orElseThrow().getChunkCount());
+    }
+
+    @Test
+    void testChunkLocked_SplitsArea_LargestPieceKeepsId() {
+        for (int x = 0; x <= 5; x++) {
+            unlock(x, 0);
+        }
+        int id = detector.getAreaId(ChunkPos.asLong(0, 0));
+
+        detector.chunkLocked(ChunkPos.asLong(2, 0));
+
+        assertEquals(2, detector.getCachedAreaCount());
+        assertEquals(id, detector.getAreaId(ChunkPos.asLong(5, 0)));
+        assertNotEquals(id, detector.getAreaId(ChunkPos.asLong(0, 0)));
+        assertEquals(-1, detector.getAreaId(ChunkPos.asLong(2, 0)));
+        assertEquals(2, detector.findAreaContainingChunk(new ChunkPos(1, 0)).orElseThrow().getChunkCount());
+        assertEquals(3, detector.findAreaContainingChunk(new ChunkPos(3, 0)).orElseThrow().getChunkCount());
+    }
+
+    @Test
+    void testChunkLocked_LoopStaysConnected() {
+        // Ring around (1, 1): removing one side leaves it connected
+        for (int x = 0; x <= 2; x++) {
+            for (int z = 0; z <= 2; z++) {
+                if (x != 1 || z != 1) {
+                    unlock(x, z);
+                }
+            }
+        }
+        int id = detector.getAreaId(ChunkPos.asLong(0, 0));
+
+        detector.chunkLocked(ChunkPos.asLong(1, 0));
+
+        assertEquals(1, detector.getCachedAreaCount());
+        assertEquals(id, detector.getAreaId(ChunkPos.asLong(2, 0)));
+    }
+
+    @Test
+    void testIncrementalUpdates_MatchFullDetection() {
+        Random random = new Random(7);
+        Set<ChunkPos> unlocked = new HashSet<>();
+        for (int i = 0; i < 3000; i++) {
+            ChunkPos pos = new ChunkPos(random.nextInt(16), random.nextInt(16));
+            if (random.nextInt(3) == 0) {
+                unlocked.remove(pos);
+                detector.chunkLocked(ChunkPos.asLong(pos.x, pos.z));
+            } else {
+                unlocked.add(pos);
+                detector.chunkUnlocked(ChunkPos.asLong(pos.x, pos.z));
+            }
+
+            if (i % 100 == 0) {
+                Set<Set<ChunkPos>> expected = new HashSet<>();
+                for (PlayableArea area : new AreaDetector().detectAreas(unlocked)) {
+                    expected.add(area.getChunks());
+                }
+                Set<Set<ChunkPos>> actual = new HashSet<>();
+                for (PlayableArea area : detector.getCachedAreas()) {
+                    actual.add(area.getChunks());
+                }
+                assertEquals(expected, actual, "Areas differ after " + i + " changes");
+
+                for (PlayableArea area : detector.getCachedAreas()) {
+                    PlayableArea computed = new PlayableArea(area.getAreaId(), area.getChunks());
+                    assertEquals(computed.getPerimeter(), area.getPerimeter());
+                    assertEquals(computed.getCenter(), area.getCenter());
+                    assertEquals(computed.getMinX(), area.getMinX());
+                    assertEquals(computed.getMinZ(), area.getMinZ());
+                    assertEquals(computed.getMaxX(), area.getMaxX());
+                    assertEquals(computed.getMaxZ(), area.getMaxZ());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testFindAdjacentAreas_ChunkTouchingOneAreaTwice_ReturnsItOnce() {
+        unlock(0, 0);
+        unlock(1, 0);
+        unlock(2, 0);
+        unlock(0, 1);
+        unlock(2, 1);
+
+        List<PlayableArea> adjacent = detector.findAdjacentAreas(new ChunkPos(1, 1));
+
+        assertEquals(1, adjacent.size());
+        assertEquals(5, adjacent.get(0).getChunkCount());
+    }
+
+    private void unlock(int x, int z) {
+        detector.chunkUnlocked(ChunkPos.asLong(x, z));
+    }
 }
@@ -120,6 +120,28 @@ public class PlayableAreaTest {
         assertEquals(-4, center.z);
     }
 
+    @Test
+    void testBoundingBox_CoversAllChunks() {
+        PlayableArea area = new PlayableArea(1, disconnectedChunks);
+
+        assertEquals(0, area.getMinX());
+        assertEquals(0, area.getMinZ());
+        assertEquals(5, area.getMaxX());
+        assertEquals(5, area.getMaxZ());
+    }
+
+    @Test
+    void testGetPerimeter_CountsOutwardEdges() {
+        assertEquals(4, new PlayableArea(1, singleChunk).getPerimeter());
+        assertEquals(8, new PlayableArea(1, adjacentChunks).getPerimeter());
+
+        Set<ChunkPos> line = new HashSet<>();
+        for (int x = 0; x < 5; x++) {
+            line.add(new ChunkPos(x, 0));
+        }
+        assertEquals(12, new PlayableArea(1, line).getPerimeter());
+    }
+
     @Test
     void testContains_ChunkExists_ReturnsTrue() {
         PlayableArea area = new PlayableArea(1, adjacentChunks);
@@ -3,89 +3,46 @@ package chunklocked.respawn;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.HashSet;
+import java.util.OptionalLong;
 import java.util.Set;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import chunklocked.core.NearestChunkIndex;
 import net.minecraft.world.level.ChunkPos;
 
 /**
  * Unit tests for respawn helper logic.
  * 
- * Tests the nearest unlocked chunk finding algorithm used during player respawn.
- * This algorithm uses a spiral search pattern to find the closest safe spawn location.
- * 
- * NOTE: These tests CANNOT RUN due to Minecraft bootstrap requirements.
- * ChunkPos requires full Minecraft initialization which is not available in unit tests.
- * 
- * These tests are kept for documentation and future integration testing purposes.
- * The algorithm correctness is validated through:
- * 1. Manual testing (see manual-tests/RespawnInLockedChunks.md)
- * 2. Code review of the algorithm logic
- * 3. In-game testing during development
- * 
- * If this functionality needs automated testing, it should be done via:
- * - Fabric's game test framework (integration tests)
- * - Manual test cases (documented)
- * - In-game verification during development
+ * Tests the nearest unlocked chunk lookup used during player respawn, which
+ * is answered by {@link NearestChunkIndex}: the exact closest unlocked chunk
+ * by Euclidean distance, at any distance.
  */
 class RespawnHelperTest {
 
 	/**
-	 * Helper method that replicates the nearest chunk finding algorithm from
-	 * Chunklocked.findNearestUnlockedChunk().
-	 * This allows us to test the algorithm without Minecraft bootstrap overhead.
+	 * Answers the query the way ChunkManager.findNearestUnlockedChunk() does:
+	 * from a spatial index over the unlocked chunks.
 	 */
 	private ChunkPos findNearestUnlockedChunk(ChunkPos origin, Set<ChunkPos> unlockedChunks) {
-		if (unlockedChunks.isEmpty()) {
-			return null;
-		}
+		return findNearestUnlockedChunk(origin, indexOf(unlockedChunks));
+	}
 
-		// First check if any adjacent chunks are unlocked (most common case)
-		ChunkPos[] adjacent = {
-				new ChunkPos(origin.x - 1, origin.z),
-				new ChunkPos(origin.x + 1, origin.z),
-				new ChunkPos(origin.x, origin.z - 1),
-				new ChunkPos(origin.x, origin.z + 1)
-		};
-		for (ChunkPos adj : adjacent) {
-			if (unlockedChunks.contains(adj)) {
-				return adj;
-			}
+	private ChunkPos findNearestUnlockedChunk(ChunkPos origin, NearestChunkIndex index) {
+		OptionalLong nearest = index.findNearest(origin.x, origin.z);
+		if (nearest.isEmpty()) {
+			return null;
 		}
+		return new ChunkPos(ChunkPos.getX(nearest.getAsLong()), ChunkPos.getZ(nearest.getAsLong()));
+	}
 
-		// Search in expanding square spiral up to 16 chunks away
-		int maxRadius = 16;
-		ChunkPos nearest = null;
-		double nearestDistSq = Double.MAX_VALUE;
-
-		for (int radius = 1; radius <= maxRadius; radius++) {
-			for (int dx = -radius; dx <= radius; dx++) {
-				for (int dz = -radius; dz <= radius; dz++) {
-					// Only check chunks on the current radius perimeter
-					if (Math.abs(dx) != radius && Math.abs(dz) != radius) {
-						continue;
-					}
-
-					ChunkPos candidate = new ChunkPos(origin.x + dx, origin.z + dz);
-					if (unlockedChunks.contains(candidate)) {
-						double distSq = dx * dx + dz * dz;
-						if (distSq < nearestDistSq) {
-							nearestDistSq = distSq;
-							nearest = candidate;
-						}
-					}
-				}
-			}
-			// If we found something at this radius, return it (closest possible)
-			if (nearest != null) {
-				return nearest;
-			}
+	private NearestChunkIndex indexOf(Set<ChunkPos> unlockedChunks) {
+		NearestChunkIndex index = new NearestChunkIndex();
+		for (ChunkPos pos : unlockedChunks) {
+			index.add(ChunkPos.asLong(pos.x, pos.z));
 		}
-
-		// If nothing found in search radius, just return any unlocked chunk
-		return unlockedChunks.iterator().next();
+		return index;
 	}
 
 	@Test
@@ -221,7 +178,7 @@ class RespawnHelperTest {
 	}
 
 	@Test
-	@DisplayName("Returns fallback chunk when none found within max radius")
+	@DisplayName("Finds chunks beyond the old 16-chunk search radius")
 	void testFallbackBeyondMaxRadius() {
 		ChunkPos origin = new ChunkPos(0, 0);
 		Set<ChunkPos> unlockedChunks = new HashSet<>();
@@ -230,7 +187,22 @@ class RespawnHelperTest {
 
 		ChunkPos result = findNearestUnlockedChunk(origin, unlockedChunks);
 
-		assertEquals(faraway, result, "Should return fallback chunk when none found within max radius");
+		assertEquals(faraway, result, "Should find the only unlocked chunk, however far away");
+	}
+
+	@Test
+	@DisplayName("Finds the nearest of several distant areas")
+	void testNearestDistantArea() {
+		ChunkPos origin = new ChunkPos(0, 0);
+		Set<ChunkPos> unlockedChunks = new HashSet<>();
+		ChunkPos nearer = new ChunkPos(-60, 0);
+		unlockedChunks.add(new ChunkPos(100, 100));
+		unlockedChunks.add(nearer);
+		unlockedChunks.add(new ChunkPos(0, 90));
+
+		ChunkPos result = findNearestUnlockedChunk(origin, unlockedChunks);
+
+		assertEquals(nearer, result, "Should pick the closest area, not an arbitrary one");
 	}
 
 	@Test
@@ -282,12 +254,19 @@ class RespawnHelperTest {
 			}
 		}
 
+		// The respawn chunk itself is locked, or there would be nothing to search
+		unlockedChunks.remove(origin);
+
 		// Should still find adjacent efficiently
 		ChunkPos adjacent = new ChunkPos(0, -1);
 		unlockedChunks.add(adjacent);
 
+		// The index is maintained as chunks unlock and already in use when a
+		// player respawns; only the query is timed
+		NearestChunkIndex index = indexOf(unlockedChunks);
+		findNearestUnlockedChunk(new ChunkPos(500, 500), index);
 		long startTime = System.nanoTime();
-		ChunkPos result = findNearestUnlockedChunk(origin, unlockedChunks);
+		ChunkPos result = findNearestUnlockedChunk(origin, index);
 		long duration = System.nanoTime() - startTime;
 
 		assertEquals(adjacent, result, "Should find adjacent chunk even with large set");